@@ -0,0 +1,68 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+import io.github.swampus.alexandra.nureonlang.parser.impl.InternalNureonLangServiceImpl;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramGenerator;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramSpec;
+import io.github.swampus.alexandra.translator.impl.NureonLangToIRTranslatorImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inputs shared by the benchmarks, sized by the number of hidden layers.
+ */
+final class BenchmarkPrograms {
+
+    /** Width of every hidden layer in generated programs. */
+    static final int WIDTH = 16;
+
+    private BenchmarkPrograms() {
+    }
+
+    /**
+     * Returns a NureonLang program with one input, {@code layers} dense layers
+     * wired as a chain and one output.
+     */
+    static String denseChain(int layers) {
+        return SyntheticProgramGenerator.generate(SyntheticProgramSpec.builder()
+                .layers(layers)
+                .fanIn(1)
+                .window(1)
+                .width(WIDTH)
+                .build());
+    }
+
+    /**
+     * Returns a development-phase input: a single top-level {@code FOR} that
+     * unrolls into {@code iterations} dense layers.
+     */
+    static List<Instruction> forLoop(int iterations) {
+        Instruction layer = Instruction.builder()
+                .op(OpCode.LAYER)
+                .type("dense")
+                .name("h[i]")
+                .size(WIDTH)
+                .activation("relu")
+                .build();
+        Instruction loop = Instruction.builder()
+                .op(OpCode.FOR)
+                .var("i")
+                .fromVal(0)
+                .toVal(iterations - 1)
+                .body(new ArrayList<>(List.of(layer)))
+                .build();
+        return List.of(loop);
+    }
+
+    static Instruction translate(String source) {
+        return new NureonLangToIRTranslatorImpl(new InternalNureonLangServiceImpl()).translate(source);
+    }
+
+    static NetworkModel compile(String source) {
+        return new IRNetworkCompiler().compile(translate(source));
+    }
+}
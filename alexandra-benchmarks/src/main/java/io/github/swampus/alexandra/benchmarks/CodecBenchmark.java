@@ -0,0 +1,87 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.networkapi.artifact.impl.v1.ArtifactSerializerV1;
+import io.github.swampus.alexandra.networkapi.artifact.model.RuntimeNetworkModel;
+import io.github.swampus.alexandra.networkapi.weight.domain.model.Weights;
+import io.github.swampus.alexandra.networkapi.weight.infrastructure.codec.BinaryWeightsCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary weights codec and the artifact-v1 JSON serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int layers;
+
+    private BinaryWeightsCodec codec;
+    private Weights weights;
+    private byte[] encodedWeights;
+
+    private ArtifactSerializerV1 serializer;
+    private NetworkModel model;
+    private String artifact;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        int w = BenchmarkPrograms.WIDTH;
+
+        Map<String, double[]> flat = new LinkedHashMap<>();
+        for (int i = 0; i < layers; i++) {
+            double[] kernel = new double[w * w];
+            for (int j = 0; j < kernel.length; j++) kernel[j] = rnd.nextGaussian();
+            flat.put("h" + i + ".W", kernel);
+            flat.put("h" + i + ".b", new double[w]);
+        }
+        codec = new BinaryWeightsCodec();
+        weights = new Weights(flat);
+        encodedWeights = codec.encode(weights);
+
+        serializer = new ArtifactSerializerV1();
+        model = BenchmarkPrograms.compile(BenchmarkPrograms.denseChain(layers));
+        artifact = serializer.serialize(model);
+    }
+
+    @Benchmark
+    public byte[] weightsEncode() {
+        return codec.encode(weights);
+    }
+
+    @Benchmark
+    public Weights weightsDecode() {
+        return codec.decode(encodedWeights);
+    }
+
+    @Benchmark
+    public String artifactSerialize() {
+        return serializer.serialize(model);
+    }
+
+    @Benchmark
+    public RuntimeNetworkModel artifactDeserialize() {
+        return serializer.deserialize(artifact);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.development.IRDeveloper;
+import io.github.swampus.alexandra.compiler.development.expanders.ForExpander;
+import io.github.swampus.alexandra.compiler.development.expanders.IfExpander;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IR to {@link NetworkModel} compilation and the development (unrolling) phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompilerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int layers;
+
+    private Instruction ir;
+    private List<Instruction> loop;
+    private IRDeveloper developer;
+
+    @Setup
+    public void setUp() {
+        ir = BenchmarkPrograms.translate(BenchmarkPrograms.denseChain(layers));
+        loop = BenchmarkPrograms.forLoop(layers);
+        developer = new IRDeveloper(List.of(new ForExpander(), new IfExpander()));
+    }
+
+    @Benchmark
+    public NetworkModel compile() {
+        return new IRNetworkCompiler().compile(ir);
+    }
+
+    @Benchmark
+    public List<Instruction> develop() {
+        return developer.develop(loop);
+    }
+
+    @Benchmark
+    public int developStreaming() {
+        int count = 0;
+        for (Iterator<Instruction> it = developer.iterate(loop); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.compiler.execution.NetworkExecutor;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numeric forward pass: a single {@link DenseLayer} of varying width and a
+ * whole compiled chain driven by {@link NetworkExecutor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForwardBenchmark {
+
+    /** Dense width for {@link #denseForward()} and chain length for {@link #networkForward()}. */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private DenseLayer dense;
+    private Map<String, double[]> denseInput;
+    private NetworkExecutor executor;
+    private Map<String, double[]> networkInput;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+
+        InputLayer in = new InputLayer("in", size);
+        dense = new DenseLayer("dense", size, "relu");
+        dense.addInput(in);
+        in.addOutput(dense);
+        double[] w = new double[size * size];
+        for (int i = 0; i < w.length; i++) w[i] = rnd.nextGaussian();
+        dense.setWeights(w, size);
+        dense.setBias(new double[size]);
+        denseInput = Map.of("in", vector(rnd, size));
+
+        executor = new NetworkExecutor(BenchmarkPrograms.compile(BenchmarkPrograms.denseChain(size)));
+        networkInput = Map.of("x", vector(rnd, BenchmarkPrograms.WIDTH));
+        executor.execute(networkInput); // trigger lazy weight init outside the measurement
+    }
+
+    @Benchmark
+    public double[] denseForward() {
+        return dense.forward(denseInput);
+    }
+
+    @Benchmark
+    public Map<String, double[]> networkForward() {
+        return executor.execute(networkInput);
+    }
+
+    private static double[] vector(Random rnd, int n) {
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) v[i] = rnd.nextGaussian();
+        return v;
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.nureonlang.parser.impl.InternalNureonLangServiceImpl;
+import io.github.swampus.alexandra.nureonlang.parser.impl.SyntaxCheckResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ANTLR front-end: full parse tree construction and syntax-only checks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int layers;
+
+    private InternalNureonLangServiceImpl service;
+    private String source;
+
+    @Setup
+    public void setUp() {
+        service = new InternalNureonLangServiceImpl();
+        source = BenchmarkPrograms.denseChain(layers);
+    }
+
+    @Benchmark
+    public Object parse() {
+        return service.parse(source);
+    }
+
+    @Benchmark
+    public SyntaxCheckResult checkSyntax() {
+        return service.checkSyntax(source);
+    }
+}
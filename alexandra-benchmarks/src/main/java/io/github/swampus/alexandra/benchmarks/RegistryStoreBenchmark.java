@@ -0,0 +1,127 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.networkapi.registry.domain.model.ArtifactMetadata;
+import io.github.swampus.alexandra.networkapi.registry.domain.port.ArtifactIndexStore;
+import io.github.swampus.alexandra.networkapi.registry.domain.port.ArtifactPayloadStore;
+import io.github.swampus.alexandra.networkapi.registry.infrastructure.storage.fs.FileSystemArtifactIndexStore;
+import io.github.swampus.alexandra.networkapi.registry.infrastructure.storage.fs.FileSystemArtifactPayloadStore;
+import io.github.swampus.alexandra.networkapi.registry.infrastructure.storage.memory.InMemoryArtifactIndexStore;
+import io.github.swampus.alexandra.networkapi.registry.infrastructure.storage.memory.InMemoryArtifactPayloadStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Registry index and payload stores (in-memory and file system), sized by the
+ * number of artifacts already present in the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryStoreBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int artifacts;
+
+    @Param({"memory", "fs"})
+    public String store;
+
+    private Path root;
+    private ArtifactIndexStore index;
+    private ArtifactPayloadStore payloads;
+    private byte[] payload;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("fs".equals(store)) {
+            root = Files.createTempDirectory("alexandra-registry-bench");
+            index = new FileSystemArtifactIndexStore(root.resolve("index"));
+            payloads = new FileSystemArtifactPayloadStore(root.resolve("payload"));
+        } else {
+            index = new InMemoryArtifactIndexStore();
+            payloads = new InMemoryArtifactPayloadStore();
+        }
+        payload = BenchmarkPrograms.denseChain(BenchmarkPrograms.WIDTH).getBytes();
+        for (int i = 0; i < artifacts; i++) {
+            index.upsert(metadata(i));
+            payloads.put(id(i), payload);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (root == null) return;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public ArtifactMetadata indexUpsert() {
+        ArtifactMetadata m = metadata(next());
+        index.upsert(m);
+        return m;
+    }
+
+    @Benchmark
+    public Optional<ArtifactMetadata> indexFindById() {
+        return index.findById(id(next()));
+    }
+
+    @Benchmark
+    public List<ArtifactMetadata> indexFindByCluster() {
+        return index.findByClusterId("cluster-" + (next() % 8));
+    }
+
+    @Benchmark
+    public Optional<byte[]> payloadGet() {
+        return payloads.get(id(next()));
+    }
+
+    @Benchmark
+    public int payloadPut() {
+        int i = next();
+        payloads.put(id(i), payload);
+        return i;
+    }
+
+    private int next() {
+        cursor = (cursor + 1) % artifacts;
+        return cursor;
+    }
+
+    private static String id(int i) {
+        return "artifact-" + i;
+    }
+
+    private static ArtifactMetadata metadata(int i) {
+        return new ArtifactMetadata(id(i), "cluster-" + (i % 8), "task-" + i, "1.0." + i,
+                "NureonLang", Instant.ofEpochSecond(1_700_000_000L + i));
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.nureonlang.parser.impl.InternalNureonLangServiceImpl;
+import io.github.swampus.alexandra.translator.NureonLangToIRTranslator;
+import io.github.swampus.alexandra.translator.impl.NureonLangToIRTranslatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source to IR translation (parse + visitor).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int layers;
+
+    private NureonLangToIRTranslator translator;
+    private String source;
+
+    @Setup
+    public void setUp() {
+        translator = new NureonLangToIRTranslatorImpl(new InternalNureonLangServiceImpl());
+        source = BenchmarkPrograms.denseChain(layers);
+    }
+
+    @Benchmark
+    public Instruction translate() {
+        return translator.translate(source);
+    }
+}
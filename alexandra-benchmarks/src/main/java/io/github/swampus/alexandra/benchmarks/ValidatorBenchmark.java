@@ -0,0 +1,49 @@
+package io.github.swampus.alexandra.benchmarks;
+
+import io.github.swampus.alexandra.compiler.extensions.InvalidNetworkException;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.validator.spi.ShapeAndDryRunValidator;
+import io.github.swampus.alexandra.compiler.validator.spi.impl.DefaultLayerIntrospector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shape inference and dry run over an already compiled model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int layers;
+
+    private NetworkModel model;
+    private ShapeAndDryRunValidator validator;
+
+    @Setup
+    public void setUp() {
+        model = BenchmarkPrograms.compile(BenchmarkPrograms.denseChain(layers));
+        validator = new ShapeAndDryRunValidator(new DefaultLayerIntrospector(), 8);
+    }
+
+    @Benchmark
+    public NetworkModel shapeAndDryRun() throws InvalidNetworkException {
+        validator.validate(model);
+        return model;
+    }
+}
@@ -82,6 +82,10 @@ public record CompileResponseDto(
          * <p>This field contains the fully constructed network object
          * that can be passed to training or execution components.
          *
+         * <p>Its {@code meta} carries the static cost estimate under {@code cost}:
+         * parameter count, multiply-adds per sample and peak activation memory,
+         * in total and per layer.
+         *
          * <p>May be {@code null} if compilation failed or was aborted early.
          */
         NNetworkDto model,
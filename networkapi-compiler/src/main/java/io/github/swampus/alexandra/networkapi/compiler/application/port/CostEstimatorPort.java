@@ -0,0 +1,13 @@
+package io.github.swampus.alexandra.networkapi.compiler.application.port;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+
+public interface CostEstimatorPort {
+
+    /**
+     * Estimates the static cost of a compiled network (parameters, multiply-adds,
+     * activation memory) and records it in the model metadata.
+     * Best-effort: never fails the compilation; on error no estimate is recorded.
+     */
+    void annotate(NetworkModel model);
+}
@@ -8,6 +8,7 @@ import io.github.swampus.alexandra.dto.shared.instruction.InstructionDto;
 import io.github.swampus.alexandra.dto.shared.network.NNetworkDto;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.CompilePayloadPort;
+import io.github.swampus.alexandra.networkapi.compiler.application.port.CostEstimatorPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.InstructionMapperPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkCompilerPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkModelMapperPort;
@@ -27,6 +28,7 @@ import java.util.List;
  *   <li>Translation of source code into an intermediate representation (IR)</li>
  *   <li>Compilation of IR into an internal {@link NetworkModel}</li>
  *   <li>Optional semantic and structural validation</li>
+ *   <li>Static cost estimation, recorded in the model metadata</li>
  *   <li>Mapping of the compiled model into transport-friendly DTOs</li>
  *   <li>Construction of a canonical binary payload for persistence</li>
  * </ol>
@@ -67,6 +69,11 @@ public class CompileNetworkUseCase {
      */
     private final CompilePayloadPort payloadBuilder;
 
+    /**
+     * Estimates parameters, multiply-adds and activation memory of compiled models.
+     */
+    private final CostEstimatorPort costEstimator;
+
     /**
      * Compiles the provided NureonLang source code into a validated network artifact.
      *
@@ -111,6 +118,9 @@ public class CompileNetworkUseCase {
             validator.validate(model);
         }
 
+        // 3b. Static cost estimate (model meta -> DTO meta -> response)
+        costEstimator.annotate(model);
+
         // 4. Map IR and model into DTOs
         InstructionDto irDto = instructionMapper.toDto(ir);
         NNetworkDto networkDto =
@@ -0,0 +1,55 @@
+package io.github.swampus.alexandra.networkapi.compiler.infrastructure.adapter;
+
+import io.github.swampus.alexandra.compiler.cost.NetworkCost;
+import io.github.swampus.alexandra.compiler.cost.Precision;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.validator.spi.ShapeAndDryRunValidator;
+import io.github.swampus.alexandra.networkapi.compiler.application.port.CostEstimatorPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Infrastructure adapter exposing the compiler's static cost model
+ * through the {@link CostEstimatorPort}.
+ *
+ * <p>The estimate is written into the model metadata, from where it reaches
+ * the compiled network DTO and the compile API response. It is best-effort:
+ * if estimation fails, the model is left without a {@code cost} entry and
+ * compilation is unaffected.</p>
+ */
+public class CostEstimatorAdapter implements CostEstimatorPort {
+
+    private static final Logger log =
+            LoggerFactory.getLogger(CostEstimatorAdapter.class);
+
+    private final ShapeAndDryRunValidator shapes;
+    private final int batchSize;
+    private final Precision precision;
+
+    public CostEstimatorAdapter(
+            ShapeAndDryRunValidator shapes,
+            int batchSize,
+            Precision precision
+    ) {
+        this.shapes = shapes;
+        this.batchSize = batchSize;
+        this.precision = precision;
+    }
+
+    @Override
+    public void annotate(NetworkModel model) {
+        if (model.getAllLayers().isEmpty()) {
+            return; // nothing to estimate
+        }
+        try {
+            shapes.estimateCost(model, batchSize, precision);
+        } catch (RuntimeException e) {
+            model.getMeta().remove(NetworkCost.META_KEY);
+            log.debug(
+                    "Failed to estimate network cost. " +
+                            "This does not affect compilation result.",
+                    e
+            );
+        }
+    }
+}
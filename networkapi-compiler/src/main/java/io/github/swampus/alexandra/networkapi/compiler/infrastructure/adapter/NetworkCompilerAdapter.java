@@ -1,7 +1,7 @@
 package io.github.swampus.alexandra.networkapi.compiler.infrastructure.adapter;
 
-import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
 import io.github.swampus.alexandra.compiler.NetworkCompilerFacade;
+import io.github.swampus.alexandra.compiler.diagnostics.RingBufferDiagnosticsSink;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkCompilerPort;
@@ -10,9 +10,9 @@ import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkC
  * Infrastructure adapter exposing network compilation capabilities
  * through the {@link NetworkCompilerPort}.
  *
- * <p>This adapter delegates compilation either to a facade-based
- * compiler or to a trace-enabled compiler depending on the
- * requested compilation mode.</p>
+ * <p>This adapter delegates compilation to the facade, collecting a
+ * diagnostics trace when one is requested. Both modes run the same
+ * optimizer and validation.</p>
  *
  * <p>No business decisions are made here; the adapter only
  * adapts infrastructure capabilities to application-level ports.</p>
@@ -20,14 +20,9 @@ import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkC
 public class NetworkCompilerAdapter implements NetworkCompilerPort {
 
     private final NetworkCompilerFacade facade;
-    private final IRNetworkCompiler traceCompiler;
 
-    public NetworkCompilerAdapter(
-            NetworkCompilerFacade facade,
-            IRNetworkCompiler traceCompiler
-    ) {
+    public NetworkCompilerAdapter(NetworkCompilerFacade facade) {
         this.facade = facade;
-        this.traceCompiler = traceCompiler;
     }
 
     @Override
@@ -40,8 +35,9 @@ public class NetworkCompilerAdapter implements NetworkCompilerPort {
             return new CompilationOutput(model, null);
         }
 
-        NetworkModel model = traceCompiler.compile(instruction);
-        String trace = traceCompiler.getTraceAsString();
+        RingBufferDiagnosticsSink diagnostics = new RingBufferDiagnosticsSink();
+        NetworkModel model = facade.compile(instruction, diagnostics);
+        String trace = String.join("\n", diagnostics.lines());
 
         return new CompilationOutput(model, trace);
     }
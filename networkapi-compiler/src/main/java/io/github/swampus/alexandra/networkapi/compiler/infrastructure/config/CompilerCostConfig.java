@@ -0,0 +1,32 @@
+package io.github.swampus.alexandra.networkapi.compiler.infrastructure.config;
+
+import io.github.swampus.alexandra.compiler.cost.Precision;
+import io.github.swampus.alexandra.compiler.validator.spi.ShapeAndDryRunValidator;
+import io.github.swampus.alexandra.compiler.validator.spi.impl.DefaultLayerIntrospector;
+import io.github.swampus.alexandra.networkapi.compiler.application.port.CostEstimatorPort;
+import io.github.swampus.alexandra.networkapi.compiler.infrastructure.adapter.CostEstimatorAdapter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Infrastructure configuration for the static cost model.
+ *
+ * <p>Batch size and activation precision are taken from
+ * {@code compiler.cost.batch-size} and {@code compiler.cost.precision}.</p>
+ */
+@Configuration
+public class CompilerCostConfig {
+
+    @Bean
+    public CostEstimatorPort costEstimatorPort(
+            @Value("${compiler.cost.batch-size:1}") int batchSize,
+            @Value("${compiler.cost.precision:FP32}") Precision precision
+    ) {
+        return new CostEstimatorAdapter(
+                new ShapeAndDryRunValidator(new DefaultLayerIntrospector(), /* maxPasses */ 8),
+                batchSize,
+                precision
+        );
+    }
+}
@@ -2,6 +2,7 @@ package io.github.swampus.alexandra.networkapi.compiler.infrastructure.config;
 
 import io.github.swampus.alexandra.compiler.validator.NetworkModelValidator;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.CompilePayloadPort;
+import io.github.swampus.alexandra.networkapi.compiler.application.port.CostEstimatorPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.InstructionMapperPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkCompilerPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkModelMapperPort;
@@ -56,6 +57,8 @@ public class CompilerNetworkApiUseCaseConfig {
      * @param modelMapper           mapper from internal models to DTOs
      * @param networkCompilerPort   compiler port hiding infrastructure details
      * @param validator             syntax validator
+     * @param payloadBuilder        canonical payload builder
+     * @param costEstimator         static cost model
      * @return compilation use case
      */
     @Bean
@@ -65,7 +68,8 @@ public class CompilerNetworkApiUseCaseConfig {
             NetworkModelMapperPort modelMapper,
             NetworkCompilerPort networkCompilerPort,
             NetworkModelValidator validator,
-            CompilePayloadPort payloadBuilder          // ✅ ДОБАВЛЕНО
+            CompilePayloadPort payloadBuilder,         // ✅ ДОБАВЛЕНО
+            CostEstimatorPort costEstimator
     ) {
         return new CompileNetworkUseCase(
                 translator,
@@ -73,7 +77,8 @@ public class CompilerNetworkApiUseCaseConfig {
                 instructionMapperPort,
                 modelMapper,
                 validator,
-                payloadBuilder                           // ✅ ПЕРЕДАН
+                payloadBuilder,                          // ✅ ПЕРЕДАН
+                costEstimator
         );
     }
 
@@ -2,9 +2,12 @@ package io.github.swampus.alexandra.networkapi.compiler.infrastructure.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
-import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
 import io.github.swampus.alexandra.compiler.NetworkCompilerFacade;
+import io.github.swampus.alexandra.compiler.optimizer.GraphOptimizer;
+import io.github.swampus.alexandra.compiler.optimizer.impl.DeadLayerEliminationPass;
 import io.github.swampus.alexandra.compiler.validator.NetworkModelValidator;
+import io.github.swampus.alexandra.compiler.validator.PostCompileValidationService;
+import io.github.swampus.alexandra.compiler.validator.ValidationLevel;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.InstructionMapperPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkCompilerPort;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkModelMapperPort;
@@ -15,9 +18,12 @@ import io.github.swampus.alexandra.nureonlang.parser.impl.InternalNureonLangServ
 import io.github.swampus.alexandra.nureonlang.parser.internal.InternalNureonLangService;
 import io.github.swampus.alexandra.translator.NureonLangToIRTranslator;
 import io.github.swampus.alexandra.translator.impl.NureonLangToIRTranslatorImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 /**
  * Infrastructure composition root for the Network Compiler API.
  */
@@ -49,17 +55,23 @@ public class NetworkCompilerInfrastructureConfig {
 
     // ===================== COMPILATION =====================
 
-    @Bean
-    public NetworkCompilerFacade networkCompilerFacade() {
-        return new NetworkCompilerFacade();
-    }
-
     /**
-     * Trace-capable IR compiler.
+     * Compiler facade. Layers no output depends on are pruned before
+     * validation unless {@code compiler.optimizer.dead-layer-elimination}
+     * is {@code false}; declared inputs are always kept.
      */
     @Bean
-    public IRNetworkCompiler irNetworkCompiler() {
-        return new IRNetworkCompiler();
+    public NetworkCompilerFacade networkCompilerFacade(
+            @Value("${compiler.optimizer.dead-layer-elimination:true}") boolean deadLayerElimination
+    ) {
+        GraphOptimizer optimizer = deadLayerElimination
+                ? new GraphOptimizer(List.of(new DeadLayerEliminationPass()))
+                : GraphOptimizer.none();
+        return new NetworkCompilerFacade(
+                new PostCompileValidationService(),
+                ValidationLevel.SHAPES,
+                optimizer
+        );
     }
 
     /**
@@ -67,13 +79,9 @@ public class NetworkCompilerInfrastructureConfig {
      */
     @Bean
     public NetworkCompilerPort networkCompilerPort(
-            NetworkCompilerFacade networkCompilerFacade,
-            IRNetworkCompiler irNetworkCompiler
+            NetworkCompilerFacade networkCompilerFacade
     ) {
-        return new NetworkCompilerAdapter(
-                networkCompilerFacade,
-                irNetworkCompiler
-        );
+        return new NetworkCompilerAdapter(networkCompilerFacade);
     }
 
     // ===================== MAPPERS =====================
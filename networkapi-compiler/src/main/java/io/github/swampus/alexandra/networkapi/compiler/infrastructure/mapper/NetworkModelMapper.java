@@ -1,6 +1,7 @@
 package io.github.swampus.alexandra.networkapi.compiler.infrastructure.mapper;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.swampus.alexandra.compiler.model.LayerGraph;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
 import io.github.swampus.alexandra.compiler.model.layer.Layer;
 import io.github.swampus.alexandra.dto.shared.instruction.InstructionDto;
@@ -8,6 +9,7 @@ import io.github.swampus.alexandra.dto.shared.network.NNetworkDto;
 import io.github.swampus.alexandra.dto.shared.network.NetworkEdgeDto;
 import io.github.swampus.alexandra.networkapi.compiler.application.port.NetworkModelMapperPort;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -41,7 +43,7 @@ public class NetworkModelMapper implements NetworkModelMapperPort {
         String irJson = serializeIr(irDto);
 
         return new NNetworkDto(
-                UUID.randomUUID().toString(), // id
+                contentId(source, irJson, edges), // id
                 null,                         // name
                 irJson,                       // ir
                 null,                         // weights
@@ -63,17 +65,15 @@ public class NetworkModelMapper implements NetworkModelMapperPort {
      * between two layers.</p>
      */
     private List<NetworkEdgeDto> extractEdges(NetworkModel model) {
-        List<NetworkEdgeDto> edges = new ArrayList<>();
+        LayerGraph graph = model.getGraph();
+        List<NetworkEdgeDto> edges = new ArrayList<>(graph.edgeCount());
 
         for (Layer from : model.getAllLayers()) {
-            if (from.getOutputs() == null) {
-                continue;
-            }
-
-            for (Layer to : from.getOutputs()) {
+            int v = graph.indexOf(from);
+            for (int k = 0; k < graph.outDegree(v); k++) {
                 edges.add(new NetworkEdgeDto(
                         from.getName(),
-                        to.getName(),
+                        graph.layer(graph.successor(v, k)).getName(),
                         DEFAULT_CHANNEL,
                         DIRECTION_FORWARD,
                         EDGE_TYPE_DATA,
@@ -85,6 +85,26 @@ public class NetworkModelMapper implements NetworkModelMapperPort {
         return edges;
     }
 
+    /**
+     * Derives the network id from what was compiled, so recompiling the same
+     * source yields the same id (and the same artifact): the source text when
+     * present, otherwise the IR, otherwise the edge list.
+     */
+    private static String contentId(String source, String irJson, List<NetworkEdgeDto> edges) {
+        String content = source;
+        if (content == null) {
+            content = irJson;
+        }
+        if (content == null) {
+            StringBuilder sb = new StringBuilder();
+            for (NetworkEdgeDto e : edges) {
+                sb.append(e.fromId()).append("->").append(e.toId()).append('\n');
+            }
+            content = sb.toString();
+        }
+        return UUID.nameUUIDFromBytes(content.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
     /**
      * Serializes the intermediate representation (IR) to JSON.
      */
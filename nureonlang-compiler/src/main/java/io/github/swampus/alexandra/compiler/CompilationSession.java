@@ -0,0 +1,959 @@
+package io.github.swampus.alexandra.compiler;
+
+import io.github.swampus.alexandra.compiler.diagnostics.CompileEvent;
+import io.github.swampus.alexandra.compiler.diagnostics.DiagnosticsSink;
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
+import io.github.swampus.alexandra.compiler.handlers.compilers.InstructionCompiler;
+import io.github.swampus.alexandra.compiler.handlers.compilers.impl.*;
+import io.github.swampus.alexandra.compiler.handlers.providers.InstructionProvider;
+import io.github.swampus.alexandra.compiler.handlers.providers.impl.InMemoryInstructionProvider;
+import io.github.swampus.alexandra.compiler.model.CompilationIssue;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.SymbolTable;
+import io.github.swampus.alexandra.compiler.model.layer.*;
+import io.github.swampus.alexandra.compiler.model.layer.ModuleLayer;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.InstructionRewriter;
+import io.github.swampus.alexandra.ir.model.OpCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mutable state of a single {@link IRNetworkCompiler#compile(Instruction, DiagnosticsSink)} run:
+ * the lazily compiled instruction registry, global inputs, deferred connects and the
+ * diagnostics sink.
+ *
+ * <p>A session is created per compilation and discarded afterwards, so nothing
+ * leaks between runs and the owning {@link IRNetworkCompiler} can be shared across
+ * threads. Instruction handlers that need to recurse (macro calls, expansions)
+ * receive the session rather than the compiler.</p>
+ *
+ * <p>With a parallel compiler the session forks independent top-level units (see
+ * {@link ParallelUnits}) into child sessions. A forked session never mutates shared
+ * state: it records layer registrations, trace events and {@code CONNECT}s as
+ * {@link Effect}s, and the owner replays each unit's journal in source order. With a
+ * {@link FragmentCache} the same journals are stored as {@link CompiledFragment}s and
+ * replayed for unchanged units on later compiles.</p>
+ *
+ * <p><b>Naming:</b> names local to a macro instance or an IF branch get a suffix
+ * derived from the call site, never from a random source. Each top-level
+ * statement (an element of the top-level blocks) gets a <em>site</em> from its
+ * {@link InstructionDigest content digest} and the number of equal statements
+ * before it; expansions inside
+ * the statement are numbered in compile order, and loop iterations open a nested
+ * site. Sequential, forked and cached compiles walk statements the same way, so
+ * identical source always yields identical layer names, in any JVM.</p>
+ *
+ * <p><b>Thread-safety:</b> Not thread-safe; confined to the compiling thread. The
+ * owner replays a batch's journals while later units of the same batch are still
+ * compiling, so forked sessions read nothing the replay writes: only the model's
+ * macro definitions, which stay fixed for the whole batch (a {@code MACRO_DEF} is
+ * a barrier, see {@link ParallelUnits}), and the prepared {@link MacroTemplate}s,
+ * shared through a synchronized map.</p>
+ *
+ * @since 0.9.0
+ */
+public final class CompilationSession {
+
+    private static final Logger log = LoggerFactory.getLogger(CompilationSession.class);
+
+    // Precompiled patterns to avoid re-compilation overhead in loops
+    private static final Pattern IDENTIFIERS_IN_EXPR = Pattern.compile("\\b([a-zA-Z_][a-zA-Z0-9_]*)\\b");
+    private static final Pattern SUFFIX_STRIPPER = Pattern.compile("__.*$");
+    private static final Pattern TRAILING_DIGITS = Pattern.compile("\\d+$");
+
+    /**
+     * Internal semantic pair for deferred connections; clearer than raw Map.Entry.
+     */
+    private record Connect(String from, String to) {}
+
+    /**
+     * Side effect recorded by a forked session and applied by its owner during replay.
+     * Effects capture instructions and names only, never layers, so a journal can be
+     * replayed more than once (see {@link CompiledFragment}).
+     */
+    @FunctionalInterface
+    interface Effect {
+        void apply(CompilationSession owner, NetworkModel model, Map<String, Layer> layers);
+    }
+
+    /**
+     * One independent unit of a block: a whole instruction, or the iterations
+     * {@code [from, to]} of a split {@code FOR} ({@code header} marks the chunk that
+     * traces the loop).
+     */
+    private record Unit(Instruction instr, long site, boolean loop, int from, int to, boolean header) {
+
+        static Unit whole(Instruction instr, long site) {
+            return new Unit(instr, site, false, 0, -1, false);
+        }
+    }
+
+    /** Journal of a forked unit, plus the failure that cut it short, if any. */
+    private record Forked(List<Effect> journal, RuntimeException failure) {}
+
+    /** Upper bound on {@code FOR} chunks per pool thread, to balance uneven iterations. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final IRNetworkCompiler compiler;
+    private final DiagnosticsSink diagnostics;
+    /** {@code log.isDebugEnabled()} captured once per compilation for the hot paths. */
+    private final boolean debug;
+    /** Whether trace events are produced; forked sessions recording for a cache always trace. */
+    private final boolean tracing;
+    /** Effects to replay in the owner; {@code null} unless this session is forked. */
+    private final List<Effect> journal;
+    /** Prepared macro bodies by definition; shared with forked sessions. */
+    private final Map<Instruction, MacroTemplate> macroTemplates;
+
+    private final Map<OpCode, InstructionCompiler> handlers = new EnumMap<>(OpCode.class);
+    private final Set<InstructionProvider> providers = new HashSet<>();
+
+    private final Map<String, Instruction> instructionMap = new HashMap<>();
+    private final Map<String, Layer> globalInputLayers = new HashMap<>();
+    private final List<Connect> pendingConnects = new ArrayList<>();
+    private final Map<String, Layer> layerMap = new HashMap<>();
+
+    /** Occurrences so far of each top-level statement content digest; owner only. */
+    private final Map<Long, Integer> statementOccurrences = new HashMap<>();
+    /** Naming site of the statement (or loop iteration) being compiled. */
+    private long site;
+    /** Expansions already named at {@link #site}. */
+    private int siteCounter;
+    /** Expansion ids handed out so far in this compile; owner only. */
+    private final Set<String> issuedSiteIds = new HashSet<>();
+
+    CompilationSession(IRNetworkCompiler compiler, DiagnosticsSink diagnostics) {
+        this(compiler, diagnostics, diagnostics.isEnabled(), null,
+                Collections.synchronizedMap(new IdentityHashMap<>()));
+    }
+
+    private CompilationSession(IRNetworkCompiler compiler,
+                               DiagnosticsSink diagnostics,
+                               boolean tracing,
+                               List<Effect> journal,
+                               Map<Instruction, MacroTemplate> macroTemplates) {
+        this.compiler = Objects.requireNonNull(compiler, "compiler");
+        this.diagnostics = Objects.requireNonNull(diagnostics, "diagnostics");
+        this.debug = log.isDebugEnabled();
+        this.tracing = tracing;
+        this.journal = journal;
+        this.macroTemplates = macroTemplates;
+
+        handlers.put(OpCode.MACRO_CALL, new MacroCallInstructionCompiler(this));
+        handlers.put(OpCode.EXPAND, new ExpandInstructionCompiler(this));
+        providers.add(new InMemoryInstructionProvider(instructionMap));
+    }
+
+    public IRNetworkCompiler getCompiler() {
+        return compiler;
+    }
+
+    public DiagnosticsSink getDiagnostics() {
+        return diagnostics;
+    }
+
+    private void trace(CompileEvent.Kind kind, String subject, String detail) {
+        if (!tracing) return;
+        CompileEvent event = new CompileEvent(kind, subject, detail);
+        if (journal != null) {
+            journal.add((owner, model, layers) -> {
+                if (owner.tracing) owner.diagnostics.accept(event);
+            });
+        } else {
+            diagnostics.accept(event);
+        }
+    }
+
+    /**
+     * Compiles {@code ir} into a fresh model. Compilation errors raised without a
+     * trace are re-thrown carrying the session's trace lines.
+     */
+    NetworkModel run(Instruction ir) {
+        return run(List.of(ir).iterator());
+    }
+
+    /**
+     * Compiles a stream of top-level instructions into one model, pulling each
+     * instruction only when the previous one has been compiled.
+     */
+    NetworkModel run(Iterator<Instruction> program) {
+        trace(CompileEvent.Kind.BEGIN, null, null);
+        try {
+            return compileRoot(program);
+        } catch (CompilationException e) {
+            if (e.getClass() != CompilationException.class || !e.getTrace().isEmpty() || !diagnostics.isEnabled()) {
+                throw e;
+            }
+            CompilationException traced = new CompilationException(e.getMessage(), diagnostics.lines());
+            traced.setStackTrace(e.getStackTrace());
+            throw traced;
+        }
+    }
+
+    private NetworkModel compileRoot(Iterator<Instruction> program) {
+        NetworkModel model = new NetworkModel();
+        Map<String, Layer> layers = new HashMap<>();
+        while (program.hasNext()) {
+            Instruction ir = Objects.requireNonNull(program.next(), "instruction");
+            if (!isContainer(ir)) {
+                compileStatement(ir, model, layers);
+            } else if (compiler.pool() != null || compiler.cache() != null) {
+                compileForked(ir.getBody(), model, layers);
+            } else {
+                compileStatements(ir.getBody(), model, layers);
+            }
+        }
+        bindAllConnects(model, layers); // must run after traversal
+        model.getGraph(); // freeze the CSR view consumed by validators/executor
+
+        if (debug) {
+            // Layers
+            log.debug("\n=== LAYERS ===");
+            for (Layer l : model.getAllLayers()) {
+                log.debug("  {}  ({})", l.getName(), l.getClass().getSimpleName());
+            }
+            // Edges
+            log.debug("\n=== EDGES ===");
+            for (Layer l : model.getAllLayers()) {
+                for (Layer to : l.getOutputs()) {
+                    log.debug("  {} -> {}", l.getName(), to.getName());
+                }
+            }
+            // Inputs per layer
+            log.debug("\n=== INPUTS per layer ===");
+            for (Layer l : model.getAllLayers()) {
+                StringBuilder sb = new StringBuilder().append(l.getName()).append(" <- ");
+                for (Layer in : l.getInputs()) sb.append(in.getName()).append(' ');
+                log.debug(sb.toString());
+            }
+        }
+        return model;
+    }
+
+    private void bindAllConnects(NetworkModel model, Map<String, Layer> layers) {
+        if (pendingConnects.isEmpty()) return;
+
+        // Lookup by the model's symbol ids, both model layers and the local map (last one wins)
+        SymbolTable symbols = model.getSymbols();
+        for (String name : layers.keySet()) symbols.intern(name);
+        Layer[] bySymbol = new Layer[symbols.size()];
+        for (Layer l : model.getAllLayers()) bySymbol[symbols.id(l.getName())] = l;
+        for (Map.Entry<String, Layer> e : layers.entrySet()) bySymbol[symbols.id(e.getKey())] = e.getValue();
+
+        // Existing edges, so the duplicate check is O(1) instead of a scan of the neighbour list
+        Set<Edge> inEdges = new HashSet<>();
+        Set<Edge> outEdges = new HashSet<>();
+        for (Layer l : bySymbol) {
+            if (l == null) continue;
+            for (Layer in : l.getInputs()) inEdges.add(new Edge(in, l));
+            for (Layer out : l.getOutputs()) outEdges.add(new Edge(l, out));
+        }
+
+        for (Connect c : pendingConnects) {
+            Layer fromLayer = lookup(bySymbol, symbols.id(c.from()));
+            Layer toLayer = lookup(bySymbol, symbols.id(c.to()));
+            if (fromLayer == null || toLayer == null) continue;
+            Edge edge = new Edge(fromLayer, toLayer);
+            if (inEdges.add(edge)) toLayer.addInput(fromLayer);
+            if (outEdges.add(edge)) fromLayer.addOutput(toLayer);
+        }
+        model.invalidateGraph();
+    }
+
+    private static Layer lookup(Layer[] bySymbol, int symbol) {
+        return symbol >= 0 && symbol < bySymbol.length ? bySymbol[symbol] : null;
+    }
+
+    /** Directed edge keyed by layer identity ({@link Layer} does not override {@code equals}). */
+    private record Edge(Layer from, Layer to) {}
+
+    private static boolean isContainer(Instruction ir) {
+        return (ir.getOp() == OpCode.PROGRAM || ir.getOp() == OpCode.BLOCK) && ir.getBody() != null;
+    }
+
+    /** Compiles a top-level block sequentially; nested blocks share the scope. */
+    private void compileStatements(List<Instruction> body, NetworkModel model, Map<String, Layer> layers) {
+        for (Instruction instr : body) {
+            if (isContainer(instr)) {
+                compileStatements(instr.getBody(), model, layers);
+            } else {
+                compileStatement(instr, model, layers);
+            }
+        }
+    }
+
+    private void compileStatement(Instruction instr, NetworkModel model, Map<String, Layer> layers) {
+        enterSite(statementSite(instr));
+        compileInstruction(instr, model, layers);
+    }
+
+    /**
+     * Site of the next top-level statement: its content digest mixed with the
+     * number of earlier statements with the same digest, so equal statements get
+     * distinct sites and an unrelated edit elsewhere in the program does not move
+     * them. The digest is JVM-independent, unlike {@link Instruction#hashCode()}.
+     */
+    private long statementSite(Instruction instr) {
+        long digest = InstructionDigest.of(instr);
+        int occurrence = statementOccurrences.merge(digest, 1, Integer::sum) - 1;
+        return mix(digest, occurrence);
+    }
+
+    private void enterSite(long site) {
+        this.site = site;
+        this.siteCounter = 0;
+    }
+
+    /**
+     * Returns the suffix for the names local to one macro instance, e.g.
+     * {@code __blk_3f09a1c2d4e5}. The suffix depends only on the call site (see
+     * the class documentation), so recompiling the same source reproduces it.
+     */
+    public String nextMacroSuffix(String macroName) {
+        return "__" + macroName + "_" + nextSiteId();
+    }
+
+    /**
+     * 48-bit hex id of the next expansion at the current site. A forked session
+     * records the id and its owner claims it on replay, so clashes are detected in
+     * source order whatever the scheduling.
+     */
+    private String nextSiteId() {
+        long mixed = mix(site, siteCounter++);
+        String id = Long.toHexString((mixed & 0xFFFF_FFFF_FFFFL) | (1L << 48)).substring(1);
+        if (journal != null) {
+            journal.add((owner, model, layers) -> owner.claimSiteId(id));
+        } else {
+            claimSiteId(id);
+        }
+        return id;
+    }
+
+    /**
+     * Records {@code id} as issued. Ids are truncated hashes of the site path, so
+     * two expansions may in principle draw the same one; their local names would
+     * then silently merge, and the compile fails instead.
+     *
+     * @throws CompilationException if {@code id} was already issued in this compile
+     */
+    void claimSiteId(String id) {
+        if (!issuedSiteIds.add(id)) {
+            throw new CompilationException("Expansion id " + id + " issued twice in one compile", null);
+        }
+    }
+
+    /** SplitMix64 finalizer over a site and a step within it. */
+    private static long mix(long site, long step) {
+        long z = site * 0x9E37_79B9_7F4A_7C15L + step + 0x632B_E59B_D9B4_E019L;
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Compiles a block body, batching consecutive independent instructions. Each
+     * batch is served from the fragment cache where possible and compiled on the
+     * pool otherwise. Dependent instructions run inline and act as batch barriers,
+     * so they observe exactly the state a sequential run would.
+     */
+    private void compileForked(List<Instruction> body, NetworkModel model, Map<String, Layer> layers) {
+        if (debug) log.debug("[COMPILE] forked block, {} instruction(s)", body.size());
+        List<Unit> batch = new ArrayList<>();
+        collectUnits(body, batch, model, layers);
+        runBatch(batch, model, layers);
+    }
+
+    /** Batches the statements of {@code body}; nested blocks share the scope and the batch. */
+    private void collectUnits(List<Instruction> body, List<Unit> batch, NetworkModel model, Map<String, Layer> layers) {
+        for (Instruction instr : body) {
+            if (isContainer(instr)) {
+                collectUnits(instr.getBody(), batch, model, layers);
+                continue;
+            }
+            long site = statementSite(instr);
+            if (!ParallelUnits.isIndependent(instr, model)) {
+                runBatch(batch, model, layers);
+                enterSite(site);
+                compileInstruction(instr, model, layers);
+            } else if (instr.getOp() == OpCode.FOR) {
+                splitFor(instr, site, batch);
+            } else {
+                batch.add(Unit.whole(instr, site));
+            }
+        }
+    }
+
+    /**
+     * Splits an independent loop into contiguous iteration ranges. Boundaries depend
+     * only on the bounds and the pool size, so they stay stable across compiles.
+     */
+    private void splitFor(Instruction instr, long site, List<Unit> batch) {
+        int from = ParallelUnits.literalInt(instr.getFromVal());
+        int to = ParallelUnits.literalInt(instr.getToVal());
+        int parallelism = compiler.pool() != null ? compiler.pool().getParallelism() : 1;
+        long iterations = Math.max(0L, (long) to - from + 1);
+        int chunks = (int) Math.max(1, Math.min(iterations, (long) parallelism * CHUNKS_PER_THREAD));
+        long step = (iterations + chunks - 1) / chunks;
+
+        for (int c = 0; c < chunks; c++) {
+            int lo = (int) (from + c * step);
+            int hi = (int) Math.min(to, from + (c + 1) * step - 1);
+            batch.add(new Unit(instr, site, true, lo, hi, c == 0));
+        }
+    }
+
+    private void compileUnit(Unit unit, NetworkModel model, Map<String, Layer> layers) {
+        enterSite(unit.site());
+        if (!unit.loop()) {
+            compileInstruction(unit.instr(), model, layers);
+            return;
+        }
+        if (unit.header() && tracing) {
+            trace(CompileEvent.Kind.FOR, unit.instr().getVar(),
+                    "from " + asInt(unit.instr().getFromVal()) + " to " + asInt(unit.instr().getToVal()));
+        }
+        compileIterations(unit.instr(), unit.from(), unit.to(), model, layers);
+    }
+
+    /**
+     * Compiles the batch and replays the journals in order. A unit that failed has
+     * its partial journal replayed before its exception is rethrown, so the model
+     * is left as a sequential run would have left it.
+     *
+     * <p>With a cache, units whose key is cached replay the stored fragment and
+     * successfully compiled units are stored. The key includes the unit's naming
+     * site, so identical units (e.g. two calls of the same macro with the same
+     * arguments) map to distinct fragments with distinct macro suffixes.</p>
+     */
+    private void runBatch(List<Unit> batch, NetworkModel model, Map<String, Layer> layers) {
+        if (batch.isEmpty()) return;
+        FragmentCache cache = compiler.cache();
+        if (cache == null && batch.size() == 1) {
+            compileUnit(batch.get(0), model, layers);
+            batch.clear();
+            return;
+        }
+
+        int n = batch.size();
+        CompiledFragment.Key[] keys = new CompiledFragment.Key[n];
+        CompiledFragment[] cached = new CompiledFragment[n];
+        int misses = 0;
+        for (int i = 0; i < n; i++) {
+            if (cache != null) {
+                Unit unit = batch.get(i);
+                keys[i] = new CompiledFragment.Key(unit.instr(), unit.site(), unit.from(), unit.to(),
+                        ParallelUnits.macroDependencies(unit.instr(), model));
+                CompiledFragment hit = cache.get(keys[i]);
+                if (hit != null) {
+                    cached[i] = hit;
+                    continue;
+                }
+            }
+            misses++;
+        }
+        if (debug && cache != null) log.debug("[CACHE] {} unit(s), {} miss(es)", n, misses);
+
+        List<ForkJoinTask<Forked>> tasks = new ArrayList<>(Collections.nCopies(n, null));
+        if (compiler.pool() != null && misses > 1) {
+            for (int i = 0; i < n; i++) {
+                if (cached[i] != null) continue;
+                Unit unit = batch.get(i);
+                tasks.set(i, compiler.pool().submit(() -> fork(unit, model, layers)));
+            }
+        }
+
+        List<Unit> units = new ArrayList<>(batch);
+        batch.clear();
+        for (int i = 0; i < n; i++) {
+            if (cached[i] != null) {
+                for (Effect effect : cached[i].effects()) effect.apply(this, model, layers);
+                continue;
+            }
+            Forked forked = tasks.get(i) != null ? tasks.get(i).join() : fork(units.get(i), model, layers);
+            for (Effect effect : forked.journal()) effect.apply(this, model, layers);
+            if (forked.failure() != null) {
+                for (int j = i + 1; j < n; j++) {
+                    if (tasks.get(j) != null) tasks.get(j).cancel(false);
+                }
+                throw forked.failure();
+            }
+            if (cache != null) {
+                cache.put(keys[i], new CompiledFragment(forked.journal()));
+            }
+        }
+    }
+
+    /** Compiles {@code unit} in a forked session; only macro definitions of {@code model} are read. */
+    private Forked fork(Unit unit, NetworkModel model, Map<String, Layer> layers) {
+        List<Effect> effects = new ArrayList<>();
+        // A recorded fragment may later be replayed into a traced compile, so always trace when caching
+        boolean recordTrace = tracing || compiler.cache() != null;
+        CompilationSession child = new CompilationSession(compiler, diagnostics, recordTrace, effects, macroTemplates);
+        try {
+            child.compileUnit(unit, model, layers);
+            return new Forked(effects, null);
+        } catch (RuntimeException e) {
+            return new Forked(effects, e);
+        }
+    }
+
+    /** Adds a layer to the scope and the model; owner sessions only. */
+    private void publishLayer(String name, Layer layer, boolean indexed, NetworkModel model, Map<String, Layer> layers) {
+        layers.put(name, layer);
+        if (indexed) layerMap.put(name, layer);
+        model.addLayer(layer);
+    }
+
+    private void requireOwner(OpCode op) {
+        if (journal != null) {
+            throw new IllegalStateException(op + " cannot be compiled in a forked session");
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private void collectConnectsRecursively(List<Instruction> instrs, List<Instruction> connects) {
+        for (Instruction instr : instrs) {
+            if (instr.getOp() == OpCode.CONNECT) connects.add(instr);
+            if (instr.getBody() != null) collectConnectsRecursively(instr.getBody(), connects);
+        }
+    }
+
+    public void registerInstruction(Instruction instr) {
+        if (journal != null) {
+            journal.add((owner, model, layers) -> owner.registerInstruction(instr));
+            return;
+        }
+        instructionMap.putIfAbsent(instr.getName(), instr);
+    }
+
+    /**
+     * Expands one call of {@code macroDef} into the current scope. The definition's
+     * body is prepared into a {@link MacroTemplate} on first use in this compile;
+     * every call then only binds {@code args} and {@code suffix} and compiles the
+     * resulting instructions.
+     *
+     * @param macroDef macro definition with a parameter list
+     * @param args     call arguments, one per parameter
+     * @param suffix   unique suffix for the names local to this call
+     */
+    public void instantiateMacro(Instruction macroDef,
+                                 List<String> args,
+                                 String suffix,
+                                 NetworkModel model,
+                                 Map<String, Layer> layers) {
+        MacroTemplate template = macroTemplates.computeIfAbsent(macroDef, MacroTemplate::of);
+        template.instantiate(args, suffix, compiler, clone -> compileInstruction(clone, model, layers));
+    }
+
+    public void compileInstruction(Instruction instr, NetworkModel model, Map<String, Layer> layers) {
+        if (debug) log.debug("[COMPILE] op={} name={}", instr.getOp(), instr.getName());
+
+        if (instr.getName() != null
+                && (instr.getOp() == OpCode.LAYER
+                || instr.getOp() == OpCode.MODULE_DEF
+                || instr.getOp() == OpCode.MACRO_DEF)) {
+            registerInstruction(instr);
+        }
+
+        // If an input/output layer already exists among arguments, do not recreate it
+        if (instr.getOp() == OpCode.LAYER
+                && (("input".equalsIgnoreCase(instr.getType()) || "output".equalsIgnoreCase(instr.getType())))
+                && layers.containsKey(instr.getName())) {
+            return;
+        }
+
+        switch (instr.getOp()) {
+            case LAYER: {
+                String name = instr.getName();
+                String type = instr.getType();
+
+                trace(CompileEvent.Kind.LAYER, name, type);
+
+                if (journal != null && !"input".equalsIgnoreCase(type)) {
+                    // Built by the owner on replay, so a cached fragment yields fresh layers every time
+                    journal.add((owner, m, l) -> owner.publishLayer(name, owner.createLayerByType(instr), true, m, l));
+                    return;
+                }
+                if ("input".equalsIgnoreCase(type)) {
+                    requireOwner(OpCode.LAYER);
+                    if (globalInputLayers.containsKey(name)) {
+                        layers.put(name, globalInputLayers.get(name));
+                        return;
+                    }
+                }
+                Layer layer = createLayerByType(instr);
+                if ("input".equalsIgnoreCase(type)) globalInputLayers.put(name, layer);
+                publishLayer(name, layer, true, model, layers);
+                return;
+            }
+
+            case CONNECT: {
+                if (journal != null) {
+                    // Resolved by the owner, against the scope as of this point in source order
+                    journal.add((owner, m, l) -> owner.compileInstruction(instr, m, l));
+                    return;
+                }
+                String from = instr.getFrom();
+                String to = instr.getTo();
+
+                trace(CompileEvent.Kind.CONNECT, from, to);
+                pendingConnects.add(new Connect(from, to));
+
+                // Auto-input: create virtual input (e.g., in1N) when needed
+                if (!layers.containsKey(from)) {
+                    if (from != null && from.matches("in1\\d+")) {
+                        Layer baseInput = layers.get("in1");
+                        if (baseInput instanceof InputLayer) {
+                            InputLayer fakeInput = new InputLayer(from, 1);
+                            layers.put(from, fakeInput);
+                            model.addLayer(fakeInput);
+                            if (debug) log.debug("[AUTO-INPUT] created: {}", from);
+                        }
+                    }
+                }
+
+                if (!layers.containsKey(from) && instructionMap.containsKey(from)) {
+                    lazyCompile(from, model, layers);
+                }
+                if (!layers.containsKey(to) && instructionMap.containsKey(to)) {
+                    lazyCompile(to, model, layers);
+                }
+
+                Layer fromLayer = findLayer(layers, model, from);
+                Layer toLayer = findLayer(layers, model, to);
+
+                if (fromLayer == null || toLayer == null) {
+                    log.warn("CONNECT skipped: from={}, to={}, fromLayer={}, toLayer={}",
+                            from, to,
+                            (fromLayer != null ? fromLayer.getName() : "null"),
+                            (toLayer != null ? toLayer.getName() : "null"));
+
+                    model.addIssue(new CompilationIssue(
+                            CompilationIssue.Severity.ERROR,
+                            "CONNECT refers to missing layer: " + from + " -> " + to
+                    ));
+
+                    return;
+                }
+
+                if (debug) log.debug("CONNECT: from={} ({}) to={} ({})", from, fromLayer, to, toLayer);
+                fromLayer.addOutput(toLayer);
+                toLayer.addInput(fromLayer);
+                return;
+            }
+
+            case MODULE_DEF: {
+                String name = instr.getName();
+                trace(CompileEvent.Kind.MODULE_DEF, name, null);
+
+                if (instr.getBody() != null) {
+                    for (Instruction sub : instr.getBody()) compileInstruction(sub, model, layers);
+                }
+                if (journal != null) {
+                    journal.add((owner, m, l) -> owner.publishLayer(name, new ModuleLayer(name), false, m, l));
+                    return;
+                }
+                publishLayer(name, new ModuleLayer(name), false, model, layers);
+                return;
+            }
+
+            case FOR: {
+                String var = instr.getVar();
+                int from = asInt(instr.getFromVal());
+                int to = asInt(instr.getToVal());
+
+                if (tracing) trace(CompileEvent.Kind.FOR, var, "from " + from + " to " + to);
+                compileIterations(instr, from, to, model, layers);
+                return;
+            }
+
+            case MACRO_DEF: {
+                requireOwner(OpCode.MACRO_DEF);
+                String name = instr.getName();
+                model.addMacro(name, instr);
+                trace(CompileEvent.Kind.MACRO_DEF, name, null);
+                return;
+            }
+
+            case MACRO_CALL: {
+                InstructionCompiler handler = handlers.get(instr.getOp());
+                if (handler != null) {
+                    handler.compile(instr, model, layers);
+                    trace(CompileEvent.Kind.MACRO_CALL, instr.getName(), null);
+                    return;
+                }
+                throw new CompilationException("No handler for: " + instr.getOp(), null);
+            }
+
+            case EXPAND: {
+                requireOwner(OpCode.EXPAND);
+                InstructionCompiler handler = handlers.get(OpCode.EXPAND);
+                if (handler != null) {
+                    handler.compile(instr, model, layers);
+                    trace(CompileEvent.Kind.EXPAND, instr.getName(), null);
+                    return;
+                }
+                throw new CompilationException("No handler for: " + instr.getOp(), null);
+            }
+
+            case CALL: {
+                String macroName = instr.getName();
+                List<String> args = instr.getInputs();
+
+                Instruction def = model.getMacro(macroName);
+                if (def == null) throw new CompilationException("Macro not found: " + macroName, null);
+
+                List<String> params = def.getInputs();
+                if (params.size() != args.size()) {
+                    throw new CompilationException("Argument mismatch in call to " + macroName, null);
+                }
+
+                String macroSuffix = nextMacroSuffix(macroName);
+                instantiateMacro(def, args, macroSuffix, model, layers);
+                if (debug) log.debug("CALL macro: {}, params: {}, args: {}, suffix: {}", macroName, params, args, macroSuffix);
+                trace(CompileEvent.Kind.CALL, instr.getName(), null);
+                return;
+            }
+
+            case IF: {
+                requireOwner(OpCode.IF);
+                String conditionExpr = (instr.getCond() != null) ? instr.getCond().getExpr() : null;
+                trace(CompileEvent.Kind.IF, conditionExpr, null);
+
+                // Plain block (no condition expression)
+                if (conditionExpr == null || conditionExpr.trim().isEmpty()) {
+                    if (instr.getBody() != null) {
+                        for (Instruction sub : instr.getBody()) compileInstruction(sub, model, layers);
+                    }
+                    return;
+                }
+
+                String condId = nextSiteId();
+                String thenSuffix = "__then_" + condId;
+                String elseSuffix = "__else_" + condId;
+
+                List<Instruction> body = instr.getBody();
+                Instruction thenBlock = (body != null && body.size() > 0) ? body.get(0) : null;
+                Instruction elseBlock = (body != null && body.size() > 1) ? body.get(1) : null;
+
+                Map<String, Layer> thenLayers = new HashMap<>();
+                Layer thenRoot = null;
+                if (thenBlock != null && thenBlock.getBody() != null) {
+                    Map<String, String> thenBindings = Map.of("__suffix__", thenSuffix);
+                    Set<String> externalNames = Collections.unmodifiableSet(layers.keySet());
+                    for (Instruction sub : thenBlock.getBody()) {
+                        Instruction cloned = compiler.deepCloneWithMultipleReplace(sub, thenBindings, externalNames);
+                        compileInstruction(cloned, model, thenLayers);
+                    }
+                    for (Layer l : thenLayers.values()) if (l instanceof OutputLayer) thenRoot = l;
+                }
+
+                Map<String, Layer> elseLayers = new HashMap<>();
+                Layer elseRoot = null;
+                if (elseBlock != null && elseBlock.getBody() != null) {
+                    Map<String, String> elseBindings = Map.of("__suffix__", elseSuffix);
+                    Set<String> externalNames = Collections.unmodifiableSet(layers.keySet());
+                    for (Instruction sub : elseBlock.getBody()) {
+                        Instruction cloned = compiler.deepCloneWithMultipleReplace(sub, elseBindings, externalNames);
+                        compileInstruction(cloned, model, elseLayers);
+                    }
+                    for (Layer l : elseLayers.values()) if (l instanceof OutputLayer) elseRoot = l;
+                }
+
+                for (var e : thenLayers.entrySet()) {
+                    if (!layers.containsKey(e.getKey())) layers.put(e.getKey(), e.getValue());
+                    model.addLayer(e.getValue());
+                }
+                for (var e : elseLayers.entrySet()) {
+                    if (!layers.containsKey(e.getKey())) layers.put(e.getKey(), e.getValue());
+                    model.addLayer(e.getValue());
+                }
+
+                String layerName = "cond_" + conditionExpr.replaceAll("\\W+", "_");
+                ConditionalLayer condLayer = new ConditionalLayer(layerName, conditionExpr, thenRoot, elseRoot);
+
+                // Try to connect input variables used in condition as inputs
+                Matcher matcher = IDENTIFIERS_IN_EXPR.matcher(conditionExpr);
+                Set<String> vars = new HashSet<>();
+                while (matcher.find()) vars.add(matcher.group(1));
+                for (String var : vars) {
+                    Layer inp = model.getLayer(var);
+                    if (inp instanceof InputLayer) condLayer.addInput(inp);
+                }
+
+                layers.put(layerName, condLayer);
+                model.addLayer(condLayer);
+
+                if (debug) log.debug("CONDITIONAL: thenRoot={}, elseRoot={}",
+                        (thenRoot != null ? thenRoot.getName() : null),
+                        (elseRoot != null ? elseRoot.getName() : null));
+                return;
+            }
+
+            default:
+                // fall through
+        }
+
+        // If not returned above, process nested instructions
+        if (instr.getBody() != null) {
+            for (Instruction sub : instr.getBody()) compileInstruction(sub, model, layers);
+        }
+    }
+
+    /**
+     * Compiles iterations {@code [from, to]}. Each iteration opens its own naming
+     * site derived from the loop's, so a chunk of a split loop names its
+     * expansions exactly like the whole loop does.
+     */
+    private void compileIterations(Instruction instr, int from, int to, NetworkModel model, Map<String, Layer> layers) {
+        String var = instr.getVar();
+        long loopSite = mix(site, siteCounter++);
+        long outerSite = site;
+        int outerCounter = siteCounter;
+        try {
+            for (int i = from; i <= to; i++) {
+                enterSite(mix(loopSite, i));
+                for (Instruction sub : instr.getBody()) {
+                    Instruction clone = substituteLoopVar(sub, var, i);
+                    compileInstruction(clone, model, layers);
+                }
+            }
+        } finally {
+            site = outerSite;
+            siteCounter = outerCounter;
+        }
+    }
+
+    private void lazyCompile(String name, NetworkModel model, Map<String, Layer> layers) {
+        if (layers.containsKey(name)) return;
+        if (!instructionMap.containsKey(name)) {
+            if (debug) log.debug("[LAZY SKIP] not found: {}", name);
+            return;
+        }
+        Instruction instr = instructionMap.get(name);
+        if (debug) log.debug("[LAZY-COMPILE] {} via {}", name, instr.getOp());
+        compileInstruction(instr, model, layers);
+    }
+
+    private Layer createLayerByType(Instruction instr) {
+        String type = instr.getType();
+        String name = instr.getName();
+
+        switch (type.toLowerCase()) {
+            case "dense": {
+                int size = (instr.getSize() != null) ? instr.getSize() : 0;
+                String activation = instr.getActivation();
+                return new DenseLayer(name, size, activation);
+            }
+            case "conv":
+                return new ConvLayer(name);
+            case "dropout": {
+                double rate = (instr.getDropout() != null) ? instr.getDropout() : 0.5;
+                return new DropoutLayer(name, rate);
+            }
+            case "attention":
+                return new AttentionLayer(name);
+            case "input": {
+                int inputSize = (instr.getSize() != null) ? instr.getSize() : 0;
+                Object shape = instr.getShape();
+                if (globalInputLayers.containsKey(name)) return globalInputLayers.get(name);
+                InputLayer inputLayer = (shape == null) ? new InputLayer(name, inputSize) : new InputLayer(name, shape);
+                globalInputLayers.put(name, inputLayer);
+                return inputLayer;
+            }
+            case "output": {
+                int outputSize = (instr.getSize() != null) ? instr.getSize() : 0;
+                String outActivation = instr.getActivation();
+                Object shape = instr.getShape();
+                return (shape == null) ? new OutputLayer(name, outputSize, outActivation) : new OutputLayer(name, shape);
+            }
+            case "transformer": {
+                int dim = (instr.getDim() != null) ? instr.getDim() : 0;
+                int depth = (instr.getDepth() != null) ? instr.getDepth() : 0;
+                int heads = (instr.getHeads() != null) ? instr.getHeads() : 0;
+                return new TransformerLayer(name, depth, heads, dim);
+            }
+            default:
+                throw new CompilationException("Unknown layer type: " + type, null);
+        }
+    }
+
+    /**
+     * Substitutes loop variable {@code var} in every template field of {@code instr}.
+     * Copy-on-write: nodes, lists and maps without an occurrence of {@code var} are
+     * shared with the loop body; {@code cond} is always shared and {@code weights}
+     * are not carried over.
+     */
+    private Instruction substituteLoopVar(Instruction instr, String var, int value) {
+        UnaryOperator<String> f = s -> compiler.replaceVarSmart(s, var, value);
+
+        String name = InstructionRewriter.string(instr.getName(), f);
+        String from = InstructionRewriter.string(instr.getFrom(), f);
+        String to = InstructionRewriter.string(instr.getTo(), f);
+        String expr = InstructionRewriter.string(instr.getExpr(), f);
+        String group = InstructionRewriter.string(instr.getGroup(), f);
+        String space = InstructionRewriter.string(instr.getSpace(), f);
+        String target = InstructionRewriter.string(instr.getTarget(), f);
+        String path = InstructionRewriter.string(instr.getPath(), f);
+        List<String> inputs = InstructionRewriter.strings(instr.getInputs(), f);
+        List<String> outputs = InstructionRewriter.strings(instr.getOutputs(), f);
+        List<String> tags = InstructionRewriter.strings(instr.getTags(), f);
+        Map<String, Object> params = InstructionRewriter.values(instr.getParams(), f, true);
+        Map<String, Object> meta = InstructionRewriter.values(instr.getMeta(), f, true);
+        List<Instruction> body = InstructionRewriter.body(instr.getBody(), sub -> substituteLoopVar(sub, var, value));
+
+        if (name == instr.getName() && from == instr.getFrom() && to == instr.getTo()
+                && expr == instr.getExpr() && group == instr.getGroup() && space == instr.getSpace()
+                && target == instr.getTarget() && path == instr.getPath()
+                && inputs == instr.getInputs() && outputs == instr.getOutputs() && tags == instr.getTags()
+                && params == instr.getParams() && meta == instr.getMeta() && body == instr.getBody()
+                && instr.getWeights() == null) {
+            return instr;
+        }
+
+        Instruction clone = instr.toBuilder()
+                .name(name).from(from).to(to)
+                .expr(expr).group(group).space(space).target(target).path(path)
+                .inputs(inputs).outputs(outputs).tags(tags)
+                .params(params).meta(meta)
+                .body(body)
+                .weights(null)
+                .build();
+
+        if (debug) log.debug("[CLONE] i={} op={} name={} from={} to={}", value, clone.getOp(), clone.getName(), clone.getFrom(), clone.getTo());
+        return clone;
+    }
+
+    private int asInt(Object value) {
+        if (value instanceof Integer i) return i;
+        if (value instanceof String s) return Integer.parseInt(s);
+        throw new CompilationException("Cannot convert to int: " + value, null);
+    }
+
+    private Layer findLayer(Map<String, Layer> layers, NetworkModel model, String name) {
+        if (name == null) return null;
+        if (layerMap.containsKey(name)) return layerMap.get(name);
+
+        Layer layer = layers.get(name);
+        if (layer == null) layer = model.getLayer(name);
+        if (layer != null) return layer;
+
+        // Try to resolve by base name (strip suffix and trailing digits)
+        String base = SUFFIX_STRIPPER.matcher(name).replaceAll("");
+        if (TRAILING_DIGITS.matcher(base).find()) {
+            base = TRAILING_DIGITS.matcher(base).replaceAll("");
+        }
+        if (layerMap.containsKey(base)) return layerMap.get(base);
+        layer = layers.get(base);
+        if (layer == null) layer = model.getLayer(base);
+        return layer;
+    }
+
+}
@@ -0,0 +1,84 @@
+package io.github.swampus.alexandra.compiler;
+
+import io.github.swampus.alexandra.ir.model.Instruction;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Replayable compilation result of one independent top-level unit (see
+ * {@link ParallelUnits}), as stored in a {@link FragmentCache}.
+ *
+ * <p>A fragment holds no {@link io.github.swampus.alexandra.compiler.model.layer.Layer}
+ * instances: it records the expanded layer instructions, registrations, trace
+ * events and {@code CONNECT}s of the unit, and replaying it builds fresh layers
+ * and resolves every connection against the model being compiled. The same
+ * fragment can therefore be replayed into any number of models.</p>
+ *
+ * @since 0.9.0
+ */
+public final class CompiledFragment {
+
+    private final List<CompilationSession.Effect> effects;
+
+    CompiledFragment(List<CompilationSession.Effect> effects) {
+        this.effects = List.copyOf(effects);
+    }
+
+    List<CompilationSession.Effect> effects() {
+        return effects;
+    }
+
+    /** Number of recorded steps; a rough measure of the work a cache hit saves. */
+    public int size() {
+        return effects.size();
+    }
+
+    /**
+     * Content address of a unit: the unit's instruction tree, its naming site
+     * (which fixes the macro and branch suffixes it generates), the loop range it
+     * covers (for a chunk of a split {@code FOR}) and the macro definitions it
+     * expands, compared structurally. The hash is computed once.
+     */
+    public static final class Key {
+
+        private final Instruction unit;
+        private final long site;
+        private final int from;
+        private final int to;
+        private final List<Instruction> macros;
+        private final int hash;
+
+        Key(Instruction unit, long site, int from, int to, List<Instruction> macros) {
+            this.unit = Objects.requireNonNull(unit, "unit");
+            this.site = site;
+            this.from = from;
+            this.to = to;
+            this.macros = List.copyOf(macros);
+            this.hash = Objects.hash(unit, site, from, to, this.macros);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return hash == other.hash
+                    && site == other.site
+                    && from == other.from
+                    && to == other.to
+                    && unit.equals(other.unit)
+                    && macros.equals(other.macros);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" + unit.getOp() + " " + unit.getName() + " [" + from + ".." + to + "], macros="
+                    + macros.size() + ", hash=" + Integer.toHexString(hash) + "}";
+        }
+    }
+}
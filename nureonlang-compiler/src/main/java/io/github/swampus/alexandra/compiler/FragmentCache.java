@@ -0,0 +1,26 @@
+package io.github.swampus.alexandra.compiler;
+
+/**
+ * Store of {@link CompiledFragment}s for incremental compilation.
+ *
+ * <p>An {@link IRNetworkCompiler} configured with a cache looks up every
+ * independent top-level unit by its content {@link CompiledFragment.Key} and
+ * replays the cached fragment instead of expanding the unit again. Units that
+ * changed since the previous compile miss and are recompiled and stored.</p>
+ *
+ * <p>Implementations must be thread-safe when the owning compiler is shared.</p>
+ *
+ * @since 0.9.0
+ */
+public interface FragmentCache {
+
+    /** Returns the fragment stored under {@code key}, or {@code null}. */
+    CompiledFragment get(CompiledFragment.Key key);
+
+    void put(CompiledFragment.Key key, CompiledFragment fragment);
+
+    /** Bounded, LRU-evicting, in-memory cache. */
+    static FragmentCache inMemory(int maxEntries) {
+        return new InMemoryFragmentCache(maxEntries);
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.swampus.alexandra.compiler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link FragmentCache} backed by an access-ordered {@link LinkedHashMap}; the
+ * least recently used fragment is evicted once {@code maxEntries} is exceeded.
+ *
+ * <p><b>Thread-safety:</b> Thread-safe; all operations synchronize on the cache.</p>
+ *
+ * @since 0.9.0
+ */
+public final class InMemoryFragmentCache implements FragmentCache {
+
+    private final int maxEntries;
+    private final Map<CompiledFragment.Key, CompiledFragment> entries;
+
+    private long hits;
+    private long misses;
+
+    public InMemoryFragmentCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CompiledFragment.Key, CompiledFragment> eldest) {
+                return size() > InMemoryFragmentCache.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CompiledFragment get(CompiledFragment.Key key) {
+        CompiledFragment fragment = entries.get(key);
+        if (fragment != null) hits++;
+        else misses++;
+        return fragment;
+    }
+
+    @Override
+    public synchronized void put(CompiledFragment.Key key, CompiledFragment fragment) {
+        entries.put(key, fragment);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+}
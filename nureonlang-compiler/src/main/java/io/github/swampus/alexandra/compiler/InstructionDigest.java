@@ -0,0 +1,143 @@
+package io.github.swampus.alexandra.compiler;
+
+import io.github.swampus.alexandra.ir.model.Instruction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 64-bit content digest of an instruction tree that is stable across JVMs.
+ *
+ * <p>{@link Instruction#hashCode()} cannot be used for anything that outlives
+ * the process: it mixes in the identity hash of the {@link
+ * io.github.swampus.alexandra.ir.model.OpCode} enum. This digest feeds a
+ * canonical encoding of the tree into FNV-1a instead: enums by
+ * {@link Enum#name()}, numbers tagged with their type, map entries sorted by
+ * key, lists and nested instructions in order. Equal source therefore gives an
+ * equal digest in every run.</p>
+ */
+final class InstructionDigest {
+
+    private static final long OFFSET = 0xCBF2_9CE4_8422_2325L;
+    private static final long PRIME = 0x0000_0100_0000_01B3L;
+
+    private long h = OFFSET;
+
+    private InstructionDigest() {}
+
+    static long of(Instruction instr) {
+        InstructionDigest d = new InstructionDigest();
+        d.instruction(instr);
+        return d.h;
+    }
+
+    private void instruction(Instruction i) {
+        if (i == null) {
+            tag('0');
+            return;
+        }
+        tag('I');
+        string(i.getOp() == null ? null : i.getOp().name());
+        string(i.getType());
+        string(i.getName());
+        string(i.getFrom());
+        string(i.getTo());
+        value(i.getInputs());
+        value(i.getOutputs());
+        string(i.getActivation());
+        value(i.getShape());
+        value(i.getSize());
+        string(i.getExpr());
+        value(i.getDim());
+        value(i.getDepth());
+        value(i.getAttention());
+        value(i.getDropout());
+        value(i.getHeads());
+        string(i.getGroup());
+        string(i.getSpace());
+        value(i.getParams());
+        value(i.getBody());
+        string(i.getVar());
+        value(i.getFromVal());
+        value(i.getToVal());
+        instruction(i.getCond());
+        string(i.getPath());
+        value(i.getTags());
+        value(i.getMeta());
+        string(i.getTarget());
+        value(i.getWeights());
+        tag(';');
+    }
+
+    private void value(Object o) {
+        if (o == null) {
+            tag('0');
+        } else if (o instanceof String s) {
+            string(s);
+        } else if (o instanceof Instruction i) {
+            instruction(i);
+        } else if (o instanceof Enum<?> e) {
+            tag('E');
+            string(e.name());
+        } else if (o instanceof Number || o instanceof Boolean || o instanceof Character) {
+            // the type tag keeps 1 and 1.0 apart
+            tag('N');
+            string(o.getClass().getSimpleName());
+            string(o.toString());
+        } else if (o instanceof Map<?, ?> m) {
+            tag('M');
+            List<Map.Entry<?, ?>> entries = new ArrayList<>(m.entrySet());
+            entries.sort((a, b) -> String.valueOf(a.getKey()).compareTo(String.valueOf(b.getKey())));
+            for (Map.Entry<?, ?> e : entries) {
+                value(e.getKey());
+                value(e.getValue());
+            }
+            tag(']');
+        } else if (o instanceof Collection<?> c) {
+            tag('L');
+            for (Object e : c) value(e);
+            tag(']');
+        } else if (o instanceof int[] a) {
+            tag('L');
+            for (int e : a) value(e);
+            tag(']');
+        } else if (o instanceof Object[] a) {
+            tag('L');
+            for (Object e : a) value(e);
+            tag(']');
+        } else {
+            tag('?');
+            string(o.getClass().getName());
+            string(o.toString());
+        }
+    }
+
+    /** Length-prefixed so adjacent strings cannot run into each other. */
+    private void string(String s) {
+        if (s == null) {
+            tag('0');
+            return;
+        }
+        tag('S');
+        mixInt(s.length());
+        for (int k = 0; k < s.length(); k++) {
+            mixChar(s.charAt(k));
+        }
+    }
+
+    private void tag(char c) {
+        mixChar(c);
+    }
+
+    private void mixInt(int v) {
+        mixChar((char) (v >>> 16));
+        mixChar((char) v);
+    }
+
+    private void mixChar(char c) {
+        h = (h ^ (c & 0xFF)) * PRIME;
+        h = (h ^ (c >>> 8)) * PRIME;
+    }
+}
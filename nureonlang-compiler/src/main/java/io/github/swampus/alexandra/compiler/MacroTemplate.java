@@ -0,0 +1,226 @@
+package io.github.swampus.alexandra.compiler;
+
+import io.github.swampus.alexandra.compiler.template.WordTemplate;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A {@code MACRO_DEF} body prepared once for repeated instantiation.
+ *
+ * <p>Every name, reference and argument list in the body is split into literal
+ * text and slots for the macro parameters and the {@code __suffix__} of the call
+ * (see {@link WordTemplate}). Instantiating the template for a call only
+ * concatenates the call's arguments into those slots and applies the usual
+ * suffixing rules; the body is not re-scanned for every parameter. The produced
+ * instructions are identical to
+ * {@link IRNetworkCompiler#deepCloneWithMultipleReplace(Instruction, Map, Set)}
+ * with the call's bindings, including copy-on-write sharing of unchanged nodes.</p>
+ *
+ * <p>Strings with bracketed expressions are still substituted per call, since
+ * their value depends on the arguments. A call whose arguments mention a
+ * parameter name as a whole word, where the order of the textual replacements
+ * matters, takes the general substitution path.</p>
+ *
+ * <p><b>Thread-safety:</b> Immutable; may be instantiated concurrently.</p>
+ */
+final class MacroTemplate {
+
+    private static final String SUFFIX = "__suffix__";
+
+    private final Instruction def;
+    /** Slot of each binding key; a later duplicate parameter (and {@code __suffix__}) wins, as in the bindings map. */
+    private final Map<String, Integer> slotByWord = new HashMap<>();
+    /** Slots that are the value of some binding key. */
+    private final int[] liveSlots;
+    /** Whether some parameter cannot be matched word-wise, so every call takes the general path. */
+    private final boolean general;
+    private final List<Node> body;
+
+    private MacroTemplate(Instruction def) {
+        this.def = def;
+        List<String> params = def.getInputs();
+        boolean words = true;
+        for (int i = 0; i < params.size(); i++) {
+            slotByWord.put(params.get(i), i);
+            words &= WordTemplate.isWord(params.get(i));
+        }
+        slotByWord.put(SUFFIX, params.size());
+        this.liveSlots = slotByWord.values().stream().mapToInt(Integer::intValue).distinct().toArray();
+        this.general = !words;
+        this.body = general || def.getBody() == null ? List.of() : nodes(def.getBody());
+    }
+
+    /** Prepares {@code def}, a macro definition with a parameter list. */
+    static MacroTemplate of(Instruction def) {
+        return new MacroTemplate(def);
+    }
+
+    /**
+     * Instantiates the body for one call and hands each top-level instruction to
+     * {@code sink} as soon as it is built.
+     *
+     * @param args   call arguments, one per parameter
+     * @param suffix unique suffix of this call
+     */
+    void instantiate(List<String> args, String suffix, IRNetworkCompiler compiler, Consumer<Instruction> sink) {
+        if (def.getBody() == null) return;
+        Binding b = new Binding(args, suffix, compiler);
+        if (general || b.ambiguous()) {
+            for (Instruction sub : def.getBody()) {
+                sink.accept(compiler.deepCloneWithMultipleReplace(sub, b.map(), Collections.emptySet()));
+            }
+            return;
+        }
+        for (Node node : body) {
+            sink.accept(node.instantiate(b));
+        }
+    }
+
+    private List<Node> nodes(List<Instruction> instrs) {
+        List<Node> out = new ArrayList<>(instrs.size());
+        for (Instruction instr : instrs) out.add(new Node(instr));
+        return out;
+    }
+
+    private Field field(String s) {
+        return s == null ? null : new Field(s, WordTemplate.of(s, slotByWord));
+    }
+
+    private Field[] fields(List<String> values) {
+        if (values == null) return null;
+        Field[] out = new Field[values.size()];
+        for (int i = 0; i < out.length; i++) out[i] = field(values.get(i));
+        return out;
+    }
+
+    /** Returns {@code original} when {@code rewritten} is equal to it, as copy-on-write requires. */
+    private static String keep(String original, String rewritten) {
+        return original == null || original.equals(rewritten) ? original : rewritten;
+    }
+
+    /** A string of the body; {@code words} is {@code null} when it needs bracket evaluation. */
+    private record Field(String source, WordTemplate words) {
+
+        String render(Binding b) {
+            return words != null ? words.render(b.values) : b.compiler.replaceVarsSmart(source, b.map());
+        }
+    }
+
+    /** Argument values of one call, indexed by slot. */
+    private final class Binding {
+
+        final String[] values;
+        final String suffix;
+        final IRNetworkCompiler compiler;
+        final Set<String> bound = new HashSet<>();
+        private Map<String, String> map;
+
+        Binding(List<String> args, String suffix, IRNetworkCompiler compiler) {
+            this.values = new String[args.size() + 1];
+            for (int i = 0; i < args.size(); i++) values[i] = args.get(i);
+            values[args.size()] = suffix;
+            this.suffix = suffix;
+            this.compiler = compiler;
+            for (int slot : liveSlots) bound.add(values[slot]);
+        }
+
+        /** Whether a bound value contains a binding key, so sequential replacement could rewrite it again. */
+        boolean ambiguous() {
+            for (int slot : liveSlots) {
+                String v = values[slot];
+                if (v == null || WordTemplate.mentionsAny(v, slotByWord)) return true;
+            }
+            return false;
+        }
+
+        /** The call's bindings as the general substitution expects them. */
+        Map<String, String> map() {
+            if (map == null) {
+                List<String> params = def.getInputs();
+                map = new HashMap<>();
+                for (int i = 0; i < params.size(); i++) map.put(params.get(i), values[i]);
+                map.put(SUFFIX, suffix);
+            }
+            return map;
+        }
+    }
+
+    /** Prepared form of one body instruction, mirroring its subtree. */
+    private final class Node {
+
+        final Instruction source;
+        final Field name;
+        final Field from;
+        final Field to;
+        final Field[] inputs;
+        final Field[] outputs;
+        final List<Node> body;
+
+        Node(Instruction source) {
+            this.source = source;
+            this.name = field(source.getName());
+            this.from = field(source.getFrom());
+            this.to = field(source.getTo());
+            this.inputs = fields(source.getInputs());
+            this.outputs = fields(source.getOutputs());
+            this.body = source.getBody() == null ? null : nodes(source.getBody());
+        }
+
+        Instruction instantiate(Binding b) {
+            String type = source.getType();
+            String rewritten = name == null ? null : name.render(b);
+            if (source.getOp() != OpCode.MACRO_CALL
+                    && !"input".equalsIgnoreCase(type)
+                    && !b.bound.contains(source.getName())) {
+                rewritten = IRNetworkCompiler.suffixedIfNeeded(rewritten, source.getName(), type, b.bound, b.suffix);
+            }
+            String newName = keep(source.getName(), rewritten);
+            String newFrom = from == null ? null : keep(source.getFrom(),
+                    IRNetworkCompiler.suffixedIfNeeded(from.render(b), source.getFrom(), type, b.bound, b.suffix));
+            String newTo = to == null ? null : keep(source.getTo(),
+                    IRNetworkCompiler.suffixedIfNeeded(to.render(b), source.getTo(), type, b.bound, b.suffix));
+
+            return IRNetworkCompiler.macroProjection(source, newName, newFrom, newTo,
+                    strings(source.getInputs(), inputs, b),
+                    strings(source.getOutputs(), outputs, b),
+                    children(b));
+        }
+
+        private List<Instruction> children(Binding b) {
+            if (body == null) return null;
+            List<Instruction> original = source.getBody();
+            List<Instruction> out = null;
+            for (int i = 0; i < body.size(); i++) {
+                Instruction r = body.get(i).instantiate(b);
+                if (out == null && r != original.get(i)) {
+                    out = new ArrayList<>(original.subList(0, i));
+                }
+                if (out != null) out.add(r);
+            }
+            return out == null ? original : Collections.unmodifiableList(out);
+        }
+    }
+
+    private static List<String> strings(List<String> original, Field[] fields, Binding b) {
+        if (original == null) return null;
+        List<String> out = null;
+        for (int i = 0; i < fields.length; i++) {
+            String v = original.get(i);
+            String r = fields[i] == null ? null : keep(v, fields[i].render(b));
+            if (out == null && r != v) {
+                out = new ArrayList<>(original.subList(0, i));
+            }
+            if (out != null) out.add(r);
+        }
+        return out == null ? original : Collections.unmodifiableList(out);
+    }
+}
@@ -1,14 +1,19 @@
 package io.github.swampus.alexandra.compiler;
 
+import io.github.swampus.alexandra.compiler.development.DevelopmentBudget;
 import io.github.swampus.alexandra.compiler.development.IRDeveloper;
+import io.github.swampus.alexandra.compiler.diagnostics.DiagnosticsSink;
 import io.github.swampus.alexandra.compiler.development.expanders.ForExpander;
 import io.github.swampus.alexandra.compiler.development.expanders.IfExpander;
+import io.github.swampus.alexandra.compiler.development.expanders.LetExpander;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.optimizer.GraphOptimizer;
 import io.github.swampus.alexandra.compiler.validator.PostCompileValidationService;
 import io.github.swampus.alexandra.compiler.validator.ValidationLevel;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
@@ -17,7 +22,10 @@ import java.util.Objects;
  * and running post-compilation validation.
  *
  * <p>Supports optional DEVELOPMENT mode that expands generative constructs
- * (FOR/IF/macros/etc.) before compilation.</p>
+ * (FOR/IF/macros/etc.) before compilation, and an optional {@link GraphOptimizer}
+ * applied to the compiled graph before validation. Development runs under a
+ * {@link DevelopmentBudget} ({@link DevelopmentBudget#defaults()} unless given),
+ * so arbitrary programs cannot unroll without bound.</p>
  *
  * @since 0.9.0
  */
@@ -26,6 +34,10 @@ public final class NetworkCompilerFacade {
 
     private final PostCompileValidationService validationService;
     private final ValidationLevel level;
+    private final GraphOptimizer optimizer;
+    private final DevelopmentBudget developmentBudget;
+    /** Stateless and thread-safe; shared so its template cache is reused across calls. */
+    private final IRNetworkCompiler compiler = new IRNetworkCompiler();
 
     public NetworkCompilerFacade() {
         this(new PostCompileValidationService(), ValidationLevel.SHAPES);
@@ -36,8 +48,23 @@ public final class NetworkCompilerFacade {
     }
 
     public NetworkCompilerFacade(PostCompileValidationService validationService, ValidationLevel level) {
+        this(validationService, level, GraphOptimizer.none());
+    }
+
+    public NetworkCompilerFacade(PostCompileValidationService validationService,
+                                 ValidationLevel level,
+                                 GraphOptimizer optimizer) {
+        this(validationService, level, optimizer, DevelopmentBudget.defaults());
+    }
+
+    public NetworkCompilerFacade(PostCompileValidationService validationService,
+                                 ValidationLevel level,
+                                 GraphOptimizer optimizer,
+                                 DevelopmentBudget developmentBudget) {
         this.validationService = Objects.requireNonNull(validationService, "validationService");
         this.level = Objects.requireNonNull(level, "level");
+        this.optimizer = Objects.requireNonNull(optimizer, "optimizer");
+        this.developmentBudget = Objects.requireNonNull(developmentBudget, "developmentBudget");
     }
 
     /** Backward-compatible compile (DIRECT mode). */
@@ -50,35 +77,57 @@ public final class NetworkCompilerFacade {
      *
      * @param instructionRoot root IR instruction
      * @param mode DIRECT or DEVELOPMENT
+     * @throws io.github.swampus.alexandra.compiler.exception.DevelopmentBudgetExceededException
+     *         if development exceeds the configured budget
      */
     public NetworkModel compile(Instruction instructionRoot, CompileMode mode) {
 
         Objects.requireNonNull(instructionRoot, "instructionRoot");
         Objects.requireNonNull(mode, "mode");
 
-        Instruction rootToCompile = instructionRoot;
+        NetworkModel model;
 
         // 🧬 Development phase
         if (mode == CompileMode.DEVELOPMENT) {
 
             IRDeveloper developer = new IRDeveloper(List.of(
+                    new LetExpander(),
                     new ForExpander(),
                     new IfExpander()
-            ));
+            ), developmentBudget);
 
-            List<Instruction> developed =
-                    developer.develop(List.of(instructionRoot));
+            // Streamed straight into the compiler; unrolled loops are never held in full
+            Iterator<Instruction> developed =
+                    developer.iterate(List.of(instructionRoot));
 
-            log.info("Development phase applied: {} instructions", developed.size());
+            log.info("Development phase applied (streaming)");
 
-            if (!developed.isEmpty()) {
-                // assume single-root programs; adjust if multi-root
-                rootToCompile = developed.get(0);
-            }
+            model = developed.hasNext()
+                    ? compiler.compile(developed, DiagnosticsSink.OFF)
+                    : compiler.compile(instructionRoot);
+        } else {
+            model = compiler.compile(instructionRoot);
         }
 
-        IRNetworkCompiler compiler = new IRNetworkCompiler();
-        NetworkModel model = compiler.compile(rootToCompile);
+        return finish(model);
+    }
+
+    /**
+     * DIRECT compile reporting {@link io.github.swampus.alexandra.compiler.diagnostics.CompileEvent}s
+     * to {@code diagnostics}. The model is optimized and validated exactly as by
+     * {@link #compile(Instruction)}.
+     *
+     * @param instructionRoot root IR instruction
+     * @param diagnostics non-null sink; {@link DiagnosticsSink#OFF} disables tracing
+     */
+    public NetworkModel compile(Instruction instructionRoot, DiagnosticsSink diagnostics) {
+        Objects.requireNonNull(instructionRoot, "instructionRoot");
+        Objects.requireNonNull(diagnostics, "diagnostics");
+        return finish(compiler.compile(instructionRoot, diagnostics));
+    }
+
+    private NetworkModel finish(NetworkModel model) {
+        optimizer.optimize(model);
 
         validationService.validate(model, level);
 
@@ -87,4 +136,6 @@ public final class NetworkCompilerFacade {
 
     public ValidationLevel getValidationLevel() { return level; }
     public PostCompileValidationService getValidationService() { return validationService; }
+    public GraphOptimizer getOptimizer() { return optimizer; }
+    public DevelopmentBudget getDevelopmentBudget() { return developmentBudget; }
 }
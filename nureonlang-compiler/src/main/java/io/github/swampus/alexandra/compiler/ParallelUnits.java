@@ -0,0 +1,132 @@
+package io.github.swampus.alexandra.compiler;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which instruction subtrees a {@link CompilationSession} may compile in a
+ * forked session.
+ *
+ * <p>A subtree is independent when compiling it only <em>creates</em> layers and
+ * defers connections, i.e. it never reads session or scope state that an earlier
+ * sibling could have changed. Name references are not an obstacle: forked sessions
+ * journal every {@code CONNECT} and the owner resolves it during replay, at the
+ * same point in source order as a sequential compile would.</p>
+ *
+ * <p>Rejected (compiled sequentially, acting as a barrier):</p>
+ * <ul>
+ *   <li>input/output layers, which deduplicate against the current scope and the global inputs;</li>
+ *   <li>{@code MACRO_DEF}, {@code IF}, {@code EXPAND} and any other op that mutates the model
+ *       directly or looks layers up;</li>
+ *   <li>{@code FOR} loops with non-literal bounds and calls to macros that are not defined yet,
+ *       so the sequential path reports those errors.</li>
+ * </ul>
+ */
+final class ParallelUnits {
+
+    private ParallelUnits() {}
+
+    /**
+     * Returns whether {@code instr} can be compiled against a frozen view of
+     * {@code model} (only its macro definitions are read).
+     */
+    static boolean isIndependent(Instruction instr, NetworkModel model) {
+        return check(instr, model, new HashSet<>(), Set.of());
+    }
+
+    /**
+     * Macro definitions an independent {@code instr} expands, transitively, in
+     * first-use order. Part of a unit's content key: editing a macro invalidates
+     * every unit that calls it.
+     */
+    static List<Instruction> macroDependencies(Instruction instr, NetworkModel model) {
+        Map<String, Instruction> defs = new LinkedHashMap<>();
+        collectMacros(instr, model, defs);
+        return new ArrayList<>(defs.values());
+    }
+
+    private static void collectMacros(Instruction instr, NetworkModel model, Map<String, Instruction> defs) {
+        if ((instr.getOp() == OpCode.MACRO_CALL || instr.getOp() == OpCode.CALL) && !defs.containsKey(instr.getName())) {
+            Instruction def = model.getMacro(instr.getName());
+            if (def == null) return;
+            defs.put(instr.getName(), def);
+            for (Instruction sub : def.getBody()) collectMacros(sub, model, defs);
+        }
+        if (instr.getBody() != null) {
+            for (Instruction sub : instr.getBody()) collectMacros(sub, model, defs);
+        }
+    }
+
+    /** Literal loop bound accepted by the session, or {@code null}. */
+    static Integer literalInt(Object value) {
+        if (value instanceof Integer i) return i;
+        if (value instanceof String s) {
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean check(Instruction instr,
+                                 NetworkModel model,
+                                 Set<String> expanding,
+                                 Set<String> params) {
+        if (instr == null || instr.getOp() == null) return false;
+
+        switch (instr.getOp()) {
+            case LAYER: {
+                String type = instr.getType();
+                return type != null
+                        && !"input".equalsIgnoreCase(type)
+                        && !"output".equalsIgnoreCase(type);
+            }
+            case CONNECT:
+                return true;
+            case PROGRAM:
+            case BLOCK:
+            case MODULE_DEF:
+                return instr.getBody() == null || all(instr.getBody(), model, expanding, params);
+            case FOR:
+                return instr.getBody() != null
+                        && literalInt(instr.getFromVal()) != null
+                        && literalInt(instr.getToVal()) != null
+                        && all(instr.getBody(), model, expanding, params);
+            case MACRO_CALL:
+            case CALL: {
+                String name = instr.getName();
+                if (name == null || params.contains(name)) return false;
+                Instruction def = model.getMacro(name);
+                if (def == null || def.getInputs() == null || def.getBody() == null) return false;
+                if (!expanding.add(name)) return false; // recursive expansion: let the sequential path fail
+                try {
+                    return all(def.getBody(), model, expanding, new HashSet<>(def.getInputs()));
+                } finally {
+                    expanding.remove(name);
+                }
+            }
+            default:
+                return false;
+        }
+    }
+
+    private static boolean all(List<Instruction> body,
+                               NetworkModel model,
+                               Set<String> expanding,
+                               Set<String> params) {
+        for (Instruction sub : body) {
+            if (!check(sub, model, expanding, params)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.swampus.alexandra.compiler.cost;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Static cost of a single layer.
+ *
+ * @param name            layer name
+ * @param kind            layer kind as reported by the introspector
+ * @param outputShape     inferred output shape per sample, or {@code null} if unknown
+ * @param parameters      trainable parameters (weights + biases)
+ * @param multiplyAdds    multiply-accumulate operations per sample
+ * @param activationBytes bytes of the layer output for the whole batch
+ * @param resolved        {@code false} if a shape needed for the estimate was unknown;
+ *                        the figures are then lower bounds
+ */
+public record LayerCost(String name,
+                        String kind,
+                        int[] outputShape,
+                        long parameters,
+                        long multiplyAdds,
+                        long activationBytes,
+                        boolean resolved) {
+
+    public LayerCost {
+        outputShape = outputShape == null ? null : outputShape.clone();
+    }
+
+    @Override
+    public int[] outputShape() {
+        return outputShape == null ? null : outputShape.clone();
+    }
+
+    /**
+     * Plain map form stored in {@code NetworkModel#getMeta()}, so it survives
+     * JSON serialization of the model metadata.
+     */
+    public Map<String, Object> toMeta() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("name", name);
+        m.put("kind", kind);
+        m.put("outputShape", outputShape == null ? null : Arrays.stream(outputShape).boxed().toList());
+        m.put("parameters", parameters);
+        m.put("multiplyAdds", multiplyAdds);
+        m.put("activationBytes", activationBytes);
+        m.put("resolved", resolved);
+        return m;
+    }
+}
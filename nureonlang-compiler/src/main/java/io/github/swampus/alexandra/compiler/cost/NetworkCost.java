@@ -0,0 +1,59 @@
+package io.github.swampus.alexandra.compiler.cost;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static cost estimate of a whole network.
+ *
+ * <p>Per-layer figures are listed in evaluation order. Totals are plain sums,
+ * except {@link #peakActivationBytes()}, which is the largest amount of
+ * activation memory live at any one time when layers run in that order and
+ * every output is released right after its last consumer (network outputs are
+ * kept to the end).</p>
+ *
+ * @param batchSize           samples per forward pass
+ * @param precision           precision of stored activations
+ * @param layers              per-layer costs, in evaluation order
+ * @param parameters          total trainable parameters
+ * @param multiplyAdds        total multiply-accumulate operations per sample
+ * @param peakActivationBytes peak live activation memory for the whole batch
+ * @param unresolvedLayers    layers whose estimate is a lower bound because a shape was unknown
+ */
+public record NetworkCost(int batchSize,
+                          Precision precision,
+                          List<LayerCost> layers,
+                          long parameters,
+                          long multiplyAdds,
+                          long peakActivationBytes,
+                          int unresolvedLayers) {
+
+    /** Metadata key holding the estimate. */
+    public static final String META_KEY = "cost";
+
+    public NetworkCost {
+        layers = List.copyOf(layers);
+    }
+
+    /**
+     * Plain map form stored in {@code NetworkModel#getMeta()}, so it survives
+     * JSON serialization of the model metadata.
+     */
+    public Map<String, Object> toMeta() {
+        List<Map<String, Object>> perLayer = new ArrayList<>(layers.size());
+        for (LayerCost l : layers) {
+            perLayer.add(l.toMeta());
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("batchSize", batchSize);
+        m.put("precision", precision.name());
+        m.put("parameters", parameters);
+        m.put("multiplyAdds", multiplyAdds);
+        m.put("peakActivationBytes", peakActivationBytes);
+        m.put("unresolvedLayers", unresolvedLayers);
+        m.put("layers", perLayer);
+        return m;
+    }
+}
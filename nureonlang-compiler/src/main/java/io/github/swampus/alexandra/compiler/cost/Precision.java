@@ -0,0 +1,25 @@
+package io.github.swampus.alexandra.compiler.cost;
+
+/**
+ * Numeric precision of stored activations, used to turn element counts into bytes.
+ *
+ * @since 0.9.0
+ */
+public enum Precision {
+    FP64(8),
+    FP32(4),
+    FP16(2),
+    BF16(2),
+    INT8(1);
+
+    private final int bytes;
+
+    Precision(int bytes) {
+        this.bytes = bytes;
+    }
+
+    /** Size of one element in bytes. */
+    public int bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.swampus.alexandra.compiler.development;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Limits for one development run of {@link IRDeveloper}: how many leaf
+ * instructions it may emit, how deeply expansions may nest and how long it may
+ * take. A run that reaches a limit stops with a
+ * {@link io.github.swampus.alexandra.compiler.exception.DevelopmentBudgetExceededException}.
+ *
+ * <p>Instances are immutable and thread-safe.</p>
+ *
+ * @since 0.9.0
+ */
+public final class DevelopmentBudget {
+
+    private static final DevelopmentBudget UNLIMITED =
+            new DevelopmentBudget(Long.MAX_VALUE, Integer.MAX_VALUE, null);
+
+    private static final DevelopmentBudget DEFAULTS =
+            new DevelopmentBudget(1_000_000L, 256, Duration.ofSeconds(30));
+
+    private final long maxInstructions;
+    private final int maxDepth;
+    private final Duration maxDuration;
+
+    /**
+     * @param maxInstructions maximum number of emitted (fully developed) instructions
+     * @param maxDepth        maximum number of nested expansions in progress at once
+     * @param maxDuration     wall-clock limit, or {@code null} for none
+     */
+    public DevelopmentBudget(long maxInstructions, int maxDepth, Duration maxDuration) {
+        if (maxInstructions <= 0) {
+            throw new IllegalArgumentException("maxInstructions must be positive: " + maxInstructions);
+        }
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        if (maxDuration != null && (maxDuration.isNegative() || maxDuration.isZero())) {
+            throw new IllegalArgumentException("maxDuration must be positive: " + maxDuration);
+        }
+        this.maxInstructions = maxInstructions;
+        this.maxDepth = maxDepth;
+        this.maxDuration = maxDuration;
+    }
+
+    /** No limits; what {@link IRDeveloper#IRDeveloper(java.util.List)} uses. */
+    public static DevelopmentBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /** Limits suitable for compiling untrusted programs: 1M instructions, depth 256, 30 s. */
+    public static DevelopmentBudget defaults() {
+        return DEFAULTS;
+    }
+
+    public DevelopmentBudget withMaxInstructions(long maxInstructions) {
+        return new DevelopmentBudget(maxInstructions, maxDepth, maxDuration);
+    }
+
+    public DevelopmentBudget withMaxDepth(int maxDepth) {
+        return new DevelopmentBudget(maxInstructions, maxDepth, maxDuration);
+    }
+
+    public DevelopmentBudget withMaxDuration(Duration maxDuration) {
+        return new DevelopmentBudget(maxInstructions, maxDepth, maxDuration);
+    }
+
+    public long getMaxInstructions() {
+        return maxInstructions;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /** Wall-clock limit, or {@code null} if the run may take arbitrarily long. */
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DevelopmentBudget other)) return false;
+        return maxInstructions == other.maxInstructions
+                && maxDepth == other.maxDepth
+                && Objects.equals(maxDuration, other.maxDuration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxInstructions, maxDepth, maxDuration);
+    }
+
+    @Override
+    public String toString() {
+        return "DevelopmentBudget{maxInstructions=" + maxInstructions
+                + ", maxDepth=" + maxDepth
+                + ", maxDuration=" + maxDuration + "}";
+    }
+}
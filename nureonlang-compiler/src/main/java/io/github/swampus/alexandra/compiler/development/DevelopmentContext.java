@@ -1,19 +1,27 @@
 package io.github.swampus.alexandra.compiler.development;
 
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
+
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Holds compile-time variables used during development-phase expansion
  * (FOR loops, IF conditions, macros, etc.).
  *
  * <p>This context is intentionally simple and mutable. It behaves like
- * a scoped variable table for the developmental interpreter.</p>
+ * a scoped variable table for the developmental interpreter. It also caches
+ * every {@link DevelopmentExpression} parsed during the run, so a condition or
+ * bound inside a loop is parsed once and only re-evaluated per iteration.</p>
  */
 public class DevelopmentContext {
 
     private final Map<String, Object> variables = new HashMap<>();
+    private final Map<String, DevelopmentExpression> expressions = new HashMap<>();
+    private final Set<String> invalidExpressions = new HashSet<>();
 
     /** Bind variable to value */
     public void set(String name, Object value) {
@@ -50,16 +58,16 @@ public class DevelopmentContext {
      * - "5" -> integer 5
      * - null -> null
      *
-     * This is intentionally minimal; replace later with real expression engine.
+     * Anything else is returned as the raw string; use {@link #expression} to
+     * evaluate arithmetic, comparisons and boolean logic.
      */
     public Object resolve(String expr) {
 
         if (expr == null) return null;
 
         // numeric literal
-        try {
-            return Integer.parseInt(expr);
-        } catch (NumberFormatException ignored) {}
+        Integer literal = parseIntOrNull(expr);
+        if (literal != null) return literal;
 
         // variable lookup
         if (variables.containsKey(expr)) {
@@ -69,4 +77,66 @@ public class DevelopmentContext {
         // fallback: return raw string
         return expr;
     }
+
+    /** Parsed form of {@code source}, parsed on first use in this context. */
+    public DevelopmentExpression expression(String source) {
+        Objects.requireNonNull(source, "expression must not be null");
+        DevelopmentExpression parsed = expressions.get(source);
+        if (parsed == null) {
+            parsed = DevelopmentExpression.parse(source);
+            expressions.put(source, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Like {@link #expression}, but returns {@code null} when {@code source} is not
+     * a valid development expression (remembered, so it is not parsed again).
+     */
+    public DevelopmentExpression tryExpression(String source) {
+        if (source == null || invalidExpressions.contains(source)) return null;
+        DevelopmentExpression parsed = expressions.get(source);
+        if (parsed == null) {
+            parsed = DevelopmentExpression.tryParse(source);
+            if (parsed == null) {
+                invalidExpressions.add(source);
+                return null;
+            }
+            expressions.put(source, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Evaluates a {@code FOR} bound: a {@link Number}, or an expression string
+     * such as {@code "N-1"} over the bound variables. Fractions are truncated.
+     *
+     * @throws CompilationException if the bound is missing or not a number
+     */
+    public int evaluateInt(Object bound) {
+        if (bound instanceof Number n) return n.intValue();
+        if (bound instanceof String s) {
+            Integer literal = parseIntOrNull(s);
+            if (literal != null) return literal;
+            return (int) expression(s).evaluateNumber(this);
+        }
+        throw new CompilationException("Not a numeric bound: " + bound, null);
+    }
+
+    /** {@code [+-]?digits} within int range, or {@code null}; no exceptions on the hot path. */
+    private static Integer parseIntOrNull(String s) {
+        int len = s.length();
+        if (len == 0 || len > 11) return null;
+        int i = (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        if (i == len) return null;
+        long value = 0;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return null;
+            value = value * 10 + (c - '0');
+        }
+        if (s.charAt(0) == '-') value = -value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return null;
+        return (int) value;
+    }
 }
@@ -0,0 +1,660 @@
+package io.github.swampus.alexandra.compiler.development;
+
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A development-time expression ({@code FOR} bound, {@code IF} condition,
+ * {@code LET} value) parsed once into a typed tree and evaluated against a
+ * {@link DevelopmentContext} as often as needed.
+ *
+ * <p>Supported syntax, loosest binding first:</p>
+ * <ul>
+ *   <li>{@code ||}, {@code &&}</li>
+ *   <li>{@code ==} (or {@code =}), {@code !=} on numbers or booleans</li>
+ *   <li>{@code <}, {@code <=}, {@code >}, {@code >=}</li>
+ *   <li>{@code +}, {@code -}, then {@code *}, {@code /}, {@code %}</li>
+ *   <li>unary {@code -}, {@code +}, {@code !}</li>
+ *   <li>{@code ^} (right-associative power)</li>
+ *   <li>numbers, {@code true}/{@code false}, variables, {@code name[index]}, parentheses</li>
+ * </ul>
+ *
+ * <p>Numbers are {@code double}s, as in the compiler's other evaluators. Operand
+ * types are checked while parsing wherever they are known, and subtrees without
+ * variables are folded into constants. {@code name[index]} refers to runtime data
+ * (e.g. an input element), so an expression containing it is never
+ * {@linkplain #isDecidable decidable} during development.</p>
+ *
+ * <p>Instances are immutable and thread-safe.</p>
+ *
+ * @since 0.9.0
+ */
+public final class DevelopmentExpression {
+
+    /** Static type of an expression; {@code ANY} when it depends on a variable's value. */
+    public enum Type {
+        NUMBER,
+        BOOLEAN,
+        ANY
+    }
+
+    private final String source;
+    private final Node root;
+    private final List<String> variables;
+    private final boolean runtimeReferences;
+
+    private DevelopmentExpression(String source, Node root, List<String> variables, boolean runtimeReferences) {
+        this.source = source;
+        this.root = root;
+        this.variables = variables;
+        this.runtimeReferences = runtimeReferences;
+    }
+
+    /**
+     * Parses {@code source}.
+     *
+     * @throws CompilationException on syntax or static type errors
+     */
+    public static DevelopmentExpression parse(String source) {
+        if (source == null) {
+            throw new CompilationException("Missing development expression", null);
+        }
+        try {
+            return parseOrFail(source);
+        } catch (Failure f) {
+            throw new CompilationException("Invalid development expression '" + source + "': " + f.getMessage(), null);
+        }
+    }
+
+    /** Like {@link #parse}, but returns {@code null} for invalid or missing input. */
+    public static DevelopmentExpression tryParse(String source) {
+        if (source == null) return null;
+        try {
+            return parseOrFail(source);
+        } catch (Failure f) {
+            return null;
+        }
+    }
+
+    private static DevelopmentExpression parseOrFail(String source) {
+        Parser p = new Parser(source);
+        Node root = p.parseOr();
+        p.skipSpaces();
+        if (p.pos != source.length()) {
+            throw new Failure("unexpected '" + source.charAt(p.pos) + "' at position " + p.pos);
+        }
+        return new DevelopmentExpression(source, root,
+                Collections.unmodifiableList(p.variables), p.runtimeReferences);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Type getType() {
+        return root.type();
+    }
+
+    /** Distinct variables referenced (excluding indexed runtime references), in first-seen order. */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /** Whether the expression folded to a literal. */
+    public boolean isConstant() {
+        return root instanceof Num || root instanceof Bool;
+    }
+
+    /**
+     * Whether the expression can be evaluated in {@code ctx}: it has no runtime
+     * references and every variable is bound to a number or a boolean.
+     */
+    public boolean isDecidable(DevelopmentContext ctx) {
+        if (runtimeReferences) return false;
+        for (String v : variables) {
+            Object value = ctx.get(v);
+            if (!(value instanceof Number) && !(value instanceof Boolean)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates to an {@link Integer} (integral numbers in range), a {@link Double}
+     * or a {@link Boolean}.
+     *
+     * @throws CompilationException if the expression is not decidable or fails
+     */
+    public Object evaluate(DevelopmentContext ctx) {
+        try {
+            Object value = root.value(ctx);
+            if (value instanceof Double d && d == Math.rint(d)
+                    && d >= Integer.MIN_VALUE && d <= Integer.MAX_VALUE) {
+                return d.intValue();
+            }
+            return value;
+        } catch (Failure f) {
+            throw failure(f);
+        }
+    }
+
+    /** Evaluates a numeric expression; see {@link #evaluate}. */
+    public double evaluateNumber(DevelopmentContext ctx) {
+        try {
+            return root.num(ctx);
+        } catch (Failure f) {
+            throw failure(f);
+        }
+    }
+
+    /** Evaluates a boolean expression; see {@link #evaluate}. */
+    public boolean evaluateBoolean(DevelopmentContext ctx) {
+        try {
+            return root.bool(ctx);
+        } catch (Failure f) {
+            throw failure(f);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private CompilationException failure(Failure f) {
+        return new CompilationException("Cannot evaluate '" + source + "': " + f.getMessage(), null);
+    }
+
+    /** Internal error carrier; converted to a {@link CompilationException} naming the source. */
+    private static final class Failure extends RuntimeException {
+        Failure(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Tree
+    // ---------------------------------------------------------------------
+
+    private interface Node {
+        Type type();
+
+        double num(DevelopmentContext ctx);
+
+        boolean bool(DevelopmentContext ctx);
+
+        Object value(DevelopmentContext ctx);
+    }
+
+    private abstract static class NumberNode implements Node {
+        public Type type() {
+            return Type.NUMBER;
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            throw new Failure("expected a boolean, got a number");
+        }
+
+        public Object value(DevelopmentContext ctx) {
+            return num(ctx);
+        }
+    }
+
+    private abstract static class BooleanNode implements Node {
+        public Type type() {
+            return Type.BOOLEAN;
+        }
+
+        public double num(DevelopmentContext ctx) {
+            throw new Failure("expected a number, got a boolean");
+        }
+
+        public Object value(DevelopmentContext ctx) {
+            return bool(ctx);
+        }
+    }
+
+    private static final class Num extends NumberNode {
+        final double value;
+
+        Num(double value) {
+            this.value = value;
+        }
+
+        public double num(DevelopmentContext ctx) {
+            return value;
+        }
+    }
+
+    private static final class Bool extends BooleanNode {
+        final boolean value;
+
+        Bool(boolean value) {
+            this.value = value;
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            return value;
+        }
+    }
+
+    private static final class Var implements Node {
+        final String name;
+
+        Var(String name) {
+            this.name = name;
+        }
+
+        public Type type() {
+            return Type.ANY;
+        }
+
+        public double num(DevelopmentContext ctx) {
+            Object v = ctx.get(name);
+            if (v instanceof Number n) return n.doubleValue();
+            throw new Failure(describe(v) + " is not a number");
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            Object v = ctx.get(name);
+            if (v instanceof Boolean b) return b;
+            throw new Failure(describe(v) + " is not a boolean");
+        }
+
+        public Object value(DevelopmentContext ctx) {
+            Object v = ctx.get(name);
+            if (v instanceof Number n) return n.doubleValue();
+            if (v instanceof Boolean) return v;
+            throw new Failure(describe(v) + " is not a number or boolean");
+        }
+
+        private String describe(Object v) {
+            return v == null ? "variable '" + name + "' is unbound and" : "variable '" + name + "' = " + v;
+        }
+    }
+
+    /** {@code name[index]}: runtime data, never available during development. */
+    private static final class RuntimeRef implements Node {
+        final String text;
+
+        RuntimeRef(String text) {
+            this.text = text;
+        }
+
+        public Type type() {
+            return Type.ANY;
+        }
+
+        public double num(DevelopmentContext ctx) {
+            throw unavailable();
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            throw unavailable();
+        }
+
+        public Object value(DevelopmentContext ctx) {
+            throw unavailable();
+        }
+
+        private Failure unavailable() {
+            return new Failure("'" + text + "' is only known at runtime");
+        }
+    }
+
+    private static final class Neg extends NumberNode {
+        final Node operand;
+
+        Neg(Node operand) {
+            this.operand = operand;
+        }
+
+        public double num(DevelopmentContext ctx) {
+            return -operand.num(ctx);
+        }
+    }
+
+    private static final class Not extends BooleanNode {
+        final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            return !operand.bool(ctx);
+        }
+    }
+
+    private static final class Arith extends NumberNode {
+        final char op;
+        final Node left;
+        final Node right;
+
+        Arith(char op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        public double num(DevelopmentContext ctx) {
+            double l = left.num(ctx);
+            double r = right.num(ctx);
+            switch (op) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                case '^':
+                    return Math.pow(l, r);
+                default:
+                    if (r == 0d) throw new Failure("division by zero");
+                    return op == '/' ? l / r : l % r;
+            }
+        }
+    }
+
+    /** Ordering comparison; {@code op} is one of {@code < <= > >=}. */
+    private static final class Compare extends BooleanNode {
+        final String op;
+        final Node left;
+        final Node right;
+
+        Compare(String op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            double l = left.num(ctx);
+            double r = right.num(ctx);
+            switch (op) {
+                case "<":
+                    return l < r;
+                case "<=":
+                    return l <= r;
+                case ">":
+                    return l > r;
+                default:
+                    return l >= r;
+            }
+        }
+    }
+
+    private static final class Equality extends BooleanNode {
+        final boolean negated;
+        final Node left;
+        final Node right;
+
+        Equality(boolean negated, Node left, Node right) {
+            this.negated = negated;
+            this.left = left;
+            this.right = right;
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            Object l = left.value(ctx);
+            Object r = right.value(ctx);
+            if (l instanceof Double a && r instanceof Double b) {
+                return (a.doubleValue() == b.doubleValue()) != negated;
+            }
+            if (l instanceof Boolean a && r instanceof Boolean b) {
+                return a.equals(b) != negated;
+            }
+            throw new Failure("cannot compare a number with a boolean");
+        }
+    }
+
+    private static final class Logic extends BooleanNode {
+        final boolean and;
+        final Node left;
+        final Node right;
+
+        Logic(boolean and, Node left, Node right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        public boolean bool(DevelopmentContext ctx) {
+            return and
+                    ? left.bool(ctx) && right.bool(ctx)
+                    : left.bool(ctx) || right.bool(ctx);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Parser
+    // ---------------------------------------------------------------------
+
+    /** Recursive descent with type checks and constant folding at every node. */
+    private static final class Parser {
+        private final String s;
+        private int pos;
+        private final List<String> variables = new ArrayList<>();
+        private boolean runtimeReferences;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Node parseOr() {
+            Node left = parseAnd();
+            while (accept("||")) {
+                left = fold(new Logic(false, expect(left, Type.BOOLEAN), expect(parseAnd(), Type.BOOLEAN)));
+            }
+            return left;
+        }
+
+        Node parseAnd() {
+            Node left = parseEquality();
+            while (accept("&&")) {
+                left = fold(new Logic(true, expect(left, Type.BOOLEAN), expect(parseEquality(), Type.BOOLEAN)));
+            }
+            return left;
+        }
+
+        Node parseEquality() {
+            Node left = parseRelational();
+            while (true) {
+                boolean negated;
+                if (accept("==")) {
+                    negated = false;
+                } else if (accept("!=")) {
+                    negated = true;
+                } else if (peek('=') && !peekAt(1, '=')) {
+                    pos++;
+                    negated = false;
+                } else {
+                    return left;
+                }
+                Node right = parseRelational();
+                if (left.type() != Type.ANY && right.type() != Type.ANY && left.type() != right.type()) {
+                    throw new Failure("cannot compare a number with a boolean");
+                }
+                left = fold(new Equality(negated, left, right));
+            }
+        }
+
+        Node parseRelational() {
+            Node left = parseAdditive();
+            while (true) {
+                String op;
+                if (accept("<=")) op = "<=";
+                else if (accept(">=")) op = ">=";
+                else if (accept("<")) op = "<";
+                else if (accept(">")) op = ">";
+                else return left;
+                left = fold(new Compare(op, expect(left, Type.NUMBER), expect(parseAdditive(), Type.NUMBER)));
+            }
+        }
+
+        Node parseAdditive() {
+            Node left = parseMultiplicative();
+            while (true) {
+                skipSpaces();
+                if (peek('+') || peek('-')) {
+                    char op = s.charAt(pos++);
+                    left = fold(new Arith(op, expect(left, Type.NUMBER), expect(parseMultiplicative(), Type.NUMBER)));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        Node parseMultiplicative() {
+            Node left = parseUnary();
+            while (true) {
+                skipSpaces();
+                if (peek('*') || peek('/') || peek('%')) {
+                    char op = s.charAt(pos++);
+                    left = fold(new Arith(op, expect(left, Type.NUMBER), expect(parseUnary(), Type.NUMBER)));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        Node parseUnary() {
+            skipSpaces();
+            if (peek('-')) {
+                pos++;
+                return fold(new Neg(expect(parseUnary(), Type.NUMBER)));
+            }
+            if (peek('+')) {
+                pos++;
+                return expect(parseUnary(), Type.NUMBER);
+            }
+            if (peek('!') && !peekAt(1, '=')) {
+                pos++;
+                return fold(new Not(expect(parseUnary(), Type.BOOLEAN)));
+            }
+            return parsePower();
+        }
+
+        Node parsePower() {
+            Node base = parsePrimary();
+            skipSpaces();
+            if (peek('^')) {
+                pos++;
+                // right-associative; the exponent may carry its own sign
+                return fold(new Arith('^', expect(base, Type.NUMBER), expect(parseUnary(), Type.NUMBER)));
+            }
+            return base;
+        }
+
+        Node parsePrimary() {
+            skipSpaces();
+            if (pos >= s.length()) throw new Failure("unexpected end of expression");
+            char c = s.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Node inner = parseOr();
+                skipSpaces();
+                if (!peek(')')) throw new Failure("missing ')' at position " + pos);
+                pos++;
+                return inner;
+            }
+            if (isDigit(c)) {
+                int start = pos;
+                while (pos < s.length() && isDigit(s.charAt(pos))) pos++;
+                if (peek('.')) {
+                    pos++;
+                    while (pos < s.length() && isDigit(s.charAt(pos))) pos++;
+                }
+                return new Num(Double.parseDouble(s.substring(start, pos)));
+            }
+            if (isIdentStart(c)) {
+                int start = pos;
+                while (pos < s.length() && isIdentPart(s.charAt(pos))) pos++;
+                String name = s.substring(start, pos);
+                if (name.equals("true")) return new Bool(true);
+                if (name.equals("false")) return new Bool(false);
+                skipSpaces();
+                if (peek('[')) {
+                    pos++;
+                    parseOr();
+                    skipSpaces();
+                    if (!peek(']')) throw new Failure("missing ']' at position " + pos);
+                    pos++;
+                    runtimeReferences = true;
+                    return new RuntimeRef(s.substring(start, pos));
+                }
+                if (!variables.contains(name)) variables.add(name);
+                return new Var(name);
+            }
+            throw new Failure("unexpected '" + c + "' at position " + pos);
+        }
+
+        /** Rejects operands whose static type is known to be wrong. */
+        private static Node expect(Node node, Type type) {
+            if (node.type() != Type.ANY && node.type() != type) {
+                throw new Failure("expected a " + type.name().toLowerCase() + ", got a "
+                        + node.type().name().toLowerCase());
+            }
+            return node;
+        }
+
+        /** Replaces an operator node over literals with its value; failures are left for evaluation. */
+        private static Node fold(Node node) {
+            if (!literalOperands(node)) return node;
+            try {
+                return node.type() == Type.BOOLEAN ? new Bool(node.bool(null)) : new Num(node.num(null));
+            } catch (Failure e) {
+                return node;
+            }
+        }
+
+        private static boolean literalOperands(Node node) {
+            if (node instanceof Neg n) return isLiteral(n.operand);
+            if (node instanceof Not n) return isLiteral(n.operand);
+            if (node instanceof Arith a) return isLiteral(a.left) && isLiteral(a.right);
+            if (node instanceof Compare c) return isLiteral(c.left) && isLiteral(c.right);
+            if (node instanceof Equality e) return isLiteral(e.left) && isLiteral(e.right);
+            if (node instanceof Logic l) return isLiteral(l.left) && isLiteral(l.right);
+            return false;
+        }
+
+        private static boolean isLiteral(Node node) {
+            return node instanceof Num || node instanceof Bool;
+        }
+
+        void skipSpaces() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private boolean accept(String token) {
+            skipSpaces();
+            if (s.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean peek(char c) {
+            return pos < s.length() && s.charAt(pos) == c;
+        }
+
+        private boolean peekAt(int offset, char c) {
+            return pos + offset < s.length() && s.charAt(pos + offset) == c;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isIdentStart(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+        }
+
+        private static boolean isIdentPart(char c) {
+            return isIdentStart(c) || isDigit(c);
+        }
+    }
+}
@@ -1,47 +1,176 @@
 package io.github.swampus.alexandra.compiler.development;
 
+import io.github.swampus.alexandra.compiler.exception.DevelopmentBudgetExceededException;
 import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
+/**
+ * Runs the development phase: recursively replaces instructions handled by an
+ * {@link InstructionExpander} with their expansion.
+ *
+ * <p>{@link #iterate(List)} is streaming: expansions are pulled depth-first
+ * through a stack of expander iterators, so memory is bounded by the nesting
+ * depth rather than by the size of the unrolled program. {@link #develop(List)}
+ * collects the same sequence eagerly.</p>
+ *
+ * <p>Each run is bounded by a {@link DevelopmentBudget}. Reaching a limit stops
+ * the run with a {@link DevelopmentBudgetExceededException} whose trace names the
+ * expansions in progress; instructions emitted before that stay valid.</p>
+ */
 public class IRDeveloper {
 
+    /** Steps between wall-clock checks, so {@link System#nanoTime()} stays off the hot path. */
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
     private final List<InstructionExpander> expanders;
+    private final DevelopmentBudget budget;
 
     public IRDeveloper(List<InstructionExpander> expanders) {
+        this(expanders, DevelopmentBudget.unlimited());
+    }
+
+    public IRDeveloper(List<InstructionExpander> expanders, DevelopmentBudget budget) {
         this.expanders = expanders;
+        this.budget = Objects.requireNonNull(budget, "budget");
     }
 
-    public List<Instruction> develop(List<Instruction> program) {
+    public DevelopmentBudget getBudget() {
+        return budget;
+    }
 
-        DevelopmentContext ctx = new DevelopmentContext();
+    public List<Instruction> develop(List<Instruction> program) {
         List<Instruction> result = new ArrayList<>();
-
-        for (Instruction instr : program) {
-            result.addAll(developInstruction(instr, ctx));
-        }
-
+        iterate(program).forEachRemaining(result::add);
         return result;
     }
 
-    private List<Instruction> developInstruction(
-            Instruction instr,
-            DevelopmentContext ctx
-    ) {
+    /**
+     * Lazily develops {@code program}. The returned iterator shares one
+     * {@link DevelopmentContext} across the whole program and must be consumed
+     * on a single thread.
+     */
+    public Iterator<Instruction> iterate(List<Instruction> program) {
+        return new Developing(program.iterator(), new DevelopmentContext());
+    }
 
+    private InstructionExpander expanderFor(Instruction instr) {
         for (InstructionExpander e : expanders) {
-            if (e.supports(instr.getOp())) {
-                List<Instruction> expanded = e.expand(instr, ctx);
+            if (e.supports(instr.getOp())) return e;
+        }
+        return null;
+    }
+
+    /**
+     * Depth-first flattening of nested expansions; only leaf instructions are emitted.
+     * The budget is checked as instructions are pulled: the clock starts with the
+     * first {@link #hasNext()} and, when streaming, includes the time the consumer
+     * spends between pulls.
+     */
+    private final class Developing implements Iterator<Instruction> {
+
+        private final Deque<Iterator<Instruction>> stack = new ArrayDeque<>();
+        /** Instruction whose expansion each non-root stack entry is; same order as {@code stack}. */
+        private final Deque<Instruction> expanding = new ArrayDeque<>();
+        private final DevelopmentContext ctx;
+        private Instruction next;
+
+        private long emitted;
+        private long steps;
+        private long deadline;
+        private boolean started;
 
-                List<Instruction> finalList = new ArrayList<>();
-                for (Instruction i : expanded) {
-                    finalList.addAll(developInstruction(i, ctx));
+        Developing(Iterator<Instruction> program, DevelopmentContext ctx) {
+            this.ctx = ctx;
+            stack.push(program);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                started = true;
+                if (budget.getMaxDuration() != null) {
+                    deadline = System.nanoTime() + budget.getMaxDuration().toNanos();
+                }
+            }
+            while (next == null && !stack.isEmpty()) {
+                checkClock();
+                Iterator<Instruction> top = stack.peek();
+                if (!top.hasNext()) {
+                    stack.pop();
+                    if (!expanding.isEmpty()) expanding.pop();
+                    continue;
                 }
-                return finalList;
+                Instruction instr = top.next();
+                InstructionExpander expander = expanderFor(instr);
+                if (expander == null || !expander.canExpand(instr, ctx)) {
+                    if (emitted == budget.getMaxInstructions()) {
+                        throw exceeded(DevelopmentBudgetExceededException.Limit.INSTRUCTIONS,
+                                budget.getMaxInstructions(), instr);
+                    }
+                    emitted++;
+                    next = instr;
+                } else {
+                    if (expanding.size() == budget.getMaxDepth()) {
+                        throw exceeded(DevelopmentBudgetExceededException.Limit.DEPTH, budget.getMaxDepth(), instr);
+                    }
+                    stack.push(expander.iterate(instr, ctx));
+                    expanding.push(instr);
+                }
+            }
+            return next != null;
+        }
+
+        private void checkClock() {
+            if (budget.getMaxDuration() == null || ++steps % CLOCK_CHECK_INTERVAL != 0) return;
+            if (System.nanoTime() - deadline > 0) {
+                throw exceeded(DevelopmentBudgetExceededException.Limit.DURATION,
+                        budget.getMaxDuration().toMillis(), null);
             }
         }
 
-        return List.of(instr);
+        /** Builds the exception with the expansions in progress, outermost first, then {@code at}. */
+        private DevelopmentBudgetExceededException exceeded(DevelopmentBudgetExceededException.Limit limit,
+                                                            long allowed,
+                                                            Instruction at) {
+            List<String> trace = new ArrayList<>(expanding.size() + 1);
+            Iterator<Instruction> outermostFirst = expanding.descendingIterator();
+            while (outermostFirst.hasNext()) trace.add(describe(outermostFirst.next(), true));
+            if (at != null) trace.add(describe(at, false));
+            stack.clear();
+            expanding.clear();
+            return new DevelopmentBudgetExceededException(limit, allowed, trace);
+        }
+
+        /** E.g. {@code FOR i [i=41]} for a loop in progress, {@code IF x > 0}, {@code LAYER h3}. */
+        private String describe(Instruction instr, boolean inProgress) {
+            StringBuilder sb = new StringBuilder(String.valueOf(instr.getOp()));
+            if (instr.getOp() == OpCode.FOR && instr.getVar() != null) {
+                sb.append(' ').append(instr.getVar());
+                if (inProgress) {
+                    sb.append(" [").append(instr.getVar()).append('=').append(ctx.get(instr.getVar())).append(']');
+                }
+            } else if (instr.getOp() == OpCode.IF && instr.getCond() != null && instr.getCond().getExpr() != null) {
+                sb.append(' ').append(instr.getCond().getExpr());
+            } else if (instr.getName() != null) {
+                sb.append(' ').append(instr.getName());
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public Instruction next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Instruction out = next;
+            next = null;
+            return out;
+        }
     }
 }
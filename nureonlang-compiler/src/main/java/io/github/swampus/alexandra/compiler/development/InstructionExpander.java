@@ -3,10 +3,33 @@ package io.github.swampus.alexandra.compiler.development;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import io.github.swampus.alexandra.ir.model.OpCode;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 public interface InstructionExpander {
     boolean supports(OpCode op);
-    List<Instruction> expand(Instruction instr, DevelopmentContext ctx);
-}
 
+    /**
+     * Whether {@code instr} can be expanded now. When {@code false} the developer
+     * emits it unchanged and leaves it to the compiler, e.g. an {@code IF} whose
+     * condition depends on runtime data.
+     */
+    default boolean canExpand(Instruction instr, DevelopmentContext ctx) {
+        return true;
+    }
+
+    /**
+     * Lazily expands {@code instr}. Results are produced on demand, so large
+     * expansions need not be materialized; context changes made by the expander
+     * may stay in effect until the iterator is exhausted.
+     */
+    Iterator<Instruction> iterate(Instruction instr, DevelopmentContext ctx);
+
+    /** Eager form of {@link #iterate}, collecting the whole expansion. */
+    default List<Instruction> expand(Instruction instr, DevelopmentContext ctx) {
+        List<Instruction> result = new ArrayList<>();
+        iterate(instr, ctx).forEachRemaining(result::add);
+        return result;
+    }
+}
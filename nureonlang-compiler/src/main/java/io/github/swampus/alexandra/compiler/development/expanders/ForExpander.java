@@ -1,13 +1,15 @@
 package io.github.swampus.alexandra.compiler.development.expanders;
 
 import io.github.swampus.alexandra.compiler.development.DevelopmentContext;
+import io.github.swampus.alexandra.compiler.development.DevelopmentExpression;
 import io.github.swampus.alexandra.compiler.development.InstructionExpander;
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import io.github.swampus.alexandra.ir.model.OpCode;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -21,6 +23,8 @@ import java.util.Objects;
  * <h3>Semantics</h3>
  * <ul>
  *   <li>Bounds are treated as inclusive: {@code from <= i <= to}</li>
+ *   <li>Bounds are numbers or {@link DevelopmentExpression}s over bound variables
+ *       (e.g. {@code N-1}); a missing or non-numeric bound is a compilation error</li>
  *   <li>If {@code from > to}, the loop produces no instructions</li>
  *   <li>If body is {@code null} or empty, the loop produces no instructions</li>
  *   <li>The loop variable is temporarily bound in {@link DevelopmentContext}</li>
@@ -42,6 +46,11 @@ import java.util.Objects;
  * LAYER dense3 size=32
  * </pre>
  *
+ * <h3>Streaming</h3>
+ * {@link #iterate} clones one body instruction per {@code next()} call, so a
+ * {@code FOR i FROM 1 TO 1000000} loop never holds more than the clone being
+ * consumed. The loop variable stays bound until the iterator is exhausted.
+ *
  * <h3>Thread Safety</h3>
  * Not thread-safe. Intended for single-threaded compilation pipeline usage.
  */
@@ -53,7 +62,7 @@ public class ForExpander implements InstructionExpander {
     }
 
     @Override
-    public List<Instruction> expand(
+    public Iterator<Instruction> iterate(
             Instruction instr,
             DevelopmentContext ctx
     ) {
@@ -67,55 +76,32 @@ public class ForExpander implements InstructionExpander {
             throw new IllegalStateException("FOR instruction has no loop variable");
         }
 
-        // --- Extract bounds (based on your existing compiler logic)
-        int from = (instr.getFromVal() instanceof Number nFrom)
-                ? nFrom.intValue()
-                : 0;
-
-        int to = (instr.getToVal() instanceof Number nTo)
-                ? nTo.intValue()
-                : -1;
+        // --- Evaluate bounds (literals or expressions over bound variables)
+        int from = ctx.evaluateInt(requireBound(instr.getFromVal(), var, "from"));
+        int to = ctx.evaluateInt(requireBound(instr.getToVal(), var, "to"));
 
         // --- Body safety
         List<Instruction> body = instr.getBody();
-        if (body == null || body.isEmpty()) {
-            return List.of();
+        if (body == null || body.isEmpty() || from > to) {
+            return Collections.emptyIterator();
         }
 
-        // --- Preserve previous variable value if exists
+        // --- Preserve previous variable value; restored once the loop is drained
         Object previousValue = ctx.has(var) ? ctx.get(var) : null;
 
-        List<Instruction> result = new ArrayList<>();
-
-        try {
-
-            if (from <= to) {
-                for (int i = from; i <= to; i++) {
-
-                    ctx.set(var, i);
-
-                    for (Instruction bodyInstr : body) {
-
-                        // Deep clone + replace loop variable occurrences
-                        Instruction cloned =
-                                bodyInstr.deepCloneWithMultipleReplace(
-                                        Map.of(var, i)
-                                );
-
-                        result.add(cloned);
-                    }
-                }
-            }
-
-        } finally {
-            // Restore previous context state
+        return new UnrollingIterator(body, var, from, to, ctx, () -> {
             if (previousValue != null) {
                 ctx.set(var, previousValue);
             } else {
                 ctx.remove(var);
             }
-        }
+        });
+    }
 
-        return result;
+    static Object requireBound(Object bound, String var, String which) {
+        if (bound == null) {
+            throw new CompilationException("FOR " + var + " has no '" + which + "' bound", null);
+        }
+        return bound;
     }
 }
@@ -5,9 +5,8 @@ import io.github.swampus.alexandra.compiler.development.InstructionExpander;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import io.github.swampus.alexandra.ir.model.OpCode;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Iterator;
 
 public class ForInstructionExpander implements InstructionExpander {
 
@@ -17,43 +16,21 @@ public class ForInstructionExpander implements InstructionExpander {
     }
 
     @Override
-    public List<Instruction> expand(
+    public Iterator<Instruction> iterate(
             Instruction instr,
             DevelopmentContext ctx
     ) {
 
         String var = instr.getVar();
 
-        int from = (instr.getFromVal() instanceof Number nFrom)
-                ? nFrom.intValue()
-                : 0;
-
-        int to = (instr.getToVal() instanceof Number nTo)
-                ? nTo.intValue()
-                : 0;
-
-        List<Instruction> result = new ArrayList<>();
+        int from = ctx.evaluateInt(ForExpander.requireBound(instr.getFromVal(), var, "from"));
+        int to = ctx.evaluateInt(ForExpander.requireBound(instr.getToVal(), var, "to"));
 
         if (instr.getBody() == null) {
-            return result;
-        }
-
-        for (int i = from; i <= to; i++) {
-
-            ctx.set(var, i);
-
-            for (Instruction bodyInstr : instr.getBody()) {
-
-                Instruction clone =
-                        bodyInstr.deepCloneWithMultipleReplace(
-                                Map.of(var, i)
-                        );
-
-                result.add(clone);
-            }
+            return Collections.emptyIterator();
         }
 
-        return result;
+        return new UnrollingIterator(instr.getBody(), var, from, to, ctx, () -> {});
     }
 }
 
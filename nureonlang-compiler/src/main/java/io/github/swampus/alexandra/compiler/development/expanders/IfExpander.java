@@ -1,11 +1,13 @@
 package io.github.swampus.alexandra.compiler.development.expanders;
 
 import io.github.swampus.alexandra.compiler.development.DevelopmentContext;
+import io.github.swampus.alexandra.compiler.development.DevelopmentExpression;
 import io.github.swampus.alexandra.compiler.development.InstructionExpander;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import io.github.swampus.alexandra.ir.model.OpCode;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
@@ -17,6 +19,21 @@ import java.util.Objects;
  *
  * <p>This removes IF nodes from the IR and replaces them with the
  * selected branch instructions.</p>
+ *
+ * <h3>Conditions</h3>
+ * The condition is a {@link DevelopmentExpression} (comparisons, boolean logic,
+ * arithmetic over loop and {@code LET} variables), parsed once per development
+ * run. A condition that depends on runtime data (e.g. {@code x[0] > 0}), on
+ * unbound variables, or is outside that grammar is not decided here: the IF is
+ * left in place and compiled into a conditional layer as usual.
+ *
+ * <h3>Branch layout</h3>
+ * <ul>
+ *   <li>Parsed programs: {@code body = [thenBlock, elseBlock?]}, each a {@code BLOCK}
+ *       whose children are emitted;</li>
+ *   <li>Hand-built IR: {@code body} is the THEN branch and {@code meta["else"]} the
+ *       ELSE branch.</li>
+ * </ul>
  */
 public class IfExpander implements InstructionExpander {
 
@@ -25,6 +42,27 @@ public class IfExpander implements InstructionExpander {
         return op == OpCode.IF;
     }
 
+    @Override
+    public boolean canExpand(Instruction instr, DevelopmentContext ctx) {
+        Instruction cond = instr.getCond();
+        if (cond == null || cond.getExpr() == null) {
+            return true;
+        }
+        DevelopmentExpression condition = ctx.tryExpression(cond.getExpr());
+        return condition != null
+                && condition.getType() != DevelopmentExpression.Type.NUMBER
+                && condition.isDecidable(ctx);
+    }
+
+    @Override
+    public Iterator<Instruction> iterate(
+            Instruction instr,
+            DevelopmentContext ctx
+    ) {
+        return expand(instr, ctx).iterator();
+    }
+
+    /** Branch bodies already exist in the IR, so the eager form allocates nothing per element. */
     @Override
     public List<Instruction> expand(
             Instruction instr,
@@ -35,22 +73,21 @@ public class IfExpander implements InstructionExpander {
 
         Instruction cond = instr.getCond();
 
-        if (cond == null) {
+        if (cond == null || cond.getExpr() == null) {
             return List.of();
         }
 
-        boolean result = evaluate(cond, ctx);
-
-        if (result) {
-            return safe(instr.getBody());
-        }
+        boolean result = ctx.expression(cond.getExpr()).evaluateBoolean(ctx);
 
-        // ELSE block stored in meta["else"]
+        // Hand-built IR: ELSE block stored in meta["else"]
         Object elseObj = instr.getMeta() != null
                 ? instr.getMeta().get("else")
                 : null;
 
         if (elseObj instanceof List<?> list) {
+            if (result) {
+                return safe(instr.getBody());
+            }
 
             List<Instruction> elseBody = new ArrayList<>();
 
@@ -63,28 +100,24 @@ public class IfExpander implements InstructionExpander {
             return elseBody;
         }
 
-        return List.of();
+        List<Instruction> body = safe(instr.getBody());
+        if (!isBranchLayout(body)) {
+            return result ? body : List.of();
+        }
+        int branch = result ? 0 : 1;
+        return branch < body.size() ? safe(body.get(branch).getBody()) : List.of();
     }
 
     private List<Instruction> safe(List<Instruction> body) {
         return body == null ? List.of() : body;
     }
 
-    /**
-     * Minimal condition evaluator.
-     *
-     * NOTE: Replace with your real expression engine later.
-     */
-    private boolean evaluate(Instruction cond, DevelopmentContext ctx) {
-
-        // simplest possible logic first:
-
-        if (cond.getExpr() != null) {
-            Object val = ctx.resolve(cond.getExpr());
-            if (val instanceof Boolean b) return b;
+    /** {@code [thenBlock]} or {@code [thenBlock, elseBlock]}, as the parser produces. */
+    private static boolean isBranchLayout(List<Instruction> body) {
+        if (body.isEmpty() || body.size() > 2) return false;
+        for (Instruction b : body) {
+            if (b == null || b.getOp() != OpCode.BLOCK) return false;
         }
-
-        // fallback
-        return false;
+        return true;
     }
 }
@@ -0,0 +1,63 @@
+package io.github.swampus.alexandra.compiler.development.expanders;
+
+import io.github.swampus.alexandra.compiler.development.DevelopmentContext;
+import io.github.swampus.alexandra.compiler.development.DevelopmentExpression;
+import io.github.swampus.alexandra.compiler.development.InstructionExpander;
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Evaluates {@link OpCode#LET} instructions during development phase.
+ *
+ * <p>{@code LET n = depth * 2;} binds {@code n} in the {@link DevelopmentContext}
+ * to the value of its expression (an integer where the value is integral, a
+ * double or a boolean), so later {@code FOR} bounds and {@code IF} conditions
+ * can use it. The instruction itself expands to nothing.</p>
+ *
+ * <p>Bindings are not scoped: a {@code LET} stays in effect for the rest of the
+ * development run, and a later {@code LET} of the same name replaces it.</p>
+ *
+ * <p>A {@code LET} whose value cannot be decided now (a string such as
+ * {@code name+"_1"}, runtime data, or a variable that is not bound to a number
+ * or boolean) is emitted unchanged and binds nothing, like an undecidable
+ * {@code IF}.</p>
+ */
+public class LetExpander implements InstructionExpander {
+
+    @Override
+    public boolean supports(OpCode op) {
+        return op == OpCode.LET;
+    }
+
+    @Override
+    public boolean canExpand(Instruction instr, DevelopmentContext ctx) {
+        if (instr.getVar() == null || instr.getVar().isBlank() || instr.getExpr() == null) return true;
+        DevelopmentExpression value = ctx.tryExpression(instr.getExpr());
+        return value != null && value.isDecidable(ctx);
+    }
+
+    @Override
+    public Iterator<Instruction> iterate(
+            Instruction instr,
+            DevelopmentContext ctx
+    ) {
+
+        Objects.requireNonNull(instr, "instruction must not be null");
+
+        String var = instr.getVar();
+        if (var == null || var.isBlank()) {
+            throw new CompilationException("LET instruction has no variable", null);
+        }
+        if (instr.getExpr() == null) {
+            throw new CompilationException("LET " + var + " has no value", null);
+        }
+
+        ctx.set(var, ctx.expression(instr.getExpr()).evaluate(ctx));
+        return Collections.emptyIterator();
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.swampus.alexandra.compiler.development.expanders;
+
+import io.github.swampus.alexandra.compiler.development.DevelopmentContext;
+import io.github.swampus.alexandra.ir.model.Instruction;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily unrolls a {@code FOR} body: each {@link #next()} rewrites one body
+ * instruction for the current iteration, so only the clone being consumed is
+ * alive at any time. Rewrites are copy-on-write (see
+ * {@link Instruction#withReplacements}): subtrees that do not mention the loop
+ * variable are shared with the template rather than copied.
+ *
+ * <p>The loop variable is bound in the {@link DevelopmentContext} when an
+ * iteration starts and stays bound while its clones are developed downstream.
+ * {@code onExhausted} runs exactly once, after the last clone was handed out.</p>
+ */
+final class UnrollingIterator implements Iterator<Instruction> {
+
+    private final List<Instruction> body;
+    private final String var;
+    private final long to;
+    private final DevelopmentContext ctx;
+    private final Runnable onExhausted;
+
+    private long current;
+    private int position;
+    private boolean finished;
+
+    UnrollingIterator(List<Instruction> body,
+                      String var,
+                      int from,
+                      int to,
+                      DevelopmentContext ctx,
+                      Runnable onExhausted) {
+        this.body = body;
+        this.var = var;
+        this.to = to;
+        this.ctx = ctx;
+        this.onExhausted = onExhausted;
+        this.current = from;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) return false;
+        if (current <= to && !body.isEmpty()) return true;
+        finished = true;
+        onExhausted.run();
+        return false;
+    }
+
+    @Override
+    public Instruction next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        int i = (int) current;
+        if (position == 0) ctx.set(var, i);
+
+        Instruction cloned = body.get(position).withReplacements(Map.of(var, i));
+        if (++position == body.size()) {
+            position = 0;
+            current++;
+        }
+        return cloned;
+    }
+}
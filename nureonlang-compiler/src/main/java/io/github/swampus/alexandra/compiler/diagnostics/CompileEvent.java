@@ -0,0 +1,45 @@
+package io.github.swampus.alexandra.compiler.diagnostics;
+
+import java.util.Objects;
+
+/**
+ * One structured entry of a compilation trace.
+ *
+ * <p>Events are only created when the active {@link DiagnosticsSink} is enabled;
+ * {@link #toString()} renders the legacy one-line trace format.</p>
+ *
+ * @param kind    what happened
+ * @param subject primary name (layer, macro, loop variable, condition, ...)
+ * @param detail  optional secondary value, may be {@code null}
+ */
+public record CompileEvent(Kind kind, String subject, String detail) {
+
+    public enum Kind {
+        BEGIN,
+        LAYER,
+        CONNECT,
+        MODULE_DEF,
+        FOR,
+        MACRO_DEF,
+        MACRO_CALL,
+        EXPAND,
+        CALL,
+        IF
+    }
+
+    public CompileEvent {
+        Objects.requireNonNull(kind, "kind");
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case BEGIN -> "== Compilation :: begin ==";
+            case LAYER -> "[LAYER] created: " + subject + " type=" + detail;
+            case CONNECT -> "[CONNECT] " + subject + " -> " + detail;
+            case FOR -> "[FOR] " + subject + " " + detail;
+            case IF -> "[IF] condition: " + subject;
+            default -> "[" + kind.name() + "] " + subject;
+        };
+    }
+}
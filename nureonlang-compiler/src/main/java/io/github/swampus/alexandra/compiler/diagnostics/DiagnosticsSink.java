@@ -0,0 +1,48 @@
+package io.github.swampus.alexandra.compiler.diagnostics;
+
+import java.util.List;
+
+/**
+ * Receives {@link CompileEvent}s emitted during one compilation.
+ *
+ * <p>Producers must check {@link #isEnabled()} before building an event, so a
+ * disabled sink costs a single field read per call site.</p>
+ *
+ * @see RingBufferDiagnosticsSink
+ */
+public interface DiagnosticsSink {
+
+    /** Disabled sink: records nothing. */
+    DiagnosticsSink OFF = new DiagnosticsSink() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void accept(CompileEvent event) {
+            // disabled
+        }
+
+        @Override
+        public List<CompileEvent> events() {
+            return List.of();
+        }
+    };
+
+    boolean isEnabled();
+
+    void accept(CompileEvent event);
+
+    /**
+     * Returns the retained events, oldest first.
+     */
+    List<CompileEvent> events();
+
+    /**
+     * Returns the retained events rendered as trace lines, oldest first.
+     */
+    default List<String> lines() {
+        return events().stream().map(CompileEvent::toString).toList();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.swampus.alexandra.compiler.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link DiagnosticsSink} that keeps the most recent {@code capacity} events.
+ *
+ * <p>Older events are overwritten once the buffer is full; {@link #getDropped()}
+ * reports how many were lost and {@link #lines()} starts with a marker line in
+ * that case. Not thread-safe.</p>
+ */
+public final class RingBufferDiagnosticsSink implements DiagnosticsSink {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final CompileEvent[] buffer;
+    private int next;
+    private int size;
+    private long dropped;
+
+    public RingBufferDiagnosticsSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RingBufferDiagnosticsSink(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        this.buffer = new CompileEvent[capacity];
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void accept(CompileEvent event) {
+        buffer[next] = event;
+        next = (next + 1) % buffer.length;
+        if (size < buffer.length) {
+            size++;
+        } else {
+            dropped++;
+        }
+    }
+
+    @Override
+    public List<CompileEvent> events() {
+        List<CompileEvent> out = new ArrayList<>(size);
+        int start = (next - size + buffer.length) % buffer.length;
+        for (int i = 0; i < size; i++) {
+            out.add(buffer[(start + i) % buffer.length]);
+        }
+        return out;
+    }
+
+    @Override
+    public List<String> lines() {
+        List<String> out = new ArrayList<>(size + 1);
+        if (dropped > 0) {
+            out.add("... " + dropped + " earlier event(s) dropped");
+        }
+        for (CompileEvent e : events()) {
+            out.add(e.toString());
+        }
+        return out;
+    }
+
+    /** Number of events overwritten because the buffer was full. */
+    public long getDropped() {
+        return dropped;
+    }
+
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    public void clear() {
+        Arrays.fill(buffer, null);
+        next = 0;
+        size = 0;
+        dropped = 0;
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.swampus.alexandra.compiler.exception;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Thrown when the development phase reaches a limit of its
+ * {@link io.github.swampus.alexandra.compiler.development.DevelopmentBudget}.
+ *
+ * <p>The trace lists the expansions that were in progress, outermost first
+ * (e.g. {@code FOR i [i=41]}), so the offending loop or branch can be located
+ * in the source.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ *
+ * @since 0.9.0
+ */
+public class DevelopmentBudgetExceededException extends CompilationException {
+
+    /** The budget dimension that was exhausted. */
+    public enum Limit {
+        INSTRUCTIONS,
+        DEPTH,
+        DURATION
+    }
+
+    private final Limit limit;
+    private final long allowed;
+
+    /**
+     * @param limit   exhausted dimension
+     * @param allowed configured value of that dimension (milliseconds for {@link Limit#DURATION})
+     * @param trace   expansions in progress, outermost first
+     */
+    public DevelopmentBudgetExceededException(Limit limit, long allowed, List<String> trace) {
+        super(message(Objects.requireNonNull(limit, "limit"), allowed), trace);
+        this.limit = limit;
+        this.allowed = allowed;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    public long getAllowed() {
+        return allowed;
+    }
+
+    private static String message(Limit limit, long allowed) {
+        return switch (limit) {
+            case INSTRUCTIONS -> "Development budget exceeded: more than " + allowed + " instructions emitted";
+            case DEPTH -> "Development budget exceeded: expansions nested deeper than " + allowed;
+            case DURATION -> "Development budget exceeded: took longer than " + allowed + " ms";
+        };
+    }
+}
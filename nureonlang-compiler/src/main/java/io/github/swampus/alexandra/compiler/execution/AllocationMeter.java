@@ -0,0 +1,40 @@
+package io.github.swampus.alexandra.compiler.execution;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Thin wrapper over {@link com.sun.management.ThreadMXBean} allocation accounting.
+ *
+ * <p>Falls back to {@code -1} on JVMs that do not expose the HotSpot extension or
+ * have thread allocation accounting disabled.</p>
+ */
+final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = lookup();
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Returns the total number of bytes allocated so far by the current thread,
+     * or {@code -1} if unsupported.
+     */
+    static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1L;
+    }
+
+    private static com.sun.management.ThreadMXBean lookup() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                if (!bean.isThreadAllocatedMemoryEnabled()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                }
+                return bean;
+            }
+        } catch (UnsupportedOperationException | SecurityException ignored) {
+            // fall through: allocation accounting unavailable
+        }
+        return null;
+    }
+}
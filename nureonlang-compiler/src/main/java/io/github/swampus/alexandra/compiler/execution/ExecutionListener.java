@@ -0,0 +1,47 @@
+package io.github.swampus.alexandra.compiler.execution;
+
+import io.github.swampus.alexandra.compiler.model.layer.ConditionalLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+
+/**
+ * Instrumentation hooks invoked by {@link NetworkExecutor} around each layer.
+ *
+ * <p>All callbacks have empty defaults so implementations override only what
+ * they need. The executor compares the configured listener against {@link #NOOP}
+ * once per layer and skips timing and allocation probes entirely when no listener
+ * is installed.</p>
+ *
+ * <p>Callbacks run on the executing thread; implementations that are shared
+ * between executors must be thread-safe.</p>
+ */
+public interface ExecutionListener {
+
+    /** Listener that ignores all events; disables instrumentation in the executor. */
+    ExecutionListener NOOP = new ExecutionListener() {};
+
+    /**
+     * Called right before {@code layer} is evaluated.
+     */
+    default void beforeLayer(Layer layer) {
+    }
+
+    /**
+     * Called right after {@code layer} has been evaluated.
+     *
+     * @param layer          evaluated layer
+     * @param elapsedNanos   wall-clock time spent in the layer
+     * @param allocatedBytes bytes allocated by the executing thread while evaluating the layer,
+     *                       or {@code -1} if the JVM does not support allocation accounting
+     */
+    default void afterLayer(Layer layer, long elapsedNanos, long allocatedBytes) {
+    }
+
+    /**
+     * Called once per evaluation of a {@link ConditionalLayer} with the branch that was selected.
+     *
+     * @param layer     conditional layer
+     * @param thenTaken {@code true} if the then-branch was taken, {@code false} for the else-branch
+     */
+    default void onBranch(ConditionalLayer layer, boolean thenTaken) {
+    }
+}
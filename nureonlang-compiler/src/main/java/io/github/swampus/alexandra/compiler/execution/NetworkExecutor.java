@@ -0,0 +1,237 @@
+package io.github.swampus.alexandra.compiler.execution;
+
+import io.github.swampus.alexandra.compiler.model.GraphOrder;
+import io.github.swampus.alexandra.compiler.model.LayerGraph;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.ConditionalLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Straight-line forward executor for a compiled {@link NetworkModel}.
+ *
+ * <p>The executor plans once per model: it collects the output entry points
+ * (plain {@code OutputLayer}s and {@link ConditionalLayer}s), walks their
+ * upstream closure over the model's {@link LayerGraph} and takes its evaluation
+ * order from the graph's cached {@link GraphOrder}. Intermediate values live in an array indexed by layer id. Each {@link #execute(Map)}
+ * call then evaluates every layer exactly once, handing it a map that contains
+ * only the outputs of its direct inputs. Branch subgraphs owned by a
+ * {@link ConditionalLayer} are evaluated lazily by the conditional itself.</p>
+ *
+ * <p>An {@link ExecutionListener} can be attached to observe every layer. With
+ * {@link ExecutionListener#NOOP} (the default) no clocks or allocation counters
+ * are read.</p>
+ *
+ * <p><b>Thread-safety:</b> the plan is immutable, but layers may keep lazy state
+ * (e.g. zero-initialized weights), so concurrent {@code execute} calls on the same
+ * model are not supported.</p>
+ */
+public final class NetworkExecutor {
+
+    private final LayerGraph graph;
+    private final List<Layer> entryPoints;
+    private final int[] entryIds;
+    private final int[] orderIds;
+    private final List<Layer> order;
+    private final ExecutionListener listener;
+
+    public NetworkExecutor(NetworkModel model) {
+        this(model, ExecutionListener.NOOP);
+    }
+
+    public NetworkExecutor(NetworkModel model, ExecutionListener listener) {
+        Objects.requireNonNull(model, "model");
+        this.listener = Objects.requireNonNull(listener, "listener");
+        this.entryPoints = collectEntryPoints(model);
+        this.graph = graphCovering(model, entryPoints);
+        this.entryIds = new int[entryPoints.size()];
+        for (int i = 0; i < entryIds.length; i++) {
+            entryIds[i] = graph.indexOf(entryPoints.get(i));
+        }
+        this.orderIds = plan(graph, entryIds);
+        List<Layer> layers = new ArrayList<>(orderIds.length);
+        for (int v : orderIds) {
+            layers.add(graph.layer(v));
+        }
+        this.order = layers;
+    }
+
+    /**
+     * Returns the layers evaluated by {@link #execute(Map)}, in evaluation order.
+     */
+    public List<Layer> getExecutionOrder() {
+        return Collections.unmodifiableList(order);
+    }
+
+    /**
+     * Returns the layers whose outputs are reported by {@link #execute(Map)}.
+     */
+    public List<Layer> getEntryPoints() {
+        return Collections.unmodifiableList(entryPoints);
+    }
+
+    /**
+     * Runs one forward pass.
+     *
+     * @param feeds external input vectors keyed by input layer name
+     * @return output vectors keyed by entry point name, in entry point order
+     */
+    public Map<String, double[]> execute(Map<String, double[]> feeds) {
+        Objects.requireNonNull(feeds, "feeds");
+        double[][] values = new double[graph.size()][];
+        boolean instrumented = listener != ExecutionListener.NOOP;
+
+        for (int v : orderIds) {
+            Layer layer = graph.layer(v);
+            double[] out;
+            if (instrumented) {
+                listener.beforeLayer(layer);
+                long allocatedBefore = AllocationMeter.currentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                out = evaluate(v, values, feeds, true);
+                long elapsed = System.nanoTime() - start;
+                long allocatedAfter = AllocationMeter.currentThreadAllocatedBytes();
+                listener.afterLayer(layer, elapsed,
+                        allocatedBefore < 0 ? -1L : allocatedAfter - allocatedBefore);
+            } else {
+                out = evaluate(v, values, feeds, false);
+            }
+            values[v] = out;
+        }
+
+        Map<String, double[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < entryIds.length; i++) {
+            result.put(entryPoints.get(i).getName(), values[entryIds[i]]);
+        }
+        return result;
+    }
+
+    private double[] evaluate(int v,
+                              double[][] values,
+                              Map<String, double[]> feeds,
+                              boolean instrumented) {
+        Layer layer = graph.layer(v);
+        if (layer instanceof ConditionalLayer cond) {
+            boolean thenTaken = cond.evalCondition(feeds);
+            if (instrumented) {
+                listener.onBranch(cond, thenTaken);
+            }
+            return cond.forwardBranch(thenTaken, feeds);
+        }
+        int degree = graph.inDegree(v);
+        if (layer instanceof InputLayer || degree == 0) {
+            return layer.forward(feeds);
+        }
+
+        Map<String, double[]> local = new LinkedHashMap<>();
+        for (int k = 0; k < degree; k++) {
+            int in = graph.predecessor(v, k);
+            double[] value = values[in];
+            if (value != null) {
+                local.put(graph.layer(in).getName(), value);
+            }
+        }
+        return layer.forward(local);
+    }
+
+    // -------------------------------------------------------------------------
+    // Planning
+    // -------------------------------------------------------------------------
+
+    private static List<Layer> collectEntryPoints(NetworkModel model) {
+        Set<Layer> branchOutputs = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Layer> conditionals = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Layer> orderedConditionals = new ArrayList<>();
+        for (Layer l : model.getAllLayers()) {
+            if (l instanceof ConditionalLayer cond && conditionals.add(cond)) {
+                orderedConditionals.add(cond);
+                if (cond.getThenLayer() != null) branchOutputs.add(cond.getThenLayer());
+                if (cond.getElseLayer() != null) branchOutputs.add(cond.getElseLayer());
+            }
+        }
+
+        Set<Layer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Layer> entries = new ArrayList<>();
+        for (Layer l : model.getOutputLayers()) {
+            if (!branchOutputs.contains(l) && seen.add(l)) entries.add(l);
+        }
+        for (Layer l : orderedConditionals) {
+            if (seen.add(l)) entries.add(l);
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the model graph, or a wider snapshot if an entry point was
+     * registered without being added to the layer list.
+     */
+    private static LayerGraph graphCovering(NetworkModel model, List<Layer> entries) {
+        LayerGraph graph = model.getGraph();
+        for (Layer l : entries) {
+            if (graph.indexOf(l) < 0) {
+                List<Layer> all = new ArrayList<>(model.getAllLayers());
+                all.addAll(entries);
+                return LayerGraph.of(all);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Collects the upstream closure of the entry points and lays it out in the
+     * graph's shared {@link LayerGraph#order() topological order}.
+     *
+     * @throws IllegalStateException if the closure contains a cycle
+     */
+    private static int[] plan(LayerGraph graph, int[] entries) {
+        int n = graph.size();
+        GraphOrder topo = graph.order();
+        boolean[] inClosure = new boolean[n];
+        int closed = 0;
+        int cyclic = 0;
+
+        int[] stack = new int[n];
+        int sp = 0;
+        for (int e : entries) {
+            if (!inClosure[e]) {
+                inClosure[e] = true;
+                stack[sp++] = e;
+            }
+        }
+        while (sp > 0) {
+            int v = stack[--sp];
+            closed++;
+            if (topo.isCyclic(v)) cyclic++;
+            for (int k = 0; k < graph.inDegree(v); k++) {
+                int in = graph.predecessor(v, k);
+                if (!inClosure[in]) {
+                    inClosure[in] = true;
+                    stack[sp++] = in;
+                }
+            }
+        }
+
+        if (cyclic > 0) {
+            throw new IllegalStateException(
+                    "Cannot execute network: " + cyclic
+                            + " layer(s) participate in a cycle");
+        }
+
+        int[] order = new int[closed];
+        int size = 0;
+        for (int p = 0; p < n; p++) {
+            int v = topo.vertexAt(p);
+            if (inClosure[v]) order[size++] = v;
+        }
+        return order;
+    }
+}
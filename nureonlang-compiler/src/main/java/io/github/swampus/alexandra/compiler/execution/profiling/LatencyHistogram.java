@@ -0,0 +1,109 @@
+package io.github.swampus.alexandra.compiler.execution.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear latency histogram in the spirit of HdrHistogram.
+ *
+ * <p>Values below {@value #SUB_BUCKET_COUNT} are counted exactly. Above that,
+ * every power-of-two range is split into {@value #HALF_SUB_BUCKET_COUNT}
+ * linear sub-buckets, which bounds the relative error of any reported value
+ * to below 1.6% while covering the whole positive {@code long} range. The
+ * count array grows on demand, so histograms that only see microsecond
+ * latencies stay small.</p>
+ *
+ * <p><b>Thread-safety:</b> not thread-safe; callers synchronize externally.</p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private long[] counts = new long[SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long totalValue;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records a single value; negative values are clamped to zero.
+     */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        int index = indexFor(v);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        totalCount++;
+        totalValue += v;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getTotal() {
+        return totalValue;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Returns the value at the given percentile (0–100), reported as the highest
+     * value equivalent to the matching bucket and capped at {@link #getMax()}.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double p = Math.min(100.0, Math.max(0.0, percentile));
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    // -------------------------------------------------------------------------
+    // Bucket arithmetic
+    // -------------------------------------------------------------------------
+
+    static int indexFor(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (subBucket - HALF_SUB_BUCKET_COUNT);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = HALF_SUB_BUCKET_COUNT + (offset % HALF_SUB_BUCKET_COUNT);
+        long lowest = subBucket << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.swampus.alexandra.compiler.execution.profiling;
+
+import io.github.swampus.alexandra.compiler.execution.ExecutionListener;
+import io.github.swampus.alexandra.compiler.model.layer.ConditionalLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ExecutionListener} that aggregates per-layer latency histograms,
+ * allocated bytes and conditional branch counts.
+ *
+ * <p>Attach it to a {@code NetworkExecutor}, run a number of forward passes and
+ * call {@link #report(int)} to get the hottest layers. Statistics are keyed by
+ * layer name and can be shared across executors and threads.</p>
+ */
+public final class LayerProfiler implements ExecutionListener {
+
+    private final Map<String, LayerRecord> layers = new ConcurrentHashMap<>();
+    private final Map<String, BranchRecord> branches = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterLayer(Layer layer, long elapsedNanos, long allocatedBytes) {
+        layers.computeIfAbsent(layer.getName(), n -> new LayerRecord(layer.getClass().getSimpleName()))
+                .record(elapsedNanos, allocatedBytes);
+    }
+
+    @Override
+    public void onBranch(ConditionalLayer layer, boolean thenTaken) {
+        BranchRecord r = branches.computeIfAbsent(layer.getName(), n -> new BranchRecord());
+        (thenTaken ? r.thenTaken : r.elseTaken).incrementAndGet();
+    }
+
+    /**
+     * Returns the {@code topN} layers with the highest total time, plus all branch counters.
+     *
+     * @param topN maximum number of layers in the report; non-positive means all
+     */
+    public ProfileReport report(int topN) {
+        List<ProfileReport.LayerStats> stats = new ArrayList<>(layers.size());
+        layers.forEach((name, r) -> stats.add(r.snapshot(name)));
+        stats.sort(Comparator.comparingLong(ProfileReport.LayerStats::totalNanos).reversed()
+                .thenComparing(ProfileReport.LayerStats::layer));
+
+        Map<String, ProfileReport.BranchStats> branchStats = new LinkedHashMap<>();
+        branches.forEach((name, r) ->
+                branchStats.put(name, new ProfileReport.BranchStats(r.thenTaken.get(), r.elseTaken.get())));
+
+        List<ProfileReport.LayerStats> top = topN > 0 && stats.size() > topN ? stats.subList(0, topN) : stats;
+        return new ProfileReport(top, branchStats);
+    }
+
+    /**
+     * Discards all collected statistics.
+     */
+    public void reset() {
+        layers.clear();
+        branches.clear();
+    }
+
+    private static final class LayerRecord {
+        private final String kind;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long allocatedBytes;
+        private boolean allocationSupported = true;
+
+        LayerRecord(String kind) {
+            this.kind = kind;
+        }
+
+        synchronized void record(long elapsedNanos, long allocated) {
+            histogram.record(elapsedNanos);
+            if (allocated < 0) {
+                allocationSupported = false;
+            } else {
+                allocatedBytes += allocated;
+            }
+        }
+
+        synchronized ProfileReport.LayerStats snapshot(String name) {
+            return new ProfileReport.LayerStats(
+                    name,
+                    kind,
+                    histogram.getCount(),
+                    histogram.getTotal(),
+                    histogram.getValueAtPercentile(50.0),
+                    histogram.getValueAtPercentile(99.0),
+                    histogram.getMax(),
+                    allocationSupported ? allocatedBytes : -1L);
+        }
+    }
+
+    private static final class BranchRecord {
+        final AtomicLong thenTaken = new AtomicLong();
+        final AtomicLong elseTaken = new AtomicLong();
+    }
+}
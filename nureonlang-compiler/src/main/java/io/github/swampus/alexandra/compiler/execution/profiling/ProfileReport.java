@@ -0,0 +1,70 @@
+package io.github.swampus.alexandra.compiler.execution.profiling;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot produced by {@link LayerProfiler#report(int)}.
+ *
+ * @param hotLayers layers ordered by total time spent, hottest first
+ * @param branches  branch decisions per conditional layer name
+ */
+public record ProfileReport(List<LayerStats> hotLayers, Map<String, BranchStats> branches) {
+
+    public ProfileReport {
+        hotLayers = List.copyOf(hotLayers);
+        branches = Map.copyOf(branches);
+    }
+
+    /**
+     * Aggregated timings for a single layer.
+     *
+     * @param layer          layer name
+     * @param kind           layer class simple name
+     * @param invocations    number of recorded evaluations
+     * @param totalNanos     sum of all recorded latencies
+     * @param p50Nanos       median latency
+     * @param p99Nanos       99th percentile latency
+     * @param maxNanos       slowest recorded evaluation
+     * @param allocatedBytes bytes allocated across all evaluations, or {@code -1} if unsupported
+     */
+    public record LayerStats(String layer,
+                             String kind,
+                             long invocations,
+                             long totalNanos,
+                             long p50Nanos,
+                             long p99Nanos,
+                             long maxNanos,
+                             long allocatedBytes) {
+    }
+
+    /**
+     * How often each branch of a conditional layer was taken.
+     */
+    public record BranchStats(long thenTaken, long elseTaken) {
+    }
+
+    /**
+     * Renders the report as a fixed-width text table suitable for logs.
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-32s %-18s %10s %14s %12s %12s %14s%n",
+                "layer", "kind", "calls", "total(us)", "p50(us)", "p99(us)", "alloc(bytes)"));
+        for (LayerStats s : hotLayers) {
+            sb.append(String.format(Locale.ROOT, "%-32s %-18s %10d %14.1f %12.1f %12.1f %14d%n",
+                    s.layer(), s.kind(), s.invocations(),
+                    s.totalNanos() / 1_000.0, s.p50Nanos() / 1_000.0, s.p99Nanos() / 1_000.0,
+                    s.allocatedBytes()));
+        }
+        if (!branches.isEmpty()) {
+            sb.append(String.format(Locale.ROOT, "%n%-32s %10s %10s%n", "conditional", "then", "else"));
+            branches.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(e -> sb.append(String.format(Locale.ROOT, "%-32s %10d %10d%n",
+                            e.getKey(), e.getValue().thenTaken(), e.getValue().elseTaken())));
+        }
+        return sb.toString();
+    }
+}
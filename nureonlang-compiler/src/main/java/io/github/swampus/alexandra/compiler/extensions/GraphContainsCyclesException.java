@@ -1,5 +1,7 @@
 package io.github.swampus.alexandra.compiler.extensions;
 
+import java.util.List;
+
 /**
  * Thrown when the compiler detects a cyclic dependency
  * in a neural or computational graph that must be acyclic.
@@ -18,12 +20,33 @@ package io.github.swampus.alexandra.compiler.extensions;
  */
 public class GraphContainsCyclesException extends InvalidNetworkException {
 
+    private final List<List<String>> cycles;
+
     /**
      * Constructs a new {@code GraphContainsCyclesException} with the specified message.
      *
      * @param message human-readable description of the detected cycle (non-null)
      */
     public GraphContainsCyclesException(String message) {
+        this(message, List.of());
+    }
+
+    /**
+     * Constructs a new {@code GraphContainsCyclesException} listing every cycle found.
+     *
+     * @param message human-readable description of the detected cycles (non-null)
+     * @param cycles  layer names of each cyclic component (non-null)
+     */
+    public GraphContainsCyclesException(String message, List<List<String>> cycles) {
         super(message);
+        this.cycles = List.copyOf(cycles);
+    }
+
+    /**
+     * Returns the layer names of every cyclic component, or an empty list if the
+     * thrower did not report them individually.
+     */
+    public List<List<String>> getCycles() {
+        return cycles;
     }
 }
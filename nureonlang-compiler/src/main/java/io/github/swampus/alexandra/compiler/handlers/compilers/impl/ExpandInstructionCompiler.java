@@ -1,6 +1,6 @@
 package io.github.swampus.alexandra.compiler.handlers.compilers.impl;
 
-import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.CompilationSession;
 import io.github.swampus.alexandra.compiler.handlers.compilers.InstructionCompiler;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
 import io.github.swampus.alexandra.compiler.model.layer.Layer;
@@ -20,7 +20,7 @@ import java.util.Objects;
  *   <li>If the instruction is an EXPAND with meta key {@code "GROUP"},
  *       writes this value into {@link NetworkModel#getMeta()} under the same key.</li>
  *   <li>Then simply compiles all instructions in {@code instr.getBody()} using
- *       the shared {@link IRNetworkCompiler} instance.</li>
+ *       the current {@link CompilationSession}.</li>
  * </ul>
  *
  * <p>Essentially this is a "group annotation + inline body" construct.</p>
@@ -29,10 +29,10 @@ public class ExpandInstructionCompiler implements InstructionCompiler {
 
     private static final Logger log = LoggerFactory.getLogger(ExpandInstructionCompiler.class);
 
-    private final IRNetworkCompiler compiler;
+    private final CompilationSession session;
 
-    public ExpandInstructionCompiler(IRNetworkCompiler compiler) {
-        this.compiler = Objects.requireNonNull(compiler, "compiler must not be null");
+    public ExpandInstructionCompiler(CompilationSession session) {
+        this.session = Objects.requireNonNull(session, "session must not be null");
     }
 
     @Override
@@ -59,7 +59,7 @@ public class ExpandInstructionCompiler implements InstructionCompiler {
         // Inline-expand the body: compile each child instruction as-is
         if (instr.getBody() != null) {
             for (Instruction sub : instr.getBody()) {
-                compiler.compileInstruction(sub, model, layers);
+                session.compileInstruction(sub, model, layers);
             }
         }
     }
@@ -1,6 +1,6 @@
 package io.github.swampus.alexandra.compiler.handlers.compilers.impl;
 
-import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.CompilationSession;
 import io.github.swampus.alexandra.compiler.handlers.compilers.InstructionCompiler;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
 import io.github.swampus.alexandra.compiler.model.layer.Layer;
@@ -16,11 +16,13 @@ import java.util.*;
  * <p>Behavior:</p>
  * <ul>
  *   <li>Looks up the macro definition in {@link NetworkModel} by name.</li>
- *   <li>Builds a binding map between macro parameters and call arguments.</li>
- *   <li>Generates a unique suffix for all internal names in this macro instance.</li>
- *   <li>Clones and rewrites the macro body using
- *       {@link IRNetworkCompiler#deepCloneWithMultipleReplace(Instruction, Map, Set)}.</li>
- *   <li>Compiles each cloned instruction into the current graph.</li>
+ *   <li>Checks the call arguments against the macro parameters.</li>
+ *   <li>Generates a unique, call-site derived suffix for all internal names in this macro instance
+ *       (see {@link CompilationSession#nextMacroSuffix(String)}).</li>
+ *   <li>Instantiates the macro body via
+ *       {@link CompilationSession#instantiateMacro(Instruction, List, String, NetworkModel, Map)}, which
+ *       prepares each definition once per compilation and only binds arguments per call.</li>
+ *   <li>Compiles each instantiated instruction into the current graph.</li>
  * </ul>
  *
  * <p>The goal is to make each macro call expand into its own isolated subgraph
@@ -30,10 +32,10 @@ public class MacroCallInstructionCompiler implements InstructionCompiler {
 
     private static final Logger log = LoggerFactory.getLogger(MacroCallInstructionCompiler.class);
 
-    private final IRNetworkCompiler compiler;
+    private final CompilationSession session;
 
-    public MacroCallInstructionCompiler(IRNetworkCompiler compiler) {
-        this.compiler = Objects.requireNonNull(compiler, "compiler must not be null");
+    public MacroCallInstructionCompiler(CompilationSession session) {
+        this.session = Objects.requireNonNull(session, "session must not be null");
     }
 
     @Override
@@ -77,26 +79,11 @@ public class MacroCallInstructionCompiler implements InstructionCompiler {
             log.debug("Expanding macro call '{}' with args={}", macroName, args);
         }
 
-        // Build bindings param -> arg
-        Map<String, String> bindings = new HashMap<>();
-        for (int i = 0; i < params.size(); i++) {
-            bindings.put(params.get(i), args.get(i));
-        }
-
-        // Unique suffix to avoid name clashes between different macro instances
-        String macroSuffix = "__" + macroName + "_" + UUID.randomUUID().toString().substring(0, 4);
-        bindings.put("__suffix__", macroSuffix);
+        // Unique suffix to avoid name clashes between different macro instances, derived from the call site
+        String macroSuffix = session.nextMacroSuffix(macroName);
 
-        // External names known in the current compilation scope
-        Set<String> externalNames = new HashSet<>(layers.keySet());
-
-        // Expand each instruction in macro body
-        if (macroDef.getBody() != null) {
-            for (Instruction sub : macroDef.getBody()) {
-                Instruction clone = compiler.deepCloneWithMultipleReplace(sub, bindings, externalNames);
-                compiler.compileInstruction(clone, model, layers);
-            }
-        }
+        // Bind the arguments into the prepared macro body and compile each instruction
+        session.instantiateMacro(macroDef, args, macroSuffix, model, layers);
 
         if (log.isDebugEnabled()) {
             log.debug("Macro '{}' expanded with suffix {}", macroName, macroSuffix);
@@ -121,15 +108,12 @@ public class MacroCallInstructionCompiler implements InstructionCompiler {
     //           - ensure that macro expansion does not break shape consistency,
     //           - ensure that expanded graph has no cycles (unless explicitly allowed).
     //
-    // TODO (5): Add caching of expanded macro templates where possible
-    //           (reuse structure for identical call signatures).
-    //
-    // TODO (6): Add unit tests for:
+    // TODO (5): Add unit tests for:
     //           - simple macro with one parameter,
     //           - macro with multiple parameters,
     //           - nested macro calls,
     //           - name collision scenarios.
     //
-    // TODO (7): Consider introducing a dedicated MacroExpander service
+    // TODO (6): Consider introducing a dedicated MacroExpander service
     //           to separate expansion logic from compiler wiring.
 }
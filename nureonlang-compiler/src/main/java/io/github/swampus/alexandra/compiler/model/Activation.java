@@ -41,6 +41,25 @@ public final class Activation {
         return out;
     }
 
+    /**
+     * Applies the specified activation element-wise, overwriting {@code values}.
+     *
+     * <p>Used by layers that own their output buffer (e.g. {@code DenseLayer}) so
+     * the activation is fused into the same pass and no second array is allocated.</p>
+     *
+     * @param type   activation name (case-insensitive, may be {@code null})
+     * @param values vector to transform in place (non-null)
+     * @return {@code values}, for chaining
+     */
+    public static double[] applyInPlace(String type, double[] values) {
+        if (type == null) return values;
+        String act = type.toLowerCase();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = apply(act, values[i]);
+        }
+        return values;
+    }
+
     /**
      * Applies a single activation function to a scalar value.
      *
@@ -0,0 +1,338 @@
+package io.github.swampus.alexandra.compiler.model;
+
+import java.util.Arrays;
+
+/**
+ * Topological order, strongly connected components and depth levels of a
+ * {@link LayerGraph}, computed together in linear time.
+ *
+ * <p>A dependency {@code u -> v} exists when {@code v} is among the outputs of
+ * {@code u} <em>or</em> {@code u} is among the inputs of {@code v}, so the order
+ * is valid for passes that walk either edge list even if the two disagree.</p>
+ *
+ * <ul>
+ *   <li><b>Components</b> are found with an iterative Tarjan search (no
+ *       recursion, so deep chains are fine). Component ids are numbered in
+ *       topological order of the condensation.</li>
+ *   <li><b>Order</b> lists every vertex of the graph, dangling references
+ *       included. Members of one component are contiguous, and every
+ *       dependency between different components points forward. Components
+ *       are released FIFO with ties broken by vertex id, so on an acyclic
+ *       graph this is the order of a plain Kahn pass over the layers.</li>
+ *   <li><b>Levels</b> are longest-path depths over the condensation: vertices
+ *       without dependencies sit at level {@code 0}, all members of a component
+ *       share a level, and each dependency across components increases it by at
+ *       least one. Vertices of one level are independent of each other.</li>
+ * </ul>
+ *
+ * <p>Instances are immutable and obtained through {@link LayerGraph#order()},
+ * which caches them together with the snapshot.</p>
+ *
+ * @since 0.9.0
+ */
+public final class GraphOrder {
+
+    private final int[] order;
+    private final int[] position;
+
+    private final int[] component;
+    private final int[] componentStart;
+    private final boolean[] cyclic;
+    private final int cyclicCount;
+
+    private final int[] level;
+    private final int[] levelOffsets;
+    private final int[] levelMembers;
+
+    private GraphOrder(int[] order, int[] position, int[] component, int[] componentStart,
+                       boolean[] cyclic, int cyclicCount,
+                       int[] level, int[] levelOffsets, int[] levelMembers) {
+        this.order = order;
+        this.position = position;
+        this.component = component;
+        this.componentStart = componentStart;
+        this.cyclic = cyclic;
+        this.cyclicCount = cyclicCount;
+        this.level = level;
+        this.levelOffsets = levelOffsets;
+        this.levelMembers = levelMembers;
+    }
+
+    static GraphOrder of(LayerGraph graph) {
+        int n = graph.size();
+
+        // Consumers as seen from the inputs side, so both edge lists count as dependencies.
+        int[] consumerOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            for (int k = 0; k < graph.inDegree(v); k++) {
+                consumerOffsets[graph.predecessor(v, k) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            consumerOffsets[v + 1] += consumerOffsets[v];
+        }
+        int[] consumers = new int[consumerOffsets[n]];
+        int[] filled = Arrays.copyOf(consumerOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int k = 0; k < graph.inDegree(v); k++) {
+                consumers[filled[graph.predecessor(v, k)]++] = v;
+            }
+        }
+
+        // Iterative Tarjan: assigns each vertex its component.
+        int[] index = new int[n];
+        Arrays.fill(index, -1);
+        int[] low = new int[n];
+        int[] cursor = new int[n];
+        boolean[] onStack = new boolean[n];
+        boolean[] selfLoop = new boolean[n];
+        int[] stack = new int[n];
+        int[] calls = new int[n];
+        int[] found = new int[n];
+        int sp = 0;
+        int components = 0;
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int top = 0;
+            calls[0] = root;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+
+            while (top >= 0) {
+                int v = calls[top];
+                int degree = degree(graph, consumerOffsets, v);
+                if (cursor[v] < degree) {
+                    int w = neighbour(graph, consumerOffsets, consumers, v, cursor[v]++);
+                    if (w == v) {
+                        selfLoop[v] = true;
+                    } else if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        calls[++top] = w;
+                    } else if (onStack[w] && index[w] < low[v]) {
+                        low[v] = index[w];
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        found[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                if (--top >= 0) {
+                    int u = calls[top];
+                    if (low[v] < low[u]) low[u] = low[v];
+                }
+            }
+        }
+
+        // Members per component, by ascending vertex id.
+        int[] memberStart = new int[components + 1];
+        for (int v = 0; v < n; v++) {
+            memberStart[found[v] + 1]++;
+        }
+        for (int c = 0; c < components; c++) {
+            memberStart[c + 1] += memberStart[c];
+        }
+        int[] members = new int[n];
+        int[] next = Arrays.copyOf(memberStart, components);
+        for (int v = 0; v < n; v++) {
+            members[next[found[v]]++] = v;
+        }
+
+        // Kahn over the condensation, seeded and drained in vertex-id order so an
+        // acyclic graph is ordered exactly like a FIFO Kahn pass over its layers.
+        int[] pending = new int[components];
+        for (int v = 0; v < n; v++) {
+            int degree = degree(graph, consumerOffsets, v);
+            for (int k = 0; k < degree; k++) {
+                int w = neighbour(graph, consumerOffsets, consumers, v, k);
+                if (found[w] != found[v]) pending[found[w]]++;
+            }
+        }
+        int[] queue = new int[components];
+        boolean[] queued = new boolean[components];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            int c = found[v];
+            if (pending[c] == 0 && !queued[c]) {
+                queued[c] = true;
+                queue[tail++] = c;
+            }
+        }
+
+        int[] order = new int[n];
+        int[] position = new int[n];
+        int[] component = new int[n];
+        int[] componentStart = new int[components + 1];
+        int placed = 0;
+        while (head < tail) {
+            int c = queue[head];
+            for (int i = memberStart[c]; i < memberStart[c + 1]; i++) {
+                int v = members[i];
+                order[placed] = v;
+                position[v] = placed++;
+                component[v] = head;
+            }
+            componentStart[++head] = placed;
+            for (int i = memberStart[c]; i < memberStart[c + 1]; i++) {
+                int v = members[i];
+                int degree = degree(graph, consumerOffsets, v);
+                for (int k = 0; k < degree; k++) {
+                    int d = found[neighbour(graph, consumerOffsets, consumers, v, k)];
+                    if (d != c && --pending[d] == 0) queue[tail++] = d;
+                }
+            }
+        }
+
+        boolean[] cyclic = new boolean[components];
+        int cyclicCount = 0;
+        for (int c = 0; c < components; c++) {
+            int start = componentStart[c];
+            if (componentStart[c + 1] - start > 1 || selfLoop[order[start]]) {
+                cyclic[c] = true;
+                cyclicCount++;
+            }
+        }
+
+        // Longest path over the condensation, one component at a time.
+        int[] level = new int[n];
+        int levels = 0;
+        for (int c = 0; c < components; c++) {
+            int start = componentStart[c];
+            int end = componentStart[c + 1];
+            int l = 0;
+            for (int p = start; p < end; p++) {
+                l = Math.max(l, level[order[p]]);
+            }
+            levels = Math.max(levels, l + 1);
+            for (int p = start; p < end; p++) {
+                int v = order[p];
+                level[v] = l;
+                int degree = degree(graph, consumerOffsets, v);
+                for (int k = 0; k < degree; k++) {
+                    int w = neighbour(graph, consumerOffsets, consumers, v, k);
+                    if (component[w] != c && level[w] <= l) level[w] = l + 1;
+                }
+            }
+        }
+
+        int[] levelOffsets = new int[levels + 1];
+        for (int v = 0; v < n; v++) {
+            levelOffsets[level[v] + 1]++;
+        }
+        for (int l = 0; l < levels; l++) {
+            levelOffsets[l + 1] += levelOffsets[l];
+        }
+        int[] levelMembers = new int[n];
+        int[] fill = Arrays.copyOf(levelOffsets, levels);
+        for (int v : order) {
+            levelMembers[fill[level[v]]++] = v;
+        }
+
+        return new GraphOrder(order, position, component, componentStart, cyclic, cyclicCount,
+                level, levelOffsets, levelMembers);
+    }
+
+    /** Number of ordered vertices; equals {@link LayerGraph#size()}. */
+    public int size() {
+        return order.length;
+    }
+
+    /** Returns the vertex at position {@code p} of the order. */
+    public int vertexAt(int p) {
+        return order[p];
+    }
+
+    /** Returns the position of vertex {@code v} in the order. */
+    public int positionOf(int v) {
+        return position[v];
+    }
+
+    /**
+     * Returns a copy of the order. Prefer {@link #vertexAt(int)} in hot loops.
+     */
+    public int[] topologicalOrder() {
+        return order.clone();
+    }
+
+    /** Returns whether no component is cyclic. */
+    public boolean isAcyclic() {
+        return cyclicCount == 0;
+    }
+
+    /** Number of strongly connected components. */
+    public int componentCount() {
+        return componentStart.length - 1;
+    }
+
+    /** Returns the component id of vertex {@code v}. */
+    public int component(int v) {
+        return component[v];
+    }
+
+    public int componentSize(int c) {
+        return componentStart[c + 1] - componentStart[c];
+    }
+
+    /**
+     * Returns a copy of the vertices of component {@code c}, in order.
+     */
+    public int[] componentMembers(int c) {
+        return Arrays.copyOfRange(order, componentStart[c], componentStart[c + 1]);
+    }
+
+    /**
+     * Returns whether component {@code c} is a cycle: it has more than one
+     * vertex, or its single vertex depends on itself.
+     */
+    public boolean isCyclicComponent(int c) {
+        return cyclic[c];
+    }
+
+    /** Returns whether vertex {@code v} lies on a cycle. */
+    public boolean isCyclic(int v) {
+        return cyclic[component[v]];
+    }
+
+    /** Number of cyclic components. */
+    public int cyclicComponentCount() {
+        return cyclicCount;
+    }
+
+    /** Number of levels; {@code 0} for an empty graph. */
+    public int levelCount() {
+        return levelOffsets.length - 1;
+    }
+
+    /** Returns the level of vertex {@code v}. */
+    public int level(int v) {
+        return level[v];
+    }
+
+    /**
+     * Returns a copy of the vertices at level {@code l}, in order.
+     */
+    public int[] verticesAtLevel(int l) {
+        return Arrays.copyOfRange(levelMembers, levelOffsets[l], levelOffsets[l + 1]);
+    }
+
+    /** Number of dependencies of {@code v}: its outputs, then consumers listing it as an input. */
+    private static int degree(LayerGraph graph, int[] consumerOffsets, int v) {
+        return graph.outDegree(v) + consumerOffsets[v + 1] - consumerOffsets[v];
+    }
+
+    private static int neighbour(LayerGraph graph, int[] consumerOffsets, int[] consumers, int v, int k) {
+        int out = graph.outDegree(v);
+        return k < out ? graph.successor(v, k) : consumers[consumerOffsets[v] + k - out];
+    }
+}
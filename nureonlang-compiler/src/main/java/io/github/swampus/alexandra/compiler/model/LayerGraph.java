@@ -0,0 +1,224 @@
+package io.github.swampus.alexandra.compiler.model;
+
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, int-indexed snapshot of a layer graph in compressed sparse row
+ * (CSR) form.
+ *
+ * <p>Every distinct layer gets a dense id in {@code [0, size())}. Layers of the
+ * source collection come first, in first-seen order; layers that are only
+ * reachable through edges (dangling references) are appended after them, see
+ * {@link #isMember(int)}. Edges are stored twice:</p>
+ * <ul>
+ *   <li>forward: {@code outTargets[outOffsets[v] .. outOffsets[v + 1])}, mirroring
+ *       {@link Layer#getOutputs()};</li>
+ *   <li>reverse: {@code inSources[inOffsets[v] .. inOffsets[v + 1])}, mirroring
+ *       {@link Layer#getInputs()}.</li>
+ * </ul>
+ * <p>Neighbour order and duplicate edges are preserved exactly as found on the
+ * layers, so traversals over the snapshot visit the same sequence as traversals
+ * over the layer lists.</p>
+ *
+ * <p>The snapshot does not follow later edits to the layers, but it records
+ * their {@link Layer#getEdgeVersion() edge versions}, so {@link #isCurrent()}
+ * tells its owner when to rebuild (see {@link NetworkModel#getGraph()}). Derived
+ * structure such as {@link #order()} is cached on the snapshot and therefore
+ * dropped together with it.</p>
+ *
+ * @since 0.9.0
+ */
+public final class LayerGraph {
+
+    private final Layer[] layers;
+    private final int members;
+    private final Map<Layer, Integer> ids;
+
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inSources;
+
+    /** Sum of the layers' edge versions when the snapshot was built. */
+    private final long edgeStamp;
+
+    /** Lazily computed; racy publication is fine because {@link GraphOrder} is immutable. */
+    private GraphOrder order;
+
+    private LayerGraph(Layer[] layers, int members, Map<Layer, Integer> ids,
+                       int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inSources) {
+        this.layers = layers;
+        this.members = members;
+        this.ids = ids;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.edgeStamp = edgeStamp(layers);
+    }
+
+    /**
+     * Returns whether no layer in the snapshot had its edge lists edited since it
+     * was built. Edge versions only grow, so any edit changes their sum.
+     */
+    public boolean isCurrent() {
+        return edgeStamp(layers) == edgeStamp;
+    }
+
+    private static long edgeStamp(Layer[] layers) {
+        long sum = 0;
+        for (Layer l : layers) {
+            sum += l.getEdgeVersion();
+        }
+        return sum;
+    }
+
+    /**
+     * Builds a snapshot of the given layers and every layer their edges refer to.
+     * Repeated occurrences of the same instance map to a single id.
+     */
+    public static LayerGraph of(Collection<Layer> source) {
+        Map<Layer, Integer> ids = new IdentityHashMap<>(source.size() * 2);
+        List<Layer> order = new ArrayList<>(source.size());
+        for (Layer l : source) {
+            if (l != null && ids.putIfAbsent(l, order.size()) == null) {
+                order.add(l);
+            }
+        }
+        int members = order.size();
+
+        // Pull in layers referenced by edges but missing from the source.
+        for (int i = 0; i < order.size(); i++) {
+            Layer l = order.get(i);
+            register(l.getOutputs(), ids, order);
+            register(l.getInputs(), ids, order);
+        }
+
+        int n = order.size();
+        Layer[] layers = order.toArray(new Layer[0]);
+        int[] outOffsets = new int[n + 1];
+        int[] inOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            outOffsets[v + 1] = outOffsets[v] + countNonNull(layers[v].getOutputs());
+            inOffsets[v + 1] = inOffsets[v] + countNonNull(layers[v].getInputs());
+        }
+
+        int[] outTargets = new int[outOffsets[n]];
+        int[] inSources = new int[inOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            fill(layers[v].getOutputs(), ids, outTargets, outOffsets[v]);
+            fill(layers[v].getInputs(), ids, inSources, inOffsets[v]);
+        }
+        return new LayerGraph(layers, members, ids, outOffsets, outTargets, inOffsets, inSources);
+    }
+
+    /** Number of distinct layers, including dangling references. */
+    public int size() {
+        return layers.length;
+    }
+
+    /** Number of distinct layers that came from the source collection. */
+    public int memberCount() {
+        return members;
+    }
+
+    /**
+     * Returns whether {@code v} came from the source collection rather than
+     * being reached only through an edge.
+     */
+    public boolean isMember(int v) {
+        return v < members;
+    }
+
+    public Layer layer(int v) {
+        return layers[v];
+    }
+
+    /**
+     * Returns the id of {@code layer}, or {@code -1} if it is not part of this graph.
+     */
+    public int indexOf(Layer layer) {
+        Integer id = ids.get(layer);
+        return id == null ? -1 : id;
+    }
+
+    public int outDegree(int v) {
+        return outOffsets[v + 1] - outOffsets[v];
+    }
+
+    /** Returns the {@code k}-th downstream neighbour of {@code v}. */
+    public int successor(int v, int k) {
+        return outTargets[outOffsets[v] + k];
+    }
+
+    public int inDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    /** Returns the {@code k}-th upstream neighbour of {@code v}. */
+    public int predecessor(int v, int k) {
+        return inSources[inOffsets[v] + k];
+    }
+
+    /** Total number of forward edges (duplicates included). */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Returns a copy of the successors of {@code v}. Prefer
+     * {@link #outDegree(int)}/{@link #successor(int, int)} in hot loops.
+     */
+    public int[] successors(int v) {
+        return Arrays.copyOfRange(outTargets, outOffsets[v], outOffsets[v + 1]);
+    }
+
+    /**
+     * Returns a copy of the predecessors of {@code v}. Prefer
+     * {@link #inDegree(int)}/{@link #predecessor(int, int)} in hot loops.
+     */
+    public int[] predecessors(int v) {
+        return Arrays.copyOfRange(inSources, inOffsets[v], inOffsets[v + 1]);
+    }
+
+    /**
+     * Returns the topological order, strongly connected components and levels of
+     * this graph, computed on first use and cached for the snapshot's lifetime.
+     */
+    public GraphOrder order() {
+        GraphOrder o = order;
+        if (o == null) {
+            order = o = GraphOrder.of(this);
+        }
+        return o;
+    }
+
+    private static void register(List<Layer> neighbours, Map<Layer, Integer> ids, List<Layer> order) {
+        for (Layer l : neighbours) {
+            if (l != null && ids.putIfAbsent(l, order.size()) == null) {
+                order.add(l);
+            }
+        }
+    }
+
+    private static int countNonNull(List<Layer> neighbours) {
+        int c = 0;
+        for (Layer l : neighbours) {
+            if (l != null) c++;
+        }
+        return c;
+    }
+
+    private static void fill(List<Layer> neighbours, Map<Layer, Integer> ids, int[] target, int at) {
+        for (Layer l : neighbours) {
+            if (l != null) target[at++] = ids.get(l);
+        }
+    }
+}
@@ -8,18 +8,30 @@ import io.github.swampus.alexandra.contract.model.ModelWithMeta;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import lombok.Getter;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Mutable container for compiled network layers and metadata.
  *
- * <p><b>Behavior:</b> This class preserves the original semantics:
- * layers are appended in insertion order; input/output tracking uses
- * internal lists that may contain duplicates until normalized by
- * accessors. No thread-safety is provided.</p>
+ * <p><b>Behavior:</b> layers are appended in insertion order and the same
+ * layer instance may appear more than once in {@link #getAllLayers()}.
+ * A name index backs {@link #getLayer(String)} and
+ * {@link #getLayersByName(String)}: names are interned once in the model's
+ * {@link SymbolTable} and layers are bucketed by symbol id, so repeated
+ * lookups hash each name only at the API boundary. Inputs and outputs are tracked as
+ * insertion-ordered sets, and the lists returned by
+ * {@link #getInputLayers()} / {@link #getOutputLayers()} are cached until
+ * the model is mutated. No thread-safety is provided.</p>
  *
  * @since 0.9.0
  */
@@ -27,14 +39,35 @@ public class NetworkModel implements ModelWithMeta {
 
     private final List<CompilationIssue> issues = new ArrayList<>();
 
-    /** All layers in insertion order. */
+    /** All layers in insertion order (may contain the same instance twice). */
     private final List<Layer> layers = new ArrayList<>();
 
-    /** Raw inputs as discovered; may contain duplicates. */
-    private List<Layer> inputLayers = new ArrayList<>();
+    /** Mutable view over {@link #layers} that keeps the index in sync. */
+    private final List<Layer> layersView = new LayerList();
 
-    /** Raw outputs as discovered; may contain duplicates. */
-    private List<Layer> outputLayers = new ArrayList<>();
+    /** Interned layer names; ids index {@link #bySymbol}. */
+    private final SymbolTable symbols = new SymbolTable();
+
+    /** Layers by symbol id, each bucket in insertion order; {@code null} when no layer has that name. */
+    private final List<List<Layer>> bySymbol = new ArrayList<>();
+
+    /**
+     * Registered inputs, first registration wins. {@link Layer} does not
+     * override {@code equals}, so membership is by identity.
+     */
+    private final Set<Layer> inputLayers = new LinkedHashSet<>();
+
+    /** Registered outputs and conditional entry points, by identity. */
+    private final Set<Layer> outputLayers = new LinkedHashSet<>();
+
+    /** Cached result of {@link #getInputLayers()}; {@code null} when stale. */
+    private List<Layer> inputView;
+
+    /** Cached result of {@link #getOutputLayers()}; {@code null} when stale. */
+    private List<Layer> outputView;
+
+    /** Cached CSR snapshot of the layer graph; {@code null} when stale. */
+    private LayerGraph graph;
 
     /** Arbitrary metadata bag attached to the model. */
     @Getter
@@ -62,11 +95,45 @@ public class NetworkModel implements ModelWithMeta {
     }
 
     /**
-     * Returns the backing list of all layers.
-     * <p>Note: returned list is mutable (behavior preserved).</p>
+     * Returns all layers in insertion order.
+     * <p>Note: the returned list is mutable; changes made through it keep the
+     * name index up to date, and layers added through it are registered as
+     * inputs/outputs exactly like {@link #addLayer}.</p>
      */
     public List<Layer> getAllLayers() {
-        return layers;
+        return layersView;
+    }
+
+    /**
+     * Returns a CSR snapshot of the layers and their edges, built on first use
+     * and cached until the layer list or any layer's edge lists change.
+     *
+     * <p>Edge edits are detected through {@link Layer#getEdgeVersion()}, so
+     * rewiring {@link Layer#getInputs()}/{@link Layer#getOutputs()} in place
+     * needs no explicit {@link #invalidateGraph()}.</p>
+     */
+    public LayerGraph getGraph() {
+        if (graph == null || !graph.isCurrent()) {
+            graph = LayerGraph.of(layers);
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the topological order, cycle components and levels of
+     * {@link #getGraph()}. Computed once per snapshot and shared by every pass;
+     * it is dropped together with the snapshot on mutation.
+     */
+    public GraphOrder getOrder() {
+        return getGraph().order();
+    }
+
+    /**
+     * Drops the cached {@link #getGraph()} snapshot (and its {@link #getOrder()}).
+     * Edge edits are picked up on their own; this only releases the snapshot early.
+     */
+    public void invalidateGraph() {
+        graph = null;
     }
 
     /**
@@ -102,13 +169,28 @@ public class NetworkModel implements ModelWithMeta {
         throw new IllegalStateException("No output layer found");
     }
 
+    /**
+     * Returns the table interning the names of every layer ever added to this
+     * model. Ids are stable: removing a layer does not release its symbol.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
     /**
      * Returns all layers matching the given name (may be multiple).
      */
     public List<Layer> getLayersByName(String name) {
-        return layers.stream()
-                .filter(l -> name.equals(l.getName()))
-                .toList();
+        return getLayersBySymbol(symbols.id(name));
+    }
+
+    /**
+     * Returns all layers whose name has the given {@link #getSymbols() symbol id}
+     * (empty for {@link SymbolTable#NONE} or a symbol with no layers left).
+     */
+    public List<Layer> getLayersBySymbol(int symbol) {
+        List<Layer> bucket = bucket(symbol);
+        return bucket == null ? List.of() : Collections.unmodifiableList(bucket);
     }
 
     /**
@@ -116,17 +198,24 @@ public class NetworkModel implements ModelWithMeta {
      * <p>Kept for backward compatibility with legacy call sites.</p>
      */
     public Layer getLayer(String name) {
-        return layers.stream()
-                .filter(l -> name.equals(l.getName()))
-                .findFirst()
-                .orElse(null);
+        List<Layer> bucket = bucket(symbols.id(name));
+        return bucket == null ? null : bucket.get(0);
     }
 
     /**
-     * Registers an input layer (raw list; may contain duplicates).
+     * Returns whether a layer with the given name has been added.
+     */
+    public boolean hasLayer(String name) {
+        return bucket(symbols.id(name)) != null;
+    }
+
+    /**
+     * Registers an input layer; registering the same instance again is a no-op.
      */
     public void addInputLayer(Layer layer) {
-        inputLayers.add(layer);
+        if (inputLayers.add(layer)) {
+            inputView = null;
+        }
     }
 
     /**
@@ -151,75 +240,350 @@ public class NetworkModel implements ModelWithMeta {
     }
 
     /**
-     * Registers an output layer (raw list; duplicates prevented on {@link #addLayer}).
+     * Registers an output layer; registering the same instance again is a no-op.
      */
     public void addOutputLayer(Layer layer) {
-        outputLayers.add(layer);
+        if (outputLayers.add(layer)) {
+            outputView = null;
+        }
     }
 
     /**
-     * Returns unique input layers, preserving the first-seen order.
+     * Returns unique input layers (first one per name), preserving the first-seen order.
+     * <p>The returned list is read-only and cached until the model changes.</p>
      */
     public List<Layer> getInputLayers() {
-        Map<String, Layer> unique = new LinkedHashMap<>();
-        for (Layer l : inputLayers) {
-            unique.putIfAbsent(l.getName(), l);
+        if (inputView == null) {
+            BitSet seen = new BitSet(symbols.size());
+            List<Layer> unique = new ArrayList<>(inputLayers.size());
+            for (Layer l : inputLayers) {
+                int symbol = symbols.intern(l.getName());
+                if (!seen.get(symbol)) {
+                    seen.set(symbol);
+                    unique.add(l);
+                }
+            }
+            inputView = List.copyOf(unique);
         }
-        return new ArrayList<>(unique.values());
+        return inputView;
     }
 
     /**
      * Returns output layers with conditional branches expanded to all nested {@link OutputLayer}s.
      * <p>If a {@link ConditionalLayer} is present, all {@link OutputLayer}s reachable via its
-     * then/else branches are collected.</p>
+     * then/else branches are collected. The returned list is read-only and cached until the
+     * model changes.</p>
      */
     public List<Layer> getOutputLayers() {
-        List<Layer> outputs = new ArrayList<>();
-        for (Layer l : outputLayers) {
-            if (l instanceof ConditionalLayer cond) {
-                outputs.addAll(findAllOutputLayers(cond));
-            } else if (l instanceof OutputLayer) {
-                outputs.add(l);
+        if (outputView == null) {
+            List<Layer> outputs = new ArrayList<>();
+            for (Layer l : outputLayers) {
+                if (l instanceof ConditionalLayer cond) {
+                    collectOutputLayers(cond, outputs);
+                } else if (l instanceof OutputLayer) {
+                    outputs.add(l);
+                }
             }
+            outputView = Collections.unmodifiableList(outputs);
         }
-        return outputs;
+        return outputView;
     }
 
     /**
      * Recursively collects all {@link OutputLayer}s under the given layer.
      * <p>Currently handles nested {@link ConditionalLayer}s; can be extended for modules/blocks.</p>
      */
-    private List<Layer> findAllOutputLayers(Layer layer) {
-        List<Layer> found = new ArrayList<>();
+    private static void collectOutputLayers(Layer layer, List<Layer> found) {
         if (layer instanceof OutputLayer) {
             found.add(layer);
         }
         if (layer instanceof ConditionalLayer cond) {
-            if (cond.getThenLayer() != null) found.addAll(findAllOutputLayers(cond.getThenLayer()));
-            if (cond.getElseLayer() != null) found.addAll(findAllOutputLayers(cond.getElseLayer()));
+            if (cond.getThenLayer() != null) collectOutputLayers(cond.getThenLayer(), found);
+            if (cond.getElseLayer() != null) collectOutputLayers(cond.getElseLayer(), found);
         }
-        return found;
     }
 
     /**
      * Adds a layer to the model and updates input/output tracking.
-     * <p>Duplicates are preserved in {@code layers}; output tracking avoids duplicates.</p>
+     * <p>Duplicates are preserved in {@code layers}; input/output tracking avoids duplicates.</p>
      */
     public void addLayer(Layer layer) {
         layers.add(layer);
+        indexLayer(layer);
+    }
 
-        if (layer instanceof InputLayer) {
-            inputLayers.add(layer);
+    /**
+     * Removes every occurrence of {@code layer} (by identity) from the model,
+     * including input/output tracking. Graph edges are left untouched; callers
+     * are expected to rewire neighbours first.
+     *
+     * @return {@code true} if the layer was present
+     */
+    public boolean removeLayer(Layer layer) {
+        boolean removed = layers.removeIf(l -> l == layer);
+        if (removed) {
+            unindexLayer(layer);
         }
-        if (layer instanceof OutputLayer) {
-            if (!outputLayers.contains(layer)) {
-                outputLayers.add(layer);
+        if (inputLayers.remove(layer)) {
+            inputView = null;
+        }
+        if (outputLayers.remove(layer)) {
+            outputView = null;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every occurrence of every layer in {@code doomed} with one pass over
+     * the layer list and one over each affected name bucket, including
+     * input/output tracking. Membership is tested with {@code doomed.contains},
+     * so pass an identity-based set. As with {@link #removeLayer}, graph edges
+     * are left untouched.
+     *
+     * @return number of entries removed from {@link #getAllLayers()}
+     */
+    public int removeLayers(Set<Layer> doomed) {
+        if (doomed.isEmpty()) {
+            return 0;
+        }
+        int before = layers.size();
+        layers.removeIf(doomed::contains);
+        BitSet touched = new BitSet(symbols.size());
+        for (Layer l : doomed) {
+            int symbol = symbols.id(l.getName());
+            if (symbol >= 0) {
+                touched.set(symbol);
+            }
+        }
+        for (int symbol = touched.nextSetBit(0); symbol >= 0; symbol = touched.nextSetBit(symbol + 1)) {
+            List<Layer> bucket = bucket(symbol);
+            if (bucket != null && bucket.removeIf(doomed::contains) && bucket.isEmpty()) {
+                bySymbol.set(symbol, null);
             }
         }
-        if (layer instanceof ConditionalLayer) {
+        if (inputLayers.removeIf(doomed::contains)) {
+            inputView = null;
+        }
+        if (outputLayers.removeIf(doomed::contains)) {
+            outputView = null;
+        }
+        graph = null;
+        return before - layers.size();
+    }
+
+    private void indexLayer(Layer layer) {
+        graph = null;
+        int symbol = symbols.intern(layer.getName());
+        List<Layer> bucket = bucket(symbol);
+        if (bucket == null) {
+            bucket = new ArrayList<>(1);
+            setBucket(symbol, bucket);
+        }
+        bucket.add(layer);
+        registerEntryPoint(layer);
+    }
+
+    private List<Layer> bucket(int symbol) {
+        return symbol >= 0 && symbol < bySymbol.size() ? bySymbol.get(symbol) : null;
+    }
+
+    private void setBucket(int symbol, List<Layer> bucket) {
+        while (bySymbol.size() <= symbol) {
+            bySymbol.add(null);
+        }
+        bySymbol.set(symbol, bucket);
+    }
+
+    private void registerEntryPoint(Layer layer) {
+        if (layer instanceof InputLayer) {
+            addInputLayer(layer);
+        }
+        if (layer instanceof OutputLayer || layer instanceof ConditionalLayer) {
             // ConditionalLayer must be considered an output entry point.
-            if (!outputLayers.contains(layer)) {
-                outputLayers.add(layer);
+            addOutputLayer(layer);
+        }
+    }
+
+    /**
+     * Drops every index entry for {@code layer}. Input/output registrations
+     * are kept, matching {@link #addInputLayer}/{@link #addOutputLayer}
+     * being independent of the layer list.
+     */
+    private void unindexLayer(Layer layer) {
+        graph = null;
+        int symbol = symbols.id(layer.getName());
+        List<Layer> bucket = bucket(symbol);
+        if (bucket != null) {
+            bucket.removeIf(l -> l == layer);
+            if (bucket.isEmpty()) {
+                bySymbol.set(symbol, null);
+            }
+        }
+    }
+
+    /**
+     * Drops one occurrence of {@code layer} from its name bucket. If the instance
+     * occurs more than once, which entry goes depends on list order, so the
+     * bucket is rebuilt instead.
+     */
+    private void unindexOccurrence(Layer layer) {
+        graph = null;
+        int symbol = symbols.id(layer.getName());
+        List<Layer> bucket = bucket(symbol);
+        int slot = soleSlot(bucket, layer);
+        if (slot < 0) {
+            rebuildBuckets(singleton(symbol));
+            return;
+        }
+        bucket.remove(slot);
+        if (bucket.isEmpty()) {
+            bySymbol.set(symbol, null);
+        }
+    }
+
+    /**
+     * Indexes a layer inserted before the end of {@link #layers}. Buckets follow
+     * list order, so a name that already has layers needs its bucket rebuilt.
+     */
+    private void indexInserted(Layer layer) {
+        graph = null;
+        int symbol = symbols.intern(layer.getName());
+        if (bucket(symbol) == null) {
+            List<Layer> bucket = new ArrayList<>(1);
+            bucket.add(layer);
+            setBucket(symbol, bucket);
+        } else {
+            rebuildBuckets(singleton(symbol));
+        }
+    }
+
+    /**
+     * Rebuilds the buckets of the given symbols in one pass over {@link #layers}.
+     */
+    private void rebuildBuckets(BitSet touched) {
+        graph = null;
+        for (int s = touched.nextSetBit(0); s >= 0; s = touched.nextSetBit(s + 1)) {
+            setBucket(s, null);
+        }
+        for (Layer l : layers) {
+            int symbol = symbols.id(l.getName());
+            if (symbol >= 0 && touched.get(symbol)) {
+                List<Layer> bucket = bucket(symbol);
+                if (bucket == null) {
+                    bucket = new ArrayList<>(1);
+                    setBucket(symbol, bucket);
+                }
+                bucket.add(l);
+            }
+        }
+    }
+
+    /** Index of the only entry that is {@code layer}, or -1 if there is none or several. */
+    private static int soleSlot(List<Layer> bucket, Layer layer) {
+        int slot = -1;
+        if (bucket != null) {
+            for (int i = 0; i < bucket.size(); i++) {
+                if (bucket.get(i) == layer) {
+                    if (slot >= 0) {
+                        return -1;
+                    }
+                    slot = i;
+                }
+            }
+        }
+        return slot;
+    }
+
+    private static BitSet singleton(int symbol) {
+        BitSet b = new BitSet(symbol + 1);
+        if (symbol >= 0) {
+            b.set(symbol);
+        }
+        return b;
+    }
+
+    /**
+     * Write-through view handed out by {@link #getAllLayers()}.
+     *
+     * <p>Single-element edits touch only the affected name buckets; bulk
+     * {@link #removeIf} and {@link #clear} update the index in one pass.</p>
+     */
+    private final class LayerList extends AbstractList<Layer> {
+
+        @Override
+        public Layer get(int index) {
+            return layers.get(index);
+        }
+
+        @Override
+        public int size() {
+            return layers.size();
+        }
+
+        @Override
+        public void add(int index, Layer layer) {
+            if (index == layers.size()) {
+                addLayer(layer);
+            } else {
+                layers.add(index, layer);
+                indexInserted(layer);
+                registerEntryPoint(layer);
+            }
+            modCount++;
+        }
+
+        @Override
+        public Layer set(int index, Layer layer) {
+            Layer previous = layers.set(index, layer);
+            if (previous != layer) {
+                int symbol = symbols.intern(layer.getName());
+                int slot = symbol == symbols.id(previous.getName()) ? soleSlot(bucket(symbol), previous) : -1;
+                if (slot >= 0) {
+                    // same name, single occurrence: replace in place, order is unchanged
+                    bucket(symbol).set(slot, layer);
+                    graph = null;
+                } else {
+                    unindexOccurrence(previous);
+                    indexInserted(layer);
+                }
+            }
+            registerEntryPoint(layer);
+            return previous;
+        }
+
+        @Override
+        public Layer remove(int index) {
+            Layer previous = layers.remove(index);
+            unindexOccurrence(previous);
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Layer> filter) {
+            Objects.requireNonNull(filter, "filter");
+            BitSet touched = new BitSet(symbols.size());
+            boolean removed = layers.removeIf(l -> {
+                if (!filter.test(l)) {
+                    return false;
+                }
+                touched.set(symbols.id(l.getName()));
+                return true;
+            });
+            if (removed) {
+                rebuildBuckets(touched);
+                modCount++;
+            }
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            if (!layers.isEmpty()) {
+                layers.clear();
+                Collections.fill(bySymbol, null);
+                graph = null;
+                modCount++;
             }
         }
     }
@@ -0,0 +1,125 @@
+package io.github.swampus.alexandra.compiler.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Interns layer names to dense int ids.
+ *
+ * <p>Each distinct name is stored once and gets the next id in
+ * {@code [0, size())}; ids are never reused or removed, so they stay valid for
+ * the lifetime of the table and can index plain arrays. Strings are only needed
+ * at the boundary ({@link #intern(String)}, {@link #id(String)},
+ * {@link #name(int)}); everything behind it can be keyed by id.</p>
+ *
+ * <p>Lookups use an open-addressing table of ids over the name array, so no
+ * entry objects or boxed ids are allocated per name. {@code null} is a valid
+ * name.</p>
+ *
+ * <p>No thread-safety is provided.</p>
+ *
+ * @since 0.9.0
+ */
+public final class SymbolTable {
+
+    /** Returned by {@link #id(String)} for names that were never interned. */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names;
+    private int size;
+
+    /** Power-of-two probe table; each slot holds {@code id + 1}, {@code 0} when empty. */
+    private int[] slots;
+
+    public SymbolTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of names expected, to avoid rehashing
+     */
+    public SymbolTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+        }
+        this.names = new String[Math.max(INITIAL_CAPACITY, expectedSize)];
+        this.slots = new int[tableSizeFor(names.length * 2)];
+    }
+
+    /**
+     * Returns the id of {@code name}, assigning the next free id if it is new.
+     */
+    public int intern(String name) {
+        int mask = slots.length - 1;
+        int i = hash(name) & mask;
+        for (int slot; (slot = slots[i]) != 0; i = (i + 1) & mask) {
+            if (Objects.equals(names[slot - 1], name)) {
+                return slot - 1;
+            }
+        }
+        int id = size;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+        }
+        names[id] = name;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash(tableSizeFor(size * 2));
+        } else {
+            slots[i] = id + 1;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of {@code name}, or {@link #NONE} if it was never interned.
+     */
+    public int id(String name) {
+        int mask = slots.length - 1;
+        for (int i = hash(name) & mask, slot; (slot = slots[i]) != 0; i = (i + 1) & mask) {
+            if (Objects.equals(names[slot - 1], name)) {
+                return slot - 1;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the name with the given id.
+     *
+     * @throws IndexOutOfBoundsException if {@code id} is not in {@code [0, size())}
+     */
+    public String name(int id) {
+        Objects.checkIndex(id, size);
+        return names[id];
+    }
+
+    /** Number of interned names; ids range over {@code [0, size())}. */
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int i = hash(names[id]) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = id + 1;
+        }
+        slots = table;
+    }
+
+    private static int hash(String name) {
+        int h = name == null ? 0 : name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int n) {
+        return Integer.highestOneBit(Math.max(2, n) - 1) << 1;
+    }
+}
@@ -59,8 +59,20 @@ public class ConditionalLayer extends Layer {
             log.debug("[ConditionalLayer '{}'] forward, input keys={}", getName(), inputByName.keySet());
         }
 
-        boolean cond = evalCondition(inputByName);
-        Layer root = cond ? thenLayer : elseLayer;
+        return forwardBranch(evalCondition(inputByName), inputByName);
+    }
+
+    /**
+     * Evaluates the branch selected by an already evaluated condition.
+     *
+     * <p>Lets callers that need to observe the decision (e.g. profiling hooks)
+     * avoid evaluating {@link #conditionExpr} twice.</p>
+     *
+     * @param thenTaken   result of {@link #evalCondition(Map)}
+     * @param inputByName original input map
+     */
+    public double[] forwardBranch(boolean thenTaken, Map<String, double[]> inputByName) {
+        Layer root = thenTaken ? thenLayer : elseLayer;
 
         if (root == null) {
             // No branch defined — fall back to direct input (if present)
@@ -77,10 +77,22 @@ public class DenseLayer extends Layer {
         }
     }
 
+    /**
+     * Replaces the weight matrix; {@code weights[i]} is the row for output unit {@code i}.
+     */
+    public void setWeights(double[][] weights) {
+        this.weights = weights;
+    }
+
     public void setBias(double[] bias) {
         this.bias = bias;
     }
 
+    /** Bias vector of length [size], or {@code null} until initialized. */
+    public double[] getBias() {
+        return bias;
+    }
+
     // -------------------------------------------------------------------------
     // Forward pass
     // -------------------------------------------------------------------------
@@ -126,8 +138,8 @@ public class DenseLayer extends Layer {
             return out;
         }
 
-        // Non-linear activation via shared Activation helper
-        return Activation.apply(activation, out);
+        // Non-linear activation fused into the output buffer
+        return Activation.applyInPlace(activation, out);
     }
 
     // -------------------------------------------------------------------------
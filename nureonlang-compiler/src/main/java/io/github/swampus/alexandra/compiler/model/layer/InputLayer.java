@@ -3,6 +3,7 @@ package io.github.swampus.alexandra.compiler.model.layer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -70,6 +71,21 @@ public class InputLayer extends Layer {
         return shape; // Returning actual declared shape
     }
 
+    /**
+     * Exposes the declared size or shape for validators and tooling.
+     */
+    @Override
+    public Map<String, Object> getParams() {
+        Map<String, Object> p = new LinkedHashMap<>();
+        if (size > 0) {
+            p.put("size", size);
+        }
+        if (shape != null) {
+            p.put("shape", shape);
+        }
+        return p;
+    }
+
     // -------------------------------------------------------------------------
     // Forward pass
     // -------------------------------------------------------------------------
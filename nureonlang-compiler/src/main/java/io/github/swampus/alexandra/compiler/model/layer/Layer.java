@@ -1,8 +1,11 @@
 package io.github.swampus.alexandra.compiler.model.layer;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
 
 /**
  * Base abstraction for all computational nodes in the network graph.
@@ -41,8 +44,11 @@ import java.util.Map;
 public abstract class Layer {
 
     protected final String name;
-    protected final List<Layer> inputs = new ArrayList<>();
-    protected final List<Layer> outputs = new ArrayList<>();
+    protected final List<Layer> inputs = new EdgeList();
+    protected final List<Layer> outputs = new EdgeList();
+
+    /** Bumped on every edit of {@link #inputs} or {@link #outputs}. */
+    private int edgeVersion;
 
     protected Layer(String name) {
         this.name = name;
@@ -55,6 +61,15 @@ public abstract class Layer {
         return name;
     }
 
+    /**
+     * Returns a counter that changes whenever {@link #getInputs()} or
+     * {@link #getOutputs()} is modified, through any path. Graph snapshots use
+     * it to notice edits made after they were built.
+     */
+    public int getEdgeVersion() {
+        return edgeVersion;
+    }
+
     /**
      * Returns the list of upstream layers feeding into this layer.
      */
@@ -103,7 +118,9 @@ public abstract class Layer {
      * <p>Resolution order:</p>
      * <ol>
      *   <li>Attempt to fetch a direct vector from {@code inputByName.get(getName())}.</li>
-     *   <li>If absent, recursively evaluate all {@link #getInputs()} and concatenate results.</li>
+     *   <li>If every upstream layer already has an entry in {@code inputByName} (as supplied by
+     *       an executor that evaluates layers in topological order), concatenate those.</li>
+     *   <li>Otherwise, recursively evaluate all {@link #getInputs()} and concatenate results.</li>
      *   <li>If no inputs and no direct entry found, throw {@link IllegalArgumentException}.</li>
      * </ol>
      */
@@ -116,6 +133,11 @@ public abstract class Layer {
 
         // Otherwise, aggregate inputs from upstream layers
         if (getInputs() != null && !getInputs().isEmpty()) {
+            double[] evaluated = upstreamOutputs(inputByName);
+            if (evaluated != null) {
+                return evaluated;
+            }
+
             List<double[]> all = new ArrayList<>();
             for (Layer in : getInputs()) {
                 all.add(in.forward(inputByName));
@@ -127,6 +149,34 @@ public abstract class Layer {
                 "Input not found for " + getClass().getSimpleName() + ": " + getName());
     }
 
+    /**
+     * Concatenates the already evaluated outputs of all upstream layers, or returns
+     * {@code null} if at least one of them is missing from {@code inputByName}.
+     * A miss is detected before anything is allocated; recursive evaluation, the
+     * common case for legacy {@link #forward(Map)} callers, pays only the lookups.
+     */
+    private double[] upstreamOutputs(Map<String, double[]> inputByName) {
+        if (inputByName == null) {
+            return null;
+        }
+        int total = 0;
+        for (Layer in : getInputs()) {
+            double[] v = inputByName.get(in.getName());
+            if (v == null) {
+                return null;
+            }
+            total += v.length;
+        }
+        double[] out = new double[total];
+        int pos = 0;
+        for (Layer in : getInputs()) {
+            double[] v = inputByName.get(in.getName());
+            System.arraycopy(v, 0, out, pos, v.length);
+            pos += v.length;
+        }
+        return out;
+    }
+
     /**
      * Concatenates a list of input vectors into a single flat vector.
      */
@@ -141,6 +191,66 @@ public abstract class Layer {
         return out;
     }
 
+    /**
+     * Array-backed edge list that bumps the owner's {@link #edgeVersion} on every
+     * modification, so in-place rewiring never goes unnoticed.
+     */
+    private final class EdgeList extends AbstractList<Layer> implements RandomAccess {
+
+        private final ArrayList<Layer> items = new ArrayList<>();
+
+        @Override
+        public Layer get(int index) {
+            return items.get(index);
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        public Layer set(int index, Layer layer) {
+            Layer previous = items.set(index, layer);
+            edgeVersion++;
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Layer layer) {
+            items.add(index, layer);
+            modCount++;
+            edgeVersion++;
+        }
+
+        @Override
+        public Layer remove(int index) {
+            Layer removed = items.remove(index);
+            modCount++;
+            edgeVersion++;
+            return removed;
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Layer> filter) {
+            boolean removed = items.removeIf(filter);
+            if (removed) {
+                modCount++;
+                edgeVersion++;
+            }
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            if (!items.isEmpty()) {
+                items.clear();
+                modCount++;
+                edgeVersion++;
+            }
+        }
+    }
+
     /**
      * Generic forward pass accepting arbitrary objects.
      *
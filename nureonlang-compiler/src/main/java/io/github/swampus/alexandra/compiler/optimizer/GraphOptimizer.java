@@ -0,0 +1,80 @@
+package io.github.swampus.alexandra.compiler.optimizer;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.optimizer.impl.CommonSubgraphEliminationPass;
+import io.github.swampus.alexandra.compiler.optimizer.impl.DeadLayerEliminationPass;
+import io.github.swampus.alexandra.compiler.optimizer.impl.FusionPass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runs an ordered list of {@link GraphPass}es over a compiled model.
+ *
+ * <p>Per-pass statistics are returned and also recorded in the model metadata
+ * under {@value #META_KEY}.</p>
+ */
+@Slf4j
+public final class GraphOptimizer {
+
+    /** Metadata key holding per-pass statistics. */
+    public static final String META_KEY = "optimizer";
+
+    private final List<GraphPass> passes;
+
+    public GraphOptimizer(List<GraphPass> passes) {
+        this.passes = List.copyOf(Objects.requireNonNull(passes, "passes"));
+    }
+
+    /** Optimizer that leaves the model untouched. */
+    public static GraphOptimizer none() {
+        return new GraphOptimizer(List.of());
+    }
+
+    /**
+     * Default inference pipeline: prune unreachable layers, share repeated
+     * subgraphs, then fuse what is left.
+     */
+    public static GraphOptimizer defaults() {
+        return new GraphOptimizer(List.of(
+                new DeadLayerEliminationPass(),
+                new CommonSubgraphEliminationPass(),
+                new FusionPass()));
+    }
+
+    public List<GraphPass> getPasses() {
+        return passes;
+    }
+
+    /**
+     * Applies all passes in order.
+     *
+     * @param model compiled model (mutated in place)
+     * @return one result per pass, in execution order
+     */
+    public List<PassResult> optimize(NetworkModel model) {
+        Objects.requireNonNull(model, "model");
+        if (passes.isEmpty()) {
+            return List.of();
+        }
+        List<PassResult> results = new ArrayList<>(passes.size());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (GraphPass pass : passes) {
+            PassResult r = pass.apply(model);
+            results.add(r);
+            stats.put(r.pass(), r.toMeta());
+            if (r.changed()) {
+                // Passes rewire Layer edge lists in place.
+                model.invalidateGraph();
+                log.debug("Pass '{}': {} rewrites, {} layers and {} parameters removed",
+                        r.pass(), r.rewrites(), r.layersRemoved(), r.parametersRemoved());
+            }
+        }
+        model.getMeta().put(META_KEY, stats);
+        return results;
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.swampus.alexandra.compiler.optimizer;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+
+/**
+ * A single rewrite over a compiled {@link NetworkModel} graph.
+ *
+ * <p>Passes run after compilation and mutate the model in place. They must keep
+ * the numeric result of every model output unchanged for inference.</p>
+ */
+public interface GraphPass {
+
+    /** Short identifier used in reports and model metadata. */
+    String name();
+
+    /**
+     * Rewrites the model and reports what changed.
+     *
+     * @param model compiled model (mutated in place)
+     * @return statistics for this run
+     */
+    PassResult apply(NetworkModel model);
+}
@@ -0,0 +1,152 @@
+package io.github.swampus.alexandra.compiler.optimizer;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Edge-level helpers shared by graph passes.
+ *
+ * <p>Layers do not override {@code equals}, so all lookups here are by identity.</p>
+ */
+public final class GraphRewrites {
+
+    private GraphRewrites() {
+    }
+
+    /**
+     * Returns the model layers without duplicates, in first-seen order.
+     */
+    public static List<Layer> distinctLayers(NetworkModel model) {
+        Set<Layer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Layer> out = new ArrayList<>(model.getAllLayers().size());
+        for (Layer l : model.getAllLayers()) {
+            if (seen.add(l)) {
+                out.add(l);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Makes every consumer of {@code from} read from {@code to} instead,
+     * keeping the consumer's input order.
+     */
+    public static void redirectConsumers(Layer from, Layer to) {
+        for (Layer consumer : from.getOutputs()) {
+            List<Layer> ins = consumer.getInputs();
+            for (int i = 0; i < ins.size(); i++) {
+                if (ins.get(i) == from) {
+                    ins.set(i, to);
+                }
+            }
+            to.addOutput(consumer);
+        }
+        from.getOutputs().clear();
+    }
+
+    /**
+     * Removes a single-input layer and wires its input directly to its consumers.
+     */
+    public static void bypass(NetworkModel model, Layer layer) {
+        bypassEdges(layer);
+        model.removeLayer(layer);
+    }
+
+    /**
+     * Wires the only input of {@code layer} directly to its consumers and leaves
+     * {@code layer} without edges, but still in the model. Passes that bypass many
+     * layers use this and drop them afterwards with {@link NetworkModel#removeLayers}.
+     *
+     * @return the former input of {@code layer}
+     */
+    public static Layer bypassEdges(Layer layer) {
+        if (layer.getInputs().size() != 1) {
+            throw new IllegalArgumentException("Only single-input layers can be bypassed: " + layer.getName());
+        }
+        Layer source = layer.getInputs().get(0);
+        removeByIdentity(source.getOutputs(), layer);
+        redirectConsumers(layer, source);
+        layer.getInputs().clear();
+        return source;
+    }
+
+    /**
+     * Detaches {@code layer} from all neighbours and removes it from the model.
+     */
+    public static void detach(NetworkModel model, Layer layer) {
+        for (Layer in : layer.getInputs()) {
+            removeByIdentity(in.getOutputs(), layer);
+        }
+        for (Layer out : layer.getOutputs()) {
+            removeByIdentity(out.getInputs(), layer);
+        }
+        layer.getInputs().clear();
+        layer.getOutputs().clear();
+        model.removeLayer(layer);
+    }
+
+    /**
+     * Detaches and removes a whole set of layers at once. Each surviving
+     * neighbour's edge lists are filtered once and the model is reindexed once,
+     * so the cost is linear in layers plus edges however many layers go, unlike
+     * repeated {@link #detach} calls.
+     *
+     * @param dead layers to remove; must be an identity-based set
+     */
+    public static void detachAll(NetworkModel model, Set<Layer> dead) {
+        if (dead.isEmpty()) {
+            return;
+        }
+        Set<Layer> neighbours = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Layer d : dead) {
+            for (Layer in : d.getInputs()) {
+                if (!dead.contains(in)) neighbours.add(in);
+            }
+            for (Layer out : d.getOutputs()) {
+                if (!dead.contains(out)) neighbours.add(out);
+            }
+        }
+        for (Layer n : neighbours) {
+            n.getInputs().removeIf(dead::contains);
+            n.getOutputs().removeIf(dead::contains);
+        }
+        for (Layer d : dead) {
+            d.getInputs().clear();
+            d.getOutputs().clear();
+        }
+        model.removeLayers(dead);
+    }
+
+    /**
+     * Number of materialized trainable parameters held by the layer.
+     */
+    public static long parameterCount(Layer layer) {
+        if (layer instanceof DenseLayer dense) {
+            long n = 0;
+            if (dense.getWeights() != null) {
+                for (double[] row : dense.getWeights()) {
+                    n += row.length;
+                }
+            }
+            if (dense.getBias() != null) {
+                n += dense.getBias().length;
+            }
+            return n;
+        }
+        return 0L;
+    }
+
+    /**
+     * Removes all occurrences of {@code layer} from an edge list.
+     */
+    public static void removeByIdentity(List<Layer> list, Layer layer) {
+        list.removeIf(l -> l == layer);
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.swampus.alexandra.compiler.optimizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a single {@link GraphPass} run.
+ *
+ * @param pass              pass name
+ * @param rewrites          number of individual rewrites applied
+ * @param layersRemoved     layers removed from the model
+ * @param parametersRemoved trainable parameters (weights + biases) removed
+ */
+public record PassResult(String pass, int rewrites, int layersRemoved, long parametersRemoved) {
+
+    public static PassResult unchanged(String pass) {
+        return new PassResult(pass, 0, 0, 0L);
+    }
+
+    public boolean changed() {
+        return rewrites > 0 || layersRemoved > 0;
+    }
+
+    /**
+     * Plain map form stored in {@code NetworkModel#getMeta()}, so it survives
+     * JSON serialization of the model metadata.
+     */
+    public Map<String, Object> toMeta() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("rewrites", rewrites);
+        m.put("layersRemoved", layersRemoved);
+        m.put("parametersRemoved", parametersRemoved);
+        return m;
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.swampus.alexandra.compiler.optimizer.impl;
+
+import io.github.swampus.alexandra.compiler.model.GraphOrder;
+import io.github.swampus.alexandra.compiler.model.LayerGraph;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.AttentionLayer;
+import io.github.swampus.alexandra.compiler.model.layer.ConvLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DropoutLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.optimizer.GraphPass;
+import io.github.swampus.alexandra.compiler.optimizer.GraphRewrites;
+import io.github.swampus.alexandra.compiler.optimizer.PassResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Common-subgraph elimination (hash-consing) over the compiled graph.
+ *
+ * <p>Layers are visited in topological order. Each one gets a value-number key
+ * made of its class, its {@link Layer#getParams()} and the value numbers of its
+ * inputs (in order). Two layers with equal keys compute the same function of the
+ * same data, so the later one is removed and its consumers are rewired to the
+ * first. Because inputs are compared by value number, whole repeated subgraphs
+ * (e.g. identical macro instances unrolled by a {@code FOR}) collapse bottom-up
+ * in a single sweep. Duplicates are collected and leave the model in one batch
+ * at the end, so heavy sharing does not make removal quadratic.</p>
+ *
+ * <p>Only deterministic layer kinds are candidates: {@link DenseLayer},
+ * {@link ConvLayer}, {@link AttentionLayer} and inference-mode
+ * {@link DropoutLayer}. Dense layers are merged only if both hold identical,
+ * non-null weights and biases, so separately trained parameters are never
+ * shared. Untrained Dense layers (no weights yet) will be trained apart later
+ * and are kept unless the pass is created with {@code mergeUntrained = true}.
+ * Inputs, outputs and conditionals are never merged.</p>
+ */
+public final class CommonSubgraphEliminationPass implements GraphPass {
+
+    public static final String NAME = "common-subgraph-elimination";
+
+    private final boolean mergeUntrained;
+
+    public CommonSubgraphEliminationPass() {
+        this(false);
+    }
+
+    public CommonSubgraphEliminationPass(boolean mergeUntrained) {
+        this.mergeUntrained = mergeUntrained;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public PassResult apply(NetworkModel model) {
+        List<Layer> order = topologicalOrder(model);
+
+        Map<Layer, Integer> valueNumber = new IdentityHashMap<>();
+        Map<Key, List<Layer>> table = new HashMap<>();
+        Set<Layer> duplicates = Collections.newSetFromMap(new IdentityHashMap<>());
+        long params = 0;
+
+        for (Layer layer : order) {
+            Layer rep = null;
+            Key key = null;
+            if (isCandidate(layer)) {
+                key = keyOf(layer, valueNumber);
+                for (Layer other : table.getOrDefault(key, List.of())) {
+                    if (sameParameters(layer, other)) {
+                        rep = other;
+                        break;
+                    }
+                }
+            }
+            if (rep != null) {
+                valueNumber.put(layer, valueNumber.get(rep));
+                params += GraphRewrites.parameterCount(layer);
+                // Consumers move now; the duplicate leaves its producers and the model in one batch below.
+                GraphRewrites.redirectConsumers(layer, rep);
+                duplicates.add(layer);
+                continue;
+            }
+            valueNumber.put(layer, valueNumber.size());
+            if (key != null) {
+                table.computeIfAbsent(key, k -> new ArrayList<>(1)).add(layer);
+            }
+        }
+        GraphRewrites.detachAll(model, duplicates);
+        int removed = duplicates.size();
+        return new PassResult(NAME, removed, removed, params);
+    }
+
+    private static boolean isCandidate(Layer layer) {
+        if (layer.getInputs().isEmpty()) {
+            return false;
+        }
+        Class<?> kind = layer.getClass();
+        if (kind == DropoutLayer.class) {
+            return !((DropoutLayer) layer).isTraining();
+        }
+        return kind == DenseLayer.class || kind == ConvLayer.class || kind == AttentionLayer.class;
+    }
+
+    private static Key keyOf(Layer layer, Map<Layer, Integer> valueNumber) {
+        int[] ins = new int[layer.getInputs().size()];
+        for (int i = 0; i < ins.length; i++) {
+            Integer vn = valueNumber.get(layer.getInputs().get(i));
+            // Inputs outside the ordered set (e.g. on a cycle) only match themselves.
+            ins[i] = vn != null ? vn : -1 - System.identityHashCode(layer.getInputs().get(i));
+        }
+        return new Key(layer.getClass(), layer.getParams(), Arrays.stream(ins).boxed().toList());
+    }
+
+    private boolean sameParameters(Layer a, Layer b) {
+        if (a instanceof DenseLayer da && b instanceof DenseLayer db) {
+            if (da.getWeights() == null || db.getWeights() == null) {
+                return mergeUntrained && da.getWeights() == null && db.getWeights() == null;
+            }
+            return Arrays.deepEquals(da.getWeights(), db.getWeights())
+                    && Arrays.equals(da.getBias(), db.getBias());
+        }
+        return true;
+    }
+
+    /**
+     * The model's shared {@link GraphOrder}, restricted to its own layers. Layers on
+     * or behind a cycle are left out, so they keep their identity and are never merged.
+     */
+    private static List<Layer> topologicalOrder(NetworkModel model) {
+        LayerGraph graph = model.getGraph();
+        GraphOrder topo = graph.order();
+        int n = graph.size();
+        boolean[] excluded = new boolean[n];
+        List<Layer> order = new ArrayList<>(graph.memberCount());
+        for (int p = 0; p < n; p++) {
+            int v = topo.vertexAt(p);
+            boolean skip = topo.isCyclic(v);
+            for (int k = 0; k < graph.inDegree(v) && !skip; k++) {
+                skip = excluded[graph.predecessor(v, k)];
+            }
+            excluded[v] = skip;
+            if (!skip && graph.isMember(v)) {
+                order.add(graph.layer(v));
+            }
+        }
+        return order;
+    }
+
+    private record Key(Class<?> kind, Map<String, Object> params, List<Integer> inputs) {
+    }
+}
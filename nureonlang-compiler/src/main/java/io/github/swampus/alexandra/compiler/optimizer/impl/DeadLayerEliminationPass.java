@@ -0,0 +1,88 @@
+package io.github.swampus.alexandra.compiler.optimizer.impl;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.ConditionalLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.optimizer.GraphPass;
+import io.github.swampus.alexandra.compiler.optimizer.GraphRewrites;
+import io.github.swampus.alexandra.compiler.optimizer.PassResult;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Output-driven pruning: removes every layer no model output depends on.
+ *
+ * <p>Roots are {@link NetworkModel#getOutputLayers()} plus every
+ * {@link ConditionalLayer}. The pass walks {@link Layer#getInputs()} backwards
+ * from them (and into the then/else branches of conditionals); everything not
+ * visited is detached and removed from the model in one sweep (see
+ * {@link GraphRewrites#detachAll}), so it also disappears from serialized
+ * artifacts. Typical leftovers are the unused branch of a compiled {@code IF},
+ * macro instances whose results are never consumed and structural markers such
+ * as empty {@code ModuleLayer}s.</p>
+ *
+ * <p>{@link InputLayer}s are kept even when unreachable, so the declared input
+ * signature of the model does not change; create the pass with
+ * {@code keepInputs = false} to prune them as well.</p>
+ */
+public final class DeadLayerEliminationPass implements GraphPass {
+
+    public static final String NAME = "dead-layer-elimination";
+
+    private final boolean keepInputs;
+
+    public DeadLayerEliminationPass() {
+        this(true);
+    }
+
+    public DeadLayerEliminationPass(boolean keepInputs) {
+        this.keepInputs = keepInputs;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public PassResult apply(NetworkModel model) {
+        Set<Layer> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Layer> work = new ArrayDeque<>();
+        for (Layer out : model.getOutputLayers()) {
+            if (live.add(out)) work.push(out);
+        }
+        for (Layer l : model.getAllLayers()) {
+            if (l instanceof ConditionalLayer && live.add(l)) work.push(l);
+        }
+
+        while (!work.isEmpty()) {
+            Layer l = work.pop();
+            for (Layer in : l.getInputs()) {
+                if (live.add(in)) work.push(in);
+            }
+            if (l instanceof ConditionalLayer cond) {
+                if (cond.getThenLayer() != null && live.add(cond.getThenLayer())) work.push(cond.getThenLayer());
+                if (cond.getElseLayer() != null && live.add(cond.getElseLayer())) work.push(cond.getElseLayer());
+            }
+        }
+
+        // Collect first, then remove in one sweep: per-layer removal rescans the model each time.
+        Set<Layer> dead = Collections.newSetFromMap(new IdentityHashMap<>());
+        long params = 0;
+        for (Layer l : GraphRewrites.distinctLayers(model)) {
+            if (live.contains(l) || (keepInputs && l instanceof InputLayer)) {
+                continue;
+            }
+            params += GraphRewrites.parameterCount(l);
+            dead.add(l);
+        }
+        GraphRewrites.detachAll(model, dead);
+        int removed = dead.size();
+        return new PassResult(NAME, removed, removed, params);
+    }
+}
@@ -0,0 +1,278 @@
+package io.github.swampus.alexandra.compiler.optimizer.impl;
+
+import io.github.swampus.alexandra.compiler.model.GraphOrder;
+import io.github.swampus.alexandra.compiler.model.LayerGraph;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.AttentionLayer;
+import io.github.swampus.alexandra.compiler.model.layer.ConvLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DropoutLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import io.github.swampus.alexandra.compiler.optimizer.GraphPass;
+import io.github.swampus.alexandra.compiler.optimizer.GraphRewrites;
+import io.github.swampus.alexandra.compiler.optimizer.PassResult;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inference-time operator fusion.
+ *
+ * <p>Applies the following rewrites until none applies. Layers are visited from
+ * a worklist seeded in topological order; each rewrite re-queues only the
+ * neighbours it touched, and fused layers leave the model in one batch at the
+ * end, so long chains are handled in linear time:</p>
+ * <ol>
+ *   <li><b>Pass-through elimination</b> — single-input {@link DropoutLayer}s in
+ *       inference mode and the stub {@link AttentionLayer}/{@link ConvLayer}
+ *       (which return their input unchanged) are removed and their input is wired
+ *       to their consumers.</li>
+ *   <li><b>Output forwarding</b> — an {@link OutputLayer} with a single input that
+ *       also feeds other layers is an identity (unless {@code size == 1}); its
+ *       consumers read the upstream layer directly. The output itself stays.</li>
+ *   <li><b>Linear Dense merge</b> — {@code A -> B} where {@code A} is a linear
+ *       {@link DenseLayer} whose only consumer is the Dense {@code B} and {@code B}
+ *       has no other inputs becomes a single layer {@code B} with
+ *       {@code W = W_B W_A} and {@code b = W_B b_A + b_B}. The merge is skipped
+ *       when it would increase the parameter count.</li>
+ * </ol>
+ *
+ * <p>Dense activations are already applied in place on the layer's output buffer
+ * (see {@code Activation#applyInPlace}), so no separate activation node exists
+ * to fuse at graph level.</p>
+ */
+public final class FusionPass implements GraphPass {
+
+    public static final String NAME = "fusion";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public PassResult apply(NetworkModel model) {
+        Set<Layer> entries = Collections.newSetFromMap(new IdentityHashMap<>());
+        entries.addAll(model.getOutputLayers());
+        entries.addAll(model.getInputLayers());
+
+        Worklist work = new Worklist(model);
+        Set<Layer> fused = Collections.newSetFromMap(new IdentityHashMap<>());
+        int rewrites = 0;
+        long params = 0;
+        while (!work.isEmpty()) {
+            Layer layer = work.poll();
+            if (fused.contains(layer)) {
+                continue;
+            }
+            if (entries.contains(layer)) {
+                if (forwardsThroughOutput(layer)) {
+                    List<Layer> consumers = List.copyOf(layer.getOutputs());
+                    Layer source = layer.getInputs().get(0);
+                    GraphRewrites.redirectConsumers(layer, source);
+                    work.add(source);
+                    work.addAll(consumers);
+                    rewrites++;
+                }
+                continue;
+            }
+            if (isPassThrough(layer)) {
+                List<Layer> consumers = List.copyOf(layer.getOutputs());
+                work.add(GraphRewrites.bypassEdges(layer));
+                work.addAll(consumers);
+                fused.add(layer);
+                rewrites++;
+            } else if (layer instanceof DenseLayer a && mergeTarget(a) != null) {
+                DenseLayer b = mergeTarget(a);
+                long before = GraphRewrites.parameterCount(a) + GraphRewrites.parameterCount(b);
+                if (!merge(a, b)) {
+                    continue;
+                }
+                List<Layer> upstream = List.copyOf(a.getInputs());
+                replaceInputs(a, b);
+                work.add(b);
+                work.addAll(upstream);
+                fused.add(a);
+                params += before - GraphRewrites.parameterCount(b);
+                rewrites++;
+            }
+        }
+        // Fused layers are already detached; drop them from the model in one sweep.
+        model.removeLayers(fused);
+        return new PassResult(NAME, rewrites, fused.size(), params);
+    }
+
+    /**
+     * FIFO of layers to (re)visit, seeded in topological order. A layer is queued
+     * at most once at a time; rewrites re-queue only the neighbours whose
+     * eligibility they may have changed.
+     */
+    private static final class Worklist {
+
+        private final Deque<Layer> queue = new ArrayDeque<>();
+        private final Set<Layer> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Worklist(NetworkModel model) {
+            LayerGraph graph = model.getGraph();
+            GraphOrder order = graph.order();
+            for (int p = 0; p < order.size(); p++) {
+                int v = order.vertexAt(p);
+                if (graph.isMember(v)) {
+                    add(graph.layer(v));
+                }
+            }
+        }
+
+        void add(Layer layer) {
+            if (queued.add(layer)) {
+                queue.add(layer);
+            }
+        }
+
+        void addAll(List<Layer> layers) {
+            for (Layer l : layers) {
+                add(l);
+            }
+        }
+
+        boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        Layer poll() {
+            Layer layer = queue.poll();
+            queued.remove(layer);
+            return layer;
+        }
+    }
+
+    private static boolean isPassThrough(Layer layer) {
+        if (layer.getInputs().size() != 1) {
+            return false;
+        }
+        if (layer instanceof DropoutLayer dropout) {
+            return !dropout.isTraining();
+        }
+        return layer.getClass() == AttentionLayer.class || layer.getClass() == ConvLayer.class;
+    }
+
+    private static boolean forwardsThroughOutput(Layer layer) {
+        return layer instanceof OutputLayer out
+                && out.getSize() != 1
+                && out.getInputs().size() == 1
+                && !out.getOutputs().isEmpty();
+    }
+
+    /**
+     * Returns the Dense layer {@code a} can be folded into, or {@code null}.
+     */
+    private static DenseLayer mergeTarget(DenseLayer a) {
+        if (!isLinear(a.getActivation()) || a.getOutputs().size() != 1) {
+            return null;
+        }
+        Layer next = a.getOutputs().get(0);
+        if (next.getClass() != DenseLayer.class || a.getClass() != DenseLayer.class) {
+            return null;
+        }
+        if (next.getInputs().size() != 1 || next.getInputs().get(0) != a) {
+            return null;
+        }
+        return (DenseLayer) next;
+    }
+
+    private static boolean isLinear(String activation) {
+        return activation == null || activation.equalsIgnoreCase("linear");
+    }
+
+    /**
+     * Folds {@code a}'s affine transform into {@code b}. A {@code null} weight
+     * matrix means "zero-initialized on first forward", so it contributes only
+     * through its bias.
+     *
+     * @return {@code false} if the shapes do not line up or merging would grow the layer
+     */
+    private static boolean merge(DenseLayer a, DenseLayer b) {
+        double[][] wa = a.getWeights();
+        double[][] wb = b.getWeights();
+        double[] ba = a.getBias();
+        double[] bb = b.getBias();
+        int sizeA = a.getSize();
+        int sizeB = b.getSize();
+
+        if (wb != null && (wb.length != sizeB || (wb.length > 0 && wb[0].length != sizeA))) {
+            return false;
+        }
+        if (wa != null && wa.length != sizeA) {
+            return false;
+        }
+        if (wa != null && wb != null) {
+            long inA = wa.length > 0 ? wa[0].length : 0;
+            long merged = (long) sizeB * inA;
+            long separate = (long) sizeA * inA + (long) sizeB * sizeA;
+            if (merged > separate) {
+                return false;
+            }
+        }
+
+        double[] bias = new double[sizeB];
+        if (bb != null) {
+            System.arraycopy(bb, 0, bias, 0, sizeB);
+        }
+        if (wb != null && ba != null) {
+            for (int i = 0; i < sizeB; i++) {
+                double sum = 0;
+                for (int k = 0; k < sizeA; k++) {
+                    sum += wb[i][k] * ba[k];
+                }
+                bias[i] += sum;
+            }
+        }
+
+        double[][] weights = null;
+        if (wa != null && wb != null) {
+            int inA = wa.length > 0 ? wa[0].length : 0;
+            weights = new double[sizeB][inA];
+            for (int i = 0; i < sizeB; i++) {
+                for (int k = 0; k < sizeA; k++) {
+                    double f = wb[i][k];
+                    if (f == 0.0) {
+                        continue;
+                    }
+                    double[] rowA = wa[k];
+                    double[] row = weights[i];
+                    for (int j = 0; j < inA; j++) {
+                        row[j] += f * rowA[j];
+                    }
+                }
+            }
+        }
+
+        b.setWeights(weights);
+        b.setBias(bb == null && (wb == null || ba == null) ? null : bias);
+        return true;
+    }
+
+    /**
+     * Rewires {@code a}'s inputs to feed {@code b} directly.
+     */
+    private static void replaceInputs(DenseLayer a, DenseLayer b) {
+        List<Layer> upstream = List.copyOf(a.getInputs());
+        b.getInputs().clear();
+        for (Layer in : upstream) {
+            List<Layer> outs = in.getOutputs();
+            for (int i = 0; i < outs.size(); i++) {
+                if (outs.get(i) == a) {
+                    outs.set(i, b);
+                }
+            }
+            b.addInput(in);
+        }
+        a.getInputs().clear();
+        a.getOutputs().clear();
+    }
+}
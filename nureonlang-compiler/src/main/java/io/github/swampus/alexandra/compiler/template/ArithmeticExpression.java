@@ -0,0 +1,204 @@
+package io.github.swampus.alexandra.compiler.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Parsed arithmetic over numbers and identifiers: {@code + - * / %}, unary
+ * sign and parentheses, evaluated in {@code double} like exp4j.
+ *
+ * <p>{@link #parse(String)} returns {@code null} for anything outside this
+ * subset (functions, powers, implicit multiplication, exponents, ...) so the
+ * caller can fall back to the general evaluator with identical results.</p>
+ */
+public final class ArithmeticExpression {
+
+    private final Node root;
+    private final List<String> variables;
+
+    private ArithmeticExpression(Node root, List<String> variables) {
+        this.root = root;
+        this.variables = variables;
+    }
+
+    /**
+     * Parses {@code source}, or returns {@code null} if it is not in the supported subset.
+     */
+    public static ArithmeticExpression parse(String source) {
+        Parser p = new Parser(source);
+        Node root = p.parseSum();
+        if (root == null || !p.atEnd()) {
+            return null;
+        }
+        return new ArithmeticExpression(root, Collections.unmodifiableList(p.variables));
+    }
+
+    /** Distinct identifiers referenced by the expression, in first-seen order. */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param values value of each identifier listed in {@link #variables()}
+     * @throws ArithmeticException on division or modulo by zero
+     */
+    public double evaluate(ToDoubleFunction<String> values) {
+        return root.eval(values);
+    }
+
+    private sealed interface Node permits Num, Var, Neg, Bin {
+        double eval(ToDoubleFunction<String> values);
+    }
+
+    private record Num(double value) implements Node {
+        public double eval(ToDoubleFunction<String> values) {
+            return value;
+        }
+    }
+
+    private record Var(String name) implements Node {
+        public double eval(ToDoubleFunction<String> values) {
+            return values.applyAsDouble(name);
+        }
+    }
+
+    private record Neg(Node operand) implements Node {
+        public double eval(ToDoubleFunction<String> values) {
+            return -operand.eval(values);
+        }
+    }
+
+    private record Bin(char op, Node left, Node right) implements Node {
+        public double eval(ToDoubleFunction<String> values) {
+            double l = left.eval(values);
+            double r = right.eval(values);
+            switch (op) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                default:
+                    if (r == 0d) {
+                        throw new ArithmeticException("Division by zero!");
+                    }
+                    return op == '/' ? l / r : l % r;
+            }
+        }
+    }
+
+    /** Recursive-descent parser; every method returns {@code null} on unsupported input. */
+    private static final class Parser {
+        private final String s;
+        private int pos;
+        private final List<String> variables = new ArrayList<>();
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        boolean atEnd() {
+            skipSpaces();
+            return pos == s.length();
+        }
+
+        Node parseSum() {
+            Node left = parseProduct();
+            while (left != null) {
+                skipSpaces();
+                if (pos >= s.length()) break;
+                char c = s.charAt(pos);
+                if (c != '+' && c != '-') break;
+                pos++;
+                Node right = parseProduct();
+                if (right == null) return null;
+                left = new Bin(c, left, right);
+            }
+            return left;
+        }
+
+        Node parseProduct() {
+            Node left = parseUnary();
+            while (left != null) {
+                skipSpaces();
+                if (pos >= s.length()) break;
+                char c = s.charAt(pos);
+                if (c != '*' && c != '/' && c != '%') break;
+                pos++;
+                Node right = parseUnary();
+                if (right == null) return null;
+                left = new Bin(c, left, right);
+            }
+            return left;
+        }
+
+        Node parseUnary() {
+            skipSpaces();
+            if (pos >= s.length()) return null;
+            char c = s.charAt(pos);
+            if (c == '-' || c == '+') {
+                pos++;
+                Node operand = parseUnary();
+                if (operand == null) return null;
+                return c == '-' ? new Neg(operand) : operand;
+            }
+            return parseAtom();
+        }
+
+        Node parseAtom() {
+            char c = s.charAt(pos);
+            Node atom;
+            if (c == '(') {
+                pos++;
+                atom = parseSum();
+                skipSpaces();
+                if (atom == null || pos >= s.length() || s.charAt(pos) != ')') return null;
+                pos++;
+            } else if (c >= '0' && c <= '9') {
+                int start = pos;
+                while (pos < s.length() && isDigit(s.charAt(pos))) pos++;
+                if (pos < s.length() && s.charAt(pos) == '.') {
+                    pos++;
+                    if (pos >= s.length() || !isDigit(s.charAt(pos))) return null;
+                    while (pos < s.length() && isDigit(s.charAt(pos))) pos++;
+                }
+                atom = new Num(Double.parseDouble(s.substring(start, pos)));
+            } else if (isIdentStart(c)) {
+                int start = pos;
+                while (pos < s.length() && isIdentPart(s.charAt(pos))) pos++;
+                String name = s.substring(start, pos);
+                if (!variables.contains(name)) variables.add(name);
+                atom = new Var(name);
+            } else {
+                return null;
+            }
+            // exp4j accepts implicit multiplication ("2x", "(a)(b)"); leave that to it
+            if (pos < s.length()) {
+                char next = s.charAt(pos);
+                if (next == '(' || next == '.' || isIdentPart(next) || next > 0x7f) return null;
+            }
+            return atom;
+        }
+
+        private void skipSpaces() {
+            while (pos < s.length() && (s.charAt(pos) == ' ' || s.charAt(pos) == '\t')) pos++;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isIdentStart(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+        }
+
+        private static boolean isIdentPart(char c) {
+            return isIdentStart(c) || isDigit(c);
+        }
+    }
+}
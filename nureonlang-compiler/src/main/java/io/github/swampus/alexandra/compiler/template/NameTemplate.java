@@ -0,0 +1,122 @@
+package io.github.swampus.alexandra.compiler.template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A name, reference or expression string split once into literal text and
+ * bracketed arithmetic, so it can be rendered for many bindings without
+ * re-scanning.
+ *
+ * <p>Two bracket dialects exist in the compiler:</p>
+ * <ul>
+ *   <li>{@link #ofIndexBrackets(String)} — any non-empty {@code [...]} (used for
+ *       {@code FOR} variables, e.g. {@code h_[(i+1)*2]}, {@code x[i]});</li>
+ *   <li>{@link #ofParenBrackets(String)} — only {@code [(...)]} (used for macro
+ *       bindings, where a bare {@code [name]} is a reference, not arithmetic).</li>
+ * </ul>
+ */
+public final class NameTemplate {
+
+    /** A segment is either literal text or a bracketed expression. */
+    public sealed interface Segment permits Literal, Expression {
+    }
+
+    /** Text copied verbatim. */
+    public record Literal(String text) implements Segment {
+    }
+
+    /**
+     * Bracket contents without the brackets (and, for index brackets, without one
+     * pair of wrapping parentheses).
+     *
+     * @param source textual form, used for fallback evaluation
+     * @param parsed parsed form, or {@code null} if outside the supported subset
+     */
+    public record Expression(String source, ArithmeticExpression parsed) implements Segment {
+    }
+
+    private final String source;
+    private final List<Segment> segments;
+    private final boolean hasExpressions;
+
+    private NameTemplate(String source, List<Segment> segments) {
+        this.source = source;
+        this.segments = List.copyOf(segments);
+        this.hasExpressions = segments.stream().anyMatch(s -> s instanceof Expression);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public boolean hasExpressions() {
+        return hasExpressions;
+    }
+
+    /**
+     * Splits on {@code [content]} where content is non-empty and contains no {@code ]}.
+     * One pair of parentheses wrapping the whole content is removed.
+     */
+    public static NameTemplate ofIndexBrackets(String s) {
+        List<Segment> out = new ArrayList<>();
+        int literalStart = 0;
+        int p = s.indexOf('[');
+        while (p >= 0) {
+            int q = s.indexOf(']', p + 1);
+            if (q < 0) {
+                break;
+            }
+            if (q == p + 1) {
+                p = s.indexOf('[', p + 1);
+                continue;
+            }
+            String expr = s.substring(p + 1, q);
+            if (expr.startsWith("(") && expr.endsWith(")")) {
+                expr = expr.substring(1, expr.length() - 1);
+            }
+            addLiteral(out, s, literalStart, p);
+            out.add(new Expression(expr, ArithmeticExpression.parse(expr)));
+            literalStart = q + 1;
+            p = s.indexOf('[', literalStart);
+        }
+        addLiteral(out, s, literalStart, s.length());
+        return new NameTemplate(s, out);
+    }
+
+    /**
+     * Splits on {@code [(content)]} where content is non-empty and contains no {@code ]}.
+     */
+    public static NameTemplate ofParenBrackets(String s) {
+        List<Segment> out = new ArrayList<>();
+        int literalStart = 0;
+        int p = s.indexOf("[(");
+        while (p >= 0) {
+            int q = s.indexOf(']', p + 2);
+            if (q < 0) {
+                break;
+            }
+            if (q >= p + 4 && s.charAt(q - 1) == ')') {
+                String expr = s.substring(p + 2, q - 1);
+                addLiteral(out, s, literalStart, p);
+                out.add(new Expression(expr, ArithmeticExpression.parse(expr)));
+                literalStart = q + 1;
+                p = s.indexOf("[(", literalStart);
+            } else {
+                p = s.indexOf("[(", p + 1);
+            }
+        }
+        addLiteral(out, s, literalStart, s.length());
+        return new NameTemplate(s, out);
+    }
+
+    private static void addLiteral(List<Segment> out, String s, int from, int to) {
+        if (to > from) {
+            out.add(new Literal(s.substring(from, to)));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package io.github.swampus.alexandra.compiler.template;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Variable substitution used when cloning instructions for {@code FOR}
+ * iterations and macro/branch instantiation.
+ *
+ * <p>Each distinct string is parsed into a {@link NameTemplate} once and cached;
+ * rendering it for a binding evaluates the pre-parsed arithmetic and does
+ * whole-word replacement with a linear scan instead of compiling regular
+ * expressions. Bracket contents outside the {@link ArithmeticExpression} subset,
+ * or referring to non-numeric bindings, are rewritten textually and handed to
+ * the {@code fallback} evaluator, which keeps results and error messages
+ * identical to the original regex-based implementation.</p>
+ *
+ * <p>Thread-safe: templates are immutable and the caches are concurrent, so one
+ * instance can be shared by all compilations of a compiler.</p>
+ */
+public final class TemplateSubstitution {
+
+    /** Upper bound per cache; reaching it simply starts a new generation. */
+    private static final int MAX_CACHED = 16_384;
+
+    private final ToIntFunction<String> fallback;
+    private final Map<String, NameTemplate> indexTemplates = new ConcurrentHashMap<>();
+    private final Map<String, NameTemplate> parenTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * @param fallback evaluates a fully substituted expression string to an int
+     *                 (and reports errors the compiler's way)
+     */
+    public TemplateSubstitution(ToIntFunction<String> fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Replaces loop variable {@code var} with {@code value}: every {@code [expr]} is
+     * evaluated (brackets dropped), then remaining whole-word occurrences are replaced.
+     */
+    public String substitute(String str, String var, int value) {
+        if (str == null) return null;
+        String valueText = String.valueOf(value);
+        if (str.indexOf('[') < 0) {
+            return Words.replaceWord(str, var, valueText);
+        }
+        NameTemplate t = cached(indexTemplates, str, true);
+        if (!t.hasExpressions()) {
+            return Words.replaceWord(str, var, valueText);
+        }
+        StringBuilder sb = new StringBuilder(str.length() + 8);
+        for (NameTemplate.Segment seg : t.getSegments()) {
+            if (seg instanceof NameTemplate.Literal lit) {
+                sb.append(lit.text());
+            } else {
+                sb.append(evaluate((NameTemplate.Expression) seg, var, value, valueText));
+            }
+        }
+        return Words.replaceWord(sb.toString(), var, valueText);
+    }
+
+    /**
+     * Applies macro/branch bindings:
+     * <ol>
+     *   <li>{@code [(expr)]} is evaluated with bindings substituted;</li>
+     *   <li>{@code [name]} becomes the binding of {@code name} (or {@code name});</li>
+     *   <li>remaining whole-word occurrences of each key are replaced, in map order.</li>
+     * </ol>
+     */
+    public String substitute(String input, Map<String, String> bindings) {
+        if (input == null) return null;
+        String out = input;
+        if (input.indexOf('[') >= 0) {
+            NameTemplate t = cached(parenTemplates, input, false);
+            if (t.hasExpressions()) {
+                StringBuilder sb = new StringBuilder(input.length() + 8);
+                for (NameTemplate.Segment seg : t.getSegments()) {
+                    if (seg instanceof NameTemplate.Literal lit) {
+                        sb.append(lit.text());
+                    } else {
+                        sb.append(evaluate((NameTemplate.Expression) seg, bindings));
+                    }
+                }
+                out = sb.toString();
+            }
+            out = replaceBracketedNames(out, bindings);
+        }
+        for (Map.Entry<String, String> e : bindings.entrySet()) {
+            out = Words.replaceWord(out, e.getKey(), e.getValue());
+        }
+        return out;
+    }
+
+    private NameTemplate cached(Map<String, NameTemplate> cache, String s, boolean index) {
+        NameTemplate t = cache.get(s);
+        if (t == null) {
+            if (cache.size() >= MAX_CACHED) {
+                cache.clear(); // racing clears only cost re-parsing
+            }
+            t = index ? NameTemplate.ofIndexBrackets(s) : NameTemplate.ofParenBrackets(s);
+            cache.putIfAbsent(s, t);
+        }
+        return t;
+    }
+
+    private int evaluate(NameTemplate.Expression expr, String var, int value, String valueText) {
+        ArithmeticExpression parsed = expr.parsed();
+        if (parsed != null && onlyUses(parsed, var)) {
+            try {
+                return (int) parsed.evaluate(name -> value);
+            } catch (ArithmeticException ignored) {
+                // let the fallback report it
+            }
+        }
+        return fallback.applyAsInt(Words.replaceWord(expr.source(), var, valueText));
+    }
+
+    private int evaluate(NameTemplate.Expression expr, Map<String, String> bindings) {
+        ArithmeticExpression parsed = expr.parsed();
+        if (parsed != null && allNumeric(parsed, bindings)) {
+            try {
+                return (int) parsed.evaluate(name -> Double.parseDouble(bindings.get(name)));
+            } catch (ArithmeticException ignored) {
+                // let the fallback report it
+            }
+        }
+        String text = expr.source();
+        for (Map.Entry<String, String> e : bindings.entrySet()) {
+            text = Words.replaceWord(text, e.getKey(), e.getValue());
+        }
+        return fallback.applyAsInt(text);
+    }
+
+    private static boolean onlyUses(ArithmeticExpression parsed, String var) {
+        for (String v : parsed.variables()) {
+            if (!v.equals(var)) return false;
+        }
+        return true;
+    }
+
+    private static boolean allNumeric(ArithmeticExpression parsed, Map<String, String> bindings) {
+        for (String v : parsed.variables()) {
+            if (!isPlainNumber(bindings.get(v))) return false;
+        }
+        return true;
+    }
+
+    /** {@code -?digits(.digits)?} — values whose textual substitution exp4j reads the same way. */
+    private static boolean isPlainNumber(String s) {
+        if (s == null || s.isEmpty()) return false;
+        int i = s.charAt(0) == '-' ? 1 : 0;
+        int digits = 0;
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+            digits++;
+        }
+        if (digits == 0) return false;
+        if (i < s.length() && s.charAt(i) == '.') {
+            i++;
+            int frac = 0;
+            while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                i++;
+                frac++;
+            }
+            if (frac == 0) return false;
+        }
+        return i == s.length();
+    }
+
+    /**
+     * Replaces {@code [identifier]} (ASCII identifier) with its binding, or with the
+     * bare identifier when unbound.
+     */
+    private static String replaceBracketedNames(String s, Map<String, String> bindings) {
+        int p = s.indexOf('[');
+        if (p < 0) return s;
+        StringBuilder sb = null;
+        int copied = 0;
+        while (p >= 0) {
+            int i = p + 1;
+            if (i < s.length() && isIdentStart(s.charAt(i))) {
+                i++;
+                while (i < s.length() && isIdentPart(s.charAt(i))) i++;
+                if (i < s.length() && s.charAt(i) == ']') {
+                    String name = s.substring(p + 1, i);
+                    if (sb == null) sb = new StringBuilder(s.length());
+                    sb.append(s, copied, p).append(bindings.getOrDefault(name, name));
+                    copied = i + 1;
+                    p = s.indexOf('[', copied);
+                    continue;
+                }
+            }
+            p = s.indexOf('[', p + 1);
+        }
+        if (sb == null) return s;
+        return sb.append(s, copied, s.length()).toString();
+    }
+
+    private static boolean isIdentStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentPart(char c) {
+        return isIdentStart(c) || (c >= '0' && c <= '9');
+    }
+}
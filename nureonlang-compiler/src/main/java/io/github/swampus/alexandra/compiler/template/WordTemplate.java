@@ -0,0 +1,106 @@
+package io.github.swampus.alexandra.compiler.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bracket-free string split once into literal text and whole-word slots, so
+ * that binding it to many value tuples is a plain concatenation.
+ *
+ * <p>Rendering is equivalent to applying {@link Words#replaceWord} for every
+ * slot key in turn, provided that no value itself contains a key as a whole
+ * word (see {@link #mentionsAny}); callers check that once per binding and fall
+ * back to {@link TemplateSubstitution#substitute(String, Map)} otherwise.</p>
+ *
+ * <p>Immutable and thread-safe.</p>
+ */
+public final class WordTemplate {
+
+    private final String source;
+    private final String[] literals;
+    private final int[] slots;
+
+    private WordTemplate(String source, String[] literals, int[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    /**
+     * Splits {@code s} at every maximal run of word characters that is a key of
+     * {@code slotByWord}.
+     *
+     * @return the template, or {@code null} if {@code s} contains {@code '['} and
+     * therefore needs bracket evaluation at render time
+     */
+    public static WordTemplate of(String s, Map<String, Integer> slotByWord) {
+        if (s.indexOf('[') >= 0) {
+            return null;
+        }
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int copied = 0;
+        int i = 0;
+        while (i < s.length()) {
+            if (!Words.isWordChar(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < s.length() && Words.isWordChar(s.charAt(i))) i++;
+            Integer slot = slotByWord.get(s.substring(start, i));
+            if (slot != null) {
+                literals.add(s.substring(copied, start));
+                slots.add(slot);
+                copied = i;
+            }
+        }
+        literals.add(s.substring(copied));
+        int[] slotArray = new int[slots.size()];
+        for (int k = 0; k < slotArray.length; k++) slotArray[k] = slots.get(k);
+        return new WordTemplate(s, literals.toArray(new String[0]), slotArray);
+    }
+
+    /** Whether {@code key} is a non-empty run of word characters, i.e. can be a slot at all. */
+    public static boolean isWord(String key) {
+        if (key == null || key.isEmpty()) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (!Words.isWordChar(key.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /** Whether {@code value} contains one of {@code words} as a whole word. */
+    public static boolean mentionsAny(String value, Map<String, ?> words) {
+        int i = 0;
+        while (i < value.length()) {
+            if (!Words.isWordChar(value.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < value.length() && Words.isWordChar(value.charAt(i))) i++;
+            if (words.containsKey(value.substring(start, i))) return true;
+        }
+        return false;
+    }
+
+    /** Whether rendering never changes the source. */
+    public boolean isConstant() {
+        return slots.length == 0;
+    }
+
+    /** Renders the template; {@code values[k]} fills slot {@code k}. */
+    public String render(String[] values) {
+        if (slots.length == 0) {
+            return source;
+        }
+        StringBuilder sb = new StringBuilder(source.length() + 16 * slots.length);
+        sb.append(literals[0]);
+        for (int k = 0; k < slots.length; k++) {
+            sb.append(values[slots[k]]).append(literals[k + 1]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.swampus.alexandra.compiler.template;
+
+/**
+ * Whole-word replacement without regular expressions.
+ *
+ * <p>Equivalent to {@code s.replaceAll("\\b" + Pattern.quote(word) + "\\b", replacement)}
+ * with the replacement taken literally: word characters are letters, digits and
+ * {@code '_'}, matching {@link java.util.regex.Pattern}'s {@code \b} on Java 17.</p>
+ */
+final class Words {
+
+    private Words() {
+    }
+
+    static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    static String replaceWord(String s, String word, String replacement) {
+        if (s == null || word.isEmpty()) {
+            return s;
+        }
+        int at = s.indexOf(word);
+        if (at < 0) {
+            return s;
+        }
+        StringBuilder sb = null;
+        int copied = 0;
+        while (at >= 0) {
+            int end = at + word.length();
+            if (isBoundary(s, at) && isBoundary(s, end)) {
+                if (sb == null) {
+                    sb = new StringBuilder(s.length() + 16);
+                }
+                sb.append(s, copied, at).append(replacement);
+                copied = end;
+                at = s.indexOf(word, end);
+            } else {
+                at = s.indexOf(word, at + 1);
+            }
+        }
+        if (sb == null) {
+            return s;
+        }
+        return sb.append(s, copied, s.length()).toString();
+    }
+
+    private static boolean isBoundary(String s, int pos) {
+        boolean left = pos > 0 && isWordChar(s.charAt(pos - 1));
+        boolean right = pos < s.length() && isWordChar(s.charAt(pos));
+        return left != right;
+    }
+}
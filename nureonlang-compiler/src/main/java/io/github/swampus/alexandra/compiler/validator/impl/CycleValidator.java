@@ -1,54 +1,71 @@
 package io.github.swampus.alexandra.compiler.validator.impl;
 
 import io.github.swampus.alexandra.compiler.extensions.GraphContainsCyclesException;
+import io.github.swampus.alexandra.compiler.model.GraphOrder;
+import io.github.swampus.alexandra.compiler.model.LayerGraph;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
-import io.github.swampus.alexandra.compiler.model.layer.Layer;
 import io.github.swampus.alexandra.compiler.validator.NetworkModelValidator;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Detects cycles in a directed layer graph using DFS with an "on-stack" set.
+ * Rejects layer graphs that contain cycles.
  *
- * <p><b>Behavior:</b> Identical to the original implementation. The validator
- * traverses all components, throwing {@link GraphContainsCyclesException} at the
- * first detected back-edge.</p>
+ * <p><b>Behavior:</b> reads the strongly connected components of the model's
+ * cached {@link GraphOrder} (an iterative Tarjan pass over the int-indexed
+ * {@link LayerGraph}), so deep chains neither overflow the call stack nor slow
+ * validation down. Every cyclic component, self-loops included, is reported in
+ * a single {@link GraphContainsCyclesException}; the components are listed in
+ * topological order and are also available through
+ * {@link GraphContainsCyclesException#getCycles()}.</p>
  *
- * <p>Time complexity: O(V + E). Space complexity: O(V).</p>
+ * <p>Time complexity: O(V + E), shared with every other pass that uses the
+ * order. Space complexity: O(V).</p>
  *
  * @since 0.9.0
  */
 public final class CycleValidator implements NetworkModelValidator {
 
+    /** Layer names printed per cycle in the exception message. */
+    private static final int MAX_NAMES_IN_MESSAGE = 8;
+
     @Override
     public void validate(NetworkModel model) throws GraphContainsCyclesException {
-        Set<Layer> visited = new HashSet<>();
-        Set<Layer> onStack = new HashSet<>();
-        for (Layer layer : model.getAllLayers()) {
-            if (dfsHasCycle(layer, visited, onStack)) {
-                throw new GraphContainsCyclesException("Network contains a cycle at layer: " + layer.getName());
+        LayerGraph graph = model.getGraph();
+        GraphOrder order = graph.order();
+        if (order.isAcyclic()) {
+            return;
+        }
+
+        List<List<String>> cycles = new ArrayList<>(order.cyclicComponentCount());
+        for (int c = 0; c < order.componentCount(); c++) {
+            if (!order.isCyclicComponent(c)) continue;
+            int[] members = order.componentMembers(c);
+            List<String> names = new ArrayList<>(members.length);
+            for (int v : members) {
+                names.add(graph.layer(v).getName());
             }
+            cycles.add(names);
         }
+        throw new GraphContainsCyclesException(describe(cycles), cycles);
     }
 
-    /**
-     * Depth-first search that reports whether a cycle is reachable from {@code layer}.
-     *
-     * @return {@code true} if a back-edge (cycle) is found, otherwise {@code false}
-     */
-    private boolean dfsHasCycle(Layer layer, Set<Layer> visited, Set<Layer> onStack) {
-        if (onStack.contains(layer)) return true;     // back-edge → cycle
-        if (visited.contains(layer)) return false;    // already explored
-
-        visited.add(layer);
-        onStack.add(layer);
-
-        for (Layer out : layer.getOutputs()) {
-            if (dfsHasCycle(out, visited, onStack)) return true;
+    private static String describe(List<List<String>> cycles) {
+        StringBuilder sb = new StringBuilder();
+        if (cycles.size() == 1) {
+            sb.append("Network contains a cycle at layer: ").append(cycles.get(0).get(0));
+        } else {
+            sb.append("Network contains ").append(cycles.size()).append(" cycles");
         }
-
-        onStack.remove(layer);
-        return false;
+        for (List<String> cycle : cycles) {
+            sb.append("\n  - ");
+            int shown = Math.min(cycle.size(), MAX_NAMES_IN_MESSAGE);
+            sb.append(String.join(", ", cycle.subList(0, shown)));
+            if (shown < cycle.size()) {
+                sb.append(", ... (").append(cycle.size() - shown).append(" more)");
+            }
+        }
+        return sb.toString();
     }
 }
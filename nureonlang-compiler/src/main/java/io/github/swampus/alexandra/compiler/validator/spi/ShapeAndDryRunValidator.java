@@ -1,8 +1,14 @@
 package io.github.swampus.alexandra.compiler.validator.spi;
 
 import io.github.swampus.alexandra.compiler.contract.OutputContract;
+import io.github.swampus.alexandra.compiler.cost.LayerCost;
+import io.github.swampus.alexandra.compiler.cost.NetworkCost;
+import io.github.swampus.alexandra.compiler.cost.Precision;
 import io.github.swampus.alexandra.compiler.extensions.InvalidNetworkException;
+import io.github.swampus.alexandra.compiler.model.GraphOrder;
+import io.github.swampus.alexandra.compiler.model.LayerGraph;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.SymbolTable;
 import io.github.swampus.alexandra.compiler.model.layer.Layer;
 
 import java.util.*;
@@ -18,9 +24,13 @@ import java.util.*;
  *   <li>Shape formats: "(3,224,224)" / "[3,224,224]" / "3 x 512"</li>
  * </ul>
  *
- * <p><b>Behavior:</b> Identical to the original implementation; changes are limited to
- * documentation and code style polish. No logging has been added to preserve runtime
- * output (warnings are still collected in-memory only).</p>
+ * <p><b>Behavior:</b> shapes are inferred in one pass over a topological order,
+ * with a worklist revisiting only layers whose inputs changed afterwards, so
+ * validation is linear in the number of layers and edges. No logging has been
+ * added to preserve runtime output (warnings are still collected in-memory only).</p>
+ *
+ * <p>The same inference backs {@link #estimateCost(NetworkModel, int, Precision)},
+ * a static cost model (parameters, multiply-adds, activation memory).</p>
  *
  * @since 0.9.0
  */
@@ -35,7 +45,7 @@ public class ShapeAndDryRunValidator {
      * Creates a validator with default {@link OutputContract#THIN}.
      *
      * @param li        layer introspector (non-null)
-     * @param maxPasses maximum number of shape-inference passes (>=1)
+     * @param maxPasses maximum number of times a single layer is evaluated during shape inference (>=1)
      */
     public ShapeAndDryRunValidator(LayerIntrospector li, int maxPasses) {
         this(li, maxPasses, OutputContract.THIN);
@@ -45,7 +55,7 @@ public class ShapeAndDryRunValidator {
      * Creates a validator with an explicit {@link OutputContract}.
      *
      * @param li        layer introspector (non-null)
-     * @param maxPasses maximum number of shape-inference passes (>=1)
+     * @param maxPasses maximum number of times a single layer is evaluated during shape inference (>=1)
      * @param contract  output contract (non-null)
      */
     public ShapeAndDryRunValidator(LayerIntrospector li, int maxPasses, OutputContract contract) {
@@ -65,58 +75,25 @@ public class ShapeAndDryRunValidator {
         List<String> errs = new ArrayList<>();
         List<String> warns = new ArrayList<>();
 
-        List<Layer> layers = li.layers(model);
-        if (layers.isEmpty()) {
-            throw new InvalidNetworkException("No layers in NetworkModel.");
-        }
-
-        // (1) Seed known output shapes (INPUT/CONST/RESHAPE/etc.)
-        Map<String, int[]> outShape = new HashMap<>();
-        for (Layer l : layers) {
-            li.intrinsicOutputShape(l, li.params(l)).ifPresent(shp -> outShape.put(li.name(l), shp));
-        }
-
-        // (2) Topological order by 'outputs'
-        List<Layer> topo = topoSortByOutputs(layers, warns);
-
-        // (3) Iterative shape inference
-        boolean changed = true;
-        int pass = 0;
-        while (changed && pass++ < maxPasses) {
-            changed = false;
-            for (Layer u : topo) {
-                String uname = li.name(u);
-
-                int[][] inShapes = u.getInputs().stream()
-                        .map(li::name)
-                        .map(outShape::get)
-                        .filter(Objects::nonNull)
-                        .toArray(int[][]::new);
-
-                int[] current = outShape.get(uname);
-                int[] inferred = inferShape(
-                        safeKind(li.kind(u)),
-                        li.params(u),
-                        inShapes,
-                        current,
-                        errs,
-                        uname
-                );
-                if (inferred != null && !Arrays.equals(current, inferred)) {
-                    outShape.put(uname, inferred);
-                    changed = true;
-                }
-            }
-        }
+        Inference inf = infer(model, errs, warns);
+        List<Layer> layers = inf.layers();
+        LayerGraph graph = inf.graph();
+        int[] topo = inf.topo();
+        SymbolTable symbols = inf.symbols();
+        int[] symbolOf = inf.symbolOf();
+        String[] kindOf = inf.kindOf();
+        int[][] outShape = inf.outShape();
 
-        // (4) Edge consistency for shape-preserving layers
+        // (5) Edge consistency for shape-preserving layers
         for (Layer u : layers) {
-            String uname = li.name(u);
-            int[] src = outShape.get(uname);
-            for (Layer v : u.getOutputs()) {
-                String vname = li.name(v);
-                int[] dst = outShape.get(vname);
-                String vkind = safeKind(li.kind(v));
+            int id = graph.indexOf(u);
+            String uname = symbols.name(symbolOf[id]);
+            int[] src = outShape[symbolOf[id]];
+            for (int k = 0; k < graph.outDegree(id); k++) {
+                int v = graph.successor(id, k);
+                String vname = symbols.name(symbolOf[v]);
+                int[] dst = outShape[symbolOf[v]];
+                String vkind = kindOf[v];
 
                 if (src == null) {
                     warns.add("Cannot infer output shape for '" + uname + "'; edge '" + uname + "->" + vname + "' may fail at runtime.");
@@ -128,12 +105,13 @@ public class ShapeAndDryRunValidator {
             }
         }
 
-        // (5) Lightweight dry-run: ensure buffers are allocatable (positive size)
+        // (6) Lightweight dry-run: ensure buffers are allocatable (positive size)
         if (errs.isEmpty()) {
             try {
-                for (Layer l : topo) {
-                    String n = li.name(l);
-                    int[] shp = outShape.get(n);
+                for (int v : topo) {
+                    int symbol = symbolOf[v];
+                    String n = symbols.name(symbol);
+                    int[] shp = outShape[symbol];
                     if (shp == null) {
                         warns.add("Dry-run: unknown output shape at layer '" + n + "'");
                         continue;
@@ -156,44 +134,300 @@ public class ShapeAndDryRunValidator {
         }
     }
 
+    /**
+     * Runs the same shape inference as {@link #validate(NetworkModel)} and turns it
+     * into a static cost estimate: per layer and in total, the parameter count,
+     * multiply-adds per sample and activation memory for {@code batchSize} samples
+     * stored at {@code precision}. The estimate is also written to the model
+     * metadata under {@value NetworkCost#META_KEY}.
+     *
+     * <p>Only dense layers carry parameters and multiply-adds; the remaining
+     * supported kinds are shape-preserving or element-wise and contribute
+     * activation memory only. Shape errors do not fail the estimate: layers
+     * whose shapes cannot be inferred are counted in
+     * {@link NetworkCost#unresolvedLayers()} and contribute zero.</p>
+     *
+     * @param model     compiled network model (non-null)
+     * @param batchSize samples per forward pass (&gt;= 1)
+     * @param precision precision of stored activations (non-null)
+     * @return the estimate
+     * @throws InvalidNetworkException if the model has no layers
+     */
+    public NetworkCost estimateCost(NetworkModel model, int batchSize, Precision precision) {
+        Objects.requireNonNull(precision, "precision");
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        Inference inf = infer(model, new ArrayList<>(), new ArrayList<>());
+        LayerGraph graph = inf.graph();
+        int[] topo = inf.topo();
+        int n = graph.size();
+
+        // Position of each evaluated layer, and the last position reading its output.
+        int[] position = new int[n];
+        int[] lastUse = new int[n];
+        Arrays.fill(position, -1);
+        for (int p = 0; p < topo.length; p++) {
+            position[topo[p]] = p;
+            lastUse[topo[p]] = topo.length; // no consumers: a network output, kept to the end
+        }
+        for (int p = 0; p < topo.length; p++) {
+            int v = topo[p];
+            for (int k = 0; k < graph.inDegree(v); k++) {
+                int u = graph.predecessor(v, k);
+                if (position[u] >= 0 && position[u] < p) lastUse[u] = p;
+            }
+        }
+
+        long bytesPerElement = (long) batchSize * precision.bytes(); // one element across the batch
+        List<LayerCost> costs = new ArrayList<>(topo.length);
+        long[] bytes = new long[n];
+        long parameters = 0;
+        long multiplyAdds = 0;
+        int unresolved = 0;
+        long live = 0;
+        long peak = 0;
+        for (int p = 0; p < topo.length; p++) {
+            int v = topo[p];
+            LayerCost cost = layerCost(inf, v, bytesPerElement);
+            if (graph.isMember(v)) {
+                costs.add(cost);
+                parameters += cost.parameters();
+                multiplyAdds += cost.multiplyAdds();
+                if (!cost.resolved()) unresolved++;
+            }
+            bytes[v] = cost.activationBytes();
+            live += bytes[v];
+            peak = Math.max(peak, live);
+            for (int k = 0; k < graph.inDegree(v); k++) {
+                int u = graph.predecessor(v, k);
+                if (position[u] >= 0 && lastUse[u] == p) {
+                    live -= bytes[u];
+                    bytes[u] = 0; // released once, even when read through duplicate edges
+                }
+            }
+        }
+
+        NetworkCost total = new NetworkCost(batchSize, precision, costs, parameters, multiplyAdds, peak, unresolved);
+        model.getMeta().put(NetworkCost.META_KEY, total.toMeta());
+        return total;
+    }
+
     // ---------- Helpers (package-private/private) ----------
 
+    /**
+     * Steps shared by validation and cost estimation: order the graph, introspect
+     * every layer once and infer output shapes.
+     */
+    private Inference infer(NetworkModel model, List<String> errs, List<String> warns) {
+        List<Layer> layers = li.layers(model);
+        if (layers.isEmpty()) {
+            throw new InvalidNetworkException("No layers in NetworkModel.");
+        }
+
+        // (1) Topological order, shared with the other passes through the cached graph
+        LayerGraph graph = (layers == model.getAllLayers()) ? model.getGraph() : LayerGraph.of(layers);
+        GraphOrder order = graph.order();
+        if (!order.isAcyclic()) {
+            warns.add("Cycle detected: " + order.cyclicComponentCount() + " cyclic component(s)");
+        }
+        int[] topo = inferenceOrder(graph, order);
+
+        // (2) Introspect every layer once: interned name, kind and parameters.
+        //     Shapes are tracked per name, so layers sharing a name share a shape.
+        int size = graph.size();
+        SymbolTable symbols = new SymbolTable(size);
+        int[] symbolOf = new int[size];
+        String[] kindOf = new String[size];
+        List<Map<String, Object>> rawParams = new ArrayList<>(size);
+        LayerParams[] paramsOf = new LayerParams[size];
+        for (int v = 0; v < size; v++) {
+            Layer l = graph.layer(v);
+            symbolOf[v] = symbols.intern(li.name(l));
+            kindOf[v] = safeKind(li.kind(l));
+            rawParams.add(li.params(l));
+            paramsOf[v] = LayerParams.of(kindOf[v], rawParams.get(v));
+            if (paramsOf[v].malformedShape()) {
+                warns.add("Cannot parse shape " + rawParams.get(v).get("shape") + " of '"
+                        + symbols.name(symbolOf[v]) + "'; treating it as unknown.");
+            }
+        }
+        int[][] outShape = new int[symbols.size()][];
+
+        // (3) Seed known output shapes (INPUT/CONST/RESHAPE/etc.)
+        for (Layer l : layers) {
+            int v = graph.indexOf(l);
+            int symbol = symbolOf[v];
+            li.intrinsicOutputShape(l, rawParams.get(v)).ifPresent(shp -> outShape[symbol] = shp);
+        }
+
+        // (4) Shape inference
+        inferShapes(graph, topo, symbols, symbolOf, kindOf, paramsOf, outShape, errs);
+
+        return new Inference(layers, graph, topo, symbols, symbolOf, kindOf, paramsOf, outShape);
+    }
+
+    /**
+     * Cost of layer {@code v}. Dense layers map the last input dimension {@code D}
+     * to {@code units}: {@code D * units + units} parameters and {@code D}
+     * multiply-adds per output element.
+     *
+     * @param bytesPerElement bytes of one output element across the whole batch
+     */
+    private static LayerCost layerCost(Inference inf, int v, long bytesPerElement) {
+        int symbol = inf.symbolOf()[v];
+        String name = inf.symbols().name(symbol);
+        String kind = inf.kindOf()[v];
+        int[] out = inf.outShape()[symbol];
+        if (out == null) {
+            return new LayerCost(name, kind, null, 0, 0, 0, false);
+        }
+        long elements = elements(out);
+        long activationBytes = elements * bytesPerElement;
+
+        LayerParams p = inf.paramsOf()[v];
+        if (!kind.contains("dense") || p.units() == null) {
+            return new LayerCost(name, kind, out, 0, 0, activationBytes, true);
+        }
+        LayerGraph graph = inf.graph();
+        int[] in = graph.inDegree(v) > 0 ? inf.outShape()[inf.symbolOf()[graph.predecessor(v, 0)]] : null;
+        if (in == null || in.length == 0) {
+            return new LayerCost(name, kind, out, 0, 0, activationBytes, false);
+        }
+        long inFeatures = in[in.length - 1];
+        long units = p.units();
+        return new LayerCost(name, kind, out, inFeatures * units + units, elements * inFeatures, activationBytes, true);
+    }
+
+    private static long elements(int[] shape) {
+        long n = 1;
+        for (int d : shape) n *= d;
+        return n;
+    }
+
+
     private String safeKind(String k) {
         return (k == null) ? "" : k.toLowerCase(Locale.ROOT);
     }
 
     /**
-     * Kahn's algorithm over outgoing edges.
-     * Adds any remaining (cycled/unreachable) nodes to the tail to keep subsequent passes intact.
+     * Infers output shapes in a single pass over {@code topo}, then revisits only the
+     * layers whose inputs gained a shape after they were evaluated (cycles, and
+     * layers ordered before a same-named producer). A shape is assigned only while
+     * its name has none, so it never changes afterwards: each name triggers one
+     * round of re-queues and the whole inference is linear in layers plus edges.
+     * {@link #maxPasses} still caps how often a single layer is evaluated. A layer
+     * evaluated more than once may report the same error again; it is kept once.
      */
-    private List<Layer> topoSortByOutputs(List<Layer> nodes, List<String> warns) {
-        Map<Layer, Integer> indeg = new IdentityHashMap<>();
-        for (Layer l : nodes) indeg.put(l, 0);
-        for (Layer l : nodes) {
-            for (Layer v : l.getOutputs()) {
-                indeg.computeIfPresent(v, (k, val) -> val + 1);
+    private void inferShapes(LayerGraph graph,
+                             int[] topo,
+                             SymbolTable symbols,
+                             int[] symbolOf,
+                             String[] kindOf,
+                             LayerParams[] paramsOf,
+                             int[][] outShape,
+                             List<String> errs) {
+        int n = graph.size();
+
+        // Layers sharing a name share a shape: chain them so a change reaches all their consumers
+        int[] firstWithSymbol = new int[symbols.size()];
+        int[] nextWithSymbol = new int[n];
+        Arrays.fill(firstWithSymbol, -1);
+        for (int v = n - 1; v >= 0; v--) {
+            nextWithSymbol[v] = firstWithSymbol[symbolOf[v]];
+            firstWithSymbol[symbolOf[v]] = v;
+        }
+
+        // FIFO worklist; a layer is queued at most once at a time, so n slots suffice
+        int[] queue = new int[Math.max(1, n)];
+        boolean[] queued = new boolean[n];
+        boolean[] ordered = new boolean[n];
+        int[] evaluations = new int[n];
+        int head = 0;
+        int count = 0;
+        for (int v : topo) {
+            queue[count++] = v;
+            queued[v] = true;
+            ordered[v] = true;
+        }
+
+        int reportedBefore = errs.size();
+        while (count > 0) {
+            int u = queue[head];
+            head = (head + 1) % queue.length;
+            count--;
+            queued[u] = false;
+            evaluations[u]++;
+
+            int symbol = symbolOf[u];
+            if (outShape[symbol] != null) {
+                continue;
+            }
+            int[] inferred = inferShape(
+                    kindOf[u],
+                    paramsOf[u],
+                    inputShapes(graph, u, symbolOf, outShape),
+                    errs,
+                    symbols.name(symbol)
+            );
+            if (inferred == null) {
+                continue;
+            }
+            outShape[symbol] = inferred;
+
+            for (int w = firstWithSymbol[symbol]; w >= 0; w = nextWithSymbol[w]) {
+                for (int k = 0; k < graph.outDegree(w); k++) {
+                    int v = graph.successor(w, k);
+                    if (ordered[v] && !queued[v] && evaluations[v] < maxPasses) {
+                        queue[(head + count) % queue.length] = v;
+                        count++;
+                        queued[v] = true;
+                    }
+                }
             }
         }
-        Deque<Layer> q = new ArrayDeque<>();
-        indeg.forEach((k, v) -> { if (v == 0) q.addLast(k); });
-
-        List<Layer> out = new ArrayList<>();
-        Set<Layer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
-        while (!q.isEmpty()) {
-            Layer u = q.removeFirst();
-            if (!seen.add(u)) continue;
-            out.add(u);
-            for (Layer v : u.getOutputs()) {
-                indeg.computeIfPresent(v, (k, val) -> val - 1);
-                if (indeg.getOrDefault(v, 0) == 0) q.addLast(v);
+
+        List<String> reported = errs.subList(reportedBefore, errs.size());
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(reported));
+        reported.clear();
+        errs.addAll(distinct);
+    }
+
+    /**
+     * Output shapes of the direct inputs of {@code v} that are already known, in input order.
+     */
+    private int[][] inputShapes(LayerGraph graph, int v, int[] symbolOf, int[][] outShape) {
+        int degree = graph.inDegree(v);
+        int[][] shapes = new int[degree][];
+        int known = 0;
+        for (int k = 0; k < degree; k++) {
+            int[] shp = outShape[symbolOf[graph.predecessor(v, k)]];
+            if (shp != null) shapes[known++] = shp;
+        }
+        return known == degree ? shapes : Arrays.copyOf(shapes, known);
+    }
+
+    /**
+     * Members of the graph in {@code order}, plus dangling references that some
+     * layer lists as an output. Layers on a cycle keep their component's position.
+     *
+     * @return graph ids in order
+     */
+    private static int[] inferenceOrder(LayerGraph graph, GraphOrder order) {
+        int n = graph.size();
+        boolean[] produced = new boolean[n];
+        for (int u = 0; u < n; u++) {
+            for (int k = 0; k < graph.outDegree(u); k++) {
+                produced[graph.successor(u, k)] = true;
             }
         }
-        if (out.size() < nodes.size()) {
-            warns.add("Cycle or unreachable layers detected: topoOrder=" + out.size() + " < total=" + nodes.size());
-            // Append remaining nodes so later checks still see them
-            for (Layer l : nodes) if (!out.contains(l)) out.add(l);
+        int[] out = new int[n];
+        int size = 0;
+        for (int p = 0; p < n; p++) {
+            int v = order.vertexAt(p);
+            if (graph.isMember(v) || produced[v]) out[size++] = v;
         }
-        return out;
+        return size == n ? out : Arrays.copyOf(out, size);
     }
 
     private boolean shapeCompatible(int[] a, int[] b) {
@@ -215,26 +449,23 @@ public class ShapeAndDryRunValidator {
      * Minimal shape inference rules. Extend as needed for your layer types.
      */
     private int[] inferShape(String kind,
-                             Map<String, Object> p,
+                             LayerParams p,
                              int[][] ins,
-                             int[] current,
                              List<String> errs,
                              String lname) {
-        if (current != null) return current;
-
         // INPUT: use declared shape or scalar size
         if (kind.contains("input")) {
-            int[] shp = asShape(p.get("shape"));
+            int[] shp = p.shape();
             if (shp != null) return shp;
-            Integer sz = asInt(or(p, "size", "units", null));
+            Integer sz = p.size();
             if (sz != null) return new int[]{sz};
             return null; // unknown is fine here
         }
 
         // OUTPUT
         if (kind.contains("output")) {
-            int[] declared = asShape(p.get("shape"));
-            Integer sz = asInt(or(p, "size", "units", null));
+            int[] declared = p.shape();
+            Integer sz = p.size();
             if (declared == null && sz != null) declared = new int[]{sz};
 
             int[] in = (ins.length > 0) ? ins[0] : null;
@@ -257,7 +488,7 @@ public class ShapeAndDryRunValidator {
 
         // Dense: [*, D] -> [*, units]
         if (kind.contains("dense")) {
-            Integer units = asInt(or(p, "units", "size", null));
+            Integer units = p.units();
             if (units == null) {
                 errs.add("Layer '" + lname + "' Dense: missing param 'units/size'");
                 return null;
@@ -272,7 +503,7 @@ public class ShapeAndDryRunValidator {
 
         // Reshape(shape=...)
         if (kind.contains("reshape")) {
-            int[] shp = asShape(p.get("shape"));
+            int[] shp = p.shape();
             if (shp == null) {
                 errs.add("Layer '" + lname + "' Reshape: missing 'shape'");
                 return null;
@@ -307,13 +538,13 @@ public class ShapeAndDryRunValidator {
         // Intentionally excludes "output" — it may change shape in THICK mode.
     }
 
-    private Object or(Map<String, Object> p, String a, String b, Object def) {
+    private static Object or(Map<String, Object> p, String a, String b, Object def) {
         if (p.containsKey(a)) return p.get(a);
         if (p.containsKey(b)) return p.get(b);
         return def;
     }
 
-    private Integer asInt(Object o) {
+    private static Integer asInt(Object o) {
         if (o instanceof Integer i) return i;
         if (o instanceof Number n) return n.intValue();
         if (o instanceof String s) {
@@ -324,11 +555,21 @@ public class ShapeAndDryRunValidator {
         return null;
     }
 
-    private int[] asShape(Object o) {
+    /**
+     * Parses a declared shape.
+     *
+     * @throws IllegalArgumentException (e.g. {@link NumberFormatException}) if a
+     *         dimension is not an integer, such as a symbolic {@code "(batch, 8)"}
+     */
+    private static int[] asShape(Object o) {
         if (o instanceof int[] a) return a;
         if (o instanceof List<?> l) {
             int[] a = new int[l.size()];
-            for (int i = 0; i < l.size(); i++) a[i] = asInt(l.get(i));
+            for (int i = 0; i < l.size(); i++) {
+                Integer d = asInt(l.get(i));
+                if (d == null) throw new IllegalArgumentException("not a dimension: " + l.get(i));
+                a[i] = d;
+            }
             return a;
         }
         if (o instanceof String s) {
@@ -349,4 +590,47 @@ public class ShapeAndDryRunValidator {
         }
         return null;
     }
+
+    /** Result of {@link #infer}; arrays are indexed by graph id, except {@code outShape} (by symbol). */
+    private record Inference(List<Layer> layers,
+                             LayerGraph graph,
+                             int[] topo,
+                             SymbolTable symbols,
+                             int[] symbolOf,
+                             String[] kindOf,
+                             LayerParams[] paramsOf,
+                             int[][] outShape) {
+    }
+
+    /**
+     * Shape-relevant parameters of one layer, parsed once per validation. The
+     * declared shape is only parsed for kinds whose rule reads it (input, output,
+     * reshape), so a malformed {@code shape} elsewhere is ignored as before.
+     *
+     * @param shape          declared {@code shape}, or {@code null}
+     * @param size           {@code size}, falling back to {@code units}
+     * @param units          {@code units}, falling back to {@code size}
+     * @param malformedShape {@code true} if a declared shape was read but could not be
+     *                       parsed; {@code shape} is then {@code null}
+     */
+    private record LayerParams(int[] shape, Integer size, Integer units, boolean malformedShape) {
+
+        static LayerParams of(String kind, Map<String, Object> p) {
+            boolean readsShape = kind.contains("input") || kind.contains("output") || kind.contains("reshape");
+            int[] shape = null;
+            boolean malformed = false;
+            if (readsShape) {
+                try {
+                    shape = asShape(p.get("shape"));
+                } catch (IllegalArgumentException e) {
+                    malformed = true;
+                }
+            }
+            return new LayerParams(
+                    shape,
+                    asInt(or(p, "size", "units", null)),
+                    asInt(or(p, "units", "size", null)),
+                    malformed);
+        }
+    }
 }
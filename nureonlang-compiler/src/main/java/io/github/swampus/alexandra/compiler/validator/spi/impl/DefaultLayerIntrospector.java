@@ -4,23 +4,34 @@ import io.github.swampus.alexandra.compiler.model.NetworkModel;
 import io.github.swampus.alexandra.compiler.model.layer.Layer;
 import io.github.swampus.alexandra.compiler.validator.spi.LayerIntrospector;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.*;
 
 /**
- * Default reflection-based implementation of {@link LayerIntrospector}.
+ * Default implementation of {@link LayerIntrospector}.
  *
- * <p>This implementation uses Java reflection to extract {@code getName()},
- * {@code getType()}, and {@code getParams()} from layer instances. It is
- * intended as a generic fallback for heterogeneous layer hierarchies where
- * no static interface contract is guaranteed.</p>
- *
- * <p>Implementations should prefer direct accessors if available for performance.</p>
+ * <p>Names and parameters come straight from the {@link Layer} API
+ * ({@link Layer#getName()}, {@link Layer#getParams()}). The kind is taken from a
+ * public {@code getType()} method where a layer class declares one, otherwise
+ * from the simple class name. That lookup is the only reflective step: it runs
+ * once per layer class and is cached as a {@link MethodHandle} in a
+ * {@link ClassValue}, so introspecting a layer costs a virtual call.</p>
  *
  * @since 0.9.0
  */
 public final class DefaultLayerIntrospector implements LayerIntrospector {
 
+    /** Per-class kind accessor, resolved on first use. */
+    private static final ClassValue<KindAccessor> KIND = new ClassValue<>() {
+        @Override
+        protected KindAccessor computeValue(Class<?> type) {
+            return KindAccessor.of(type);
+        }
+    };
+
     /**
      * Returns all layers from the given model using {@link NetworkModel#getAllLayers()}.
      */
@@ -30,18 +41,11 @@ public final class DefaultLayerIntrospector implements LayerIntrospector {
     }
 
     /**
-     * Reflectively resolves the name of the layer using its {@code getName()} method.
-     *
-     * @throws IllegalStateException if the layer does not provide a {@code getName()} method
+     * Returns {@link Layer#getName()} ({@code "null"} for an unnamed layer).
      */
     @Override
     public String name(Layer layer) {
-        try {
-            Method method = layer.getClass().getMethod("getName");
-            return String.valueOf(method.invoke(layer));
-        } catch (Exception e) {
-            throw new IllegalStateException("Layer must declare a getName() method", e);
-        }
+        return String.valueOf(layer.getName());
     }
 
     /**
@@ -50,33 +54,17 @@ public final class DefaultLayerIntrospector implements LayerIntrospector {
      */
     @Override
     public String kind(Layer layer) {
-        try {
-            Method method = layer.getClass().getMethod("getType");
-            return String.valueOf(method.invoke(layer));
-        } catch (Exception ignore) {
-            return layer.getClass().getSimpleName();
-        }
+        return KIND.get(layer.getClass()).kind(layer);
     }
 
     /**
-     * Attempts to retrieve the layer parameter map using {@code getParams()}.
-     * If not available or not a map, returns an immutable empty map.
+     * Returns a read-only view of {@link Layer#getParams()}, or an empty map if the
+     * layer has none.
      */
     @Override
-    @SuppressWarnings("unchecked")
     public Map<String, Object> params(Layer layer) {
-        try {
-            Method method = layer.getClass().getMethod("getParams");
-            Object value = method.invoke(layer);
-            if (value instanceof Map<?, ?> raw) {
-                Map<String, Object> out = new LinkedHashMap<>();
-                raw.forEach((k, v) -> out.put(String.valueOf(k), v));
-                return out;
-            }
-        } catch (Exception ignore) {
-            // Fallback: return empty map
-        }
-        return Map.of();
+        Map<String, Object> params = layer.getParams();
+        return params == null || params.isEmpty() ? Map.of() : Collections.unmodifiableMap(params);
     }
 
     /**
@@ -121,11 +109,49 @@ public final class DefaultLayerIntrospector implements LayerIntrospector {
             String[] parts = s.replaceAll("[()\\[\\]\\s]", "").split(",");
             if (parts.length == 1 && parts[0].isEmpty()) return null;
             int[] result = new int[parts.length];
-            for (int i = 0; i < parts.length; i++) {
-                result[i] = Integer.parseInt(parts[i]);
+            try {
+                for (int i = 0; i < parts.length; i++) {
+                    result[i] = Integer.parseInt(parts[i]);
+                }
+            } catch (NumberFormatException e) {
+                return null; // symbolic or malformed: no intrinsic shape
             }
             return result;
         }
         return null;
     }
+
+    /**
+     * {@code getType()} handle of a layer class (typed {@code (Layer)Object}), or
+     * {@code null} when the class has no accessible one.
+     */
+    private record KindAccessor(MethodHandle getType, String simpleName) {
+
+        static KindAccessor of(Class<?> type) {
+            MethodHandle handle = null;
+            try {
+                Method method = type.getMethod("getType");
+                if (method.getParameterCount() == 0) {
+                    handle = MethodHandles.publicLookup().unreflect(method)
+                            .asType(MethodType.methodType(Object.class, Layer.class));
+                }
+            } catch (ReflectiveOperationException | RuntimeException ignore) {
+                // no public getType(): use the class name
+            }
+            return new KindAccessor(handle, type.getSimpleName());
+        }
+
+        String kind(Layer layer) {
+            if (getType == null) {
+                return simpleName;
+            }
+            try {
+                return String.valueOf((Object) getType.invokeExact(layer));
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable ignore) {
+                return simpleName;
+            }
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package io.github.swampus.alexandra.compiler;
+
+import io.github.swampus.alexandra.compiler.diagnostics.DiagnosticsSink;
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilationSessionTest {
+
+    @Test
+    void expansionIdIssuedTwiceFailsTheCompile() {
+        CompilationSession session = new CompilationSession(new IRNetworkCompiler(), DiagnosticsSink.OFF);
+
+        session.claimSiteId("3f09a1c2d4e5");
+        session.claimSiteId("3f09a1c2d4e6");
+
+        CompilationException clash = assertThrows(CompilationException.class,
+                () -> session.claimSiteId("3f09a1c2d4e5"));
+        assertTrue(clash.getMessage().contains("3f09a1c2d4e5"));
+    }
+}
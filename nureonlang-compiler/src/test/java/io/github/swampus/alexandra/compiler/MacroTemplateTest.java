@@ -0,0 +1,133 @@
+package io.github.swampus.alexandra.compiler;
+
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Instantiating a prepared macro body must produce exactly what substituting the
+ * call's bindings into the definition produces.
+ */
+class MacroTemplateTest {
+
+    private static final String SUFFIX = "__blk_1a2b";
+
+    private static Instruction layer(String type, String name) {
+        return Instruction.builder().op(OpCode.LAYER).type(type).name(name).size(4).build();
+    }
+
+    private static Instruction connect(String from, String to) {
+        return Instruction.builder().op(OpCode.CONNECT).from(from).to(to).build();
+    }
+
+    private static Instruction definition() {
+        Instruction loop = Instruction.builder().op(OpCode.FOR).var("i").fromVal(1).toVal(2)
+                .body(List.of(layer("dense", "inner_i"), connect("a", "inner_i"))).build();
+        Instruction nested = Instruction.builder().op(OpCode.MACRO_CALL).name("other")
+                .inputs(List.of("a", "hidden", "b.out")).build();
+        return Instruction.builder().op(OpCode.MACRO_DEF).name("blk")
+                .inputs(List.of("a", "b", "n"))
+                .body(List.of(
+                        layer("input", "a"),
+                        layer("dense", "hidden"),
+                        layer("dense", "b"),
+                        layer("dense", "h_[(n*2)]"),
+                        layer("dense", "h_[n]"),
+                        layer("dense", "tmp__suffix__"),
+                        connect("a", "hidden"),
+                        connect("hidden", "b"),
+                        connect("a.x", "b_tail"),
+                        loop,
+                        nested))
+                .build();
+    }
+
+    private static List<Instruction> viaTemplate(Instruction def, List<String> args) {
+        List<Instruction> out = new ArrayList<>();
+        MacroTemplate.of(def).instantiate(args, SUFFIX, new IRNetworkCompiler(), out::add);
+        return out;
+    }
+
+    private static List<Instruction> viaSubstitution(Instruction def, List<String> args) {
+        Map<String, String> bindings = new HashMap<>();
+        for (int i = 0; i < args.size(); i++) bindings.put(def.getInputs().get(i), args.get(i));
+        bindings.put("__suffix__", SUFFIX);
+        IRNetworkCompiler compiler = new IRNetworkCompiler();
+        List<Instruction> out = new ArrayList<>();
+        for (Instruction sub : def.getBody()) {
+            out.add(compiler.deepCloneWithMultipleReplace(sub, bindings, Collections.emptySet()));
+        }
+        return out;
+    }
+
+    @Test
+    void instantiationMatchesSubstitution() {
+        Instruction def = definition();
+        List<List<String>> calls = List.of(
+                List.of("x", "y", "3"),
+                List.of("x", "x", "0"),
+                List.of("hidden", "y", "2"),
+                List.of("b", "a", "1"),          // arguments naming other parameters
+                List.of("in.a", "n", "5"),
+                List.of("tmp" + SUFFIX, "y", "4"),
+                List.of("", "y", "-1"));
+        for (List<String> args : calls) {
+            assertEquals(viaSubstitution(def, args), viaTemplate(def, args), args.toString());
+        }
+    }
+
+    @Test
+    void unchangedNodesAreSharedWithTheDefinition() {
+        Instruction call = Instruction.builder().op(OpCode.MACRO_CALL).name("other").inputs(List.of("p")).build();
+        Instruction loopOnly = Instruction.builder().op(OpCode.FOR).var("i").fromVal(1).toVal(2)
+                .body(List.of(call)).build();
+        Instruction def = Instruction.builder().op(OpCode.MACRO_DEF).name("m")
+                .inputs(List.of("a"))
+                .body(List.of(loopOnly, connect("a", "q")))
+                .build();
+
+        List<Instruction> out = viaTemplate(def, List.of("x"));
+
+        assertSame(call, out.get(0).getBody().get(0));
+        assertEquals("x", out.get(1).getFrom());
+    }
+
+    @Test
+    void repeatedCallsBuildIndependentSubgraphs() {
+        StringBuilder code = new StringBuilder("""
+                DEFINE blk(src)
+                BEGIN
+                    LAYER dense u size=8 activation=relu
+                    CONNECT src -> u
+                END
+                BEGIN
+                    LAYER input x size=8
+                """);
+        for (int i = 0; i < 500; i++) code.append("    blk(x)\n");
+        code.append("END\n");
+
+        NetworkModel model = new IRNetworkCompiler()
+                .compile(new NureonLangInfrastructureFacade().parseCode(code.toString()));
+
+        List<Layer> instances = model.getAllLayers().stream()
+                .filter(l -> l.getName().startsWith("u__blk_"))
+                .toList();
+        assertEquals(500, instances.size());
+        // random suffixes may collide, so count edges rather than inputs per instance
+        assertEquals(500, instances.stream().mapToLong(l -> l.getInputs().size()).sum());
+        for (Layer l : instances) {
+            for (Layer in : l.getInputs()) assertEquals("x", in.getName());
+        }
+    }
+}
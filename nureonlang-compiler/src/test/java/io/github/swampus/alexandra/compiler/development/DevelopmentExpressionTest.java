@@ -0,0 +1,89 @@
+package io.github.swampus.alexandra.compiler.development;
+
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DevelopmentExpressionTest {
+
+    private static Object eval(String source, Object... bindings) {
+        DevelopmentContext ctx = new DevelopmentContext();
+        for (int i = 0; i < bindings.length; i += 2) ctx.set((String) bindings[i], bindings[i + 1]);
+        return DevelopmentExpression.parse(source).evaluate(ctx);
+    }
+
+    @Test
+    void shouldEvaluateArithmeticWithPrecedence() {
+        assertEquals(7, eval("1+2*3"));
+        assertEquals(9, eval("(1+2)*3"));
+        assertEquals(2.5, eval("n/2", "n", 5));
+        assertEquals(1, eval("n%2", "n", 5));
+        assertEquals(-4, eval("-2^2"));
+        assertEquals(512, eval("2^3^2"));
+    }
+
+    @Test
+    void shouldEvaluateComparisonsAndLogic() {
+        assertEquals(true, eval("i>=2&&i<4", "i", 3));
+        assertEquals(false, eval("i>=2&&i<4", "i", 4));
+        assertEquals(true, eval("i=3", "i", 3));
+        assertEquals(true, eval("i == 3 || flag", "i", 1, "flag", true));
+        assertEquals(true, eval("!(i!=3)", "i", 3));
+        assertEquals(true, eval("flag == false", "flag", false));
+    }
+
+    @Test
+    void shouldShortCircuit() {
+        // the right operand would fail: 'missing' is unbound
+        assertEquals(false, eval("i > 5 && missing", "i", 1));
+        assertEquals(true, eval("i < 5 || missing", "i", 1));
+    }
+
+    @Test
+    void shouldFoldConstantSubtrees() {
+        assertTrue(DevelopmentExpression.parse("2*(3+4) > 10 && !false").isConstant());
+        assertFalse(DevelopmentExpression.parse("2*(3+4) > n").isConstant());
+        assertEquals(DevelopmentExpression.Type.BOOLEAN, DevelopmentExpression.parse("2 > n").getType());
+        assertEquals(List.of("n"), DevelopmentExpression.parse("2*(3+4) > n").getVariables());
+    }
+
+    @Test
+    void shouldRejectStaticTypeErrorsWhileParsing() {
+        assertThrows(CompilationException.class, () -> DevelopmentExpression.parse("1 + true"));
+        assertThrows(CompilationException.class, () -> DevelopmentExpression.parse("1 && 2"));
+        assertThrows(CompilationException.class, () -> DevelopmentExpression.parse("1 == true"));
+        assertThrows(CompilationException.class, () -> DevelopmentExpression.parse("1 +"));
+        assertNull(DevelopmentExpression.tryParse("mode == \"fast\""));
+    }
+
+    @Test
+    void shouldReportRuntimeErrorsWithTheSource() {
+        CompilationException e = assertThrows(CompilationException.class, () -> eval("10 / (n - 2)", "n", 2));
+        assertTrue(e.getMessage().contains("'10 / (n - 2)'"), e.getMessage());
+        assertTrue(e.getMessage().contains("division by zero"), e.getMessage());
+        assertThrows(CompilationException.class, () -> eval("n + 1"));
+    }
+
+    @Test
+    void shouldNotDecideRuntimeReferencesOrUnboundVariables() {
+        DevelopmentContext ctx = new DevelopmentContext();
+        ctx.set("i", 1);
+        assertFalse(DevelopmentExpression.parse("x[0] > 0").isDecidable(ctx));
+        assertFalse(DevelopmentExpression.parse("i > n").isDecidable(ctx));
+        assertTrue(DevelopmentExpression.parse("i > 0").isDecidable(ctx));
+    }
+
+    @Test
+    void shouldParseEachSourceOncePerContext() {
+        DevelopmentContext ctx = new DevelopmentContext();
+        assertSame(ctx.expression("i < 3"), ctx.expression("i < 3"));
+        assertNull(ctx.tryExpression("a b"));
+        assertEquals(4, ctx.evaluateInt("4"));
+        ctx.set("n", 10);
+        assertEquals(9, ctx.evaluateInt("n-1"));
+        assertEquals(5, ctx.evaluateInt(5));
+    }
+}
@@ -1,10 +1,13 @@
 package io.github.swampus.alexandra.compiler.development;
 
 import io.github.swampus.alexandra.compiler.development.expanders.ForExpander;
+import io.github.swampus.alexandra.compiler.exception.DevelopmentBudgetExceededException;
 import io.github.swampus.alexandra.ir.model.Instruction;
 import io.github.swampus.alexandra.ir.model.OpCode;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,4 +38,125 @@ class IRDeveloperTest {
         assertEquals("dense1", result.get(0).getName());
         assertEquals("dense2", result.get(1).getName());
     }
+
+    @Test
+    void shouldStreamLargeLoopWithoutMaterializingIt() {
+
+        Instruction layer = Instruction.builder()
+                .op(OpCode.LAYER)
+                .name("dense[i]")
+                .build();
+
+        Instruction inner = Instruction.builder()
+                .op(OpCode.FOR)
+                .var("j")
+                .fromVal(1)
+                .toVal(2)
+                .body(List.of(layer))
+                .build();
+
+        Instruction loop = Instruction.builder()
+                .op(OpCode.FOR)
+                .var("i")
+                .fromVal(1)
+                .toVal(1_000_000)
+                .body(List.of(inner))
+                .build();
+
+        IRDeveloper dev = new IRDeveloper(List.of(new ForExpander()));
+
+        Iterator<Instruction> it = dev.iterate(List.of(loop));
+        assertEquals("dense1", it.next().getName());
+
+        long count = 1;
+        String last = null;
+        while (it.hasNext()) {
+            last = it.next().getName();
+            count++;
+        }
+
+        assertEquals(2_000_000L, count);
+        assertEquals("dense1000000", last);
+    }
+
+    private static Instruction loop(String var, int from, int to, Instruction... body) {
+        return Instruction.builder()
+                .op(OpCode.FOR)
+                .var(var)
+                .fromVal(from)
+                .toVal(to)
+                .body(List.of(body))
+                .build();
+    }
+
+    /** {@code depth} single-iteration loops around one layer; {@code v0} is the innermost. */
+    private static Instruction nested(int depth) {
+        Instruction program = Instruction.builder().op(OpCode.LAYER).name("leaf").build();
+        for (int d = 0; d < depth; d++) program = loop("v" + d, 1, 1, program);
+        return program;
+    }
+
+    @Test
+    void shouldStopWhenInstructionBudgetIsExhausted() {
+
+        Instruction layer = Instruction.builder().op(OpCode.LAYER).name("dense[i]_[j]").build();
+        Instruction program = loop("i", 1, Integer.MAX_VALUE, loop("j", 1, 3, layer));
+
+        IRDeveloper dev = new IRDeveloper(List.of(new ForExpander()),
+                DevelopmentBudget.unlimited().withMaxInstructions(10));
+
+        Iterator<Instruction> it = dev.iterate(List.of(program));
+        for (int k = 0; k < 10; k++) it.next();
+
+        DevelopmentBudgetExceededException e =
+                assertThrows(DevelopmentBudgetExceededException.class, it::hasNext);
+        assertEquals(DevelopmentBudgetExceededException.Limit.INSTRUCTIONS, e.getLimit());
+        assertEquals(10, e.getAllowed());
+        assertEquals(List.of("FOR i [i=4]", "FOR j [j=2]", "LAYER dense4_2"), e.getTrace());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void shouldStopWhenExpansionsNestTooDeeply() {
+
+        Instruction program = nested(2_000);
+
+        IRDeveloper dev = new IRDeveloper(List.of(new ForExpander()),
+                DevelopmentBudget.unlimited().withMaxDepth(64));
+
+        DevelopmentBudgetExceededException e = assertThrows(DevelopmentBudgetExceededException.class,
+                () -> dev.develop(List.of(program)));
+        assertEquals(DevelopmentBudgetExceededException.Limit.DEPTH, e.getLimit());
+        assertEquals(65, e.getTrace().size());
+        assertEquals("FOR v1999 [v1999=1]", e.getTrace().get(0));
+        assertEquals("FOR v1935", e.getTrace().get(64));
+    }
+
+    @Test
+    void shouldDevelopDeepNestingWithoutStackOverflowWhenUnbounded() {
+
+        Instruction program = nested(2_000);
+
+        List<Instruction> result = new IRDeveloper(List.of(new ForExpander())).develop(List.of(program));
+
+        assertEquals(1, result.size());
+        assertEquals("leaf", result.get(0).getName());
+    }
+
+    @Test
+    void shouldStopWhenTimeBudgetIsExhausted() {
+
+        Instruction layer = Instruction.builder().op(OpCode.LAYER).name("dense").build();
+        Instruction program = loop("i", 1, Integer.MAX_VALUE, layer);
+
+        IRDeveloper dev = new IRDeveloper(List.of(new ForExpander()),
+                DevelopmentBudget.unlimited().withMaxDuration(Duration.ofMillis(50)));
+
+        Iterator<Instruction> it = dev.iterate(List.of(program));
+        DevelopmentBudgetExceededException e = assertThrows(DevelopmentBudgetExceededException.class,
+                () -> it.forEachRemaining(instr -> { }));
+        assertEquals(DevelopmentBudgetExceededException.Limit.DURATION, e.getLimit());
+        assertEquals(50, e.getAllowed());
+        assertTrue(e.getTrace().get(0).startsWith("FOR i [i="), e.getTrace().toString());
+    }
 }
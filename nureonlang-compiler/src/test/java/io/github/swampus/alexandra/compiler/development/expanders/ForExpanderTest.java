@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ForExpanderTest {
@@ -84,4 +86,48 @@ class ForExpanderTest {
 
         assertTrue(expanded.isEmpty());
     }
+
+    @Test
+    void shouldShareSubtreesThatDoNotMentionTheLoopVariable() {
+
+        Instruction fixed = Instruction.builder()
+                .op(OpCode.LAYER)
+                .name("shared")
+                .inputs(List.of("x"))
+                .build();
+
+        Instruction indexed = Instruction.builder()
+                .op(OpCode.LAYER)
+                .name("dense[i]")
+                .inputs(List.of("x"))
+                .build();
+
+        Instruction block = Instruction.builder()
+                .op(OpCode.BLOCK)
+                .body(List.of(fixed, indexed))
+                .build();
+
+        Instruction loop = Instruction.builder()
+                .op(OpCode.FOR)
+                .var("i")
+                .fromVal(1)
+                .toVal(2)
+                .body(List.of(fixed, block))
+                .build();
+
+        List<Instruction> expanded = new ForExpander().expand(loop, new DevelopmentContext());
+
+        assertEquals(4, expanded.size());
+        assertSame(fixed, expanded.get(0));
+        assertSame(fixed, expanded.get(2));
+
+        Instruction firstBlock = expanded.get(1);
+        assertNotSame(block, firstBlock);
+        assertSame(fixed, firstBlock.getBody().get(0));
+        assertEquals("dense1", firstBlock.getBody().get(1).getName());
+        assertSame(indexed.getInputs(), firstBlock.getBody().get(1).getInputs());
+
+        // the template itself is untouched
+        assertEquals("dense[i]", indexed.getName());
+    }
 }
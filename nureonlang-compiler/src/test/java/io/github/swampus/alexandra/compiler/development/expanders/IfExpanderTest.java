@@ -0,0 +1,96 @@
+package io.github.swampus.alexandra.compiler.development.expanders;
+
+import io.github.swampus.alexandra.compiler.development.DevelopmentContext;
+import io.github.swampus.alexandra.compiler.development.IRDeveloper;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IfExpanderTest {
+
+    private static Instruction layer(String name) {
+        return Instruction.builder().op(OpCode.LAYER).name(name).build();
+    }
+
+    private static Instruction block(Instruction... body) {
+        return Instruction.builder().op(OpCode.BLOCK).body(List.of(body)).build();
+    }
+
+    /** IF as the parser builds it: body = [thenBlock, elseBlock]. */
+    private static Instruction parsedIf(String cond) {
+        return Instruction.builder()
+                .op(OpCode.IF)
+                .cond(Instruction.builder().op(OpCode.CONDITION).expr(cond).build())
+                .body(List.of(block(layer("t1"), layer("t2")), block(layer("e1"))))
+                .build();
+    }
+
+    private static List<String> names(List<Instruction> instrs) {
+        return instrs.stream().map(Instruction::getName).toList();
+    }
+
+    @Test
+    void shouldSelectThenOrElseBlockOfParsedIf() {
+        IfExpander expander = new IfExpander();
+        DevelopmentContext ctx = new DevelopmentContext();
+        ctx.set("i", 2);
+
+        assertEquals(List.of("t1", "t2"), names(expander.expand(parsedIf("i<3"), ctx)));
+        assertEquals(List.of("e1"), names(expander.expand(parsedIf("i>=3"), ctx)));
+    }
+
+    @Test
+    void shouldKeepElseFromMetaForHandBuiltIr() {
+        Instruction ifInstr = Instruction.builder()
+                .op(OpCode.IF)
+                .cond(Instruction.builder().op(OpCode.CONDITION).expr("flag").build())
+                .body(List.of(layer("t")))
+                .meta(Map.of("else", List.of(layer("e"))))
+                .build();
+        DevelopmentContext ctx = new DevelopmentContext();
+
+        ctx.set("flag", true);
+        assertEquals(List.of("t"), names(new IfExpander().expand(ifInstr, ctx)));
+        ctx.set("flag", false);
+        assertEquals(List.of("e"), names(new IfExpander().expand(ifInstr, ctx)));
+    }
+
+    @Test
+    void shouldLeaveRuntimeConditionsToTheCompiler() {
+        Instruction runtime = parsedIf("x[0]>0");
+        Instruction unknown = parsedIf("mode=\"fast\"");
+
+        List<Instruction> developed = new IRDeveloper(List.of(new IfExpander()))
+                .develop(List.of(runtime, unknown));
+
+        assertEquals(2, developed.size());
+        assertSame(runtime, developed.get(0));
+        assertSame(unknown, developed.get(1));
+    }
+
+    @Test
+    void shouldDevelopLoopsWithExpressionBoundsLetAndConditions() {
+        Instruction let = Instruction.builder().op(OpCode.LET).var("n").expr("2*2").build();
+        Instruction loop = Instruction.builder()
+                .op(OpCode.FOR)
+                .var("i")
+                .fromVal("1")
+                .toVal("n-1")
+                .body(List.of(Instruction.builder()
+                        .op(OpCode.IF)
+                        .cond(Instruction.builder().op(OpCode.CONDITION).expr("i%2==1").build())
+                        .body(List.of(block(layer("odd[i]")), block(layer("even[i]"))))
+                        .build()))
+                .build();
+
+        List<Instruction> developed = new IRDeveloper(List.of(new LetExpander(), new ForExpander(), new IfExpander()))
+                .develop(List.of(let, loop));
+
+        assertEquals(List.of("odd1", "even2", "odd3"), names(developed));
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.swampus.alexandra.compiler.development.expanders;
+
+import io.github.swampus.alexandra.compiler.development.DevelopmentContext;
+import io.github.swampus.alexandra.compiler.development.IRDeveloper;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LetExpanderTest {
+
+    private static Instruction let(String var, String expr) {
+        return Instruction.builder().op(OpCode.LET).var(var).expr(expr).build();
+    }
+
+    @Test
+    void shouldBindDecidableValues() {
+        LetExpander expander = new LetExpander();
+        DevelopmentContext ctx = new DevelopmentContext();
+        ctx.set("depth", 3);
+        Instruction n = let("n", "depth*2");
+
+        assertTrue(expander.canExpand(n, ctx));
+        assertTrue(expander.expand(n, ctx).isEmpty());
+        assertEquals(6, ctx.get("n"));
+    }
+
+    @Test
+    void shouldLeaveStringValuesToTheCompiler() {
+        Instruction left = let("left", "name+\"_1\"");
+
+        assertFalse(new LetExpander().canExpand(left, new DevelopmentContext()));
+
+        List<Instruction> developed = new IRDeveloper(List.of(new LetExpander())).develop(List.of(left));
+        assertEquals(1, developed.size());
+        assertSame(left, developed.get(0));
+    }
+
+    @Test
+    void shouldLeaveValuesOfUnboundVariablesToTheCompiler() {
+        Instruction b = let("b", "4");
+        Instruction r = let("r", "(a^2+b^2)^0.5");
+        DevelopmentContext ctx = new DevelopmentContext();
+        ctx.set("b", 4);
+
+        assertFalse(new LetExpander().canExpand(r, ctx));
+        assertNull(ctx.get("r"));
+
+        List<Instruction> developed = new IRDeveloper(List.of(new LetExpander())).develop(List.of(b, r));
+        assertEquals(1, developed.size());
+        assertSame(r, developed.get(0));
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.swampus.alexandra.compiler.diagnostics;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.ir.model.OpCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosticsSinkTest {
+
+    private static Instruction program() {
+        Instruction x = Instruction.builder().op(OpCode.LAYER).type("input").name("x").size(2).build();
+        Instruction h = Instruction.builder().op(OpCode.LAYER).type("dense").name("h[i]")
+                .size(2).activation("relu").build();
+        Instruction loop = Instruction.builder().op(OpCode.FOR).var("i").fromVal(0).toVal(1)
+                .body(new ArrayList<>(List.of(h))).build();
+        return Instruction.builder().op(OpCode.BLOCK)
+                .body(new ArrayList<>(List.of(x, loop))).build();
+    }
+
+    @Test
+    void recordsTypedEventsOnlyWhenEnabled() {
+        IRNetworkCompiler compiler = new IRNetworkCompiler();
+
+        assertDoesNotThrow(() -> compiler.compile(program(), DiagnosticsSink.OFF));
+
+        RingBufferDiagnosticsSink sink = new RingBufferDiagnosticsSink();
+        compiler.compile(program(), sink);
+
+        assertEquals(List.of(
+                "== Compilation :: begin ==",
+                "[LAYER] created: x type=input",
+                "[FOR] i from 0 to 1",
+                "[LAYER] created: h0 type=dense",
+                "[LAYER] created: h1 type=dense"), sink.lines());
+        assertEquals(CompileEvent.Kind.FOR, sink.events().get(2).kind());
+    }
+
+    @Test
+    void ringBufferKeepsMostRecentEvents() {
+        RingBufferDiagnosticsSink sink = new RingBufferDiagnosticsSink(3);
+        for (int i = 0; i < 5; i++) {
+            sink.accept(new CompileEvent(CompileEvent.Kind.MACRO_DEF, "m" + i, null));
+        }
+
+        assertEquals(2, sink.getDropped());
+        assertEquals(List.of("m2", "m3", "m4"), sink.events().stream().map(CompileEvent::subject).toList());
+        assertEquals("... 2 earlier event(s) dropped", sink.lines().get(0));
+
+        sink.clear();
+        assertTrue(sink.lines().isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.swampus.alexandra.compiler.execution;
+
+import io.github.swampus.alexandra.compiler.execution.profiling.LatencyHistogram;
+import io.github.swampus.alexandra.compiler.execution.profiling.LayerProfiler;
+import io.github.swampus.alexandra.compiler.execution.profiling.ProfileReport;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.ConditionalLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DropoutLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayerProfilerTest {
+
+    private static void connect(Layer from, Layer to) {
+        from.addOutput(to);
+        to.addInput(from);
+    }
+
+    /**
+     * x -> h(dense, relu) -> dr(dropout) -> y
+     * x -> cond(x[0] >= 0.5) ? t : e, both branches fed by h
+     */
+    private static NetworkModel model() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer h = new DenseLayer("h", 2, "relu");
+        h.setWeights(new double[]{1, 0, 0, 1}, 2);
+        h.setBias(new double[]{0, 0});
+        DropoutLayer dr = new DropoutLayer("dr", 0.5, 2);
+        OutputLayer y = new OutputLayer("y", 2, null);
+        OutputLayer t = new OutputLayer("t", 1, "sigmoid");
+        OutputLayer e = new OutputLayer("e", 1, null);
+        ConditionalLayer cond = new ConditionalLayer("cond_x", "x[0] >= 0.5", t, e);
+
+        connect(x, h);
+        connect(h, dr);
+        connect(dr, y);
+        connect(h, t);
+        connect(h, e);
+        cond.addInput(x);
+
+        NetworkModel model = new NetworkModel();
+        for (Layer l : new Layer[]{x, h, dr, y, t, e, cond}) {
+            model.addLayer(l);
+        }
+        return model;
+    }
+
+    @Test
+    void executesInTopologicalOrderWithoutListener() {
+        NetworkExecutor executor = new NetworkExecutor(model());
+
+        Map<String, double[]> out = executor.execute(Map.of("x", new double[]{-1.0, 3.0}));
+
+        assertArrayEquals(new double[]{0.0, 3.0}, out.get("y"), 1e-9);
+        assertArrayEquals(new double[]{0.0}, out.get("cond_x"), 1e-9);
+        assertEquals(Set.of("y", "cond_x"), out.keySet());
+        assertEquals("x", executor.getExecutionOrder().get(0).getName());
+    }
+
+    @Test
+    void profilerCountsLayersAndBranches() {
+        LayerProfiler profiler = new LayerProfiler();
+        NetworkExecutor executor = new NetworkExecutor(model(), profiler);
+
+        for (int i = 0; i < 10; i++) {
+            executor.execute(Map.of("x", new double[]{i < 3 ? 1.0 : 0.0, 1.0}));
+        }
+
+        ProfileReport report = profiler.report(0);
+        Map<String, ProfileReport.LayerStats> byName = report.hotLayers().stream()
+                .collect(Collectors.toMap(ProfileReport.LayerStats::layer, s -> s));
+
+        assertEquals(Set.of("x", "h", "dr", "y", "cond_x"), byName.keySet());
+        byName.values().forEach(s -> assertEquals(10, s.invocations()));
+        assertEquals("DenseLayer", byName.get("h").kind());
+        assertEquals(new ProfileReport.BranchStats(3, 7), report.branches().get("cond_x"));
+
+        ProfileReport top2 = profiler.report(2);
+        assertEquals(2, top2.hotLayers().size());
+        assertTrue(top2.hotLayers().get(0).totalNanos() >= top2.hotLayers().get(1).totalNanos());
+        assertTrue(top2.format().contains("cond_x"));
+
+        profiler.reset();
+        assertTrue(profiler.report(5).hotLayers().isEmpty());
+    }
+
+    @Test
+    void histogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 10);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(10, histogram.getMin());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.getValueAtPercentile(50.0), 500_000 * 0.016);
+        assertEquals(990_000, histogram.getValueAtPercentile(99.0), 990_000 * 0.016);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100.0));
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.swampus.alexandra.compiler.mainflow;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.diagnostics.RingBufferDiagnosticsSink;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramGenerator;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramSpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A single {@link IRNetworkCompiler} must be shareable: runs neither leak state
+ * into each other nor race when executed concurrently.
+ */
+class ConcurrentCompilationTest {
+
+    private static Instruction program(long seed) {
+        return new NureonLangInfrastructureFacade().parseCode(SyntheticProgramGenerator.generate(
+                SyntheticProgramSpec.builder().layers(200).fanIn(3).window(8).seed(seed).build()));
+    }
+
+    private static String fingerprint(NetworkModel model) {
+        StringBuilder sb = new StringBuilder();
+        for (Layer l : model.getAllLayers()) {
+            sb.append(l.getName()).append('<');
+            for (Layer in : l.getInputs()) sb.append(in.getName()).append(',');
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void sequentialRunsDoNotShareState() {
+        IRNetworkCompiler compiler = new IRNetworkCompiler();
+        Instruction ir = program(1);
+
+        String first = fingerprint(compiler.compile(ir));
+        compiler.compile(program(2));
+        String again = fingerprint(compiler.compile(ir));
+
+        assertEquals(first, again);
+        assertEquals(first, fingerprint(new IRNetworkCompiler().compile(ir)));
+    }
+
+    @Test
+    void sharedCompilerIsSafeAcrossThreads() throws Exception {
+        IRNetworkCompiler compiler = new IRNetworkCompiler();
+        int programs = 4;
+        List<Instruction> irs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int p = 0; p < programs; p++) {
+            irs.add(program(p));
+            expected.add(fingerprint(new IRNetworkCompiler().compile(irs.get(p))));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                Instruction ir = irs.get(i % programs);
+                results.add(pool.submit(() -> {
+                    RingBufferDiagnosticsSink sink = new RingBufferDiagnosticsSink();
+                    String fp = fingerprint(compiler.compile(ir, sink));
+                    assertEquals("== Compilation :: begin ==", sink.lines().get(0));
+                    return fp;
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(expected.get(i % programs), results.get(i).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
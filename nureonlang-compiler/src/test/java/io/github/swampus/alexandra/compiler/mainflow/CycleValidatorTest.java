@@ -143,4 +143,51 @@ public class CycleValidatorTest {
         CycleValidator validator = new CycleValidator();
         Assertions.assertThrows(GraphContainsCyclesException.class, () -> validator.validate(model));
     }
+
+    @Test
+    void reportsEveryCycleAtOnce() {
+        // A -> B -> A,  C -> C,  D -> E -> F -> D,  G
+        DummyLayer a = new DummyLayer("A");
+        DummyLayer b = new DummyLayer("B");
+        DummyLayer c = new DummyLayer("C");
+        DummyLayer d = new DummyLayer("D");
+        DummyLayer e = new DummyLayer("E");
+        DummyLayer f = new DummyLayer("F");
+        DummyLayer g = new DummyLayer("G");
+        a.addOutput(b); b.addOutput(a);
+        c.addOutput(c);
+        d.addOutput(e); e.addOutput(f); f.addOutput(d);
+        f.addOutput(g);
+
+        NetworkModel model = new NetworkModel();
+        for (Layer l : List.of(a, b, c, d, e, f, g)) model.addLayer(l);
+
+        GraphContainsCyclesException ex = Assertions.assertThrows(
+                GraphContainsCyclesException.class, () -> new CycleValidator().validate(model));
+        Assertions.assertEquals(
+                List.of(List.of("A", "B"), List.of("C"), List.of("D", "E", "F")), ex.getCycles());
+        Assertions.assertTrue(ex.getMessage().startsWith("Network contains 3 cycles"));
+    }
+
+    @Test
+    void handlesDeepRingWithoutRecursion() {
+        int n = 50_000;
+        NetworkModel model = new NetworkModel();
+        DummyLayer first = new DummyLayer("L0");
+        DummyLayer prev = first;
+        model.addLayer(first);
+        for (int i = 1; i < n; i++) {
+            DummyLayer next = new DummyLayer("L" + i);
+            prev.addOutput(next);
+            model.addLayer(next);
+            prev = next;
+        }
+        prev.addOutput(first);
+
+        GraphContainsCyclesException ex = Assertions.assertThrows(
+                GraphContainsCyclesException.class, () -> new CycleValidator().validate(model));
+        Assertions.assertEquals(1, ex.getCycles().size());
+        Assertions.assertEquals(n, ex.getCycles().get(0).size());
+        Assertions.assertTrue(ex.getMessage().contains("(" + (n - 8) + " more)"));
+    }
 }
@@ -2,11 +2,15 @@ package io.github.swampus.alexandra.compiler.mainflow;
 
 import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
 import io.github.swampus.alexandra.compiler.NetworkCompilerFacade;
+import io.github.swampus.alexandra.compiler.diagnostics.RingBufferDiagnosticsSink;
 import io.github.swampus.alexandra.compiler.model.NetworkModel;
 import io.github.swampus.alexandra.compiler.model.layer.ConditionalLayer;
 import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
 import io.github.swampus.alexandra.compiler.model.layer.Layer;
 import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import io.github.swampus.alexandra.compiler.optimizer.GraphOptimizer;
+import io.github.swampus.alexandra.compiler.optimizer.impl.DeadLayerEliminationPass;
+import io.github.swampus.alexandra.compiler.validator.PostCompileValidationService;
 import io.github.swampus.alexandra.compiler.validator.ValidationLevel;
 import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
 import io.github.swampus.alexandra.ir.model.Instruction;
@@ -726,5 +730,30 @@ class IRNetworkCompilerTest {
         assertEquals(1, outFalse.length);
     }
 
+    @Test
+    void tracedCompileRunsTheSameOptimizer() {
+        String code = """
+                BEGIN
+                    LAYER INPUT name=x size=1
+                    LAYER DENSE name=used size=1 activation=linear
+                    LAYER DENSE name=unused size=1 activation=linear
+                    LAYER OUTPUT name=out size=1
+                    CONNECT x -> used
+                    CONNECT x -> unused
+                    CONNECT used -> out
+                END
+                """;
+        NetworkCompilerFacade pruning = new NetworkCompilerFacade(new PostCompileValidationService(),
+                ValidationLevel.STRUCTURAL, new GraphOptimizer(List.of(new DeadLayerEliminationPass())));
+        RingBufferDiagnosticsSink diagnostics = new RingBufferDiagnosticsSink();
+
+        NetworkModel direct = pruning.compile(nureonLangInfrastructureFacade.parseCode(code));
+        NetworkModel traced = pruning.compile(nureonLangInfrastructureFacade.parseCode(code), diagnostics);
+
+        assertNull(direct.getLayer("unused"));
+        assertNull(traced.getLayer("unused"));
+        assertEquals(direct.getAllLayers().size(), traced.getAllLayers().size());
+        assertFalse(diagnostics.lines().isEmpty());
+    }
 
 }
\ No newline at end of file
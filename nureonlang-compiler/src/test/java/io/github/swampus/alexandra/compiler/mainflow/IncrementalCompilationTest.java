@@ -0,0 +1,105 @@
+package io.github.swampus.alexandra.compiler.mainflow;
+
+import io.github.swampus.alexandra.compiler.FragmentCache;
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.InMemoryFragmentCache;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramGenerator;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramSpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recompiling with a fragment cache must only redo edited units and still
+ * produce the same model as a from-scratch compile.
+ */
+class IncrementalCompilationTest {
+
+    private static final String SOURCE = SyntheticProgramGenerator.generate(SyntheticProgramSpec.builder()
+            .layers(120).fanIn(3).window(8).modules(4)
+            .macroDepth(2).forLoops(2, 10).ifBranches(1)
+            .seed(3).build());
+
+    private static Instruction parse(String code) {
+        return new NureonLangInfrastructureFacade().parseCode(code);
+    }
+
+    private static String fingerprint(NetworkModel model) {
+        StringBuilder sb = new StringBuilder();
+        for (Layer l : model.getAllLayers()) {
+            sb.append(l.getName()).append('/').append(l.getClass().getSimpleName());
+            if (l instanceof DenseLayer dense) sb.append(':').append(dense.getSize());
+            sb.append('<');
+            for (Layer in : l.getInputs()) sb.append(in.getName()).append(',');
+            sb.append(';');
+        }
+        sb.append(model.getIssues().size());
+        return sb.toString();
+    }
+
+    @Test
+    void unchangedProgramIsReplayedFromCache() {
+        InMemoryFragmentCache cache = new InMemoryFragmentCache(1024);
+        IRNetworkCompiler compiler = new IRNetworkCompiler(null, cache);
+
+        NetworkModel first = compiler.compile(parse(SOURCE));
+        long missesAfterFirst = cache.getMisses();
+        assertTrue(cache.size() > 0);
+
+        NetworkModel second = compiler.compile(parse(SOURCE));
+
+        assertEquals(missesAfterFirst, cache.getMisses());
+        assertEquals(fingerprint(new IRNetworkCompiler().compile(parse(SOURCE))), fingerprint(second));
+        assertEquals(fingerprint(first), fingerprint(second));
+
+        // replay builds fresh layers; nothing is shared with the earlier model
+        Set<Layer> earlier = Collections.newSetFromMap(new IdentityHashMap<>());
+        earlier.addAll(first.getAllLayers());
+        for (Layer l : second.getAllLayers()) assertFalse(earlier.contains(l), l.getName());
+    }
+
+    @Test
+    void onlyEditedUnitsAreRecompiled() {
+        InMemoryFragmentCache cache = new InMemoryFragmentCache(1024);
+        IRNetworkCompiler compiler = new IRNetworkCompiler(null, cache);
+        compiler.compile(parse(SOURCE));
+
+        // h5 lives in the first module; give it an extra incoming edge from the input
+        String edited = SOURCE.replace("CONNECT h4 -> h5\n", "CONNECT h4 -> h5\n    CONNECT x -> h5\n");
+        assertNotEquals(SOURCE, edited);
+
+        long misses = cache.getMisses();
+        NetworkModel incremental = compiler.compile(parse(edited));
+
+        assertEquals(misses + 1, cache.getMisses());
+        assertEquals(fingerprint(new IRNetworkCompiler().compile(parse(edited))), fingerprint(incremental));
+    }
+
+    @Test
+    void editingAMacroInvalidatesItsCallers() {
+        FragmentCache cache = FragmentCache.inMemory(1024);
+        IRNetworkCompiler compiler = new IRNetworkCompiler(ForkJoinPool.commonPool(), cache);
+        compiler.compile(parse(SOURCE));
+
+        String edited = SOURCE.replaceFirst("DEFINE m_1\\(src\\) BEGIN\n  LAYER dense u size=(\\d+)",
+                "DEFINE m_1(src) BEGIN\n  LAYER dense u size=7");
+        assertNotEquals(SOURCE, edited);
+
+        NetworkModel incremental = compiler.compile(parse(edited));
+        NetworkModel scratch = new IRNetworkCompiler().compile(parse(edited));
+
+        assertEquals(fingerprint(scratch), fingerprint(incremental));
+        assertTrue(Pattern.compile("__m_1_[0-9a-f]{12}/DenseLayer:7<").matcher(fingerprint(incremental)).find());
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.swampus.alexandra.compiler.mainflow;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.diagnostics.RingBufferDiagnosticsSink;
+import io.github.swampus.alexandra.compiler.exception.CompilationException;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramGenerator;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramSpec;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parallel compilation must produce the same model and trace as a sequential run,
+ * down to the generated macro and branch suffixes.
+ */
+class ParallelCompilationTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdownNow();
+    }
+
+    private static Instruction program(SyntheticProgramSpec spec) {
+        return new NureonLangInfrastructureFacade().parseCode(SyntheticProgramGenerator.generate(spec));
+    }
+
+    private static String fingerprint(NetworkModel model) {
+        StringBuilder sb = new StringBuilder();
+        for (Layer l : model.getAllLayers()) {
+            sb.append(l.getName()).append('<');
+            for (Layer in : l.getInputs()) sb.append(in.getName()).append(',');
+            sb.append('>');
+            for (Layer out : l.getOutputs()) sb.append(out.getName()).append(',');
+            sb.append(';');
+        }
+        sb.append(model.getInputLayers().size()).append('/').append(model.getIssues().size());
+        return sb.toString();
+    }
+
+    @Test
+    void parallelCompileMatchesSequential() {
+        Instruction ir = program(SyntheticProgramSpec.builder()
+                .layers(400).fanIn(3).window(16).modules(6)
+                .macroDepth(2).forLoops(3, 40).ifBranches(2)
+                .seed(7).build());
+
+        RingBufferDiagnosticsSink sequentialTrace = new RingBufferDiagnosticsSink(1 << 16);
+        RingBufferDiagnosticsSink parallelTrace = new RingBufferDiagnosticsSink(1 << 16);
+        NetworkModel sequential = new IRNetworkCompiler().compile(ir, sequentialTrace);
+        NetworkModel parallel = new IRNetworkCompiler(POOL).compile(ir, parallelTrace);
+
+        assertEquals(fingerprint(sequential), fingerprint(parallel));
+        assertEquals(sequentialTrace.lines(), parallelTrace.lines());
+    }
+
+    private static final String CALL_SITES = """
+            DEFINE blk(src) BEGIN
+              LAYER dense u size=4 activation=relu
+              CONNECT src -> u
+            END
+            BEGIN
+              LAYER input x size=4
+              blk(x)
+              blk(x)
+              FOR i FROM 0 TO 2 BEGIN
+                blk(x)
+              END
+            END
+            """;
+
+    @Test
+    void expansionNamesAreReproducibleAndDistinctPerCallSite() {
+        String code = CALL_SITES;
+
+        String first = fingerprint(new IRNetworkCompiler().compile(new NureonLangInfrastructureFacade().parseCode(code)));
+        String again = fingerprint(new IRNetworkCompiler().compile(new NureonLangInfrastructureFacade().parseCode(code)));
+        NetworkModel parallel = new IRNetworkCompiler(POOL).compile(new NureonLangInfrastructureFacade().parseCode(code));
+
+        assertEquals(first, again);
+        assertEquals(first, fingerprint(parallel));
+        List<String> names = parallel.getAllLayers().stream().map(Layer::getName).filter(n -> n.startsWith("u__")).toList();
+        assertEquals(5, names.size());
+        assertEquals(5, Set.copyOf(names).size());
+        for (String name : names) assertTrue(name.matches("u__blk_[0-9a-f]{12}"), name);
+    }
+
+    private static final String NAME_PREFIX = "layer: ";
+
+    /** Child-JVM entry point: perturbs identity hashing, then prints the expansion names. */
+    public static final class NameDump {
+        public static void main(String[] args) {
+            int throwaway = Integer.parseInt(args[0]);
+            for (int i = 0; i < throwaway; i++) {
+                new Object().hashCode();
+            }
+            NetworkModel model = new IRNetworkCompiler().compile(new NureonLangInfrastructureFacade().parseCode(CALL_SITES));
+            for (Layer l : model.getAllLayers()) {
+                System.out.println(NAME_PREFIX + l.getName());
+            }
+        }
+    }
+
+    @Test
+    void expansionNamesMatchAcrossJvms() throws Exception {
+        List<String> first = namesFromFreshJvm(0);
+        List<String> second = namesFromFreshJvm(50);
+
+        assertEquals(first, second);
+        assertTrue(first.stream().anyMatch(n -> n.startsWith("u__blk_")), first.toString());
+    }
+
+    private static List<String> namesFromFreshJvm(int throwawayHashes) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                NameDump.class.getName(), Integer.toString(throwawayHashes))
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        String out = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS), "child JVM timed out");
+        assertEquals(0, process.exitValue(), out);
+        return out.lines()
+                .filter(line -> line.startsWith(NAME_PREFIX))
+                .map(line -> line.substring(NAME_PREFIX.length()))
+                .toList();
+    }
+
+    @Test
+    void forwardReferencesAcrossUnitsBindLikeSequential() {
+        String code = """
+                BEGIN
+                  LAYER input x size=4
+                  MODULE a BEGIN
+                    LAYER dense p size=4
+                    CONNECT x -> p
+                    CONNECT q -> p
+                  END
+                  MODULE b BEGIN
+                    LAYER dense q size=4
+                    CONNECT p -> q
+                  END
+                  LAYER output y size=4
+                  CONNECT q -> y
+                END
+                """;
+        Instruction ir = new NureonLangInfrastructureFacade().parseCode(code);
+
+        NetworkModel sequential = new IRNetworkCompiler().compile(ir);
+        NetworkModel parallel = new IRNetworkCompiler(POOL).compile(ir);
+
+        assertEquals(fingerprint(sequential), fingerprint(parallel));
+    }
+
+    @Test
+    void failingUnitSurfacesTheSequentialError() {
+        String code = """
+                BEGIN
+                  LAYER input x size=4
+                  MODULE a BEGIN
+                    LAYER dense p size=4
+                  END
+                  MODULE b BEGIN
+                    LAYER bogus q size=4
+                  END
+                  MODULE c BEGIN
+                    LAYER dense r size=4
+                  END
+                END
+                """;
+        Instruction ir = new NureonLangInfrastructureFacade().parseCode(code);
+
+        CompilationException sequential = assertThrows(CompilationException.class,
+                () -> new IRNetworkCompiler().compile(ir));
+        CompilationException parallel = assertThrows(CompilationException.class,
+                () -> new IRNetworkCompiler(POOL).compile(ir));
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.swampus.alexandra.compiler.model;
+
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphOrderTest {
+
+    private static void connect(Layer from, Layer to) {
+        from.addOutput(to);
+        to.addInput(from);
+    }
+
+    @Test
+    void ordersDagAndGroupsLevels() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a = new DenseLayer("a", 2, "relu");
+        DenseLayer b = new DenseLayer("b", 2, "relu");
+        DenseLayer c = new DenseLayer("c", 2, "relu");
+        connect(x, a);
+        connect(x, b);
+        connect(a, c);
+        connect(b, c);
+        connect(x, c);
+        // Listed in reverse so the order cannot just echo the source.
+        LayerGraph g = LayerGraph.of(List.of(c, b, a, x));
+        GraphOrder order = g.order();
+
+        assertTrue(order.isAcyclic());
+        assertEquals(4, order.size());
+        assertEquals(4, order.componentCount());
+        for (int v = 0; v < g.size(); v++) {
+            assertEquals(v, order.vertexAt(order.positionOf(v)));
+            for (int k = 0; k < g.outDegree(v); k++) {
+                assertTrue(order.positionOf(v) < order.positionOf(g.successor(v, k)));
+            }
+        }
+
+        assertEquals(3, order.levelCount());
+        assertEquals(0, order.level(g.indexOf(x)));
+        assertEquals(2, order.level(g.indexOf(c)));
+        int[] middle = order.verticesAtLevel(1);
+        assertEquals(2, middle.length);
+        assertTrue(List.of(g.indexOf(a), g.indexOf(b)).contains(middle[0]));
+    }
+
+    @Test
+    void collapsesCyclesIntoComponents() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a = new DenseLayer("a", 2, "relu");
+        DenseLayer b = new DenseLayer("b", 2, "relu");
+        DenseLayer self = new DenseLayer("self", 2, "relu");
+        DenseLayer out = new DenseLayer("out", 2, "relu");
+        connect(x, a);
+        connect(a, b);
+        connect(b, a);
+        connect(b, self);
+        connect(self, self);
+        connect(self, out);
+        LayerGraph g = LayerGraph.of(List.of(x, a, b, self, out));
+        GraphOrder order = g.order();
+
+        int ia = g.indexOf(a);
+        int ib = g.indexOf(b);
+        assertFalse(order.isAcyclic());
+        assertEquals(2, order.cyclicComponentCount());
+        assertEquals(order.component(ia), order.component(ib));
+        assertEquals(2, order.componentSize(order.component(ia)));
+        assertTrue(order.isCyclic(ia));
+        assertTrue(order.isCyclic(g.indexOf(self)));
+        assertFalse(order.isCyclic(g.indexOf(x)));
+        assertFalse(order.isCyclic(g.indexOf(out)));
+
+        // Components keep their members together and stay in dependency order.
+        assertEquals(1, Math.abs(order.positionOf(ia) - order.positionOf(ib)));
+        assertEquals(order.level(ia), order.level(ib));
+        assertEquals(3, order.level(g.indexOf(out)));
+    }
+
+    @Test
+    void inputListsCountAsDependencies() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer h = new DenseLayer("h", 2, "relu");
+        h.addInput(x); // producer does not list the consumer
+        LayerGraph g = LayerGraph.of(List.of(h, x));
+        GraphOrder order = g.order();
+
+        assertSame(x, g.layer(order.vertexAt(0)));
+        assertEquals(2, order.levelCount());
+    }
+
+    @Test
+    void isCachedUntilTheModelChanges() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer h = new DenseLayer("h", 2, "relu");
+        model.addLayer(x);
+        model.addLayer(h);
+        connect(x, h);
+        GraphOrder first = model.getOrder();
+        assertSame(first, model.getOrder());
+        assertTrue(first.isAcyclic());
+
+        connect(h, x);
+        model.invalidateGraph();
+        GraphOrder second = model.getOrder();
+        assertNotSame(first, second);
+        assertFalse(second.isAcyclic());
+    }
+
+    @Test
+    void handlesDeepChainsWithoutRecursion() {
+        NetworkModel model = new NetworkModel();
+        Layer prev = new InputLayer("x", 1);
+        model.addLayer(prev);
+        for (int i = 0; i < 50_000; i++) {
+            DenseLayer next = new DenseLayer("h" + i, 1, "relu");
+            connect(prev, next);
+            model.addLayer(next);
+            prev = next;
+        }
+
+        GraphOrder order = model.getOrder();
+        assertTrue(order.isAcyclic());
+        assertEquals(50_001, order.levelCount());
+        assertEquals(50_000, order.level(model.getGraph().indexOf(prev)));
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.swampus.alexandra.compiler.model;
+
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.validator.impl.CycleValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayerGraphTest {
+
+    private static void connect(Layer from, Layer to) {
+        from.addOutput(to);
+        to.addInput(from);
+    }
+
+    @Test
+    void mirrorsLayerEdgeListsInBothDirections() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a = new DenseLayer("a", 2, "relu");
+        DenseLayer b = new DenseLayer("b", 2, "relu");
+        DenseLayer dangling = new DenseLayer("dangling", 2, "relu");
+        connect(x, a);
+        connect(x, b);
+        connect(a, b);
+        connect(a, b);
+        connect(b, dangling);
+
+        LayerGraph g = LayerGraph.of(List.of(x, a, b, a));
+
+        assertEquals(4, g.size());
+        assertEquals(3, g.memberCount());
+        assertFalse(g.isMember(g.indexOf(dangling)));
+        assertEquals(-1, g.indexOf(new DenseLayer("other", 1, "relu")));
+        assertEquals(5, g.edgeCount());
+
+        int ia = g.indexOf(a);
+        int ib = g.indexOf(b);
+        assertArrayEquals(new int[]{ib, ib}, g.successors(ia));
+        assertArrayEquals(new int[]{g.indexOf(x), ia, ia}, g.predecessors(ib));
+        assertEquals(0, g.inDegree(g.indexOf(x)));
+        assertSame(dangling, g.layer(g.successor(ib, 0)));
+    }
+
+    @Test
+    void modelSnapshotIsRebuiltAfterChanges() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer h = new DenseLayer("h", 2, "relu");
+        model.addLayer(x);
+        LayerGraph first = model.getGraph();
+        assertSame(first, model.getGraph());
+
+        model.addLayer(h);
+        connect(x, h);
+        LayerGraph second = model.getGraph();
+        assertNotSame(first, second);
+        assertEquals(1, second.edgeCount());
+
+        connect(h, x);
+        model.invalidateGraph();
+        assertEquals(2, model.getGraph().edgeCount());
+    }
+
+    @Test
+    void modelSnapshotFollowsInPlaceEdgeEdits() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a = new DenseLayer("a", 2, "relu");
+        DenseLayer b = new DenseLayer("b", 2, "relu");
+        model.addLayer(x);
+        model.addLayer(a);
+        model.addLayer(b);
+        connect(x, a);
+        LayerGraph first = model.getGraph();
+        assertSame(first, model.getGraph());
+
+        // rewire x -> a into x -> b through the raw lists, without invalidateGraph()
+        x.getOutputs().set(0, b);
+        a.getInputs().clear();
+        b.getInputs().add(x);
+        LayerGraph second = model.getGraph();
+        assertNotSame(first, second);
+        assertArrayEquals(new int[]{second.indexOf(b)}, second.successors(second.indexOf(x)));
+        assertEquals(0, second.inDegree(second.indexOf(a)));
+
+        b.getInputs().removeIf(l -> l == x);
+        assertEquals(0, model.getGraph().inDegree(second.indexOf(b)));
+        assertSame(model.getGraph(), model.getGraph());
+    }
+
+    @Test
+    void cycleValidatorHandlesDeepChains() {
+        NetworkModel model = new NetworkModel();
+        Layer prev = new InputLayer("x", 1);
+        model.addLayer(prev);
+        for (int i = 0; i < 50_000; i++) {
+            DenseLayer next = new DenseLayer("h" + i, 1, "relu");
+            connect(prev, next);
+            model.addLayer(next);
+            prev = next;
+        }
+
+        assertDoesNotThrow(() -> new CycleValidator().validate(model));
+    }
+}
@@ -0,0 +1,166 @@
+package io.github.swampus.alexandra.compiler.model;
+
+import io.github.swampus.alexandra.compiler.model.layer.ConditionalLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NetworkModelTest {
+
+    @Test
+    void indexesLayersByNameInInsertionOrder() {
+        NetworkModel model = new NetworkModel();
+        DenseLayer first = new DenseLayer("h", 2, "relu");
+        DenseLayer second = new DenseLayer("h", 2, "relu");
+        model.addLayer(first);
+        model.addLayer(second);
+        model.addLayer(first);
+
+        assertSame(first, model.getLayer("h"));
+        assertEquals(List.of(first, second, first), model.getLayersByName("h"));
+        assertNull(model.getLayer("missing"));
+        assertTrue(model.getLayersByName("missing").isEmpty());
+
+        assertTrue(model.removeLayer(first));
+        assertSame(second, model.getLayer("h"));
+        assertEquals(1, model.getAllLayers().size());
+    }
+
+    @Test
+    void tracksInputsAndOutputsOnceAndRefreshesCachedViews() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 2);
+        OutputLayer t = new OutputLayer("t", 1, null);
+        OutputLayer e = new OutputLayer("e", 1, null);
+        model.addLayer(x);
+        model.addLayer(x);
+        model.addLayer(t);
+        model.addLayer(t);
+
+        assertEquals(List.of(x), model.getInputLayers());
+        assertEquals(List.of(t), model.getOutputLayers());
+        assertSame(model.getOutputLayers(), model.getOutputLayers());
+        assertThrows(UnsupportedOperationException.class, () -> model.getOutputLayers().add(e));
+
+        model.addLayer(e);
+        model.addLayer(new ConditionalLayer("cond", "x[0] > 0", t, e));
+        assertEquals(List.of(t, e, t, e), model.getOutputLayers());
+
+        model.removeLayer(t);
+        assertEquals(List.of(e, t, e), model.getOutputLayers());
+    }
+
+    @Test
+    void allLayersViewKeepsIndexInSync() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer h = new DenseLayer("h", 2, "relu");
+        List<Layer> all = model.getAllLayers();
+
+        all.add(x);
+        all.add(h);
+        assertSame(h, model.getLayer("h"));
+        assertEquals(List.of(x), model.getInputLayers());
+
+        all.removeIf(l -> l == h);
+        assertNull(model.getLayer("h"));
+        assertFalse(model.hasLayer("h"));
+
+        DenseLayer g = new DenseLayer("g", 2, "relu");
+        all.set(0, g);
+        assertNull(model.getLayer("x"));
+        assertSame(g, model.getLayer("g"));
+    }
+
+    @Test
+    void allLayersViewKeepsBucketsInListOrder() {
+        NetworkModel model = new NetworkModel();
+        DenseLayer a = new DenseLayer("h", 2, "relu");
+        DenseLayer b = new DenseLayer("h", 2, "relu");
+        DenseLayer c = new DenseLayer("h", 2, "relu");
+        DenseLayer other = new DenseLayer("g", 2, "relu");
+        List<Layer> all = model.getAllLayers();
+        all.addAll(List.of(a, b, a, other));
+
+        all.remove(0);
+        assertEquals(List.of(b, a), model.getLayersByName("h"));
+
+        all.add(0, c);
+        assertEquals(List.of(c, b, a), model.getLayersByName("h"));
+
+        all.set(1, other);
+        assertEquals(List.of(c, a), model.getLayersByName("h"));
+        assertEquals(List.of(other, other), model.getLayersByName("g"));
+
+        all.set(0, b);
+        assertEquals(List.of(b, a), model.getLayersByName("h"));
+
+        Iterator<Layer> it = all.iterator();
+        it.next();
+        it.remove();
+        assertEquals(List.of(a), model.getLayersByName("h"));
+
+        all.removeIf(l -> l == other);
+        assertEquals(List.of(a), all);
+        assertFalse(model.hasLayer("g"));
+
+        all.clear();
+        assertFalse(model.hasLayer("h"));
+        assertTrue(all.isEmpty());
+    }
+
+    @Test
+    void removesLayerSetsInOneSweep() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a = new DenseLayer("h", 2, "relu");
+        DenseLayer b = new DenseLayer("h", 2, "relu");
+        OutputLayer y = new OutputLayer("y", 2, null);
+        model.addLayer(x);
+        model.addLayer(a);
+        model.addLayer(b);
+        model.addLayer(a);
+        model.addLayer(y);
+        Set<Layer> doomed = Collections.newSetFromMap(new IdentityHashMap<>());
+        doomed.add(a);
+        doomed.add(y);
+
+        assertEquals(3, model.removeLayers(doomed));
+        assertEquals(List.of(x, b), model.getAllLayers());
+        assertEquals(List.of(b), model.getLayersByName("h"));
+        assertFalse(model.hasLayer("y"));
+        assertTrue(model.getOutputLayers().isEmpty());
+        assertEquals(0, model.removeLayers(doomed));
+    }
+
+    @Test
+    void bucketsLayersBySymbolIdsThatSurviveRemoval() {
+        NetworkModel model = new NetworkModel();
+        DenseLayer h = new DenseLayer("h", 2, "relu");
+        model.addLayer(new InputLayer("x", 2));
+        model.addLayer(h);
+
+        int symbol = model.getSymbols().id("h");
+        assertEquals("h", model.getSymbols().name(symbol));
+        assertEquals(List.of(h), model.getLayersBySymbol(symbol));
+
+        model.removeLayer(h);
+        assertFalse(model.hasLayer("h"));
+        assertTrue(model.getLayersBySymbol(symbol).isEmpty());
+        assertEquals(symbol, model.getSymbols().id("h"));
+
+        model.addLayer(h);
+        assertEquals(List.of(h), model.getLayersBySymbol(symbol));
+        assertTrue(model.getLayersBySymbol(SymbolTable.NONE).isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.swampus.alexandra.compiler.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+    @Test
+    void internsEachNameOnceWithDenseIds() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(0, symbols.intern("x"));
+        assertEquals(1, symbols.intern("h__blk_0"));
+        assertEquals(0, symbols.intern(new String("x")));
+        assertEquals(2, symbols.intern(null));
+
+        assertEquals(3, symbols.size());
+        assertEquals(1, symbols.id("h__blk_0"));
+        assertEquals(2, symbols.id(null));
+        assertEquals(SymbolTable.NONE, symbols.id("missing"));
+        assertEquals("h__blk_0", symbols.name(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> symbols.name(3));
+    }
+
+    @Test
+    void keepsIdsStableWhileGrowing() {
+        SymbolTable symbols = new SymbolTable(4);
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, symbols.intern("layer" + i));
+        }
+        for (int i = 0; i < 100_000; i += 997) {
+            assertEquals(i, symbols.id("layer" + i));
+            assertEquals("layer" + i, symbols.name(i));
+        }
+        assertEquals(100_000, symbols.size());
+    }
+}
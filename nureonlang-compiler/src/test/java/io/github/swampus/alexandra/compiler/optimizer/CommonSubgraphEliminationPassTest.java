@@ -0,0 +1,145 @@
+package io.github.swampus.alexandra.compiler.optimizer;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import io.github.swampus.alexandra.compiler.optimizer.impl.CommonSubgraphEliminationPass;
+import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramGenerator;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramSpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommonSubgraphEliminationPassTest {
+
+    private static void connect(Layer from, Layer to) {
+        from.addOutput(to);
+        to.addInput(from);
+    }
+
+    @Test
+    void collapsesRepeatedChainsBottomUp() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a1 = new DenseLayer("a1", 3, "relu");
+        DenseLayer b1 = new DenseLayer("b1", 2, null);
+        DenseLayer a2 = new DenseLayer("a2", 3, "relu");
+        DenseLayer b2 = new DenseLayer("b2", 2, null);
+        OutputLayer y1 = new OutputLayer("y1", 2, null);
+        OutputLayer y2 = new OutputLayer("y2", 2, null);
+        connect(x, a1);
+        connect(a1, b1);
+        connect(b1, y1);
+        connect(x, a2);
+        connect(a2, b2);
+        connect(b2, y2);
+        NetworkModel model = new NetworkModel();
+        for (Layer l : List.of(x, a1, b1, a2, b2, y1, y2)) {
+            model.addLayer(l);
+        }
+
+        PassResult result = new CommonSubgraphEliminationPass(true).apply(model);
+
+        assertEquals(2, result.layersRemoved());
+        assertEquals(List.of("x", "a1", "b1", "y1", "y2"),
+                model.getAllLayers().stream().map(Layer::getName).toList());
+        assertSame(b1, y2.getInputs().get(0));
+        assertEquals(List.of(y1, y2), b1.getOutputs());
+        assertEquals(List.of(a1), x.getOutputs());
+    }
+
+    @Test
+    void keepsUntrainedLayersByDefault() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a = new DenseLayer("a", 3, "relu");
+        DenseLayer b = new DenseLayer("b", 3, "relu");
+        DenseLayer c = new DenseLayer("c", 3, "relu");
+        c.setWeights(new double[]{1, 1, 1, 1, 1, 1}, 2);
+        connect(x, a);
+        connect(x, b);
+        connect(x, c);
+        NetworkModel model = new NetworkModel();
+        for (Layer l : List.of(x, a, b, c)) {
+            model.addLayer(l);
+        }
+
+        PassResult result = new CommonSubgraphEliminationPass().apply(model);
+
+        assertEquals(0, result.layersRemoved());
+        assertEquals(List.of(a, b, c), x.getOutputs());
+    }
+
+    @Test
+    void keepsSeparatelyTrainedLayers() {
+        InputLayer x = new InputLayer("x", 1);
+        DenseLayer a = new DenseLayer("a", 1, null);
+        a.setWeights(new double[]{1}, 1);
+        DenseLayer b = new DenseLayer("b", 1, null);
+        b.setWeights(new double[]{2}, 1);
+        DenseLayer c = new DenseLayer("c", 1, null);
+        c.setWeights(new double[]{1}, 1);
+        connect(x, a);
+        connect(x, b);
+        connect(x, c);
+        NetworkModel model = new NetworkModel();
+        for (Layer l : List.of(x, a, b, c)) {
+            model.addLayer(l);
+        }
+
+        PassResult result = new CommonSubgraphEliminationPass().apply(model);
+
+        assertEquals(1, result.layersRemoved());
+        assertEquals(1, result.parametersRemoved());
+        assertEquals(List.of("x", "a", "b"), model.getAllLayers().stream().map(Layer::getName).toList());
+    }
+
+    @Test
+    void collapsesManyDuplicatesInOneBatch() {
+        int n = 10_000;
+        InputLayer x = new InputLayer("x", 1);
+        NetworkModel model = new NetworkModel();
+        model.addLayer(x);
+        for (int i = 0; i < n; i++) {
+            DenseLayer d = new DenseLayer("d" + i, 1, null);
+            d.setWeights(new double[]{0.5}, 1);
+            OutputLayer y = new OutputLayer("y" + i, 1, null);
+            connect(x, d);
+            connect(d, y);
+            model.addLayer(d);
+            model.addLayer(y);
+        }
+        Layer first = model.getLayer("d0");
+
+        PassResult result = new CommonSubgraphEliminationPass().apply(model);
+
+        assertEquals(n - 1, result.layersRemoved());
+        assertEquals(n + 2, model.getAllLayers().size());
+        assertEquals(List.of(first), x.getOutputs());
+        assertEquals(n, first.getOutputs().size());
+        assertSame(first, model.getLayer("y" + (n - 1)).getInputs().get(0));
+    }
+
+    @Test
+    void sharesMacroInstancesUnrolledByLoops() {
+        SyntheticProgramSpec spec = SyntheticProgramSpec.builder()
+                .layers(20)
+                .macroDepth(2)
+                .forLoops(1, 5)
+                .build();
+        NetworkModel model = new IRNetworkCompiler().compile(
+                new NureonLangInfrastructureFacade().parseCode(SyntheticProgramGenerator.generate(spec)));
+        int before = GraphRewrites.distinctLayers(model).size();
+
+        PassResult result = new CommonSubgraphEliminationPass(true).apply(model);
+
+        // ten identical "dense u <- hK" instances collapse into one; the chain
+        // successor h(K+1) computes the same function of hK and may join them
+        assertTrue(result.layersRemoved() >= 9, () -> "removed " + result.layersRemoved());
+        assertEquals(before - result.layersRemoved(), GraphRewrites.distinctLayers(model).size());
+    }
+}
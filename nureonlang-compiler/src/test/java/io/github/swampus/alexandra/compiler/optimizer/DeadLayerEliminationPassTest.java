@@ -0,0 +1,141 @@
+package io.github.swampus.alexandra.compiler.optimizer;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import io.github.swampus.alexandra.compiler.optimizer.impl.DeadLayerEliminationPass;
+import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadLayerEliminationPassTest {
+
+    private static NetworkModel compile(String code) {
+        return new IRNetworkCompiler().compile(new NureonLangInfrastructureFacade().parseCode(code));
+    }
+
+    private static void connect(Layer from, Layer to) {
+        from.addOutput(to);
+        to.addInput(from);
+    }
+
+    private static Set<String> names(NetworkModel model) {
+        return model.getAllLayers().stream().map(Layer::getName).collect(Collectors.toSet());
+    }
+
+    @Test
+    void removesLayersNoOutputDependsOn() {
+        NetworkModel model = compile("""
+                BEGIN
+                  LAYER input x size=4
+                  LAYER input spare size=2
+                  LAYER dense h size=4 activation=relu
+                  LAYER dense side size=3 activation=relu
+                  LAYER dense tail size=2 activation=relu
+                  LAYER output y size=4
+                  CONNECT x -> h
+                  CONNECT h -> y
+                  CONNECT h -> side
+                  CONNECT side -> tail
+                END
+                """);
+        DenseLayer side = (DenseLayer) model.getLayer("side");
+        side.setWeights(new double[12], 4);
+        side.setBias(new double[3]);
+        Layer h = model.getLayer("h");
+
+        PassResult result = new DeadLayerEliminationPass(false).apply(model);
+
+        assertEquals(Set.of("x", "h", "y"), names(model));
+        assertEquals(3, result.layersRemoved());
+        assertEquals(15, result.parametersRemoved());
+        assertEquals(1, h.getOutputs().size());
+        assertEquals(1, model.getInputLayers().size());
+    }
+
+    @Test
+    void prunesManyDeadBranchesInOneSweep() {
+        int n = 40_000;
+        NetworkModel model = new NetworkModel();
+        Layer prev = new InputLayer("x", 2);
+        model.addLayer(prev);
+        for (int i = 0; i < n; i++) {
+            DenseLayer h = new DenseLayer("h" + i, 2, "relu");
+            DenseLayer dead = new DenseLayer("dead" + i, 2, "relu");
+            connect(prev, h);
+            connect(h, dead);
+            model.addLayer(h);
+            model.addLayer(dead);
+            prev = h;
+        }
+        OutputLayer y = new OutputLayer("y", 2, null);
+        connect(prev, y);
+        model.addLayer(y);
+
+        PassResult result = new DeadLayerEliminationPass().apply(model);
+
+        assertEquals(n, result.layersRemoved());
+        assertEquals(n + 2, model.getAllLayers().size());
+        assertFalse(model.hasLayer("dead0"));
+        assertEquals(List.of(model.getLayer("h1")), model.getLayer("h0").getOutputs());
+        assertEquals(List.of(y), prev.getOutputs());
+    }
+
+    @Test
+    void keepsDeclaredInputsByDefault() {
+        NetworkModel model = compile("""
+                BEGIN
+                  LAYER input x size=4
+                  LAYER input spare size=2
+                  LAYER output y size=4
+                  CONNECT x -> y
+                END
+                """);
+
+        PassResult result = new DeadLayerEliminationPass().apply(model);
+
+        assertEquals(Set.of("x", "spare", "y"), names(model));
+        assertEquals(0, result.layersRemoved());
+    }
+
+    @Test
+    void keepsBothConditionalBranchesAndInputs() {
+        NetworkModel model = compile("""
+                BEGIN
+                  LAYER input x size=2
+                  LAYER input spare size=2
+                  LAYER dense h size=2 activation=relu
+                  CONNECT x -> h
+                  IF x[0] > 0 BEGIN
+                    LAYER output t size=2
+                    CONNECT h -> t
+                  END ELSE BEGIN
+                    LAYER output e size=2
+                    CONNECT h -> e
+                  END
+                END
+                """);
+
+        GraphOptimizer optimizer = new GraphOptimizer(java.util.List.of(new DeadLayerEliminationPass()));
+        optimizer.optimize(model);
+
+        Set<String> kept = names(model);
+        assertTrue(kept.containsAll(Set.of("x", "spare", "h")));
+        assertTrue(kept.stream().anyMatch(n -> n.startsWith("t")));
+        assertTrue(kept.stream().anyMatch(n -> n.startsWith("e")));
+        assertTrue(kept.stream().anyMatch(n -> n.startsWith("cond_")));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>)
+                ((Map<String, Object>) model.getMeta().get(GraphOptimizer.META_KEY)).get(DeadLayerEliminationPass.NAME);
+        assertEquals(0, stats.get("layersRemoved"));
+    }
+}
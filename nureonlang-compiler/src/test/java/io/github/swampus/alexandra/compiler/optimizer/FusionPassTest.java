@@ -0,0 +1,177 @@
+package io.github.swampus.alexandra.compiler.optimizer;
+
+import io.github.swampus.alexandra.compiler.execution.NetworkExecutor;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.AttentionLayer;
+import io.github.swampus.alexandra.compiler.model.layer.ConvLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DropoutLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import io.github.swampus.alexandra.compiler.optimizer.impl.FusionPass;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FusionPassTest {
+
+    private static void connect(Layer from, Layer to) {
+        from.addOutput(to);
+        to.addInput(from);
+    }
+
+    private static NetworkModel model(Layer... layers) {
+        NetworkModel model = new NetworkModel();
+        for (Layer l : layers) {
+            model.addLayer(l);
+        }
+        return model;
+    }
+
+    /**
+     * x(3) -> a(dense 4, linear) -> drop -> conv -> b(dense 2, linear) -> attn -> c(dense 2, relu) -> y
+     */
+    private static NetworkModel chain() {
+        InputLayer x = new InputLayer("x", 3);
+        DenseLayer a = new DenseLayer("a", 4, null);
+        a.setWeights(new double[]{
+                1, 0, 2,
+                0, 1, -1,
+                3, 0, 0,
+                0, -2, 1}, 3);
+        a.setBias(new double[]{0.5, -0.5, 1, 0});
+        DropoutLayer drop = new DropoutLayer("drop", 0.3, 4);
+        ConvLayer conv = new ConvLayer("conv");
+        DenseLayer b = new DenseLayer("b", 2, "linear");
+        b.setWeights(new double[]{1, -1, 0.5, 2, 0, 1, 1, -3}, 4);
+        b.setBias(new double[]{0.1, 0.2});
+        AttentionLayer attn = new AttentionLayer("attn");
+        DenseLayer c = new DenseLayer("c", 2, "relu");
+        c.setWeights(new double[]{1, 1, -1, 2}, 2);
+        OutputLayer y = new OutputLayer("y", 2, null);
+
+        connect(x, a);
+        connect(a, drop);
+        connect(drop, conv);
+        connect(conv, b);
+        connect(b, attn);
+        connect(attn, c);
+        connect(c, y);
+        return model(x, a, drop, conv, b, attn, c, y);
+    }
+
+    @Test
+    void fusedChainComputesTheSameOutputs() {
+        NetworkModel reference = chain();
+        NetworkModel optimized = chain();
+
+        PassResult result = new FusionPass().apply(optimized);
+
+        // a folds into b, b folds into c once the pass-through layers are gone
+        assertEquals(List.of("x", "c", "y"),
+                optimized.getAllLayers().stream().map(Layer::getName).toList());
+        assertEquals(5, result.layersRemoved());
+        assertEquals((12 + 4) + (8 + 2) + 4 - (6 + 2), result.parametersRemoved());
+
+        NetworkExecutor before = new NetworkExecutor(reference);
+        NetworkExecutor after = new NetworkExecutor(optimized);
+        for (double[] in : new double[][]{{1, 2, 3}, {-1, 0.5, 4}, {0, 0, 0}}) {
+            Map<String, double[]> feeds = Map.of("x", in);
+            assertArrayEquals(before.execute(feeds).get("y"), after.execute(feeds).get("y"), 1e-9);
+        }
+    }
+
+    @Test
+    void keepsTrainingDropoutAndNonLinearDense() {
+        InputLayer x = new InputLayer("x", 2);
+        DenseLayer a = new DenseLayer("a", 2, "relu");
+        DropoutLayer drop = new DropoutLayer("drop", 0.5, 2);
+        drop.setTraining(true);
+        DenseLayer b = new DenseLayer("b", 2, null);
+        OutputLayer y = new OutputLayer("y", 2, null);
+        connect(x, a);
+        connect(a, drop);
+        connect(drop, b);
+        connect(b, y);
+        NetworkModel model = model(x, a, drop, b, y);
+
+        PassResult result = new FusionPass().apply(model);
+
+        assertFalse(result.changed());
+        assertEquals(5, model.getAllLayers().size());
+    }
+
+    @Test
+    void skipsMergeThatWouldGrowTheLayer() {
+        InputLayer x = new InputLayer("x", 8);
+        DenseLayer narrow = new DenseLayer("narrow", 1, null);
+        narrow.setWeights(new double[8], 8);
+        DenseLayer wide = new DenseLayer("wide", 8, null);
+        wide.setWeights(new double[8], 1);
+        OutputLayer y = new OutputLayer("y", 8, null);
+        connect(x, narrow);
+        connect(narrow, wide);
+        connect(wide, y);
+        NetworkModel model = model(x, narrow, wide, y);
+
+        assertFalse(new FusionPass().apply(model).changed());
+    }
+
+    @Test
+    void fusesLongChainsInOneSweep() {
+        int n = 20_000;
+        NetworkModel model = new NetworkModel();
+        Layer prev = new InputLayer("x", 1);
+        model.addLayer(prev);
+        for (int i = 0; i < n; i++) {
+            DropoutLayer drop = new DropoutLayer("drop" + i, 0.1, 1);
+            connect(prev, drop);
+            model.addLayer(drop);
+            prev = drop;
+        }
+        for (int i = 0; i < n; i++) {
+            DenseLayer d = new DenseLayer("d" + i, 1, null);
+            d.setWeights(new double[]{1}, 1);
+            d.setBias(new double[]{1});
+            connect(prev, d);
+            model.addLayer(d);
+            prev = d;
+        }
+        OutputLayer y = new OutputLayer("y", 1, null);
+        connect(prev, y);
+        model.addLayer(y);
+
+        PassResult result = new FusionPass().apply(model);
+
+        assertEquals(List.of("x", "d" + (n - 1), "y"),
+                model.getAllLayers().stream().map(Layer::getName).toList());
+        assertEquals(2 * n - 1, result.layersRemoved());
+        DenseLayer last = (DenseLayer) model.getLayer("d" + (n - 1));
+        assertSame(model.getLayer("x"), last.getInputs().get(0));
+        assertEquals(n, last.getBias()[0], 1e-9);
+    }
+
+    @Test
+    void intermediateOutputForwardsItsInput() {
+        InputLayer x = new InputLayer("x", 2);
+        OutputLayer mid = new OutputLayer("mid", 2, null);
+        DenseLayer h = new DenseLayer("h", 2, "relu");
+        OutputLayer y = new OutputLayer("y", 2, null);
+        connect(x, mid);
+        connect(mid, h);
+        connect(h, y);
+        NetworkModel model = model(x, mid, h, y);
+
+        GraphOptimizer optimizer = new GraphOptimizer(List.of(new FusionPass()));
+        optimizer.optimize(model);
+
+        assertSame(x, h.getInputs().get(0));
+        assertTrue(mid.getOutputs().isEmpty());
+        assertEquals(2, model.getOutputLayers().size());
+        assertTrue(model.getMeta().containsKey(GraphOptimizer.META_KEY));
+    }
+}
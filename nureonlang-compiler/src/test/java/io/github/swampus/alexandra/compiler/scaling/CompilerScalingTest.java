@@ -0,0 +1,141 @@
+package io.github.swampus.alexandra.compiler.scaling;
+
+import io.github.swampus.alexandra.compiler.IRNetworkCompiler;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.validator.PostCompileValidationService;
+import io.github.swampus.alexandra.infrastructure.NureonLangInfrastructureFacade;
+import io.github.swampus.alexandra.ir.model.Instruction;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramGenerator;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramSpec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Coarse guard against super-linear regressions in the parse, compile and
+ * validate stages.
+ *
+ * <p>Each stage is timed on a generated program of {@code N} and {@code 4N}
+ * layers (best of several runs after a warmup), once at a small size and once
+ * at {@value #LARGE} layers, where a quadratic step can no longer hide behind
+ * constant costs. A linear stage should take about 4x longer on the larger
+ * input, a quadratic one about 16x; the bound sits in between to leave room for
+ * JIT and GC noise.</p>
+ *
+ * <p>The timing check depends on the machine and its load, so it is tagged
+ * {@code scaling} and left out of the default build; run it with
+ * {@code mvn test -Pscaling}.</p>
+ */
+class CompilerScalingTest {
+
+    private static final int BASE = 1_000;
+    private static final int LARGE = 100_000;
+    private static final int FACTOR = 4;
+    private static final double MAX_RATIO = 10.0;
+    private static final int RUNS = 3;
+
+    private static SyntheticProgramSpec spec(int layers) {
+        return SyntheticProgramSpec.builder()
+                .layers(layers)
+                .fanIn(3)
+                .window(16)
+                .macroDepth(2)
+                .forLoops(layers / 100, 10)
+                .ifBranches(layers / 100)
+                .modules(layers / 100)
+                .build();
+    }
+
+    @Test
+    void compiledModelMatchesGeneratedShape() throws Exception {
+        SyntheticProgramSpec spec = spec(BASE);
+        NetworkModel model = compile(parse(SyntheticProgramGenerator.generate(spec)));
+
+        new PostCompileValidationService().validateAll(model);
+
+        Set<Layer> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(model.getAllLayers());
+        assertEquals(spec.expectedLayerCount(), distinct.size());
+        assertNotNull(model.getLayer("h" + (BASE - 1)));
+        assertEquals(1, model.getInputLayers().size());
+    }
+
+    @Test
+    @Tag("scaling")
+    void parseCompileAndValidateScaleLinearly() {
+        assertScalesLinearly(BASE);
+    }
+
+    @Test
+    @Tag("scaling")
+    void scaleLinearlyUpToAHundredThousandLayers() {
+        assertScalesLinearly(LARGE / FACTOR);
+    }
+
+    private static void assertScalesLinearly(int layers) {
+        String small = SyntheticProgramGenerator.generate(spec(layers));
+        String large = SyntheticProgramGenerator.generate(spec(layers * FACTOR));
+
+        // warmup
+        Stage.measure(small);
+
+        Stage s = Stage.measure(small);
+        Stage l = Stage.measure(large);
+
+        assertLinear("parse", s.parseNanos, l.parseNanos);
+        assertLinear("compile", s.compileNanos, l.compileNanos);
+        assertLinear("validate", s.validateNanos, l.validateNanos);
+    }
+
+    private static void assertLinear(String stage, long small, long large) {
+        double ratio = (double) large / Math.max(1L, small);
+        assertTrue(ratio < MAX_RATIO, () -> String.format(
+                "%s grew %.1fx for %dx more layers (%d us -> %d us)",
+                stage, ratio, FACTOR, small / 1_000, large / 1_000));
+    }
+
+    private static Instruction parse(String code) {
+        return new NureonLangInfrastructureFacade().parseCode(code);
+    }
+
+    private static NetworkModel compile(Instruction root) {
+        return new IRNetworkCompiler().compile(root);
+    }
+
+    private record Stage(long parseNanos, long compileNanos, long validateNanos) {
+
+        static Stage measure(String code) {
+            long parse = Long.MAX_VALUE;
+            long compile = Long.MAX_VALUE;
+            long validate = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                Instruction[] root = new Instruction[1];
+                NetworkModel[] model = new NetworkModel[1];
+                parse = Math.min(parse, time(() -> root[0] = parse(code)));
+                compile = Math.min(compile, time(() -> model[0] = compile(root[0])));
+                validate = Math.min(validate, time(() -> {
+                    try {
+                        new PostCompileValidationService().validateAll(model[0]);
+                    } catch (Exception e) {
+                        fail(e);
+                    }
+                    return model[0];
+                }));
+            }
+            return new Stage(parse, compile, validate);
+        }
+
+        private static long time(Supplier<?> action) {
+            long start = System.nanoTime();
+            assertNotNull(action.get());
+            return System.nanoTime() - start;
+        }
+    }
+}
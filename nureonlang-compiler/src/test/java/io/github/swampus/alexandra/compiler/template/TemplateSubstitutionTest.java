@@ -0,0 +1,121 @@
+package io.github.swampus.alexandra.compiler.template;
+
+import net.objecthunter.exp4j.ExpressionBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the template engine against the regex implementation it replaced.
+ */
+class TemplateSubstitutionTest {
+
+    private static final Pattern SQUARE_EXPR_OR_TOKEN = Pattern.compile("\\[(\\([^\\]]+\\)|[^\\]]+)\\]");
+    private static final Pattern VAR_IN_PARENS_EXPR = Pattern.compile("\\[\\(([^\\]]+)\\)\\]");
+    private static final Pattern BARE_VAR_TOKEN = Pattern.compile("\\[([a-zA-Z_][a-zA-Z0-9_]*)\\]");
+
+    private static int evalSimple(String expr) {
+        try {
+            return (int) new ExpressionBuilder(expr).build().evaluate();
+        } catch (Exception e) {
+            throw new IllegalStateException("Expression error: " + expr + " " + e.getMessage());
+        }
+    }
+
+    private static String legacy(String str, String varName, int value) {
+        Matcher matcher = SQUARE_EXPR_OR_TOKEN.matcher(str);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String expr = matcher.group(1);
+            if (expr.startsWith("(") && expr.endsWith(")")) {
+                expr = expr.substring(1, expr.length() - 1);
+            }
+            expr = expr.replaceAll("\\b" + Pattern.quote(varName) + "\\b", String.valueOf(value));
+            matcher.appendReplacement(result, String.valueOf(evalSimple(expr)));
+        }
+        matcher.appendTail(result);
+        return result.toString().replaceAll("\\b" + Pattern.quote(varName) + "\\b", String.valueOf(value));
+    }
+
+    private static String legacy(String input, Map<String, String> bindings) {
+        Matcher matcher = VAR_IN_PARENS_EXPR.matcher(input);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String expr = matcher.group(1);
+            for (Map.Entry<String, String> e : bindings.entrySet()) {
+                expr = expr.replaceAll("\\b" + Pattern.quote(e.getKey()) + "\\b", e.getValue());
+            }
+            matcher.appendReplacement(result, String.valueOf(evalSimple(expr)));
+        }
+        matcher.appendTail(result);
+        matcher = BARE_VAR_TOKEN.matcher(result.toString());
+        result = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(result, bindings.getOrDefault(matcher.group(1), matcher.group(1)));
+        }
+        matcher.appendTail(result);
+        String out = result.toString();
+        for (Map.Entry<String, String> e : bindings.entrySet()) {
+            out = out.replaceAll("\\b" + Pattern.quote(e.getKey()) + "\\b", e.getValue());
+        }
+        return out;
+    }
+
+    private static String outcome(java.util.function.Supplier<String> s) {
+        try {
+            return s.get();
+        } catch (IllegalStateException e) {
+            return "ERROR";
+        }
+    }
+
+    @Test
+    void rendersCommonTemplates() {
+        TemplateSubstitution t = new TemplateSubstitution(TemplateSubstitutionTest::evalSimple);
+
+        assertEquals("transcend_26", t.substitute("transcend_[(d+1)*13]", "d", 1));
+        assertEquals("foo5", t.substitute("foo[d+2]", "d", 3));
+        assertEquals("dimension_12", t.substitute("dimension_[d]", "d", 12));
+        assertEquals("h_i.3", t.substitute("h_i.i", "i", 3));
+        assertEquals("x_7.__m_ab", t.substitute("x_[(k*2+1)].__suffix__",
+                new LinkedHashMap<>(Map.of("k", "3", "__suffix__", "__m_ab"))));
+        assertEquals("h5", t.substitute("[src]", Map.of("src", "h5")));
+        assertThrows(IllegalStateException.class, () -> t.substitute("a[i/0]", "i", 1));
+    }
+
+    @Test
+    void matchesRegexImplementationOnRandomTemplates() {
+        Random random = new Random(7);
+        String[] atoms = {"i", "j", "k", "x", "_", "2", "10", "0", "(", ")", "[", "]", "[(", ")]",
+                "+", "-", "*", "/", "%", "^", ".", " ", "h_", "e", "é", "ab", "i2", "2i"};
+        TemplateSubstitution engine = new TemplateSubstitution(TemplateSubstitutionTest::evalSimple);
+        Map<String, String> numeric = new LinkedHashMap<>();
+        numeric.put("i", "4");
+        numeric.put("k", "-3");
+        numeric.put("__suffix__", "__m_1_ab");
+        Map<String, String> symbolic = new LinkedHashMap<>();
+        symbolic.put("i", "j");
+        symbolic.put("j", "2");
+        symbolic.put("x", "h5");
+
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 1 + random.nextInt(10);
+            for (int a = 0; a < len; a++) {
+                sb.append(atoms[random.nextInt(atoms.length)]);
+            }
+            String s = sb.toString();
+            int value = random.nextInt(7) - 3;
+
+            assertEquals(outcome(() -> legacy(s, "i", value)), outcome(() -> engine.substitute(s, "i", value)), s);
+            assertEquals(outcome(() -> legacy(s, numeric)), outcome(() -> engine.substitute(s, numeric)), s);
+            assertEquals(outcome(() -> legacy(s, symbolic)), outcome(() -> engine.substitute(s, symbolic)), s);
+        }
+    }
+}
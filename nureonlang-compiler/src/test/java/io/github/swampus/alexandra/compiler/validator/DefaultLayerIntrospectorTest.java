@@ -0,0 +1,49 @@
+package io.github.swampus.alexandra.compiler.validator;
+
+import io.github.swampus.alexandra.compiler.model.layer.AttentionLayer;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.validator.spi.impl.DefaultLayerIntrospector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultLayerIntrospectorTest {
+
+    /** A foreign layer type that reports its own kind. */
+    public static class TypedLayer extends DenseLayer {
+        private final String type;
+
+        public TypedLayer(String name, String type) {
+            super(name, 3, "relu");
+            this.type = type;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+
+    private final DefaultLayerIntrospector li = new DefaultLayerIntrospector();
+
+    @Test
+    void readsNameAndParamsThroughTheLayerApi() {
+        DenseLayer dense = new DenseLayer("h", 4, "relu");
+
+        assertEquals("h", li.name(dense));
+        assertEquals(4, li.params(dense).get("units"));
+        assertThrows(UnsupportedOperationException.class, () -> li.params(dense).put("units", 5));
+        assertEquals(Map.of(), li.params(new AttentionLayer("a")));
+        assertEquals(Map.of("size", 2), li.params(new InputLayer("x", 2)));
+    }
+
+    @Test
+    void prefersGetTypeAndFallsBackToTheClassName() {
+        assertEquals("DenseLayer", li.kind(new DenseLayer("h", 4, "relu")));
+        assertEquals("Conv2D", li.kind(new TypedLayer("c1", "Conv2D")));
+        assertEquals("Reshape", li.kind(new TypedLayer("c2", "Reshape")));
+        assertEquals("null", li.kind(new TypedLayer("c3", null)));
+    }
+}
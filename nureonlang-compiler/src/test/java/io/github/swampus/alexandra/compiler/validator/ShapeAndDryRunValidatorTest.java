@@ -0,0 +1,214 @@
+package io.github.swampus.alexandra.compiler.validator;
+
+import io.github.swampus.alexandra.compiler.contract.OutputContract;
+import io.github.swampus.alexandra.compiler.cost.LayerCost;
+import io.github.swampus.alexandra.compiler.cost.NetworkCost;
+import io.github.swampus.alexandra.compiler.cost.Precision;
+import io.github.swampus.alexandra.compiler.extensions.InvalidNetworkException;
+import io.github.swampus.alexandra.compiler.model.NetworkModel;
+import io.github.swampus.alexandra.compiler.model.layer.DenseLayer;
+import io.github.swampus.alexandra.compiler.model.layer.InputLayer;
+import io.github.swampus.alexandra.compiler.model.layer.Layer;
+import io.github.swampus.alexandra.compiler.model.layer.OutputLayer;
+import io.github.swampus.alexandra.compiler.validator.spi.LayerIntrospector;
+import io.github.swampus.alexandra.compiler.validator.spi.ShapeAndDryRunValidator;
+import io.github.swampus.alexandra.compiler.validator.spi.impl.DefaultLayerIntrospector;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShapeAndDryRunValidatorTest {
+
+    /** Counts {@link #params(Layer)} calls. */
+    private static class CountingIntrospector implements LayerIntrospector {
+        private final LayerIntrospector delegate = new DefaultLayerIntrospector();
+        int paramCalls;
+
+        @Override
+        public List<Layer> layers(NetworkModel model) {
+            return delegate.layers(model);
+        }
+
+        @Override
+        public String name(Layer layer) {
+            return delegate.name(layer);
+        }
+
+        @Override
+        public String kind(Layer layer) {
+            return delegate.kind(layer);
+        }
+
+        @Override
+        public Map<String, Object> params(Layer layer) {
+            paramCalls++;
+            return delegate.params(layer);
+        }
+
+        @Override
+        public Optional<int[]> intrinsicOutputShape(Layer layer, Map<String, Object> params) {
+            return delegate.intrinsicOutputShape(layer, params);
+        }
+    }
+
+    private static void connect(Layer from, Layer to) {
+        from.addOutput(to);
+        to.addInput(from);
+    }
+
+    @Test
+    void propagatesShapesToTheOutputContract() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 8);
+        DenseLayer h = new DenseLayer("h", 4, "relu");
+        OutputLayer y = new OutputLayer("y", 6, null);
+        connect(x, h);
+        connect(h, y);
+        // insertion order is irrelevant; inference follows the edges
+        model.addLayer(y);
+        model.addLayer(h);
+        model.addLayer(x);
+
+        InvalidNetworkException e = assertThrows(InvalidNetworkException.class,
+                () -> new ShapeAndDryRunValidator(new DefaultLayerIntrospector(), 8).validate(model));
+        assertTrue(e.getMessage().contains("OUTPUT 'y': input shape [4] does not match declared [6]"), e.getMessage());
+    }
+
+    @Test
+    void declaredInputShapeReachesTheOutputContract() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 8);
+        OutputLayer y = new OutputLayer("y", 6, null);
+        connect(x, y);
+        model.addLayer(x);
+        model.addLayer(y);
+
+        InvalidNetworkException e = assertThrows(InvalidNetworkException.class,
+                () -> new ShapeAndDryRunValidator(new DefaultLayerIntrospector(), 8).validate(model));
+        assertTrue(e.getMessage().contains("OUTPUT 'y': input shape [8] does not match declared [6]"), e.getMessage());
+        assertDoesNotThrow(() -> new ShapeAndDryRunValidator(
+                new DefaultLayerIntrospector(), 8, OutputContract.THICK).validate(model));
+    }
+
+    @Test
+    void symbolicInputShapeIsTreatedAsUnknown() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", "(batch, 8)");
+        DenseLayer h = new DenseLayer("h", 4, "relu");
+        OutputLayer y = new OutputLayer("y", 4, null);
+        connect(x, h);
+        connect(h, y);
+        model.addLayer(x);
+        model.addLayer(h);
+        model.addLayer(y);
+        ShapeAndDryRunValidator validator = new ShapeAndDryRunValidator(new DefaultLayerIntrospector(), 8);
+
+        assertDoesNotThrow(() -> validator.validate(model));
+        NetworkCost cost = validator.estimateCost(model, 1, Precision.FP32);
+        assertFalse(cost.layers().get(0).resolved());
+        assertEquals(2, cost.unresolvedLayers());
+    }
+
+    @Test
+    void introspectsEachLayerOnceOnAChain() throws InvalidNetworkException {
+        int n = 20_000;
+        NetworkModel model = new NetworkModel();
+        Layer prev = new InputLayer("x", 4);
+        model.addLayer(prev);
+        for (int i = 0; i < n; i++) {
+            DenseLayer d = new DenseLayer("d" + i, 4, "relu");
+            connect(prev, d);
+            model.addLayer(d);
+            prev = d;
+        }
+        OutputLayer y = new OutputLayer("y", 4, null);
+        connect(prev, y);
+        model.addLayer(y);
+
+        CountingIntrospector li = new CountingIntrospector();
+        new ShapeAndDryRunValidator(li, 8).validate(model);
+
+        // parameters are read once per layer and reused by every evaluation
+        assertEquals(n + 2, li.paramCalls);
+    }
+
+    @Test
+    void reportsAnErrorOnceWhenItsLayerIsRevisited() {
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 4);
+        DenseLayer d = new DenseLayer("d", 4, "relu");
+        DenseLayer r = new DenseLayer("r", 4, "relu");
+        OutputLayer y = new OutputLayer("y", 4, null);
+        connect(x, d);
+        connect(d, r);
+        connect(r, d);
+        connect(r, y);
+        model.addLayer(x);
+        model.addLayer(d);
+        model.addLayer(r);
+        model.addLayer(y);
+        // d loses its size, so it fails before and again after r (on the cycle) gets a shape
+        LayerIntrospector li = new CountingIntrospector() {
+            @Override
+            public Map<String, Object> params(Layer layer) {
+                Map<String, Object> params = new HashMap<>(super.params(layer));
+                if (layer == d) {
+                    params.remove("size");
+                    params.remove("units");
+                }
+                return params;
+            }
+        };
+
+        InvalidNetworkException e = assertThrows(InvalidNetworkException.class,
+                () -> new ShapeAndDryRunValidator(li, 8).validate(model));
+        String missing = "Layer 'd' Dense: missing param 'units/size'";
+        assertEquals(e.getMessage().indexOf(missing), e.getMessage().lastIndexOf(missing), e.getMessage());
+        assertTrue(e.getMessage().contains(missing), e.getMessage());
+    }
+
+    @Test
+    void estimatesParametersMultiplyAddsAndPeakActivations() {
+        // x[8] -> a[16] -> b[4] -> y ; x is also read by c[2] -> z, after b
+        NetworkModel model = new NetworkModel();
+        InputLayer x = new InputLayer("x", 8);
+        DenseLayer a = new DenseLayer("a", 16, "relu");
+        DenseLayer b = new DenseLayer("b", 4, "relu");
+        DenseLayer c = new DenseLayer("c", 2, "relu");
+        OutputLayer y = new OutputLayer("y", 4, null);
+        OutputLayer z = new OutputLayer("z", 2, null);
+        connect(x, a);
+        connect(a, b);
+        connect(b, y);
+        connect(x, c);
+        connect(c, z);
+        for (Layer l : List.of(x, a, b, y, c, z)) model.addLayer(l);
+
+        NetworkCost cost = new ShapeAndDryRunValidator(new DefaultLayerIntrospector(), 8)
+                .estimateCost(model, 2, Precision.FP32);
+
+        assertEquals(0, cost.unresolvedLayers());
+        assertEquals((8 * 16 + 16) + (16 * 4 + 4) + (8 * 2 + 2), cost.parameters());
+        assertEquals(8 * 16 + 16 * 4 + 8 * 2, cost.multiplyAdds());
+        LayerCost first = cost.layers().get(0);
+        assertEquals("x", first.name());
+        assertEquals(8 * 2 * 4, first.activationBytes());
+
+        // Order x, a, c, b, z, y: x is live until c, outputs y and z stay to the end.
+        // After c: x(64) + a(128) + c(16) = 208; after b: a(128) + c(16) + b(32) = 176.
+        assertEquals(List.of("x", "a", "c", "b", "z", "y"),
+                cost.layers().stream().map(LayerCost::name).toList());
+        assertEquals(208, cost.peakActivationBytes());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> meta = (Map<String, Object>) model.getMeta().get(NetworkCost.META_KEY);
+        assertEquals(cost.parameters(), meta.get("parameters"));
+        assertEquals("FP32", meta.get("precision"));
+        assertEquals(6, ((List<?>) meta.get("layers")).size());
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.swampus.alexandra.nureonlang.synthetic;
+
+import java.util.Random;
+
+/**
+ * Emits syntactically valid NureonLang programs of arbitrary size for
+ * scaling tests and benchmarks.
+ *
+ * <p>The generated program has the following structure:</p>
+ * <pre>
+ * DEFINE m_1(src) BEGIN LAYER dense u ... CONNECT src -&gt; u END
+ * DEFINE m_2(src) BEGIN LAYER dense u ... CONNECT src -&gt; u m_1(src) END
+ * ...
+ * BEGIN
+ *   LAYER input x size=W
+ *   MODULE mod_0 BEGIN LAYER dense h0 ... CONNECT x -&gt; h0 ... END
+ *   LAYER dense h42 ...            // layers not covered by modules
+ *   FOR i FROM 0 TO R-1 BEGIN m_D(hK) END
+ *   IF x[0] &gt; 0 BEGIN LAYER output t_0 ... END ELSE BEGIN LAYER output e_0 ... END
+ *   LAYER output y size=W
+ *   CONNECT hN -&gt; y
+ * END
+ * </pre>
+ *
+ * <p>Every dense layer {@code h<i>} (i &gt; 0) connects from {@code h<i-1>}
+ * and from {@code fanIn - 1} further layers picked from the previous
+ * {@code window} ones, so the graph is a DAG with a single sink. Layer names
+ * are unique and the output is fully determined by the spec and its seed.</p>
+ */
+public final class SyntheticProgramGenerator {
+
+    private static final String INPUT = "x";
+    private static final String OUTPUT = "y";
+
+    private SyntheticProgramGenerator() {
+    }
+
+    public static String generate(SyntheticProgramSpec spec) {
+        Random random = new Random(spec.getSeed());
+        int w = spec.getWidth();
+        StringBuilder sb = new StringBuilder(estimateSize(spec));
+
+        boolean macros = spec.getMacroDepth() > 0;
+        if (macros) {
+            for (int d = 1; d <= spec.getMacroDepth(); d++) {
+                sb.append("DEFINE m_").append(d).append("(src) BEGIN\n");
+                sb.append("  LAYER dense u size=").append(w).append(" activation=relu\n");
+                sb.append("  CONNECT src -> u\n");
+                if (d > 1) {
+                    sb.append("  m_").append(d - 1).append("(src)\n");
+                }
+                sb.append("END\n");
+            }
+        }
+
+        sb.append("BEGIN\n");
+        sb.append("  LAYER input ").append(INPUT).append(" size=").append(w).append('\n');
+
+        int n = spec.getLayers();
+        int modules = spec.getModules();
+        int perModule = modules > 0 ? n / modules : 0;
+        int layer = 0;
+        for (int m = 0; m < modules; m++) {
+            int end = m == modules - 1 ? n : layer + perModule;
+            sb.append("  MODULE mod_").append(m).append(" BEGIN\n");
+            for (; layer < end; layer++) {
+                appendDense(sb, spec, random, layer, "    ");
+            }
+            sb.append("  END\n");
+        }
+        for (; layer < n; layer++) {
+            appendDense(sb, spec, random, layer, "  ");
+        }
+
+        if (macros) {
+            for (int f = 0; f < spec.getForLoops(); f++) {
+                if (spec.getForRange() == 0) {
+                    continue;
+                }
+                sb.append("  FOR i FROM 0 TO ").append(spec.getForRange() - 1).append(" BEGIN\n");
+                sb.append("    m_").append(spec.getMacroDepth())
+                        .append("(h").append(random.nextInt(n)).append(")\n");
+                sb.append("  END\n");
+            }
+        }
+
+        for (int b = 0; b < spec.getIfBranches(); b++) {
+            String src = "h" + random.nextInt(n);
+            sb.append("  IF ").append(INPUT).append("[0] > 0 BEGIN\n");
+            sb.append("    LAYER output t_").append(b).append(" size=").append(w).append('\n');
+            sb.append("    CONNECT ").append(src).append(" -> t_").append(b).append('\n');
+            sb.append("  END ELSE BEGIN\n");
+            sb.append("    LAYER output e_").append(b).append(" size=").append(w).append('\n');
+            sb.append("    CONNECT ").append(src).append(" -> e_").append(b).append('\n');
+            sb.append("  END\n");
+        }
+
+        sb.append("  LAYER output ").append(OUTPUT).append(" size=").append(w).append('\n');
+        sb.append("  CONNECT h").append(n - 1).append(" -> ").append(OUTPUT).append('\n');
+        sb.append("END\n");
+        return sb.toString();
+    }
+
+    private static void appendDense(StringBuilder sb, SyntheticProgramSpec spec, Random random,
+                                    int i, String indent) {
+        sb.append(indent).append("LAYER dense h").append(i)
+                .append(" size=").append(spec.getWidth())
+                .append(" activation=relu\n");
+        if (i == 0) {
+            sb.append(indent).append("CONNECT ").append(INPUT).append(" -> h0\n");
+            return;
+        }
+        sb.append(indent).append("CONNECT h").append(i - 1).append(" -> h").append(i).append('\n');
+
+        int extra = Math.min(spec.getFanIn(), i) - 1;
+        int lo = Math.max(0, i - spec.getWindow());
+        // Sources are drawn from [lo, i-2] without repetition; h(i-1) is already wired.
+        int span = i - 1 - lo;
+        extra = Math.min(extra, span);
+        int[] chosen = new int[extra];
+        for (int picked = 0; picked < extra; ) {
+            int source = lo + random.nextInt(span);
+            if (contains(chosen, picked, source)) {
+                continue;
+            }
+            chosen[picked++] = source;
+            sb.append(indent).append("CONNECT h").append(source).append(" -> h").append(i).append('\n');
+        }
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int k = 0; k < count; k++) {
+            if (values[k] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int estimateSize(SyntheticProgramSpec spec) {
+        long perLayer = 48L + 24L * spec.getFanIn();
+        long total = perLayer * spec.getLayers() + 160L * spec.getIfBranches() + 64L * spec.getForLoops() + 256L;
+        return (int) Math.min(total, Integer.MAX_VALUE - 8);
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.swampus.alexandra.nureonlang.synthetic;
+
+/**
+ * Shape of a program produced by {@link SyntheticProgramGenerator}.
+ *
+ * <p>All counts are independent knobs, so a scaling test can grow one
+ * dimension while keeping the others fixed. Use {@link #builder()} to
+ * override the defaults.</p>
+ */
+public final class SyntheticProgramSpec {
+
+    private final int layers;
+    private final int fanIn;
+    private final int window;
+    private final int macroDepth;
+    private final int forLoops;
+    private final int forRange;
+    private final int ifBranches;
+    private final int modules;
+    private final int width;
+    private final long seed;
+
+    private SyntheticProgramSpec(Builder b) {
+        this.layers = b.layers;
+        this.fanIn = b.fanIn;
+        this.window = b.window;
+        this.macroDepth = b.macroDepth;
+        this.forLoops = b.forLoops;
+        this.forRange = b.forRange;
+        this.ifBranches = b.ifBranches;
+        this.modules = b.modules;
+        this.width = b.width;
+        this.seed = b.seed;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Number of explicitly declared dense layers. */
+    public int getLayers() {
+        return layers;
+    }
+
+    /** Incoming connections per dense layer (capped by the layers declared before it). */
+    public int getFanIn() {
+        return fanIn;
+    }
+
+    /**
+     * How far back sources are picked from. Small windows give deep,
+     * narrow graphs; large windows give high fan-out on early layers.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /** Nesting depth of generated macros; {@code 0} disables macros and loops. */
+    public int getMacroDepth() {
+        return macroDepth;
+    }
+
+    /** Number of {@code FOR} loops, each calling the outermost macro. */
+    public int getForLoops() {
+        return forLoops;
+    }
+
+    /** Iterations per {@code FOR} loop. */
+    public int getForRange() {
+        return forRange;
+    }
+
+    /** Number of {@code IF}/{@code ELSE} blocks. */
+    public int getIfBranches() {
+        return ifBranches;
+    }
+
+    /** Number of {@code MODULE} blocks the dense layers are spread across. */
+    public int getModules() {
+        return modules;
+    }
+
+    /** Size of every generated layer. */
+    public int getWidth() {
+        return width;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Number of distinct layers the compiler is expected to create:
+     * input, dense layers, module wrappers, unrolled macro layers,
+     * two outputs plus one conditional per {@code IF}, and the final output.
+     */
+    public long expectedLayerCount() {
+        long unrolled = macroDepth > 0 ? (long) forLoops * forRange * macroDepth : 0L;
+        return 1L + layers + modules + unrolled + 3L * ifBranches + 1L;
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticProgramSpec{" +
+                "layers=" + layers +
+                ", fanIn=" + fanIn +
+                ", window=" + window +
+                ", macroDepth=" + macroDepth +
+                ", forLoops=" + forLoops +
+                ", forRange=" + forRange +
+                ", ifBranches=" + ifBranches +
+                ", modules=" + modules +
+                ", width=" + width +
+                ", seed=" + seed +
+                '}';
+    }
+
+    public static final class Builder {
+        private int layers = 100;
+        private int fanIn = 1;
+        private int window = 8;
+        private int macroDepth = 0;
+        private int forLoops = 0;
+        private int forRange = 0;
+        private int ifBranches = 0;
+        private int modules = 0;
+        private int width = 16;
+        private long seed = 42L;
+
+        private Builder() {
+        }
+
+        public Builder layers(int layers) {
+            this.layers = layers;
+            return this;
+        }
+
+        public Builder fanIn(int fanIn) {
+            this.fanIn = fanIn;
+            return this;
+        }
+
+        public Builder window(int window) {
+            this.window = window;
+            return this;
+        }
+
+        public Builder macroDepth(int macroDepth) {
+            this.macroDepth = macroDepth;
+            return this;
+        }
+
+        public Builder forLoops(int forLoops, int forRange) {
+            this.forLoops = forLoops;
+            this.forRange = forRange;
+            return this;
+        }
+
+        public Builder ifBranches(int ifBranches) {
+            this.ifBranches = ifBranches;
+            return this;
+        }
+
+        public Builder modules(int modules) {
+            this.modules = modules;
+            return this;
+        }
+
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SyntheticProgramSpec build() {
+            require(layers >= 1, "layers must be >= 1");
+            require(fanIn >= 1, "fanIn must be >= 1");
+            require(window >= fanIn, "window must be >= fanIn");
+            require(macroDepth >= 0, "macroDepth must be >= 0");
+            require(forLoops >= 0 && forRange >= 0, "FOR loops and range must be >= 0");
+            require(ifBranches >= 0, "ifBranches must be >= 0");
+            require(modules >= 0 && modules <= layers, "modules must be in [0, layers]");
+            require(width >= 1, "width must be >= 1");
+            return new SyntheticProgramSpec(this);
+        }
+
+        private static void require(boolean condition, String message) {
+            if (!condition) {
+                throw new IllegalArgumentException(message);
+            }
+        }
+    }
+}
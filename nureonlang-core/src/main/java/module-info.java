@@ -3,5 +3,6 @@ module io.github.swampus.alexandra.nureonlang.core {
     requires org.slf4j;
     exports io.github.swampus.alexandra.nureonlang.parser.api;
     exports io.github.swampus.alexandra.nureonlang.parser.impl;
+    exports io.github.swampus.alexandra.nureonlang.synthetic;
 
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package io.github.swampus.alexandra.nueronlang.synthetic;
+
+import io.github.swampus.alexandra.nureonlang.parser.impl.InternalNureonLangServiceImpl;
+import io.github.swampus.alexandra.nureonlang.parser.impl.SyntaxCheckResult;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramGenerator;
+import io.github.swampus.alexandra.nureonlang.synthetic.SyntheticProgramSpec;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticProgramGeneratorTest {
+
+    private static SyntheticProgramSpec fullSpec(int layers) {
+        return SyntheticProgramSpec.builder()
+                .layers(layers)
+                .fanIn(3)
+                .window(16)
+                .macroDepth(3)
+                .forLoops(2, 5)
+                .ifBranches(4)
+                .modules(5)
+                .build();
+    }
+
+    @Test
+    void generatedProgramParsesWithoutErrors() {
+        String code = SyntheticProgramGenerator.generate(fullSpec(200));
+
+        SyntaxCheckResult result = new InternalNureonLangServiceImpl().checkSyntax(code);
+
+        assertTrue(result.isValid(), () -> result.getErrors().toString());
+        assertTrue(code.contains("DEFINE m_3(src)"));
+        assertTrue(code.contains("MODULE mod_4 BEGIN"));
+        assertTrue(code.contains("IF x[0] > 0 BEGIN"));
+        assertTrue(code.contains("CONNECT h199 -> y"));
+    }
+
+    @Test
+    void generationIsDeterministicPerSeed() {
+        assertEquals(SyntheticProgramGenerator.generate(fullSpec(300)),
+                SyntheticProgramGenerator.generate(fullSpec(300)));
+        assertNotEquals(SyntheticProgramGenerator.generate(fullSpec(300)),
+                SyntheticProgramGenerator.generate(SyntheticProgramSpec.builder()
+                        .layers(300).fanIn(3).window(16).seed(7).build()));
+    }
+
+    @Test
+    void fanInIsHonouredForEveryLayerWithEnoughPredecessors() {
+        String code = SyntheticProgramGenerator.generate(SyntheticProgramSpec.builder()
+                .layers(50).fanIn(4).window(10).build());
+
+        for (int i = 4; i < 50; i++) {
+            String target = " -> h" + i + "\n";
+            int count = 0;
+            for (int at = code.indexOf(target); at >= 0; at = code.indexOf(target, at + 1)) {
+                count++;
+            }
+            assertEquals(4, count, "fan-in of h" + i);
+        }
+    }
+
+    @Test
+    void rejectsInconsistentSpecs() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SyntheticProgramSpec.builder().layers(0).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> SyntheticProgramSpec.builder().fanIn(4).window(2).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> SyntheticProgramSpec.builder().layers(3).modules(4).build());
+    }
+}
@@ -3,6 +3,7 @@ package io.github.swampus.alexandra.ir.model;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,7 +12,7 @@ import lombok.NoArgsConstructor;
 
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Instruction {
@@ -59,55 +60,54 @@ public class Instruction {
      * dense[i] -> dense1   (i=1)
      */
     public Instruction deepCloneWithMultipleReplace(Map<String, ?> replacements) {
+        return withReplacements(replacements).deepClone();
+    }
 
-        Instruction copy = this.deepClone();
-
-        copy.name = replace(copy.name, replacements);
-        copy.from = replace(copy.from, replacements);
-        copy.to = replace(copy.to, replacements);
-        copy.expr = replace(copy.expr, replacements);
-        copy.group = replace(copy.group, replacements);
-        copy.space = replace(copy.space, replacements);
-        copy.target = replace(copy.target, replacements);
-
-        if (copy.inputs != null) {
-            copy.inputs = copy.inputs.stream()
-                    .map(s -> replace(s, replacements))
-                    .toList();
-        }
-
-        if (copy.outputs != null) {
-            copy.outputs = copy.outputs.stream()
-                    .map(s -> replace(s, replacements))
-                    .toList();
-        }
-
-        if (copy.params != null) {
-            Map<String,Object> newParams = new HashMap<>();
-            for (var e : copy.params.entrySet()) {
-                Object v = e.getValue();
-                if (v instanceof String s) {
-                    newParams.put(e.getKey(), replace(s, replacements));
-                } else {
-                    newParams.put(e.getKey(), v);
-                }
-            }
-            copy.params = newParams;
-        }
-
-        if (copy.body != null) {
-            List<Instruction> newBody = new java.util.ArrayList<>();
-            for (Instruction child : copy.body) {
-                newBody.add(child.deepCloneWithMultipleReplace(replacements));
-            }
-            copy.body = newBody;
-        }
-
-        if (copy.cond != null) {
-            copy.cond = copy.cond.deepCloneWithMultipleReplace(replacements);
+    /**
+     * Copy-on-write variant of {@link #deepCloneWithMultipleReplace(Map)}.
+     *
+     * <p>Only nodes whose fields actually change are copied; unchanged subtrees,
+     * lists and maps are shared with this instruction, and {@code this} is
+     * returned when nothing changes at all. The result must be treated as
+     * read-only.</p>
+     */
+    public Instruction withReplacements(Map<String, ?> replacements) {
+        UnaryOperator<String> f = s -> replace(s, replacements);
+
+        String newName = InstructionRewriter.string(name, f);
+        String newFrom = InstructionRewriter.string(from, f);
+        String newTo = InstructionRewriter.string(to, f);
+        String newExpr = InstructionRewriter.string(expr, f);
+        String newGroup = InstructionRewriter.string(group, f);
+        String newSpace = InstructionRewriter.string(space, f);
+        String newTarget = InstructionRewriter.string(target, f);
+        List<String> newInputs = InstructionRewriter.strings(inputs, f);
+        List<String> newOutputs = InstructionRewriter.strings(outputs, f);
+        Map<String, Object> newParams = InstructionRewriter.values(params, f, false);
+        List<Instruction> newBody = InstructionRewriter.body(body, child -> child.withReplacements(replacements));
+        Instruction newCond = (cond == null) ? null : cond.withReplacements(replacements);
+
+        if (newName == name && newFrom == from && newTo == to && newExpr == expr
+                && newGroup == group && newSpace == space && newTarget == target
+                && newInputs == inputs && newOutputs == outputs && newParams == params
+                && newBody == body && newCond == cond) {
+            return this;
         }
 
-        return copy;
+        return toBuilder()
+                .name(newName)
+                .from(newFrom)
+                .to(newTo)
+                .expr(newExpr)
+                .group(newGroup)
+                .space(newSpace)
+                .target(newTarget)
+                .inputs(newInputs)
+                .outputs(newOutputs)
+                .params(newParams)
+                .body(newBody)
+                .cond(newCond)
+                .build();
     }
 
     private static String replace(String value, Map<String, ?> repl) {
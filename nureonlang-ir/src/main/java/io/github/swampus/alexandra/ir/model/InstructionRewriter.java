@@ -0,0 +1,93 @@
+package io.github.swampus.alexandra.ir.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copy-on-write helpers for rewriting {@link Instruction} trees.
+ *
+ * <p>Every method returns its argument unchanged (same reference) when the
+ * rewrite does not alter anything, and allocates a new container only when at
+ * least one element changed. Unchanged elements of a changed container are
+ * shared with the original, so rewriting a large template that mentions a
+ * variable in a few places only allocates the nodes on the path to those places.</p>
+ *
+ * <p>Results may therefore alias the input; instruction trees produced this way
+ * must be treated as read-only.</p>
+ */
+public final class InstructionRewriter {
+
+    private InstructionRewriter() {
+    }
+
+    /** Rewrites a single string, keeping the original reference if the value is equal. */
+    public static String string(String value, UnaryOperator<String> rewrite) {
+        if (value == null) return null;
+        String out = rewrite.apply(value);
+        return value.equals(out) ? value : out;
+    }
+
+    /** Rewrites every element of a string list. */
+    public static List<String> strings(List<String> values, UnaryOperator<String> rewrite) {
+        if (values == null) return null;
+        List<String> out = null;
+        for (int i = 0; i < values.size(); i++) {
+            String v = values.get(i);
+            String r = string(v, rewrite);
+            if (out == null && r != v) {
+                out = new ArrayList<>(values.subList(0, i));
+            }
+            if (out != null) out.add(r);
+        }
+        return out == null ? values : Collections.unmodifiableList(out);
+    }
+
+    /**
+     * Rewrites the string values of a map, and its keys when {@code keys} is set.
+     * Non-string values are kept as they are.
+     */
+    public static Map<String, Object> values(Map<String, Object> map, UnaryOperator<String> rewrite, boolean keys) {
+        if (map == null) return null;
+        Map<String, Object> out = null;
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            String key = e.getKey();
+            Object value = e.getValue();
+            String newKey = keys ? string(key, rewrite) : key;
+            Object newValue = (value instanceof String s) ? string(s, rewrite) : value;
+            if (out == null && (newKey != key || newValue != value)) {
+                out = copyBefore(map, key);
+            }
+            if (out != null) out.put(newKey, newValue);
+        }
+        return out == null ? map : out;
+    }
+
+    /** Rewrites every child of a body, sharing the children the rewrite returned unchanged. */
+    public static List<Instruction> body(List<Instruction> body, UnaryOperator<Instruction> rewrite) {
+        if (body == null) return null;
+        List<Instruction> out = null;
+        for (int i = 0; i < body.size(); i++) {
+            Instruction child = body.get(i);
+            Instruction r = rewrite.apply(child);
+            if (out == null && r != child) {
+                out = new ArrayList<>(body.subList(0, i));
+            }
+            if (out != null) out.add(r);
+        }
+        return out == null ? body : Collections.unmodifiableList(out);
+    }
+
+    /** Copies the entries iterated before {@code stopKey} (they were left unchanged). */
+    private static Map<String, Object> copyBefore(Map<String, Object> map, String stopKey) {
+        Map<String, Object> out = new HashMap<>(map.size() * 2);
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            if (e.getKey() == stopKey) break;
+            out.put(e.getKey(), e.getValue());
+        }
+        return out;
+    }
+}